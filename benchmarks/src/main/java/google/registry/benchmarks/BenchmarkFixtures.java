@@ -0,0 +1,122 @@
+// Copyright 2023 The Nomulus Authors. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package google.registry.benchmarks;
+
+import static google.registry.util.DateTimeUtils.START_OF_TIME;
+import static google.registry.util.ResourceUtils.readResourceUtf8;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.joda.money.CurrencyUnit.USD;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ImmutableSortedMap;
+import google.registry.config.RegistryEnvironment;
+import google.registry.dns.writer.VoidDnsWriter;
+import google.registry.model.eppcommon.EppXmlTransformer;
+import google.registry.model.eppinput.EppInput;
+import google.registry.model.pricing.StaticPremiumListPricingEngine;
+import google.registry.model.tld.Tld;
+import google.registry.model.tld.Tld.TldState;
+import google.registry.model.tld.label.PremiumList;
+import google.registry.model.tld.label.ReservedList;
+import google.registry.xml.XmlException;
+import java.util.Optional;
+import org.joda.money.Money;
+
+/**
+ * In-memory fixtures shared by the benchmarks.
+ *
+ * <p>Benchmarks must call {@link #setUpEnvironment} before anything reads the registry config,
+ * i.e. first thing in their {@code @Setup} method. The {@code UNITTEST} environment that would
+ * otherwise be used disables all caching, which would make every cached lookup go to the database.
+ */
+public final class BenchmarkFixtures {
+
+  /** The TLD that {@link #setUpTld} creates. */
+  public static final String TLD = "tld";
+
+  /** Lines of the premium list of {@link #TLD}. */
+  public static final ImmutableList<String> PREMIUM_LIST_LINES =
+      ImmutableList.of(
+          "rich,USD 100",
+          "richer,USD 1000",
+          "richest,USD 10000",
+          "platinum,USD 500",
+          "gold,USD 250",
+          "silver,USD 50");
+
+  /** Lines of the reserved list of {@link #TLD}. */
+  public static final ImmutableList<String> RESERVED_LIST_LINES =
+      ImmutableList.of(
+          "reserved,FULLY_BLOCKED",
+          "nameserver,NAME_COLLISION",
+          "anchor,RESERVED_FOR_ANCHOR_TENANT",
+          "specific,RESERVED_FOR_SPECIFIC_USE",
+          "restricted,ALLOWED_IN_SUNRISE # a comment");
+
+  private static boolean tldSetUp;
+
+  /** Makes the registry config use non-zero cache durations. */
+  public static void setUpEnvironment() {
+    RegistryEnvironment.LOCAL.setup();
+  }
+
+  /**
+   * Creates {@link #TLD} with its premium and reserved lists, without a database.
+   *
+   * <p>This is idempotent, so that benchmarks can call it from every {@code @Setup} method.
+   */
+  public static synchronized Tld setUpTld() {
+    setUpEnvironment();
+    if (!tldSetUp) {
+      PremiumList premiumList = InMemoryLabelLists.addPremiumList(TLD, USD, PREMIUM_LIST_LINES);
+      ReservedList reservedList = InMemoryLabelLists.addReservedList(TLD, RESERVED_LIST_LINES);
+      Tld tld = newTld(premiumList, reservedList);
+      Tld.setCacheLoaderForTest(tldStr -> TLD.equals(tldStr) ? Optional.of(tld) : Optional.empty());
+      tldSetUp = true;
+    }
+    return Tld.get(TLD);
+  }
+
+  /** Returns a new {@link Tld} with the given lists, configured like the test TLDs of core. */
+  public static Tld newTld(PremiumList premiumList, ReservedList reservedList) {
+    return new Tld.Builder()
+        .setTldStr(TLD)
+        .setRoidSuffix("TLD")
+        .setTldStateTransitions(ImmutableSortedMap.of(START_OF_TIME, TldState.GENERAL_AVAILABILITY))
+        .setRenewBillingCostTransitions(ImmutableSortedMap.of(START_OF_TIME, Money.of(USD, 11)))
+        .setEapFeeSchedule(ImmutableSortedMap.of(START_OF_TIME, Money.zero(USD)))
+        .setCreateBillingCost(Money.of(USD, 13))
+        .setRestoreBillingCost(Money.of(USD, 17))
+        .setServerStatusChangeBillingCost(Money.of(USD, 19))
+        .setPremiumList(premiumList)
+        .setReservedLists(reservedList)
+        .setPremiumPricingEngine(StaticPremiumListPricingEngine.NAME)
+        .setDnsWriters(ImmutableSet.of(VoidDnsWriter.NAME))
+        .build();
+  }
+
+  /** Returns the contents of an EPP XML fixture, given its name without the extension. */
+  public static byte[] loadXml(String name) {
+    return readResourceUtf8(BenchmarkFixtures.class, name + ".xml").getBytes(UTF_8);
+  }
+
+  /** Returns an EPP XML fixture as an {@link EppInput}, given its name without the extension. */
+  public static EppInput loadEppInput(String name) throws XmlException {
+    return EppXmlTransformer.unmarshal(EppInput.class, loadXml(name));
+  }
+
+  private BenchmarkFixtures() {}
+}
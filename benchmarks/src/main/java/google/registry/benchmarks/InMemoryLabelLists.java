@@ -0,0 +1,84 @@
+// Copyright 2023 The Nomulus Authors. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package google.registry.benchmarks;
+
+import static org.joda.time.DateTimeZone.UTC;
+
+import google.registry.model.tld.label.PremiumList;
+import google.registry.model.tld.label.PremiumListDao;
+import google.registry.model.tld.label.PremiumListUtils;
+import google.registry.model.tld.label.ReservedList;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import org.joda.money.CurrencyUnit;
+import org.joda.time.DateTime;
+
+/**
+ * Serves {@link PremiumList}s and {@link ReservedList}s from memory instead of the database.
+ *
+ * <p>The lists are served through the same caches that production lookups go through, only with
+ * loaders that read the maps below, so a benchmark measures the lookups of a warmed-up server.
+ */
+public final class InMemoryLabelLists {
+
+  private static final AtomicLong nextRevisionId = new AtomicLong(1);
+
+  /** Premium lists by name. */
+  private static final Map<String, PremiumList> premiumLists = new ConcurrentHashMap<>();
+
+  /** Premium list contents, by revision ID. */
+  private static final Map<Long, Map<String, BigDecimal>> premiumPrices =
+      new ConcurrentHashMap<>();
+
+  /** Reserved lists by name. */
+  private static final Map<String, ReservedList> reservedLists = new ConcurrentHashMap<>();
+
+  /** Parses a premium list in the usual file format and makes it available under its name. */
+  public static synchronized PremiumList addPremiumList(
+      String name, CurrencyUnit currency, List<String> lines) {
+    PremiumList premiumList = PremiumListUtils.parseToPremiumList(name, currency, lines);
+    // Lists are immutable once saved, so revision IDs are what a saved list would get.
+    premiumList.setRevisionIdForTest(nextRevisionId.getAndIncrement());
+    premiumPrices.put(premiumList.getRevisionId(), premiumList.getLabelsToPrices());
+    premiumLists.put(name, premiumList);
+    // This also forgets any earlier lookup of the name.
+    PremiumListDao.setCacheLoadersForTest(
+        listName -> Optional.ofNullable(premiumLists.get(listName)),
+        (revisionId, label) -> Optional.ofNullable(premiumPrices.get(revisionId).get(label)));
+    return premiumList;
+  }
+
+  /** Parses a reserved list in the usual file format and makes it available under its name. */
+  public static synchronized ReservedList addReservedList(String name, List<String> lines) {
+    ReservedList reservedList =
+        new ReservedList.Builder()
+            .setName(name)
+            .setCreationTimestamp(DateTime.now(UTC))
+            .setShouldPublish(true)
+            .setReservedListMapFromLines(lines)
+            .build();
+    reservedList.setRevisionIdForTest(nextRevisionId.getAndIncrement());
+    reservedLists.put(name, reservedList);
+    ReservedList.setCacheLoaderForTest(
+        listName -> Optional.ofNullable(reservedLists.get(listName)));
+    return reservedList;
+  }
+
+  private InMemoryLabelLists() {}
+}
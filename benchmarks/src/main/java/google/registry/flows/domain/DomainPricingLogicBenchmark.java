@@ -0,0 +1,77 @@
+// Copyright 2023 The Nomulus Authors. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package google.registry.flows.domain;
+
+import static org.joda.time.DateTimeZone.UTC;
+
+import google.registry.benchmarks.BenchmarkFixtures;
+import google.registry.flows.EppException;
+import google.registry.flows.custom.DomainPricingCustomLogic;
+import google.registry.model.tld.Tld;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import org.joda.time.DateTime;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks of {@link DomainPricingLogic}, which prices domain checks with the fee extension as
+ * well as creates and renews.
+ *
+ * <p>The TLD and its premium list are served from the in-memory caches that {@link
+ * BenchmarkFixtures#setUpTld} fills, so this measures the pricing of a warmed-up server.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DomainPricingLogicBenchmark {
+
+  /** A standard and a premium domain name. */
+  @Param({"example.tld", "rich.tld"})
+  String domainName;
+
+  private DomainPricingLogic pricingLogic;
+  private Tld tld;
+  private DateTime now;
+
+  @Setup
+  public void setUp() {
+    tld = BenchmarkFixtures.setUpTld();
+    pricingLogic = new DomainPricingLogic(new DomainPricingCustomLogic(null, null, null));
+    now = DateTime.now(UTC);
+  }
+
+  @Benchmark
+  public FeesAndCredits getCreatePrice() throws EppException {
+    return pricingLogic.getCreatePrice(tld, domainName, now, 2, false, false, Optional.empty());
+  }
+
+  @Benchmark
+  public FeesAndCredits getRenewPrice() throws EppException {
+    return pricingLogic.getRenewPrice(tld, domainName, now, 1, null, Optional.empty());
+  }
+}
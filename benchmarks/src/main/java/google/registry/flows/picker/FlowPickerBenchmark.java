@@ -0,0 +1,61 @@
+// Copyright 2023 The Nomulus Authors. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package google.registry.flows.picker;
+
+import static google.registry.benchmarks.BenchmarkFixtures.loadEppInput;
+
+import google.registry.benchmarks.BenchmarkFixtures;
+import google.registry.flows.EppException;
+import google.registry.flows.Flow;
+import google.registry.model.eppinput.EppInput;
+import google.registry.xml.XmlException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Benchmarks of {@link FlowPicker}, which selects the flow of every EPP command. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FlowPickerBenchmark {
+
+  @Param({"login", "domain_check_fee", "domain_create_fee", "domain_info", "domain_renew"})
+  String input;
+
+  private EppInput eppInput;
+
+  @Setup
+  public void setUp() throws XmlException {
+    BenchmarkFixtures.setUpEnvironment();
+    eppInput = loadEppInput(input);
+  }
+
+  @Benchmark
+  public Class<? extends Flow> getFlowClass() throws EppException {
+    return FlowPicker.getFlowClass(eppInput);
+  }
+}
@@ -0,0 +1,85 @@
+// Copyright 2023 The Nomulus Authors. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package google.registry.model;
+
+import static google.registry.benchmarks.BenchmarkFixtures.loadEppInput;
+
+import google.registry.benchmarks.BenchmarkFixtures;
+import google.registry.model.tld.Tld;
+import google.registry.xml.XmlException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks of the reflective {@link ImmutableObject#equals}, {@link ImmutableObject#hashCode}
+ * and {@link ImmutableObject#toString}.
+ *
+ * <p>Each benchmark compares two equal objects that were built separately, so that neither the
+ * identity check nor a differing hash code cut the comparison short.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ImmutableObjectBenchmark {
+
+  /** A deeply nested EPP command and a {@link Tld}, which has many fields. */
+  @Param({"domain_create_fee", "tld"})
+  String object;
+
+  private ImmutableObject first;
+  private ImmutableObject second;
+
+  @Setup
+  public void setUp() throws XmlException {
+    if (object.equals("tld")) {
+      first = BenchmarkFixtures.setUpTld();
+      second = ((Tld) first).asBuilder().build();
+    } else {
+      BenchmarkFixtures.setUpEnvironment();
+      first = loadEppInput(object);
+      second = loadEppInput(object);
+    }
+  }
+
+  @Benchmark
+  public boolean equalsOfEqualObject() {
+    return first.equals(second);
+  }
+
+  /** Measures the computation of the hash code, which is otherwise cached after the first call. */
+  @Benchmark
+  public int hashCodeUncached() {
+    first.hashCode = null;
+    return first.hashCode();
+  }
+
+  @Benchmark
+  public String toStringOfObject() {
+    return first.toString();
+  }
+}
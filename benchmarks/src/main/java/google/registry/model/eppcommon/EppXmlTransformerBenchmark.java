@@ -0,0 +1,154 @@
+// Copyright 2023 The Nomulus Authors. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package google.registry.model.eppcommon;
+
+import static google.registry.benchmarks.BenchmarkFixtures.loadXml;
+import static org.joda.time.DateTimeZone.UTC;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import google.registry.benchmarks.BenchmarkFixtures;
+import google.registry.model.domain.DesignatedContact;
+import google.registry.model.domain.DomainAuthInfo;
+import google.registry.model.domain.DomainInfoData;
+import google.registry.model.domain.ForeignKeyedDesignatedContact;
+import google.registry.model.eppcommon.AuthInfo.PasswordAuth;
+import google.registry.model.eppinput.EppInput;
+import google.registry.model.eppoutput.CheckData.DomainCheck;
+import google.registry.model.eppoutput.CheckData.DomainCheckData;
+import google.registry.model.eppoutput.EppOutput;
+import google.registry.model.eppoutput.EppResponse;
+import google.registry.model.eppoutput.Result;
+import google.registry.xml.ValidationMode;
+import google.registry.xml.XmlException;
+import java.util.concurrent.TimeUnit;
+import org.joda.time.DateTime;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks of {@link EppXmlTransformer}, which every EPP request and response goes through.
+ *
+ * <p>The inputs and outputs are parameterized separately, so that each benchmark only runs with
+ * the parameters that it uses.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EppXmlTransformerBenchmark {
+
+  /** An EPP request to unmarshal. */
+  @State(Scope.Benchmark)
+  public static class Input {
+
+    @Param({"login", "domain_check_fee", "domain_create_fee", "domain_info", "domain_renew"})
+    String name;
+
+    byte[] xml;
+
+    @Setup
+    public void setUp() {
+      BenchmarkFixtures.setUpEnvironment();
+      xml = loadXml(name);
+    }
+  }
+
+  /** EPP responses to marshal. */
+  @State(Scope.Benchmark)
+  public static class Output {
+
+    /** Whether responses are validated against the schemas, as they are in production. */
+    @Param({"STRICT", "LENIENT"})
+    ValidationMode validation;
+
+    EppOutput checkResponse;
+    EppOutput infoResponse;
+
+    @Setup
+    public void setUp() {
+      BenchmarkFixtures.setUpEnvironment();
+      Trid trid = Trid.create("ABC-12345", "server-trid");
+      checkResponse =
+          EppOutput.create(
+              new EppResponse.Builder()
+                  .setTrid(trid)
+                  .setResultFromCode(Result.Code.SUCCESS)
+                  .setResData(
+                      DomainCheckData.create(
+                          ImmutableList.of(
+                              DomainCheck.create(true, "example.tld", null),
+                              DomainCheck.create(true, "rich.tld", null),
+                              DomainCheck.create(false, "reserved.tld", "Reserved"),
+                              DomainCheck.create(true, "xn--bcher-kva.tld", null),
+                              DomainCheck.create(false, "another-example.tld", "In use"))))
+                  .build());
+      DateTime creationTime = DateTime.parse("2000-04-03T22:00:00.0Z").withZone(UTC);
+      infoResponse =
+          EppOutput.create(
+              new EppResponse.Builder()
+                  .setTrid(trid)
+                  .setResultFromCode(Result.Code.SUCCESS)
+                  .setResData(
+                      DomainInfoData.newBuilder()
+                          .setDomainName("example.tld")
+                          .setRepoId("2FF-TLD")
+                          .setCurrentSponsorRegistrarId("NewRegistrar")
+                          .setStatusValues(ImmutableSet.of(StatusValue.OK))
+                          .setRegistrant("jd1234")
+                          .setContacts(
+                              ImmutableSet.of(
+                                  ForeignKeyedDesignatedContact.create(
+                                      DesignatedContact.Type.ADMIN, "sh8013"),
+                                  ForeignKeyedDesignatedContact.create(
+                                      DesignatedContact.Type.TECH, "sh8013")))
+                          .setNameservers(ImmutableSet.of("ns1.example.net", "ns2.example.net"))
+                          .setSubordinateHosts(ImmutableSet.of("ns1.example.tld"))
+                          .setCreationRegistrarId("NewRegistrar")
+                          .setCreationTime(creationTime)
+                          .setLastEppUpdateRegistrarId("NewRegistrar")
+                          .setLastEppUpdateTime(creationTime.plusDays(5))
+                          .setRegistrationExpirationTime(creationTime.plusYears(2))
+                          .setAuthInfo(DomainAuthInfo.create(PasswordAuth.create("2fooBAR")))
+                          .build())
+                  .build());
+    }
+  }
+
+  @Benchmark
+  public EppInput unmarshal(Input input) throws XmlException {
+    return EppXmlTransformer.unmarshal(EppInput.class, input.xml);
+  }
+
+  @Benchmark
+  public byte[] marshal_domainCheckResponse(Output output) throws XmlException {
+    return EppXmlTransformer.marshal(output.checkResponse, output.validation);
+  }
+
+  @Benchmark
+  public byte[] marshal_domainInfoResponse(Output output) throws XmlException {
+    return EppXmlTransformer.marshal(output.infoResponse, output.validation);
+  }
+}
@@ -0,0 +1,68 @@
+// Copyright 2023 The Nomulus Authors. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package google.registry.model.tld.label;
+
+import static google.registry.benchmarks.BenchmarkFixtures.TLD;
+
+import com.google.common.collect.ImmutableSet;
+import google.registry.benchmarks.BenchmarkFixtures;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import org.joda.money.Money;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks of the premium and reserved list lookups that domain checks and creates make.
+ *
+ * <p>The lists are served from the in-memory caches that {@link BenchmarkFixtures#setUpTld}
+ * fills, so this measures the lookups of a warmed-up server.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DomainLabelListsBenchmark {
+
+  /** A label on neither list, a premium label and a reserved label. */
+  @Param({"example", "rich", "reserved"})
+  String label;
+
+  @Setup
+  public void setUp() {
+    BenchmarkFixtures.setUpTld();
+  }
+
+  @Benchmark
+  public Optional<Money> getPremiumPrice() {
+    return PremiumListDao.getPremiumPrice(TLD, label);
+  }
+
+  @Benchmark
+  public ImmutableSet<ReservationType> getReservationTypes() {
+    return ReservedList.getReservationTypes(label, TLD);
+  }
+}
@@ -146,7 +146,10 @@ PROPERTIES = [
              'will disable image generation.',
              '/usr/bin/dot'),
     Property('pipeline',
-             'The name of the Beam pipeline being staged.')
+             'The name of the Beam pipeline being staged.'),
+    Property('jmhArgs',
+             'Space separated arguments for the JMH runner of the '
+             ':benchmarks:jmh task, e.g. a benchmark name regex.')
 ]
 
 GRADLE_FLAGS = [
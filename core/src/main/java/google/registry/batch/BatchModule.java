@@ -121,12 +121,30 @@ public class BatchModule {
     return extractOptionalDatetimeParameter(req, WipeOutContactHistoryPiiAction.PARAM_CUTOFF_TIME);
   }
 
+  @Provides
+  @Parameter(DeleteExpiredDomainsAction.PARAM_CONCURRENCY)
+  static Optional<Integer> provideDeleteExpiredDomainsConcurrency(HttpServletRequest req) {
+    return extractOptionalIntParameter(req, DeleteExpiredDomainsAction.PARAM_CONCURRENCY);
+  }
+
+  @Provides
+  @Parameter(DeleteExpiredDomainsAction.PARAM_TIME_LIMIT_MINUTES)
+  static Optional<Integer> provideDeleteExpiredDomainsTimeLimitMinutes(HttpServletRequest req) {
+    return extractOptionalIntParameter(req, DeleteExpiredDomainsAction.PARAM_TIME_LIMIT_MINUTES);
+  }
+
   @Provides
   @Parameter(ExpandBillingRecurrencesAction.PARAM_ADVANCE_CURSOR)
   static boolean provideAdvanceCursor(HttpServletRequest req) {
     return extractBooleanParameter(req, ExpandBillingRecurrencesAction.PARAM_ADVANCE_CURSOR);
   }
 
+  @Provides
+  @Parameter(ExpandBillingRecurrencesAction.PARAM_BATCHED_EXPANSION)
+  static boolean provideBatchedExpansion(HttpServletRequest req) {
+    return extractBooleanParameter(req, ExpandBillingRecurrencesAction.PARAM_BATCHED_EXPANSION);
+  }
+
   @Provides
   @Parameter(PARAM_FAST)
   static boolean provideIsFast(HttpServletRequest req) {
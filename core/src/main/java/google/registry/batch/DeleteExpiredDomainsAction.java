@@ -14,19 +14,25 @@
 
 package google.registry.batch;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.collect.ImmutableListMultimap.toImmutableListMultimap;
 import static com.google.common.net.MediaType.PLAIN_TEXT_UTF_8;
 import static google.registry.flows.FlowUtils.marshalWithLenientRetry;
 import static google.registry.persistence.transaction.TransactionManagerFactory.tm;
 import static google.registry.util.DateTimeUtils.END_OF_TIME;
 import static google.registry.util.ResourceUtils.readResourceUtf8;
 import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Comparator.comparing;
 import static javax.servlet.http.HttpServletResponse.SC_INTERNAL_SERVER_ERROR;
 import static javax.servlet.http.HttpServletResponse.SC_NO_CONTENT;
 import static javax.servlet.http.HttpServletResponse.SC_OK;
 
+import com.google.auto.value.AutoValue;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableListMultimap;
 import com.google.common.flogger.FluentLogger;
+import google.registry.batch.DeleteExpiredDomainsMetrics.Outcome;
 import google.registry.config.RegistryConfig.Config;
 import google.registry.flows.EppController;
 import google.registry.flows.EppRequestSource;
@@ -37,14 +43,17 @@ import google.registry.model.eppcommon.ProtocolDefinition;
 import google.registry.model.eppoutput.EppOutput;
 import google.registry.persistence.transaction.QueryComposer.Comparator;
 import google.registry.request.Action;
+import google.registry.request.Parameter;
 import google.registry.request.Response;
 import google.registry.request.auth.Auth;
 import google.registry.request.lock.LockHandler;
 import google.registry.util.Clock;
+import google.registry.util.Concurrent;
 import java.util.Optional;
 import java.util.concurrent.Callable;
 import java.util.logging.Level;
 import javax.inject.Inject;
+import javax.inject.Provider;
 import org.joda.time.DateTime;
 import org.joda.time.Duration;
 
@@ -65,6 +74,15 @@ import org.joda.time.Duration;
  * in use by other domains), nor is it possible to take the correct action without exercising some
  * human judgment. Accordingly, such deletes will fail with SEVERE-level log messages every day when
  * this action runs, thus alerting us that human action is needed to correctly process the delete.
+ *
+ * <p>By default the deletes are run one at a time. The {@code concurrency} parameter allows up to
+ * that many TLDs to be processed in parallel, and is capped by the {@code
+ * deleteExpiredDomainsMaxConcurrency} config, since each TLD being processed holds a connection
+ * from the database pool that the rest of the service shares. The deletes within a single TLD are
+ * always run sequentially, in order of autorenew end time. Each delete commits in its own
+ * transaction and the query above only ever returns domains that haven't been deleted yet, so a
+ * run that stops once its {@code timeLimitMinutes} is exhausted (or that dies outright) is simply
+ * picked up where it left off by the next invocation.
  */
 @Action(
     service = Action.Service.BACKEND,
@@ -73,28 +91,54 @@ import org.joda.time.Duration;
 public class DeleteExpiredDomainsAction implements Runnable {
 
   public static final String PATH = "/_dr/task/deleteExpiredDomains";
+  public static final String PARAM_CONCURRENCY = "concurrency";
+  public static final String PARAM_TIME_LIMIT_MINUTES = "timeLimitMinutes";
+
   private static final String LOCK_NAME = "Delete expired domains";
+  private static final Duration LOCK_DURATION = Duration.standardHours(1);
+
+  /**
+   * The default amount of time after which no further deletes are started.
+   *
+   * <p>This is kept below the lock duration so that a run never outlives its lock.
+   */
+  private static final int DEFAULT_TIME_LIMIT_MINUTES = 50;
 
   private static final FluentLogger logger = FluentLogger.forEnclosingClass();
-  private final EppController eppController;
+  private final Provider<EppController> eppControllerProvider;
   private final String registryAdminClientId;
   private final Clock clock;
   private final LockHandler lockHandler;
   private final Response response;
+  private final DeleteExpiredDomainsMetrics metrics;
+  private final int concurrency;
+  private final Duration timeLimit;
   private final String deleteXmlTmpl;
 
   @Inject
   DeleteExpiredDomainsAction(
-      EppController eppController,
+      Provider<EppController> eppControllerProvider,
       @Config("registryAdminClientId") String registryAdminClientId,
       Clock clock,
       LockHandler lockHandler,
-      Response response) {
-    this.eppController = eppController;
+      Response response,
+      DeleteExpiredDomainsMetrics metrics,
+      @Config("deleteExpiredDomainsMaxConcurrency") int maxConcurrency,
+      @Parameter(PARAM_CONCURRENCY) Optional<Integer> concurrency,
+      @Parameter(PARAM_TIME_LIMIT_MINUTES) Optional<Integer> timeLimitMinutes) {
+    this.eppControllerProvider = eppControllerProvider;
     this.registryAdminClientId = registryAdminClientId;
     this.clock = clock;
     this.lockHandler = lockHandler;
     this.response = response;
+    this.metrics = metrics;
+    this.concurrency = concurrency.orElse(1);
+    this.timeLimit =
+        Duration.standardMinutes(timeLimitMinutes.orElse(DEFAULT_TIME_LIMIT_MINUTES));
+    checkArgument(this.concurrency > 0, "Concurrency must be positive");
+    checkArgument(
+        this.concurrency <= maxConcurrency, "Concurrency must be at most %s", maxConcurrency);
+    checkArgument(this.timeLimit.getMillis() > 0, "Time limit must be positive");
     this.deleteXmlTmpl =
         readResourceUtf8(DeleteExpiredDomainsAction.class, "delete_expired_domain.xml");
   }
@@ -116,7 +160,7 @@ public class DeleteExpiredDomainsAction implements Runnable {
           return null;
         };
 
-    if (!lockHandler.executeWithLocks(runner, null, Duration.standardHours(1), LOCK_NAME)) {
+    if (!lockHandler.executeWithLocks(runner, null, LOCK_DURATION, LOCK_NAME)) {
       // Send a 200-series status code to prevent this conflicting action from retrying.
       response.setStatus(SC_NO_CONTENT);
       response.setPayload("Could not acquire lock; already running?");
@@ -146,21 +190,68 @@ public class DeleteExpiredDomainsAction implements Runnable {
         domainsToDelete.size(),
         String.join(
             ", ", domainsToDelete.stream().map(Domain::getDomainName).collect(toImmutableList())));
-    int successes = 0;
-    for (Domain domain : domainsToDelete) {
-      if (runDomainDeleteFlow(domain)) {
-        successes++;
-      }
-    }
-    int failures = domainsToDelete.size() - successes;
+    // Group the domains by TLD, preserving autorenew end time order within each TLD.
+    ImmutableListMultimap<String, Domain> domainsByTld =
+        domainsToDelete.stream()
+            .sorted(
+                comparing((Domain d) -> d.getAutorenewEndTime().orElse(END_OF_TIME))
+                    .thenComparing(Domain::getDomainName))
+            .collect(toImmutableListMultimap(Domain::getTld, d -> d));
+    DateTime deadline = runTime.plus(timeLimit);
+    ImmutableList<DeletionResult> results =
+        Concurrent.transform(
+            domainsByTld.keySet(),
+            concurrency,
+            tld -> deleteDomainsOfTld(tld, domainsByTld.get(tld), deadline));
+    int successes = results.stream().mapToInt(DeletionResult::successes).sum();
+    int failures = results.stream().mapToInt(DeletionResult::failures).sum();
+    int remaining = domainsToDelete.size() - successes - failures;
+    metrics.recordRun(concurrency, successes, new Duration(runTime, clock.nowUtc()));
     String msg =
         String.format(
             "Finished; %d domains were successfully deleted and %d errored out.",
             successes, failures);
+    if (remaining > 0) {
+      msg +=
+          String.format(
+              " Time limit of %s reached; %d domains left for the next run.", timeLimit, remaining);
+    }
     logger.at(failures == 0 ? Level.INFO : Level.SEVERE).log(msg);
     response.setPayload(msg);
   }
 
+  /**
+   * Sequentially deletes the given domains of a single TLD, stopping once the deadline has passed.
+   */
+  private DeletionResult deleteDomainsOfTld(
+      String tld, ImmutableList<Domain> domains, DateTime deadline) {
+    int successes = 0;
+    int failures = 0;
+    for (Domain domain : domains) {
+      if (clock.nowUtc().isAfter(deadline)) {
+        logger.atWarning().log(
+            "Deadline passed; skipping the remaining %d domains on TLD %s.",
+            domains.size() - successes - failures, tld);
+        break;
+      }
+      boolean success;
+      try {
+        success = runDomainDeleteFlow(domain);
+      } catch (RuntimeException e) {
+        logger.atSevere().withCause(e).log(
+            "Unexpected error while deleting domain '%s'.", domain.getDomainName());
+        success = false;
+      }
+      metrics.recordDelete(tld, success ? Outcome.SUCCESS : Outcome.FAILURE);
+      if (success) {
+        successes++;
+      } else {
+        failures++;
+      }
+    }
+    return DeletionResult.create(successes, failures);
+  }
+
   /** Runs the actual domain delete flow and returns whether the deletion was successful. */
   private boolean runDomainDeleteFlow(Domain domain) {
     logger.atInfo().log("Attempting to delete domain '%s'.", domain.getDomainName());
@@ -183,18 +274,21 @@ public class DeleteExpiredDomainsAction implements Runnable {
                         transDomain.getDomainName(), transDomain.getDeletionTime());
                     return Optional.empty();
                   }
+                  // Each delete gets its own controller since they aren't thread-safe.
                   return Optional.of(
-                      eppController.handleEppCommand(
-                          new StatelessRequestSessionMetadata(
-                              registryAdminClientId,
-                              ProtocolDefinition.getVisibleServiceExtensionUris()),
-                          new PasswordOnlyTransportCredentials(),
-                          EppRequestSource.BACKEND,
-                          false,
-                          true,
-                          deleteXmlTmpl
-                              .replace("%DOMAIN%", transDomain.getDomainName())
-                              .getBytes(UTF_8)));
+                      eppControllerProvider
+                          .get()
+                          .handleEppCommand(
+                              new StatelessRequestSessionMetadata(
+                                  registryAdminClientId,
+                                  ProtocolDefinition.getVisibleServiceExtensionUris()),
+                              new PasswordOnlyTransportCredentials(),
+                              EppRequestSource.BACKEND,
+                              false,
+                              true,
+                              deleteXmlTmpl
+                                  .replace("%DOMAIN%", transDomain.getDomainName())
+                                  .getBytes(UTF_8)));
                 });
 
     if (eppOutput.isPresent()) {
@@ -208,4 +302,17 @@ public class DeleteExpiredDomainsAction implements Runnable {
     }
     return eppOutput.map(EppOutput::isSuccess).orElse(false);
   }
+
+  /** The number of successful and failed deletes on a single TLD. */
+  @AutoValue
+  abstract static class DeletionResult {
+
+    static DeletionResult create(int successes, int failures) {
+      return new AutoValue_DeleteExpiredDomainsAction_DeletionResult(successes, failures);
+    }
+
+    abstract int successes();
+
+    abstract int failures();
+  }
 }
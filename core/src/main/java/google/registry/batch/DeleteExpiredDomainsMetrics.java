@@ -0,0 +1,81 @@
+// Copyright 2023 The Nomulus Authors. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package google.registry.batch;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.monitoring.metrics.DistributionFitter;
+import com.google.monitoring.metrics.EventMetric;
+import com.google.monitoring.metrics.ExponentialFitter;
+import com.google.monitoring.metrics.IncrementableMetric;
+import com.google.monitoring.metrics.LabelDescriptor;
+import com.google.monitoring.metrics.MetricRegistryImpl;
+import javax.inject.Inject;
+import org.joda.time.Duration;
+
+/** Metrics for {@link DeleteExpiredDomainsAction}. */
+class DeleteExpiredDomainsMetrics {
+
+  /** The outcome of a single attempted domain delete. */
+  enum Outcome {
+    SUCCESS,
+    FAILURE
+  }
+
+  private static final ImmutableSet<LabelDescriptor> DELETE_LABEL_DESCRIPTORS =
+      ImmutableSet.of(
+          LabelDescriptor.create("tld", "TLD"),
+          LabelDescriptor.create("outcome", "Whether the delete succeeded."));
+
+  private static final ImmutableSet<LabelDescriptor> RUN_LABEL_DESCRIPTORS =
+      ImmutableSet.of(
+          LabelDescriptor.create("concurrency", "Number of TLDs processed in parallel."));
+
+  // Allows values between 0.1 and 0.1*2^16, i.e. a little over 6500 deletes per second.
+  private static final DistributionFitter THROUGHPUT_FITTER =
+      ExponentialFitter.create(16, 2.0, 0.1);
+
+  private static final IncrementableMetric deletesMetric =
+      MetricRegistryImpl.getDefault()
+          .newIncrementableMetric(
+              "/batch/delete_expired_domains/deletes",
+              "Count of attempted deletes of expired domains",
+              "count",
+              DELETE_LABEL_DESCRIPTORS);
+
+  private static final EventMetric throughputMetric =
+      MetricRegistryImpl.getDefault()
+          .newEventMetric(
+              "/batch/delete_expired_domains/throughput",
+              "Successful deletes per second over a single run",
+              "deletes/second",
+              RUN_LABEL_DESCRIPTORS,
+              THROUGHPUT_FITTER);
+
+  @Inject
+  DeleteExpiredDomainsMetrics() {}
+
+  void recordDelete(String tld, Outcome outcome) {
+    deletesMetric.increment(tld, outcome.name());
+  }
+
+  void recordRun(int concurrency, int successes, Duration elapsed) {
+    if (successes == 0) {
+      return;
+    }
+    // Guard against a zero-length run (e.g. with a fake clock) so the rate is always finite.
+    double seconds = Math.max(elapsed.getMillis(), 1L) / 1000.0;
+    throughputMetric.record(successes / seconds, String.valueOf(concurrency));
+  }
+}
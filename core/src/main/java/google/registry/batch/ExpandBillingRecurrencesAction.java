@@ -58,6 +58,7 @@ public class ExpandBillingRecurrencesAction implements Runnable {
   public static final String PARAM_START_TIME = "startTime";
   public static final String PARAM_END_TIME = "endTime";
   public static final String PARAM_ADVANCE_CURSOR = "advanceCursor";
+  public static final String PARAM_BATCHED_EXPANSION = "batchedExpansion";
 
   private static final String PIPELINE_NAME = "expand_billing_recurrences_pipeline";
   private static final FluentLogger logger = FluentLogger.forEnclosingClass();
@@ -72,6 +73,10 @@ public class ExpandBillingRecurrencesAction implements Runnable {
   @Parameter(PARAM_ADVANCE_CURSOR)
   boolean advanceCursor;
 
+  @Inject
+  @Parameter(PARAM_BATCHED_EXPANSION)
+  boolean batchedExpansion;
+
   @Inject
   @Parameter(PARAM_START_TIME)
   Optional<DateTime> startTimeParam;
@@ -131,6 +136,7 @@ public class ExpandBillingRecurrencesAction implements Runnable {
                     .put("endTime", endTime.toString("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'"))
                     .put("isDryRun", Boolean.toString(isDryRun))
                     .put("advanceCursor", Boolean.toString(advanceCursor))
+                    .put("batchedExpansion", Boolean.toString(batchedExpansion))
                     .build());
     logger.atInfo().log(
         "Launching billing recurrence expansion pipeline for event time range [%s, %s)%s.",
@@ -40,6 +40,7 @@ import java.io.IOException;
 import java.util.Optional;
 import javax.inject.Inject;
 import org.joda.time.DateTime;
+import org.joda.time.Duration;
 
 /**
  * An action that launches {@link WipeOutContactHistoryPiiPipeline} to wipe out Personal
@@ -63,6 +64,9 @@ public class WipeOutContactHistoryPiiAction implements Runnable {
   private final boolean isDryRun;
   private final Optional<DateTime> maybeCutoffTime;
   private final int minMonthsBeforeWipeOut;
+  private final boolean bulkWipeOutEnabled;
+  private final int bulkWipeOutChunkSize;
+  private final Duration bulkWipeOutChunkInterval;
   private final String stagingBucketUrl;
   private final String projectId;
   private final String jobRegion;
@@ -75,6 +79,9 @@ public class WipeOutContactHistoryPiiAction implements Runnable {
       @Parameter(PARAM_DRY_RUN) boolean isDryRun,
       @Parameter(PARAM_CUTOFF_TIME) Optional<DateTime> maybeCutoffTime,
       @Config("minMonthsBeforeWipeOut") int minMonthsBeforeWipeOut,
+      @Config("contactHistoryBulkWipeOutEnabled") boolean bulkWipeOutEnabled,
+      @Config("contactHistoryBulkWipeOutChunkSize") int bulkWipeOutChunkSize,
+      @Config("contactHistoryBulkWipeOutChunkInterval") Duration bulkWipeOutChunkInterval,
       @Config("beamStagingBucketUrl") String stagingBucketUrl,
       @Config("projectId") String projectId,
       @Config("defaultJobRegion") String jobRegion,
@@ -84,6 +91,9 @@ public class WipeOutContactHistoryPiiAction implements Runnable {
     this.isDryRun = isDryRun;
     this.maybeCutoffTime = maybeCutoffTime;
     this.minMonthsBeforeWipeOut = minMonthsBeforeWipeOut;
+    this.bulkWipeOutEnabled = bulkWipeOutEnabled;
+    this.bulkWipeOutChunkSize = bulkWipeOutChunkSize;
+    this.bulkWipeOutChunkInterval = bulkWipeOutChunkInterval;
     this.stagingBucketUrl = stagingBucketUrl;
     this.projectId = projectId;
     this.jobRegion = jobRegion;
@@ -113,7 +123,13 @@ public class WipeOutContactHistoryPiiAction implements Runnable {
                     "cutoffTime",
                     cutoffTime.toString("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'"),
                     "isDryRun",
-                    Boolean.toString(isDryRun)));
+                    Boolean.toString(isDryRun),
+                    "bulkWipeOut",
+                    Boolean.toString(bulkWipeOutEnabled),
+                    "bulkWipeOutChunkSize",
+                    Integer.toString(bulkWipeOutChunkSize),
+                    "bulkWipeOutChunkIntervalMillis",
+                    Long.toString(bulkWipeOutChunkInterval.getMillis())));
     logger.atInfo().log(
         "Launching Beam pipeline to wipe out all PII of contact history entities prior to %s%s.",
         cutoffTime, " in dry run mode");
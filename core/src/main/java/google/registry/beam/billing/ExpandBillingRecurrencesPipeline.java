@@ -15,7 +15,10 @@
 package google.registry.beam.billing;
 
 import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.collect.ImmutableSet.toImmutableSet;
 import static com.google.common.collect.Sets.difference;
+import static google.registry.model.EppResourceUtils.loadByKeysIfPresent;
 import static google.registry.model.common.Cursor.CursorType.RECURRING_BILLING;
 import static google.registry.model.domain.Period.Unit.YEARS;
 import static google.registry.model.reporting.HistoryEntry.Type.DOMAIN_AUTORENEW;
@@ -26,8 +29,10 @@ import static google.registry.util.DateTimeUtils.earliestOf;
 import static google.registry.util.DateTimeUtils.latestOf;
 import static org.apache.beam.sdk.values.TypeDescriptors.voids;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ImmutableSetMultimap;
 import com.google.common.collect.Range;
 import dagger.Component;
 import google.registry.beam.common.RegistryJpaIO;
@@ -37,6 +42,7 @@ import google.registry.flows.custom.CustomLogicFactoryModule;
 import google.registry.flows.custom.CustomLogicModule;
 import google.registry.flows.domain.DomainPricingLogic;
 import google.registry.flows.domain.DomainPricingLogic.AllocationTokenInvalidForPremiumNameException;
+import google.registry.model.EppResource;
 import google.registry.model.ImmutableObject;
 import google.registry.model.billing.BillingBase.Flag;
 import google.registry.model.billing.BillingCancellation;
@@ -50,10 +56,14 @@ import google.registry.model.reporting.DomainTransactionRecord;
 import google.registry.model.reporting.DomainTransactionRecord.TransactionReportField;
 import google.registry.model.tld.Tld;
 import google.registry.persistence.PersistenceModule.TransactionIsolationLevel;
+import google.registry.persistence.VKey;
 import google.registry.util.Clock;
 import google.registry.util.SystemClock;
 import java.io.Serializable;
 import java.math.BigInteger;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Optional;
 import java.util.Set;
 import javax.inject.Singleton;
@@ -91,7 +101,10 @@ import org.joda.time.DateTime;
  *       excluding those that are already present (to make this pipeline idempotent when running
  *       with the same parameters multiple times, either in parallel or in sequence). The {@link
  *       BillingRecurrence} is also updated with the information on when it was last expanded, so it
- *       would not be in scope for expansion until at least a year later.
+ *       would not be in scope for expansion until at least a year later. The recurrences are
+ *       expanded in batches, one transaction per batch. In batched expansion mode, the entities
+ *       that a batch needs are loaded with a few queries for the whole batch, instead of a few
+ *       queries for each recurrence in it.
  *   <li>If the cursor for billing events should be advanced, advance it to {@link #endTime} after
  *       all of the expansions in the previous step is done, only when it is currently at {@link
  *       #startTime}.
@@ -140,6 +153,7 @@ public class ExpandBillingRecurrencesPipeline implements Serializable {
   private final DateTime endTime;
   private final boolean isDryRun;
   private final boolean advanceCursor;
+  private final boolean batchedExpansion;
   private final Counter recurrencesInScopeCounter =
       Metrics.counter("ExpandBilling", "Recurrences in scope for expansion");
   // Note that this counter is only accurate when running in dry run mode. Because SQL persistence
@@ -162,6 +176,7 @@ public class ExpandBillingRecurrencesPipeline implements Serializable {
         String.format("[%s, %s) is not a valid window of operation.", startTime, endTime));
     isDryRun = options.getIsDryRun();
     advanceCursor = options.getAdvanceCursor();
+    batchedExpansion = options.getBatchedExpansion();
   }
 
   private PipelineResult run(Pipeline pipeline) {
@@ -237,7 +252,11 @@ public class ExpandBillingRecurrencesPipeline implements Serializable {
                               () -> {
                                 ImmutableSet.Builder<ImmutableObject> results =
                                     new ImmutableSet.Builder<>();
-                                ids.forEach(id -> expandOneRecurrence(id, results));
+                                if (batchedExpansion) {
+                                  expandBatch(ids, results);
+                                } else {
+                                  ids.forEach(id -> expandOneRecurrence(id, results));
+                                }
                                 if (!isDryRun) {
                                   tm().putAll(results.build());
                                 }
@@ -250,7 +269,108 @@ public class ExpandBillingRecurrencesPipeline implements Serializable {
       Long recurrenceId, ImmutableSet.Builder<ImmutableObject> results) {
     BillingRecurrence billingRecurrence =
         tm().loadByKey(BillingRecurrence.createVKey(recurrenceId));
+    ImmutableSet<DateTime> eventTimes = getEventTimesInScope(billingRecurrence);
+    if (eventTimes.isEmpty()) {
+      return;
+    }
+    Domain domain = tm().loadByKey(Domain.createVKey(billingRecurrence.getDomainRepoId()));
+
+    // Find the times for which the OneTime billing event are already created, making this expansion
+    // idempotent. There is no need to match to the domain repo ID as the cancellation matching
+    // billing event itself can only be for a single domain.
+    ImmutableSet<DateTime> existingEventTimes =
+        ImmutableSet.copyOf(
+            tm().query(
+                    "SELECT eventTime FROM BillingEvent WHERE cancellationMatchingBillingEvent ="
+                        + " :key",
+                    DateTime.class)
+                .setParameter("key", billingRecurrence.createVKey())
+                .getResultList());
 
+    expandRecurrence(
+        billingRecurrence, domain, difference(eventTimes, existingEventTimes), results);
+  }
+
+  /**
+   * Expands a batch of recurrences like {@link #expandOneRecurrence}, but with a fixed number of
+   * queries for the whole batch.
+   *
+   * <p>The recurrences of the batch are loaded with a single query. Only those with event times in
+   * scope need their existing OneTimes and their domains, which are then loaded with one more query
+   * each.
+   */
+  private void expandBatch(Iterable<Long> ids, ImmutableSet.Builder<ImmutableObject> results) {
+    ImmutableList<Long> recurrenceIds = ImmutableList.copyOf(ids);
+    ImmutableList<BillingRecurrence> recurrences =
+        tm().query("FROM BillingRecurrence WHERE id IN (:ids)", BillingRecurrence.class)
+            .setParameter("ids", recurrenceIds)
+            .getResultStream()
+            .collect(toImmutableList());
+    // Like loadByKey() in expandOneRecurrence(), fail the batch if a recurrence has disappeared.
+    if (recurrences.size() != recurrenceIds.size()) {
+      throw new NoSuchElementException(
+          String.format(
+              "Expected to find the following recurrences but they were missing: %s.",
+              difference(
+                  ImmutableSet.copyOf(recurrenceIds),
+                  recurrences.stream().map(BillingRecurrence::getId).collect(toImmutableSet()))));
+    }
+    Map<BillingRecurrence, ImmutableSet<DateTime>> eventTimesByRecurrence = new LinkedHashMap<>();
+    for (BillingRecurrence billingRecurrence : recurrences) {
+      ImmutableSet<DateTime> eventTimes = getEventTimesInScope(billingRecurrence);
+      if (!eventTimes.isEmpty()) {
+        eventTimesByRecurrence.put(billingRecurrence, eventTimes);
+      }
+    }
+    if (eventTimesByRecurrence.isEmpty()) {
+      return;
+    }
+    ImmutableList<VKey<BillingRecurrence>> recurrenceKeys =
+        eventTimesByRecurrence.keySet().stream()
+            .map(BillingRecurrence::createVKey)
+            .collect(toImmutableList());
+    // See expandOneRecurrence() for why this makes the expansion idempotent.
+    ImmutableSetMultimap.Builder<VKey<BillingRecurrence>, DateTime> existingEventTimesBuilder =
+        new ImmutableSetMultimap.Builder<>();
+    tm().query(
+            "SELECT cancellationMatchingBillingEvent, eventTime FROM BillingEvent WHERE"
+                + " cancellationMatchingBillingEvent IN (:keys)",
+            Object[].class)
+        .setParameter("keys", recurrenceKeys)
+        .getResultStream()
+        .forEach(
+            row -> {
+              @SuppressWarnings("unchecked")
+              VKey<BillingRecurrence> key = (VKey<BillingRecurrence>) row[0];
+              existingEventTimesBuilder.put(key, (DateTime) row[1]);
+            });
+    ImmutableSetMultimap<VKey<BillingRecurrence>, DateTime> existingEventTimes =
+        existingEventTimesBuilder.build();
+    ImmutableMap<VKey<? extends EppResource>, EppResource> domains =
+        loadByKeysIfPresent(
+            tm(),
+            eventTimesByRecurrence.keySet().stream()
+                .map(billingRecurrence -> Domain.createVKey(billingRecurrence.getDomainRepoId()))
+                .collect(toImmutableSet()));
+    eventTimesByRecurrence.forEach(
+        (billingRecurrence, eventTimes) -> {
+          VKey<Domain> domainKey = Domain.createVKey(billingRecurrence.getDomainRepoId());
+          if (!domains.containsKey(domainKey)) {
+            throw new NoSuchElementException(domainKey.toString());
+          }
+          expandRecurrence(
+              billingRecurrence,
+              (Domain) domains.get(domainKey),
+              difference(eventTimes, existingEventTimes.get(billingRecurrence.createVKey())),
+              results);
+        });
+  }
+
+  /**
+   * Returns the event times that a recurrence should expand to within the window of operation, or
+   * an empty set if the recurrence is no longer in scope.
+   */
+  private ImmutableSet<DateTime> getEventTimesInScope(BillingRecurrence billingRecurrence) {
     // Determine the complete set of EventTimes this recurrence event should expand to within
     // [max(recurrenceLastExpansion + 1 yr, startTime), min(recurrenceEndTime, endTime)).
     //
@@ -269,41 +389,30 @@ public class ExpandBillingRecurrencesPipeline implements Serializable {
     // The best way to handle any unexpected behavior is to simply drop the recurrence from
     // expansion, if its new state still calls for an expansion, it would be picked up the next time
     // the pipeline runs.
-    ImmutableSet<DateTime> eventTimes;
     try {
-      eventTimes =
-          ImmutableSet.copyOf(
-              billingRecurrence
-                  .getRecurrenceTimeOfYear()
-                  .getInstancesInRange(
-                      Range.closedOpen(
-                          latestOf(
-                              billingRecurrence.getRecurrenceLastExpansion().plusYears(1),
-                              startTime),
-                          earliestOf(billingRecurrence.getRecurrenceEndTime(), endTime))));
+      return ImmutableSet.copyOf(
+          billingRecurrence
+              .getRecurrenceTimeOfYear()
+              .getInstancesInRange(
+                  Range.closedOpen(
+                      latestOf(
+                          billingRecurrence.getRecurrenceLastExpansion().plusYears(1), startTime),
+                      earliestOf(billingRecurrence.getRecurrenceEndTime(), endTime))));
     } catch (IllegalArgumentException e) {
-      return;
+      return ImmutableSet.of();
     }
-    Domain domain = tm().loadByKey(Domain.createVKey(billingRecurrence.getDomainRepoId()));
-    Tld tld = Tld.get(domain.getTld());
-
-    // Find the times for which the OneTime billing event are already created, making this expansion
-    // idempotent. There is no need to match to the domain repo ID as the cancellation matching
-    // billing event itself can only be for a single domain.
-    ImmutableSet<DateTime> existingEventTimes =
-        ImmutableSet.copyOf(
-            tm().query(
-                    "SELECT eventTime FROM BillingEvent WHERE cancellationMatchingBillingEvent ="
-                        + " :key",
-                    DateTime.class)
-                .setParameter("key", billingRecurrence.createVKey())
-                .getResultList());
-
-    Set<DateTime> eventTimesToExpand = difference(eventTimes, existingEventTimes);
+  }
 
+  /** Creates the OneTimes and DomainHistories for the given event times of a recurrence. */
+  private void expandRecurrence(
+      BillingRecurrence billingRecurrence,
+      Domain domain,
+      Set<DateTime> eventTimesToExpand,
+      ImmutableSet.Builder<ImmutableObject> results) {
     if (eventTimesToExpand.isEmpty()) {
       return;
     }
+    Tld tld = Tld.get(domain.getTld());
 
     DateTime recurrenceLastExpansionTime = billingRecurrence.getRecurrenceLastExpansion();
 
@@ -46,4 +46,12 @@ public interface ExpandBillingRecurrencesPipelineOptions extends RegistryPipelin
   boolean getAdvanceCursor();
 
   void setAdvanceCursor(boolean advanceCursor);
+
+  @Description(
+      "If true, load the recurrences of each batch, their domains and their existing billing events"
+          + " with a few queries for the whole batch, instead of a few queries per recurrence.")
+  @Default.Boolean(false)
+  boolean getBatchedExpansion();
+
+  void setBatchedExpansion(boolean batchedExpansion);
 }
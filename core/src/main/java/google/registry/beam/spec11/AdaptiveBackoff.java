@@ -0,0 +1,84 @@
+// Copyright 2023 The Nomulus Authors. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package google.registry.beam.spec11;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import google.registry.util.Sleeper;
+import java.util.Optional;
+import javax.annotation.concurrent.ThreadSafe;
+import org.joda.time.Duration;
+
+/**
+ * A delay that concurrent requests to a throttling API wait for before each attempt.
+ *
+ * <p>The delay doubles, starting from the minimum delay, whenever the API throttles a request, and
+ * halves whenever a request gets through, dropping to zero once it falls below the minimum. It is
+ * shared by all the requests in flight, so that they all slow down as soon as one of them is
+ * throttled instead of each of them discovering it on its own.
+ */
+@ThreadSafe
+final class AdaptiveBackoff {
+
+  private final Sleeper sleeper;
+  private final long minDelayMillis;
+  private final long maxDelayMillis;
+
+  private long delayMillis = 0;
+
+  AdaptiveBackoff(Sleeper sleeper, Duration minDelay, Duration maxDelay) {
+    checkArgument(
+        minDelay.getMillis() > 0 && minDelay.getMillis() <= maxDelay.getMillis(),
+        "The minimum delay must be positive and at most the maximum delay");
+    this.sleeper = sleeper;
+    this.minDelayMillis = minDelay.getMillis();
+    this.maxDelayMillis = maxDelay.getMillis();
+  }
+
+  /** Waits for the current delay, and returns it. */
+  Duration await() throws InterruptedException {
+    Duration delay = getDelay();
+    if (delay.getMillis() > 0) {
+      sleeper.sleep(delay);
+    }
+    return delay;
+  }
+
+  /** Returns the current delay. */
+  synchronized Duration getDelay() {
+    return Duration.millis(delayMillis);
+  }
+
+  /**
+   * Increases the delay after a throttled request.
+   *
+   * <p>If the API said how long to wait, the delay is at least that long, up to the maximum delay.
+   */
+  synchronized void onThrottled(Optional<Duration> retryAfter) {
+    long newDelayMillis = Math.max(minDelayMillis, delayMillis * 2);
+    if (retryAfter.isPresent()) {
+      newDelayMillis = Math.max(newDelayMillis, retryAfter.get().getMillis());
+    }
+    delayMillis = Math.min(maxDelayMillis, newDelayMillis);
+  }
+
+  /** Decreases the delay after a request that got through. */
+  synchronized void onSuccess() {
+    delayMillis /= 2;
+    if (delayMillis < minDelayMillis) {
+      delayMillis = 0;
+    }
+  }
+}
@@ -14,24 +14,46 @@
 
 package google.registry.beam.spec11;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.apache.http.HttpStatus.SC_OK;
+import static org.apache.http.HttpStatus.SC_TOO_MANY_REQUESTS;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Stopwatch;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.flogger.FluentLogger;
 import com.google.common.io.CharStreams;
+import com.google.common.primitives.Longs;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import google.registry.util.Retrier;
+import google.registry.util.Sleeper;
+import google.registry.util.SystemSleeper;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.Serializable;
 import java.net.URISyntaxException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Supplier;
+import org.apache.beam.sdk.metrics.Counter;
+import org.apache.beam.sdk.metrics.Distribution;
+import org.apache.beam.sdk.metrics.Metrics;
 import org.apache.beam.sdk.transforms.DoFn;
 import org.apache.beam.sdk.transforms.windowing.GlobalWindow;
 import org.apache.beam.sdk.values.KV;
+import org.apache.http.Header;
 import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpPost;
 import org.apache.http.client.utils.URIBuilder;
@@ -39,7 +61,10 @@ import org.apache.http.entity.ByteArrayEntity;
 import org.apache.http.entity.ContentType;
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
 import org.apache.http.protocol.HTTP;
+import org.apache.http.util.EntityUtils;
+import org.joda.time.Duration;
 import org.joda.time.Instant;
 import org.json.JSONArray;
 import org.json.JSONException;
@@ -50,8 +75,8 @@ public class SafeBrowsingTransforms {
 
   private static final FluentLogger logger = FluentLogger.forEnclosingClass();
 
-  /** The URL to send SafeBrowsing API calls (POSTS) to. */
-  private static final String SAFE_BROWSING_URL =
+  /** The default URL to send SafeBrowsing API calls (POSTS) to. */
+  static final String SAFE_BROWSING_URL =
       "https://safebrowsing.googleapis.com/v4/threatMatches:find";
 
   /**
@@ -59,6 +84,11 @@ public class SafeBrowsingTransforms {
    *
    * <p>Refer to the Lookup API documentation for the request/response format and other details.
    *
+   * <p>Each instance keeps up to {@code maxInFlightRequests} batch requests in flight at once, over
+   * a pooled client that keeps its connections alive between requests. Requests that the API
+   * throttles, with a 429 or 5xx response, are retried after an {@link AdaptiveBackoff} that all
+   * of the requests of the instance share.
+   *
    * @see <a href=https://developers.google.com/safe-browsing/v4/lookup-api>Lookup API</a>
    */
   static class EvaluateSafeBrowsingFn
@@ -71,9 +101,28 @@ public class SafeBrowsingTransforms {
      */
     private static final int BATCH_SIZE = 490;
 
+    /** The default number of batch requests that each instance keeps in flight. */
+    static final int DEFAULT_MAX_IN_FLIGHT_REQUESTS = 4;
+
+    private static final Duration MIN_BACKOFF = Duration.millis(500);
+    private static final Duration MAX_BACKOFF = Duration.standardSeconds(32);
+
+    private static final Distribution requestLatency =
+        Metrics.distribution("Spec11", "SafeBrowsingRequestLatencyMillis");
+    private static final Counter throttledResponses =
+        Metrics.counter("Spec11", "SafeBrowsingThrottledResponses");
+    private static final Counter backoffMillis =
+        Metrics.counter("Spec11", "SafeBrowsingBackoffMillis");
+
+    /** The URL of the Lookup API endpoint, which is only changed to point at a local fake. */
+    private final String apiUrl;
+
     /** Provides the SafeBrowsing API key at runtime. */
     private final String apiKey;
 
+    /** The number of batch requests that this instance keeps in flight at once. */
+    private final int maxInFlightRequests;
+
     /**
      * Maps a domain name's {@code domainName} to its corresponding {@link DomainNameInfo} to
      * facilitate batching SafeBrowsing API requests.
@@ -85,26 +134,39 @@ public class SafeBrowsingTransforms {
      * Provides the HTTP client we use to interact with the SafeBrowsing API.
      *
      * <p>This is a supplier to enable mocking out the connection in unit tests while maintaining a
-     * serializable field.
+     * serializable field. The client is shared by all the requests of an instance, so it must be
+     * thread-safe.
      */
     private final Supplier<CloseableHttpClient> closeableHttpClientSupplier;
 
     /** Retries on receiving transient failures such as {@link IOException}. */
     private final Retrier retrier;
 
+    /** Sleeps for the backoff before each request. */
+    private final Sleeper sleeper;
+
+    private transient CloseableHttpClient httpClient;
+    private transient ExecutorService executor;
+    private transient AdaptiveBackoff backoff;
+    private transient Deque<Future<BatchResult>> inFlightRequests;
+
     /**
      * Constructs a {@link EvaluateSafeBrowsingFn} with a given API key.
      *
      * <p>We need to dual-cast the closeableHttpClientSupplier lambda because all {@code DoFn}
      * member variables need to be serializable. The (Supplier & Serializable) dual cast is safe
-     * because class methods are generally serializable, especially a static function such as {@link
-     * HttpClients#createDefault()}.
+     * because the lambda only captures an int and calls a static function.
      */
     @SuppressWarnings("unchecked")
-    EvaluateSafeBrowsingFn(String apiKey, Retrier retrier) {
-      this.apiKey = apiKey;
-      this.retrier = retrier;
-      closeableHttpClientSupplier = (Supplier & Serializable) HttpClients::createDefault;
+    EvaluateSafeBrowsingFn(
+        String apiUrl, String apiKey, int maxInFlightRequests, Retrier retrier, Sleeper sleeper) {
+      this(
+          apiUrl,
+          apiKey,
+          maxInFlightRequests,
+          retrier,
+          sleeper,
+          (Supplier & Serializable) () -> createPooledHttpClient(maxInFlightRequests));
     }
 
     /**
@@ -116,77 +178,201 @@ public class SafeBrowsingTransforms {
     @VisibleForTesting
     EvaluateSafeBrowsingFn(
         String apiKey, Retrier retrier, Supplier<CloseableHttpClient> clientSupplier) {
+      this(
+          SAFE_BROWSING_URL,
+          apiKey,
+          DEFAULT_MAX_IN_FLIGHT_REQUESTS,
+          retrier,
+          new SystemSleeper(),
+          clientSupplier);
+    }
+
+    /**
+     * Constructs a {@link EvaluateSafeBrowsingFn} with all of its dependencies, for testing against
+     * a fake of the Lookup API.
+     */
+    @VisibleForTesting
+    EvaluateSafeBrowsingFn(
+        String apiUrl,
+        String apiKey,
+        int maxInFlightRequests,
+        Retrier retrier,
+        Sleeper sleeper,
+        Supplier<CloseableHttpClient> clientSupplier) {
+      checkArgument(maxInFlightRequests > 0, "maxInFlightRequests must be positive");
+      this.apiUrl = apiUrl;
       this.apiKey = apiKey;
+      this.maxInFlightRequests = maxInFlightRequests;
       this.retrier = retrier;
+      this.sleeper = sleeper;
       closeableHttpClientSupplier = clientSupplier;
     }
 
+    /** Returns a client that keeps a connection alive for each request that can be in flight. */
+    private static CloseableHttpClient createPooledHttpClient(int maxInFlightRequests) {
+      PoolingHttpClientConnectionManager connectionManager =
+          new PoolingHttpClientConnectionManager();
+      connectionManager.setMaxTotal(maxInFlightRequests);
+      connectionManager.setDefaultMaxPerRoute(maxInFlightRequests);
+      return HttpClients.custom().setConnectionManager(connectionManager).build();
+    }
+
+    @Setup
+    public void setup() {
+      httpClient = closeableHttpClientSupplier.get();
+      executor =
+          Executors.newFixedThreadPool(
+              maxInFlightRequests,
+              new ThreadFactoryBuilder()
+                  .setNameFormat("safe-browsing-request-%d")
+                  .setDaemon(true)
+                  .build());
+      backoff = new AdaptiveBackoff(sleeper, MIN_BACKOFF, MAX_BACKOFF);
+      inFlightRequests = new ArrayDeque<>(maxInFlightRequests);
+    }
+
+    @Teardown
+    public void teardown() {
+      if (executor != null) {
+        executor.shutdownNow();
+      }
+      if (httpClient != null) {
+        try {
+          httpClient.close();
+        } catch (IOException e) {
+          logger.atWarning().withCause(e).log("Failed to close the SafeBrowsing HTTP client.");
+        }
+      }
+    }
+
     /** Evaluates any buffered {@link DomainNameInfo} objects upon completing the bundle. */
     @FinishBundle
     public void finishBundle(FinishBundleContext context) {
       if (!domainNameInfoBuffer.isEmpty()) {
-        ImmutableSet<KV<DomainNameInfo, ThreatMatch>> results = evaluateAndFlush();
-        results.forEach((kv) -> context.output(kv, Instant.now(), GlobalWindow.INSTANCE));
+        sendBufferedBatch();
+      }
+      while (!inFlightRequests.isEmpty()) {
+        awaitOldestRequest()
+            .forEach((kv) -> context.output(kv, Instant.now(), GlobalWindow.INSTANCE));
       }
     }
 
     /**
-     * Buffers {@link DomainNameInfo} objects until we reach the batch size, then bulk-evaluate the
-     * URLs with the SafeBrowsing API.
+     * Buffers {@link DomainNameInfo} objects until we reach the batch size, then sends the batch to
+     * the SafeBrowsing API without waiting for the response, unless the maximum number of requests
+     * are already in flight.
      */
     @ProcessElement
     public void processElement(ProcessContext context) {
       DomainNameInfo domainNameInfo = context.element();
       domainNameInfoBuffer.put(domainNameInfo.domainName(), domainNameInfo);
       if (domainNameInfoBuffer.size() >= BATCH_SIZE) {
-        ImmutableSet<KV<DomainNameInfo, ThreatMatch>> results = evaluateAndFlush();
-        results.forEach(context::output);
+        while (inFlightRequests.size() >= maxInFlightRequests) {
+          awaitOldestRequest().forEach(context::output);
+        }
+        sendBufferedBatch();
       }
     }
 
+    /** Sends the buffered {@link DomainNameInfo} objects as one request, and flushes the buffer. */
+    private void sendBufferedBatch() {
+      ImmutableMap<String, DomainNameInfo> batch = ImmutableMap.copyOf(domainNameInfoBuffer);
+      domainNameInfoBuffer.clear();
+      inFlightRequests.addLast(executor.submit(() -> evaluate(batch)));
+    }
+
     /**
-     * Evaluates all {@link DomainNameInfo} objects in the buffer and returns a list of key-value
-     * pairs from {@link DomainNameInfo} to its SafeBrowsing report.
+     * Waits for the oldest request in flight, records its metrics, and returns its key-value pairs
+     * from {@link DomainNameInfo} to SafeBrowsing report.
      *
-     * <p>If a {@link DomainNameInfo} is safe according to the API, it will not emit a report.
+     * <p>Metrics are recorded here rather than in the request threads, because Beam only collects
+     * metrics from the thread that runs the {@link DoFn}.
      */
-    private ImmutableSet<KV<DomainNameInfo, ThreatMatch>> evaluateAndFlush() {
+    private ImmutableSet<KV<DomainNameInfo, ThreatMatch>> awaitOldestRequest() {
+      BatchResult result;
+      try {
+        result = inFlightRequests.removeFirst().get();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new RuntimeException("Interrupted while waiting for SafeBrowsing.", e);
+      } catch (ExecutionException e) {
+        if (e.getCause() instanceof RuntimeException) {
+          throw (RuntimeException) e.getCause();
+        }
+        throw new RuntimeException(e.getCause());
+      }
+      result.latenciesMillis.forEach(requestLatency::update);
+      throttledResponses.inc(result.throttledResponses);
+      backoffMillis.inc(result.backoffMillis);
+      return result.matches;
+    }
+
+    /**
+     * Evaluates a batch of {@link DomainNameInfo} objects, keyed by domain name, and returns the
+     * key-value pairs from {@link DomainNameInfo} to its SafeBrowsing report.
+     *
+     * <p>If a {@link DomainNameInfo} is safe according to the API, it will not emit a report. If
+     * the API fails the request for a reason other than throttling, the whole batch fails.
+     */
+    private BatchResult evaluate(ImmutableMap<String, DomainNameInfo> batch) {
+      BatchResult result = new BatchResult();
       ImmutableSet.Builder<KV<DomainNameInfo, ThreatMatch>> resultBuilder =
           new ImmutableSet.Builder<>();
       try {
-        URIBuilder uriBuilder = new URIBuilder(SAFE_BROWSING_URL);
+        URIBuilder uriBuilder = new URIBuilder(apiUrl);
         // Add the API key param
         uriBuilder.addParameter("key", apiKey);
 
         HttpPost httpPost = new HttpPost(uriBuilder.build());
         httpPost.addHeader(HTTP.CONTENT_TYPE, ContentType.APPLICATION_JSON.toString());
 
-        JSONObject requestBody = createRequestBody();
+        JSONObject requestBody = createRequestBody(batch.keySet());
         httpPost.setEntity(new ByteArrayEntity(requestBody.toString().getBytes(UTF_8)));
-        // Retry transient exceptions such as IOException
+        // Retry transient exceptions such as IOException, including throttled requests
         retrier.callWithRetry(
             () -> {
-              try (CloseableHttpClient client = closeableHttpClientSupplier.get();
-                  CloseableHttpResponse response = client.execute(httpPost)) {
-                processResponse(response, resultBuilder);
+              result.backoffMillis += backoff.await().getMillis();
+              Stopwatch stopwatch = Stopwatch.createStarted();
+              try (CloseableHttpResponse response = httpClient.execute(httpPost)) {
+                result.latenciesMillis.add(stopwatch.elapsed(TimeUnit.MILLISECONDS));
+                int statusCode = response.getStatusLine().getStatusCode();
+                if (isThrottled(statusCode)) {
+                  result.throttledResponses++;
+                  backoff.onThrottled(getRetryAfter(response));
+                  EntityUtils.consumeQuietly(response.getEntity());
+                  throw new ThrottledException(statusCode);
+                }
+                backoff.onSuccess();
+                processResponse(response, batch, resultBuilder);
               }
             },
             IOException.class);
       } catch (URISyntaxException | JSONException e) {
         // Fail the pipeline on a parsing exception- this indicates the API likely changed.
         throw new RuntimeException("Caught parsing exception, failing pipeline.", e);
-      } finally {
-        // Flush the buffer
-        domainNameInfoBuffer.clear();
       }
-      return resultBuilder.build();
+      result.matches = resultBuilder.build();
+      return result;
+    }
+
+    private static boolean isThrottled(int statusCode) {
+      return statusCode == SC_TOO_MANY_REQUESTS || statusCode >= 500;
+    }
+
+    /** Returns the delay that a throttled response asked for, if it gave one in seconds. */
+    private static Optional<Duration> getRetryAfter(CloseableHttpResponse response) {
+      Header retryAfter = response.getFirstHeader("Retry-After");
+      return Optional.ofNullable(retryAfter)
+          .map(header -> Longs.tryParse(header.getValue().trim()))
+          .map(Duration::standardSeconds);
     }
 
     /** Creates a JSON object matching the request format for the SafeBrowsing API. */
-    private JSONObject createRequestBody() throws JSONException {
+    private static JSONObject createRequestBody(Iterable<String> domainNames)
+        throws JSONException {
       // Accumulate all domain names to evaluate.
       JSONArray threatArray = new JSONArray();
-      for (String domainName : domainNameInfoBuffer.keySet()) {
+      for (String domainName : domainNames) {
         threatArray.put(new JSONObject().put("url", domainName));
       }
       // Construct the JSON request body
@@ -212,13 +398,17 @@ public class SafeBrowsingTransforms {
      * Iterates through all threat matches in the API response and adds them to the {@code
      * resultBuilder}.
      */
-    private void processResponse(
+    private static void processResponse(
         CloseableHttpResponse response,
+        ImmutableMap<String, DomainNameInfo> batch,
         ImmutableSet.Builder<KV<DomainNameInfo, ThreatMatch>> resultBuilder)
         throws JSONException, IOException {
       int statusCode = response.getStatusLine().getStatusCode();
       if (statusCode != SC_OK) {
-        logger.atWarning().log("Got unexpected status code %s from response.", statusCode);
+        // Emitting no matches would pass the domains as clean, and incremental runs would cache
+        // their clean verdicts, so the batch fails instead.
+        EntityUtils.consumeQuietly(response.getEntity());
+        throw new LookupFailedException(statusCode);
       } else {
         // Unpack the response body
         JSONObject responseBody =
@@ -234,7 +424,7 @@ public class SafeBrowsingTransforms {
           for (int i = 0; i < threatMatches.length(); i++) {
             JSONObject match = threatMatches.getJSONObject(i);
             String url = match.getJSONObject("threat").getString("url");
-            DomainNameInfo domainNameInfo = domainNameInfoBuffer.get(url);
+            DomainNameInfo domainNameInfo = batch.get(url);
             resultBuilder.add(
                 KV.of(
                     domainNameInfo,
@@ -245,4 +435,30 @@ public class SafeBrowsingTransforms {
       }
     }
   }
+
+  /** The outcome of one batch request, with the metrics of all of its attempts. */
+  private static final class BatchResult {
+    ImmutableSet<KV<DomainNameInfo, ThreatMatch>> matches = ImmutableSet.of();
+    final List<Long> latenciesMillis = new ArrayList<>();
+    int throttledResponses;
+    long backoffMillis;
+  }
+
+  /**
+   * Thrown when the SafeBrowsing API fails a request for a reason other than throttling.
+   *
+   * <p>This is unchecked, so that the request is not retried and the pipeline fails.
+   */
+  static final class LookupFailedException extends RuntimeException {
+    LookupFailedException(int statusCode) {
+      super(String.format("SafeBrowsing failed the request with status code %d.", statusCode));
+    }
+  }
+
+  /** Thrown when the SafeBrowsing API throttles a request, so that it is retried. */
+  static final class ThrottledException extends IOException {
+    ThrottledException(int statusCode) {
+      super(String.format("SafeBrowsing throttled the request with status code %d.", statusCode));
+    }
+  }
 }
@@ -15,10 +15,13 @@
 package google.registry.beam.spec11;
 
 import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.collect.ImmutableSet.toImmutableSet;
 import static google.registry.persistence.transaction.TransactionManagerFactory.tm;
 
 import com.google.auto.value.AutoValue;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Streams;
 import dagger.Component;
 import dagger.Module;
 import dagger.Provides;
@@ -29,9 +32,11 @@ import google.registry.config.RegistryConfig.ConfigModule;
 import google.registry.model.domain.Domain;
 import google.registry.model.reporting.Spec11ThreatMatch;
 import google.registry.model.reporting.Spec11ThreatMatch.ThreatType;
+import google.registry.model.reporting.Spec11Verdict;
 import google.registry.persistence.PersistenceModule.TransactionIsolationLevel;
 import google.registry.persistence.VKey;
 import google.registry.util.Retrier;
+import google.registry.util.Sleeper;
 import google.registry.util.UtilsModule;
 import java.io.Serializable;
 import javax.inject.Singleton;
@@ -42,14 +47,21 @@ import org.apache.beam.sdk.coders.StringUtf8Coder;
 import org.apache.beam.sdk.io.TextIO;
 import org.apache.beam.sdk.options.PipelineOptionsFactory;
 import org.apache.beam.sdk.transforms.DoFn;
+import org.apache.beam.sdk.transforms.Flatten;
 import org.apache.beam.sdk.transforms.GroupByKey;
 import org.apache.beam.sdk.transforms.MapElements;
 import org.apache.beam.sdk.transforms.ParDo;
 import org.apache.beam.sdk.transforms.Reshuffle;
+import org.apache.beam.sdk.transforms.join.CoGbkResult;
+import org.apache.beam.sdk.transforms.join.CoGroupByKey;
+import org.apache.beam.sdk.transforms.join.KeyedPCollectionTuple;
 import org.apache.beam.sdk.values.KV;
 import org.apache.beam.sdk.values.PCollection;
+import org.apache.beam.sdk.values.PCollectionList;
+import org.apache.beam.sdk.values.TupleTag;
 import org.apache.beam.sdk.values.TypeDescriptor;
 import org.apache.beam.sdk.values.TypeDescriptors;
+import org.joda.time.Days;
 import org.joda.time.LocalDate;
 import org.joda.time.YearMonth;
 import org.joda.time.format.ISODateTimeFormat;
@@ -87,6 +99,40 @@ public class Spec11Pipeline implements Serializable {
   /** The JSON object field into which we put the threat match array for Spec11 reports. */
   public static final String THREAT_MATCHES_FIELD = "threatMatches";
 
+  /** Native query for the active domains of real registrars, joined with their cached verdicts. */
+  private static final String DOMAINS_WITH_VERDICTS_QUERY =
+      "SELECT d.repo_id, r.email_address FROM \"Domain\" d"
+          + " JOIN \"Registrar\" r ON d.current_sponsor_registrar_id = r.registrar_id"
+          + " LEFT JOIN \"Spec11Verdict\" v ON d.repo_id = v.domain_repo_id"
+          + " WHERE r.type = 'REAL' AND d.deletion_time > now()";
+
+  /**
+   * Condition under which an incremental run uses the cached verdict of a domain.
+   *
+   * <p>The verdict must be younger than the TTL, and the domain must not have been created or
+   * updated on or after the day of the check.
+   */
+  private static final String FRESH_VERDICT_CONDITION =
+      "v.domain_repo_id IS NOT NULL"
+          + " AND v.check_date > CAST(:expiryDate AS date)"
+          + " AND COALESCE(d.update_timestamp, d.creation_time) < v.check_date";
+
+  /**
+   * Condition under which a domain is not in the rotating slice of the day.
+   *
+   * <p>Domains in the slice are checked again even if their verdicts are fresh, so that all domains
+   * are checked at least once per rotation period.
+   */
+  private static final String NOT_IN_ROTATING_SLICE_CONDITION =
+      "MOD(hashtext(d.repo_id) & 2147483647, :rotationDays) <> :rotationSlice";
+
+  private static final LocalDate EPOCH_DATE = new LocalDate(1970, 1, 1);
+
+  private static final TupleTag<DomainNameInfo> CHECKED_DOMAINS =
+      new TupleTag<DomainNameInfo>() {};
+
+  private static final TupleTag<String> THREAT_TYPES = new TupleTag<String>() {};
+
   private final Spec11PipelineOptions options;
   private final EvaluateSafeBrowsingFn safeBrowsingFn;
 
@@ -103,10 +149,20 @@ public class Spec11Pipeline implements Serializable {
 
   void setupPipeline(Pipeline pipeline) {
     options.setIsolationOverride(TransactionIsolationLevel.TRANSACTION_READ_COMMITTED);
-    PCollection<DomainNameInfo> domains = readFromCloudSql(pipeline);
-
-    PCollection<KV<DomainNameInfo, ThreatMatch>> threatMatches =
-        domains.apply("Run through SafeBrowsing API", ParDo.of(safeBrowsingFn));
+    PCollection<KV<DomainNameInfo, ThreatMatch>> threatMatches;
+    if (options.getIncremental()) {
+      PCollection<DomainNameInfo> domains = readDomainsToCheck(pipeline, options);
+      PCollection<KV<DomainNameInfo, ThreatMatch>> newThreatMatches =
+          domains.apply("Run through SafeBrowsing API", ParDo.of(safeBrowsingFn));
+      saveVerdicts(domains, newThreatMatches, options);
+      threatMatches =
+          PCollectionList.of(newThreatMatches)
+              .and(readCachedThreatMatches(pipeline, options))
+              .apply("Merge new and cached threat matches", Flatten.pCollections());
+    } else {
+      PCollection<DomainNameInfo> domains = readFromCloudSql(pipeline);
+      threatMatches = domains.apply("Run through SafeBrowsing API", ParDo.of(safeBrowsingFn));
+    }
 
     saveToSql(threatMatches, options);
     saveToGcs(threatMatches, options);
@@ -122,37 +178,179 @@ public class Spec11Pipeline implements Serializable {
                 Spec11Pipeline::parseRow)
             .withCoder(KvCoder.of(StringUtf8Coder.of(), StringUtf8Coder.of()));
 
-    return pipeline
-        .apply("Read active domains from Cloud SQL", read)
+    return toDomainNameInfos(
+        pipeline.apply("Read active domains from Cloud SQL", read), "Build DomainNameInfo");
+  }
+
+  /**
+   * Reads the active domains that an incremental run sends to SafeBrowsing, i.e. those without a
+   * usable cached verdict.
+   */
+  static PCollection<DomainNameInfo> readDomainsToCheck(
+      Pipeline pipeline, Spec11PipelineOptions options) {
+    Read<Object[], KV<String, String>> read =
+        RegistryJpaIO.read(
+                DOMAINS_WITH_VERDICTS_QUERY + " AND NOT " + getCachedVerdictCondition(options),
+                getVerdictQueryParameters(options),
+                true,
+                Spec11Pipeline::parseRow)
+            .withCoder(KvCoder.of(StringUtf8Coder.of(), StringUtf8Coder.of()));
+    return toDomainNameInfos(
+        pipeline.apply("Read domains to check from Cloud SQL", read),
+        "Build DomainNameInfo of domains to check");
+  }
+
+  /**
+   * Reads the threat matches of the active domains whose cached verdicts an incremental run uses
+   * instead of checking them again.
+   */
+  static PCollection<KV<DomainNameInfo, ThreatMatch>> readCachedThreatMatches(
+      Pipeline pipeline, Spec11PipelineOptions options) {
+    Read<Object[], KV<String, String>> read =
+        RegistryJpaIO.read(
+                DOMAINS_WITH_VERDICTS_QUERY
+                    + " AND "
+                    + getCachedVerdictCondition(options)
+                    + " AND cardinality(v.threat_types) > 0",
+                getVerdictQueryParameters(options),
+                true,
+                Spec11Pipeline::parseRow)
+            .withCoder(KvCoder.of(StringUtf8Coder.of(), StringUtf8Coder.of()));
+    return toDomainNameInfos(
+            pipeline.apply("Read domains with cached threats from Cloud SQL", read),
+            "Build DomainNameInfo of domains with cached threats")
         .apply(
-            "Build DomainNameInfo",
+            "Load cached threat matches",
             ParDo.of(
-                new DoFn<KV<String, String>, DomainNameInfo>() {
+                new DoFn<DomainNameInfo, KV<DomainNameInfo, ThreatMatch>>() {
                   @ProcessElement
                   public void processElement(
-                      @Element KV<String, String> input, OutputReceiver<DomainNameInfo> output) {
-                    Domain domain =
-                        tm().transact(
-                                () -> tm().loadByKey(VKey.create(Domain.class, input.getKey())));
-                    String emailAddress = input.getValue();
-                    if (emailAddress == null) {
-                      emailAddress = "";
+                      @Element DomainNameInfo input,
+                      OutputReceiver<KV<DomainNameInfo, ThreatMatch>> output) {
+                    VKey<Spec11Verdict> key =
+                        VKey.create(Spec11Verdict.class, input.domainRepoId());
+                    Spec11Verdict verdict = tm().transact(() -> tm().loadByKey(key));
+                    for (ThreatType threatType : verdict.getThreatTypes()) {
+                      output.output(
+                          KV.of(input, ThreatMatch.create(threatType.name(), input.domainName())));
                     }
-                    DomainNameInfo domainNameInfo =
-                        DomainNameInfo.create(
-                            domain.getDomainName(),
-                            domain.getRepoId(),
-                            domain.getCurrentSponsorRegistrarId(),
-                            emailAddress);
-                    output.output(domainNameInfo);
                   }
                 }));
   }
 
+  /**
+   * Returns the condition under which an incremental run uses the cached verdict of a domain.
+   *
+   * <p>The condition is never null, so that every domain either is checked or uses its verdict.
+   */
+  private static String getCachedVerdictCondition(Spec11PipelineOptions options) {
+    checkArgument(options.getRotationDays() >= 0, "rotationDays must not be negative");
+    return options.getRotationDays() == 0
+        ? String.format("COALESCE(%s, FALSE)", FRESH_VERDICT_CONDITION)
+        : String.format(
+            "COALESCE(%s AND %s, FALSE)", FRESH_VERDICT_CONDITION, NOT_IN_ROTATING_SLICE_CONDITION);
+  }
+
+  private static ImmutableMap<String, Object> getVerdictQueryParameters(
+      Spec11PipelineOptions options) {
+    checkArgument(options.getVerdictTtlDays() > 0, "verdictTtlDays must be positive");
+    LocalDate date = LocalDate.parse(options.getDate(), ISODateTimeFormat.date());
+    if (options.getRotationDays() == 0) {
+      return ImmutableMap.of("expiryDate", date.minusDays(options.getVerdictTtlDays()).toString());
+    }
+    return ImmutableMap.of(
+        "expiryDate",
+        date.minusDays(options.getVerdictTtlDays()).toString(),
+        "rotationDays",
+        options.getRotationDays(),
+        "rotationSlice",
+        Days.daysBetween(EPOCH_DATE, date).getDays() % options.getRotationDays());
+  }
+
+  private static PCollection<DomainNameInfo> toDomainNameInfos(
+      PCollection<KV<String, String>> rows, String transformName) {
+    return rows.apply(
+        transformName,
+        ParDo.of(
+            new DoFn<KV<String, String>, DomainNameInfo>() {
+              @ProcessElement
+              public void processElement(
+                  @Element KV<String, String> input, OutputReceiver<DomainNameInfo> output) {
+                Domain domain =
+                    tm().transact(() -> tm().loadByKey(VKey.create(Domain.class, input.getKey())));
+                String emailAddress = input.getValue();
+                if (emailAddress == null) {
+                  emailAddress = "";
+                }
+                DomainNameInfo domainNameInfo =
+                    DomainNameInfo.create(
+                        domain.getDomainName(),
+                        domain.getRepoId(),
+                        domain.getCurrentSponsorRegistrarId(),
+                        emailAddress);
+                output.output(domainNameInfo);
+              }
+            }));
+  }
+
   private static KV<String, String> parseRow(Object[] row) {
     return KV.of((String) row[0], (String) row[1]);
   }
 
+  /**
+   * Saves the verdicts of the domains that an incremental run checked, replacing their previous
+   * verdicts.
+   *
+   * <p>Domains without any threat match are saved with a clean verdict.
+   */
+  static void saveVerdicts(
+      PCollection<DomainNameInfo> domains,
+      PCollection<KV<DomainNameInfo, ThreatMatch>> threatMatches,
+      Spec11PipelineOptions options) {
+    LocalDate date = LocalDate.parse(options.getDate(), ISODateTimeFormat.date());
+    String transformId = "Spec11 Verdicts";
+    KeyedPCollectionTuple.of(
+            CHECKED_DOMAINS,
+            domains.apply(
+                "Key checked domains by repo ID",
+                MapElements.into(
+                        TypeDescriptors.kvs(
+                            TypeDescriptors.strings(), TypeDescriptor.of(DomainNameInfo.class)))
+                    .via((DomainNameInfo domain) -> KV.of(domain.domainRepoId(), domain))))
+        .and(
+            THREAT_TYPES,
+            threatMatches.apply(
+                "Key threat types by repo ID",
+                MapElements.into(
+                        TypeDescriptors.kvs(TypeDescriptors.strings(), TypeDescriptors.strings()))
+                    .via(
+                        (KV<DomainNameInfo, ThreatMatch> kv) ->
+                            KV.of(kv.getKey().domainRepoId(), kv.getValue().threatType()))))
+        .apply("Join checked domains with their threat types", CoGroupByKey.create())
+        .apply(
+            "Construct verdicts",
+            MapElements.into(TypeDescriptor.of(Spec11Verdict.class))
+                .via(
+                    (KV<String, CoGbkResult> kv) -> {
+                      DomainNameInfo domain = kv.getValue().getOnly(CHECKED_DOMAINS);
+                      return new Spec11Verdict.Builder()
+                          .setDomainRepoId(kv.getKey())
+                          .setDomainName(domain.domainName())
+                          .setThreatTypes(
+                              Streams.stream(kv.getValue().getAll(THREAT_TYPES))
+                                  .map(ThreatType::valueOf)
+                                  .collect(toImmutableSet()))
+                          .setCheckDate(date)
+                          .build();
+                    }))
+        .apply("Prevent Fusing " + transformId, Reshuffle.viaRandomKey())
+        .apply(
+            "Write to Sql: " + transformId,
+            RegistryJpaIO.<Spec11Verdict>write()
+                .withName(transformId)
+                .withBatchSize(options.getSqlWriteBatchSize()));
+  }
+
   static void saveToSql(
       PCollection<KV<DomainNameInfo, ThreatMatch>> threatMatches, Spec11PipelineOptions options) {
     LocalDate date = LocalDate.parse(options.getDate(), ISODateTimeFormat.date());
@@ -264,8 +462,14 @@ public class Spec11Pipeline implements Serializable {
     }
 
     @Provides
-    EvaluateSafeBrowsingFn provideSafeBrowsingFn(Spec11PipelineOptions options, Retrier retrier) {
-      return new EvaluateSafeBrowsingFn(options.getSafeBrowsingApiKey(), retrier);
+    EvaluateSafeBrowsingFn provideSafeBrowsingFn(
+        Spec11PipelineOptions options, Retrier retrier, Sleeper sleeper) {
+      return new EvaluateSafeBrowsingFn(
+          options.getSafeBrowsingApiUrl(),
+          options.getSafeBrowsingApiKey(),
+          options.getSafeBrowsingMaxInFlightRequests(),
+          retrier,
+          sleeper);
     }
 
     @Provides
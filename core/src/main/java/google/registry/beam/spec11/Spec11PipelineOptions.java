@@ -15,6 +15,7 @@
 package google.registry.beam.spec11;
 
 import google.registry.beam.common.RegistryPipelineOptions;
+import org.apache.beam.sdk.options.Default;
 import org.apache.beam.sdk.options.Description;
 
 /** Custom options for running the spec11 pipeline. */
@@ -30,8 +31,43 @@ public interface Spec11PipelineOptions extends RegistryPipelineOptions {
 
   void setSafeBrowsingApiKey(String value);
 
+  @Description("The URL of the SafeBrowsing Lookup API, which tests may point at a local fake.")
+  @Default.String(SafeBrowsingTransforms.SAFE_BROWSING_URL)
+  String getSafeBrowsingApiUrl();
+
+  void setSafeBrowsingApiUrl(String value);
+
+  @Description("The number of SafeBrowsing requests that each worker thread keeps in flight.")
+  @Default.Integer(SafeBrowsingTransforms.EvaluateSafeBrowsingFn.DEFAULT_MAX_IN_FLIGHT_REQUESTS)
+  int getSafeBrowsingMaxInFlightRequests();
+
+  void setSafeBrowsingMaxInFlightRequests(int value);
+
   @Description("The GCS bucket URL for Spec11 reports to be uploaded.")
   String getReportingBucketUrl();
 
   void setReportingBucketUrl(String value);
+
+  @Description(
+      "Whether to only check the domains that have changed or whose verdicts have expired since"
+          + " the last run, plus a rotating slice of the rest, and report the others according to"
+          + " their cached verdicts.")
+  @Default.Boolean(false)
+  boolean getIncremental();
+
+  void setIncremental(boolean value);
+
+  @Description("The number of days after which a cached verdict is no longer used.")
+  @Default.Integer(14)
+  int getVerdictTtlDays();
+
+  void setVerdictTtlDays(int value);
+
+  @Description(
+      "The number of days over which the rotating slices of an incremental run cover all domains,"
+          + " or 0 to only check domains whose verdicts are stale.")
+  @Default.Integer(7)
+  int getRotationDays();
+
+  void setRotationDays(int value);
 }
@@ -16,8 +16,10 @@ package google.registry.beam.wipeout;
 
 import static com.google.common.collect.ImmutableList.toImmutableList;
 import static google.registry.persistence.transaction.TransactionManagerFactory.tm;
+import static java.util.stream.Collectors.joining;
 import static org.apache.beam.sdk.values.TypeDescriptors.voids;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Streams;
@@ -26,7 +28,12 @@ import google.registry.model.contact.ContactHistory;
 import google.registry.model.reporting.HistoryEntry.HistoryEntryId;
 import google.registry.persistence.PersistenceModule.TransactionIsolationLevel;
 import google.registry.persistence.VKey;
+import google.registry.util.Sleeper;
+import google.registry.util.SystemSleeper;
 import java.io.Serializable;
+import java.util.Optional;
+import javax.annotation.Nullable;
+import javax.persistence.Query;
 import org.apache.beam.sdk.Pipeline;
 import org.apache.beam.sdk.PipelineResult;
 import org.apache.beam.sdk.coders.KvCoder;
@@ -35,6 +42,7 @@ import org.apache.beam.sdk.coders.VarLongCoder;
 import org.apache.beam.sdk.metrics.Counter;
 import org.apache.beam.sdk.metrics.Metrics;
 import org.apache.beam.sdk.options.PipelineOptionsFactory;
+import org.apache.beam.sdk.transforms.Create;
 import org.apache.beam.sdk.transforms.MapElements;
 import org.apache.beam.sdk.transforms.join.CoGroupByKey;
 import org.apache.beam.sdk.transforms.join.KeyedPCollectionTuple;
@@ -42,6 +50,7 @@ import org.apache.beam.sdk.values.KV;
 import org.apache.beam.sdk.values.PCollection;
 import org.apache.beam.sdk.values.TupleTag;
 import org.joda.time.DateTime;
+import org.joda.time.Duration;
 
 /**
  * Definition of a Dataflow Flex pipeline template, which finds out {@link ContactHistory} entries
@@ -59,21 +68,114 @@ public class WipeOutContactHistoryPiiPipeline implements Serializable {
   private static final TupleTag<Long> REVISIONS_TO_WIPE = new TupleTag<>();
   private static final TupleTag<Long> MOST_RECENT_REVISION = new TupleTag<>();
 
+  /**
+   * The columns of {@link ContactHistory} that hold PII, i.e. those that are cleared by {@link
+   * ContactHistory.Builder#wipeOutPii}. These must be kept in sync with it.
+   */
+  private static final ImmutableList<String> PII_COLUMNS =
+      ImmutableList.of(
+          "email",
+          "fax_phone_extension",
+          "fax_phone_number",
+          "voice_phone_extension",
+          "voice_phone_number",
+          "addr_i18n_city",
+          "addr_i18n_country_code",
+          "addr_i18n_state",
+          "addr_i18n_street_line1",
+          "addr_i18n_street_line2",
+          "addr_i18n_street_line3",
+          "addr_i18n_zip",
+          "addr_i18n_name",
+          "addr_i18n_org",
+          "addr_i18n_type",
+          "addr_local_city",
+          "addr_local_country_code",
+          "addr_local_state",
+          "addr_local_street_line1",
+          "addr_local_street_line2",
+          "addr_local_street_line3",
+          "addr_local_zip",
+          "addr_local_name",
+          "addr_local_org",
+          "addr_local_type",
+          "search_name");
+
+  /** Finds the last key of a chunk of contact histories, i.e. its exclusive upper bound. */
+  private static final String CHUNK_END_QUERY =
+      "SELECT contact_repo_id, history_revision_id FROM \"ContactHistory\""
+          + " WHERE (contact_repo_id, history_revision_id) > (:startRepoId, :startRevisionId)"
+          + " ORDER BY contact_repo_id, history_revision_id OFFSET :offset LIMIT 1";
+
+  private static final String CHUNK_START_CONDITION =
+      " WHERE (h.contact_repo_id, h.history_revision_id) > (:startRepoId, :startRevisionId)";
+
+  private static final String CHUNK_END_CONDITION =
+      " AND (h.contact_repo_id, h.history_revision_id) <= (:endRepoId, :endRevisionId)";
+
+  /**
+   * The conditions for a contact history to be wiped out, which are the same as those of the
+   * entity-based wipeout: it hasn't been wiped out yet, it is older than the cutoff time, and it
+   * isn't the most recent history of its contact.
+   */
+  private static final String IN_SCOPE_CONDITIONS =
+      " AND h.email IS NOT NULL"
+          + " AND h.history_modification_time < :cutoffTime"
+          + " AND h.history_modification_time <"
+          + " (SELECT MAX(m.history_modification_time) FROM \"ContactHistory\" m"
+          + " WHERE m.contact_repo_id = h.contact_repo_id)";
+
+  private static final String CHUNK_UPDATE_PREFIX =
+      "UPDATE \"ContactHistory\" h SET "
+          + PII_COLUMNS.stream().map(column -> column + " = NULL").collect(joining(", "))
+          + ", update_timestamp = :updateTime";
+
+  private static final String CHUNK_COUNT_PREFIX = "SELECT COUNT(*) FROM \"ContactHistory\" h";
+
   private final DateTime cutoffTime;
   private final boolean dryRun;
+  private final boolean bulkWipeOut;
+  private final int bulkWipeOutChunkSize;
+  private final Duration bulkWipeOutChunkInterval;
+  private final Sleeper sleeper;
   private final Counter contactsInScope =
       Metrics.counter("WipeOutContactHistoryPii", "contacts in scope");
   private final Counter historiesToWipe =
       Metrics.counter("WipeOutContactHistoryPii", "contact histories to wipe PII from");
   private final Counter historiesWiped =
       Metrics.counter("WipeOutContactHistoryPii", "contact histories actually updated");
+  private final Counter chunksProcessed =
+      Metrics.counter("WipeOutContactHistoryPii", "chunks of contact histories processed");
 
   WipeOutContactHistoryPiiPipeline(WipeOutContactHistoryPiiPipelineOptions options) {
+    this(options, new SystemSleeper());
+  }
+
+  @VisibleForTesting
+  WipeOutContactHistoryPiiPipeline(
+      WipeOutContactHistoryPiiPipelineOptions options, Sleeper sleeper) {
     dryRun = options.getIsDryRun();
     cutoffTime = DateTime.parse(options.getCutoffTime());
+    bulkWipeOut = options.getBulkWipeOut();
+    bulkWipeOutChunkSize = options.getBulkWipeOutChunkSize();
+    bulkWipeOutChunkInterval = Duration.millis(options.getBulkWipeOutChunkIntervalMillis());
+    this.sleeper = sleeper;
   }
 
   void setup(Pipeline pipeline) {
+    if (bulkWipeOut) {
+      pipeline
+          .apply("Start bulk wipeout", Create.of((Void) null))
+          .apply(
+              "Wipe out PII in chunks",
+              MapElements.into(voids())
+                  .via(
+                      ignored -> {
+                        wipeOutInChunks();
+                        return null;
+                      }));
+      return;
+    }
     KeyedPCollectionTuple.of(REVISIONS_TO_WIPE, getHistoryEntriesToWipe(pipeline))
         .and(MOST_RECENT_REVISION, getMostRecentHistoryEntries(pipeline))
         .apply("Group by contact", CoGroupByKey.create())
@@ -117,6 +219,95 @@ public class WipeOutContactHistoryPiiPipeline implements Serializable {
                     }));
   }
 
+  /**
+   * Wipes out the PII of the contact histories in scope with one {@code UPDATE} statement per
+   * chunk, instead of loading and saving each of them.
+   *
+   * <p>The table is walked in primary key order, one chunk of {@link #bulkWipeOutChunkSize} rows at
+   * a time, so that each statement only locks a bounded range of rows and can use the primary key
+   * index. Each chunk is wiped out in its own transaction, and the pipeline pauses for {@link
+   * #bulkWipeOutChunkInterval} between chunks, so that the replicas can keep up with the writes.
+   */
+  private void wipeOutInChunks() {
+    String startRepoId = "";
+    long startRevisionId = Long.MIN_VALUE;
+    while (true) {
+      ChunkResult result = wipeOutChunk(startRepoId, startRevisionId);
+      chunksProcessed.inc();
+      historiesToWipe.inc(result.numInScope);
+      if (!dryRun) {
+        historiesWiped.inc(result.numInScope);
+      }
+      if (result.endRepoId == null) {
+        return;
+      }
+      startRepoId = result.endRepoId;
+      startRevisionId = result.endRevisionId;
+      sleeper.sleepUninterruptibly(bulkWipeOutChunkInterval);
+    }
+  }
+
+  private ChunkResult wipeOutChunk(String startRepoId, long startRevisionId) {
+    return tm().transact(
+            () -> {
+              @SuppressWarnings("unchecked")
+              Optional<Object[]> chunkEnd =
+                  tm().getEntityManager()
+                      .createNativeQuery(CHUNK_END_QUERY)
+                      .setParameter("startRepoId", startRepoId)
+                      .setParameter("startRevisionId", startRevisionId)
+                      .setParameter("offset", bulkWipeOutChunkSize - 1)
+                      .getResultStream()
+                      .findFirst();
+              // The last chunk extends to the end of the table.
+              String sql =
+                  (dryRun ? CHUNK_COUNT_PREFIX : CHUNK_UPDATE_PREFIX)
+                      + CHUNK_START_CONDITION
+                      + (chunkEnd.isPresent() ? CHUNK_END_CONDITION : "")
+                      + IN_SCOPE_CONDITIONS;
+              Query query =
+                  tm().getEntityManager()
+                      .createNativeQuery(sql)
+                      .setParameter("startRepoId", startRepoId)
+                      .setParameter("startRevisionId", startRevisionId)
+                      .setParameter("cutoffTime", cutoffTime.toDate());
+              chunkEnd.ifPresent(
+                  row ->
+                      query
+                          .setParameter("endRepoId", row[0])
+                          .setParameter("endRevisionId", ((Number) row[1]).longValue()));
+              long numInScope =
+                  dryRun
+                      ? ((Number) query.getSingleResult()).longValue()
+                      : query
+                          .setParameter("updateTime", tm().getTransactionTime().toDate())
+                          .executeUpdate();
+              return chunkEnd
+                  .map(
+                      row ->
+                          new ChunkResult(
+                              numInScope, (String) row[0], ((Number) row[1]).longValue()))
+                  .orElseGet(() -> new ChunkResult(numInScope, null, 0));
+            });
+  }
+
+  /** The outcome of wiping out a single chunk. */
+  private static final class ChunkResult {
+
+    private final long numInScope;
+
+    /** The repo ID of the last key of the chunk, or null if it was the last chunk. */
+    @Nullable private final String endRepoId;
+
+    private final long endRevisionId;
+
+    private ChunkResult(long numInScope, @Nullable String endRepoId, long endRevisionId) {
+      this.numInScope = numInScope;
+      this.endRepoId = endRepoId;
+      this.endRevisionId = endRevisionId;
+    }
+  }
+
   PCollection<KV<String, Long>> getHistoryEntriesToWipe(Pipeline pipeline) {
     return pipeline.apply(
         "Find contact histories to wipee",
@@ -34,4 +34,26 @@ public interface WipeOutContactHistoryPiiPipelineOptions extends RegistryPipelin
   boolean getIsDryRun();
 
   void setIsDryRun(boolean value);
+
+  @Description(
+      "If true, the PII is wiped out with one UPDATE statement per chunk of contact histories,"
+          + " instead of loading and saving each contact history.")
+  @Default.Boolean(false)
+  boolean getBulkWipeOut();
+
+  void setBulkWipeOut(boolean value);
+
+  @Description("The number of contact histories in each chunk of a bulk wipeout.")
+  @Default.Integer(1000)
+  int getBulkWipeOutChunkSize();
+
+  void setBulkWipeOutChunkSize(int value);
+
+  @Description(
+      "The number of milliseconds to pause between the chunks of a bulk wipeout, to keep the"
+          + " replication lag of the database replicas low.")
+  @Default.Long(100)
+  long getBulkWipeOutChunkIntervalMillis();
+
+  void setBulkWipeOutChunkIntervalMillis(long value);
 }
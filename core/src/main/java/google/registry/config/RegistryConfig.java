@@ -268,6 +268,28 @@ public final class RegistryConfig {
       return projectId + "-domain-lists";
     }
 
+    /**
+     * The number of domain names to load from the database at a time when exporting domain lists.
+     *
+     * @see google.registry.export.ExportDomainListsAction
+     */
+    @Provides
+    @Config("domainListsExportPageSize")
+    public static int provideDomainListsExportPageSize(RegistryConfigSettings config) {
+      return config.domainListsExport.pageSize;
+    }
+
+    /**
+     * Whether to gzip the exported domain lists in GCS.
+     *
+     * @see google.registry.export.ExportDomainListsAction
+     */
+    @Provides
+    @Config("domainListsGzipEnabled")
+    public static boolean provideDomainListsGzipEnabled(RegistryConfigSettings config) {
+      return config.domainListsExport.gzipEnabled;
+    }
+
     /**
      * Returns the Google Cloud Storage bucket for staging BRDA escrow deposits.
      *
@@ -675,6 +697,29 @@ public final class RegistryConfig {
       return config.icannReporting.icannActivityReportingUploadUrl;
     }
 
+    /**
+     * Returns whether ICANN activity reports are built from the in-process activity counters.
+     *
+     * @see google.registry.reporting.icann.IcannActivityCounter
+     */
+    @Provides
+    @Config("icannActivityCountersEnabled")
+    public static boolean provideIcannActivityCountersEnabled(RegistryConfigSettings config) {
+      return config.icannReporting.activityCountersEnabled;
+    }
+
+    /**
+     * Returns how often the in-process ICANN activity counters are added to the database.
+     *
+     * @see google.registry.reporting.icann.IcannActivityCounter
+     */
+    @Provides
+    @Config("icannActivityCountersFlushInterval")
+    public static java.time.Duration provideIcannActivityCountersFlushInterval(
+        RegistryConfigSettings config) {
+      return java.time.Duration.ofSeconds(config.icannReporting.activityCountersFlushSeconds);
+    }
+
     /**
      * Returns name of the GCS bucket we store invoices and detail reports in.
      *
@@ -949,6 +994,28 @@ public final class RegistryConfig {
       return ImmutableList.copyOf(config.registryPolicy.spec11WebResources);
     }
 
+    /**
+     * Returns whether the spec 11 pipeline only checks the domains whose cached verdicts are stale.
+     *
+     * @see google.registry.beam.spec11.Spec11Pipeline
+     */
+    @Provides
+    @Config("spec11IncrementalScan")
+    public static boolean provideSpec11IncrementalScan(RegistryConfigSettings config) {
+      return config.registryPolicy.spec11IncrementalScan;
+    }
+
+    /**
+     * Returns the maximum number of domains that the delete expired domains action deletes at once.
+     *
+     * @see google.registry.batch.DeleteExpiredDomainsAction
+     */
+    @Provides
+    @Config("deleteExpiredDomainsMaxConcurrency")
+    public static int provideDeleteExpiredDomainsMaxConcurrency(RegistryConfigSettings config) {
+      return config.registryPolicy.deleteExpiredDomainsMaxConcurrency;
+    }
+
     /**
      * Returns SSH client connection and read timeout.
      *
@@ -1067,6 +1134,18 @@ public final class RegistryConfig {
       return Duration.standardSeconds(config.monitoring.writeIntervalSeconds);
     }
 
+    /**
+     * Whether to log the latency breakdown of each EPP request, in addition to recording it as
+     * metrics.
+     *
+     * @see google.registry.monitoring.whitebox.LatencyBreakdown
+     */
+    @Provides
+    @Config("logEppLatencyBreakdown")
+    public static boolean provideLogEppLatencyBreakdown(RegistryConfigSettings config) {
+      return config.monitoring.logEppLatencyBreakdown;
+    }
+
     /**
      * The global automatic transfer length for contacts. After this amount of time has elapsed, the
      * transfer is automatically approved.
@@ -1376,6 +1455,106 @@ public final class RegistryConfig {
       return config.contactHistory.minMonthsBeforeWipeOut;
     }
 
+    @Provides
+    @Config("contactHistoryBulkWipeOutEnabled")
+    public static boolean provideContactHistoryBulkWipeOutEnabled(RegistryConfigSettings config) {
+      return config.contactHistory.bulkWipeOutEnabled;
+    }
+
+    @Provides
+    @Config("contactHistoryBulkWipeOutChunkSize")
+    public static int provideContactHistoryBulkWipeOutChunkSize(RegistryConfigSettings config) {
+      return config.contactHistory.bulkWipeOutChunkSize;
+    }
+
+    /**
+     * The pause between the chunks of a bulk contact history wipeout.
+     *
+     * @see google.registry.beam.wipeout.WipeOutContactHistoryPiiPipeline
+     */
+    @Provides
+    @Config("contactHistoryBulkWipeOutChunkInterval")
+    public static Duration provideContactHistoryBulkWipeOutChunkInterval(
+        RegistryConfigSettings config) {
+      return Duration.millis(config.contactHistory.bulkWipeOutChunkIntervalMillis);
+    }
+
+    /**
+     * Whether the state of EPP sessions is kept in signed tokens instead of servlet sessions.
+     *
+     * @see google.registry.flows.EppTlsAction
+     */
+    @Provides
+    @Config("eppSessionTokensEnabled")
+    public static boolean provideEppSessionTokensEnabled(RegistryConfigSettings config) {
+      return config.eppSessionTokens.enabled;
+    }
+
+    /**
+     * How long an EPP session token is valid after it is signed.
+     *
+     * <p>Tokens are signed again once more than half of this has passed, so a session without any
+     * command lasts between half of this and all of it. Tokens can't be revoked, so one that was
+     * issued before a logout stays valid until it expires.
+     *
+     * @see google.registry.flows.SessionTokenSigner
+     */
+    @Provides
+    @Config("eppSessionTokenLifetime")
+    public static Duration provideEppSessionTokenLifetime(RegistryConfigSettings config) {
+      return Duration.standardMinutes(config.eppSessionTokens.lifetimeMinutes);
+    }
+
+    /**
+     * Whether EPP check flows run in read-only transactions on the replica database, as long as it
+     * doesn't lag too far behind the primary.
+     *
+     * @see google.registry.flows.ReplicaReadFlow
+     * @see google.registry.persistence.transaction.ReplicaLagMonitor
+     */
+    @Provides
+    @Config("eppReplicaReadsEnabled")
+    public static boolean provideEppReplicaReadsEnabled(RegistryConfigSettings config) {
+      return config.eppReplicaReads.enabled;
+    }
+
+    /**
+     * The fraction of EPP responses that are validated against the EPP schemas.
+     *
+     * <p>At 1, every response is validated before it is sent. Below 1, the sampled responses are
+     * validated in the background, after they are sent.
+     *
+     * @see google.registry.flows.EppOutputValidator
+     */
+    @Provides
+    @Config("eppOutputValidationSampleRate")
+    public static double provideEppOutputValidationSampleRate(RegistryConfigSettings config) {
+      return config.eppOutputValidation.sampleRate;
+    }
+
+    /** How many sampled EPP responses may wait to be validated in the background. */
+    @Provides
+    @Config("eppOutputValidationMaxQueuedValidations")
+    public static int provideEppOutputValidationMaxQueuedValidations(
+        RegistryConfigSettings config) {
+      return config.eppOutputValidation.maxQueuedValidations;
+    }
+
+    /** The maximum replication lag at which EPP check flows still run on the replica. */
+    @Provides
+    @Config("eppReplicaReadsMaxLag")
+    public static java.time.Duration provideEppReplicaReadsMaxLag(RegistryConfigSettings config) {
+      return java.time.Duration.ofMillis(config.eppReplicaReads.maxLagMillis);
+    }
+
+    /** How often the replication lag of the replica database is measured. */
+    @Provides
+    @Config("replicaLagCheckInterval")
+    public static java.time.Duration provideReplicaLagCheckInterval(
+        RegistryConfigSettings config) {
+      return java.time.Duration.ofMillis(config.eppReplicaReads.lagCheckIntervalMillis);
+    }
+
     @Provides
     @Config("jdbcBatchSize")
     public static int provideHibernateJdbcBatchSize(RegistryConfigSettings config) {
@@ -1538,6 +1717,40 @@ public final class RegistryConfig {
     return java.time.Duration.ofSeconds(CONFIG_SETTINGS.get().caching.claimsListCachingSeconds);
   }
 
+  /** Returns the amount of time a registrar summary for the console should be cached in memory. */
+  public static java.time.Duration getConsoleSummaryCachingDuration() {
+    return java.time.Duration.ofSeconds(
+        CONFIG_SETTINGS.get().caching.consoleSummaryCachingSeconds);
+  }
+
+  /** Returns the maximum number of registrar summaries for the console to cache in memory. */
+  public static int getConsoleSummaryMaxCachedEntries() {
+    return CONFIG_SETTINGS.get().caching.consoleSummaryMaxCachedEntries;
+  }
+
+  /** Returns whether DNS refresh requests for names with a pending request are merged into it. */
+  public static boolean getCoalesceDnsRefreshRequests() {
+    return CONFIG_SETTINGS.get().dnsUpdate.coalesceRefreshRequests;
+  }
+
+  @VisibleForTesting
+  public static void overrideCoalesceDnsRefreshRequestsForTesting(boolean coalesce) {
+    CONFIG_SETTINGS.get().dnsUpdate.coalesceRefreshRequests = coalesce;
+  }
+
+  /**
+   * Returns the number of threads that the one-time initializations of an instance are run on when
+   * it starts, or zero if they shouldn't be run ahead of the first request.
+   */
+  public static int getStartupWarmUpThreads() {
+    return CONFIG_SETTINGS.get().startup.warmUpThreads;
+  }
+
+  /** Returns how long an instance waits for its one-time initializations when it starts. */
+  public static java.time.Duration getStartupWarmUpTimeout() {
+    return java.time.Duration.ofSeconds(CONFIG_SETTINGS.get().startup.warmUpTimeoutSeconds);
+  }
+
   /** Returns the email address that outgoing emails from the app are sent from. */
   public static InternetAddress getGSuiteOutgoingEmailAddress() {
     return parseEmailAddress(CONFIG_SETTINGS.get().gSuite.outgoingEmailAddress);
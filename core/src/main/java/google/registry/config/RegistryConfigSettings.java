@@ -41,6 +41,11 @@ public class RegistryConfigSettings {
   public RegistryTool registryTool;
   public SslCertificateValidation sslCertificateValidation;
   public ContactHistory contactHistory;
+  public DomainListsExport domainListsExport;
+  public EppSessionTokens eppSessionTokens;
+  public Startup startup;
+  public EppOutputValidation eppOutputValidation;
+  public EppReplicaReads eppReplicaReads;
   public DnsUpdate dnsUpdate;
   public BulkPricingPackageMonitoring bulkPricingPackageMonitoring;
 
@@ -109,8 +114,10 @@ public class RegistryConfigSettings {
     public String rdapTosStaticUrl;
     public String registryName;
     public List<String> spec11WebResources;
+    public boolean spec11IncrementalScan;
     public boolean requireSslCertificates;
     public double sunriseDomainCreateDiscount;
+    public int deleteExpiredDomainsMaxConcurrency;
   }
 
   /** Configuration for Hibernate. */
@@ -159,12 +166,16 @@ public class RegistryConfigSettings {
     public int eppResourceCachingSeconds;
     public int eppResourceMaxCachedEntries;
     public int claimsListCachingSeconds;
+    public int consoleSummaryCachingSeconds;
+    public int consoleSummaryMaxCachedEntries;
   }
 
   /** Configuration for ICANN monthly reporting. */
   public static class IcannReporting {
     public String icannTransactionsReportingUploadUrl;
     public String icannActivityReportingUploadUrl;
+    public boolean activityCountersEnabled;
+    public int activityCountersFlushSeconds;
   }
 
   /** Configuration for monthly invoices. */
@@ -202,6 +213,7 @@ public class RegistryConfigSettings {
     public int stackdriverMaxQps;
     public int stackdriverMaxPointsPerRequest;
     public int writeIntervalSeconds;
+    public boolean logEppLatencyBreakdown;
   }
 
   /** Miscellaneous configuration that doesn't quite fit in anywhere else. */
@@ -243,6 +255,40 @@ public class RegistryConfigSettings {
   /** Configuration for contact history. */
   public static class ContactHistory {
     public int minMonthsBeforeWipeOut;
+    public boolean bulkWipeOutEnabled;
+    public int bulkWipeOutChunkSize;
+    public long bulkWipeOutChunkIntervalMillis;
+  }
+
+  /** Configuration for the export of the active domain names of each TLD. */
+  public static class DomainListsExport {
+    public int pageSize;
+    public boolean gzipEnabled;
+  }
+
+  /** Configuration for the signed tokens that carry the state of EPP sessions. */
+  public static class EppSessionTokens {
+    public boolean enabled;
+    public int lifetimeMinutes;
+  }
+
+  /** Configuration for the initialization of instances when they start. */
+  public static class Startup {
+    public int warmUpThreads;
+    public int warmUpTimeoutSeconds;
+  }
+
+  /** Configuration for the validation of EPP responses against the EPP schemas. */
+  public static class EppOutputValidation {
+    public double sampleRate;
+    public int maxQueuedValidations;
+  }
+
+  /** Configuration for running read-only EPP flows on the replica database. */
+  public static class EppReplicaReads {
+    public boolean enabled;
+    public int maxLagMillis;
+    public int lagCheckIntervalMillis;
   }
 
   /** Configuration for dns update. */
@@ -252,6 +298,7 @@ public class RegistryConfigSettings {
     public String dnsUpdateFailRegistryName;
     public String registrySupportEmail;
     public String registryCcEmail;
+    public boolean coalesceRefreshRequests;
   }
 
   /** Configuration for bulk pricing package compliance monitoring. */
@@ -15,6 +15,7 @@
 package google.registry.dns;
 
 import static google.registry.dns.RefreshDnsOnHostRenameAction.PARAM_HOST_KEY;
+import static google.registry.dns.RefreshDnsOnHostRenameAction.PARAM_LAST_DOMAIN_REPO_ID;
 import static google.registry.request.RequestParameters.extractEnumParameter;
 import static google.registry.request.RequestParameters.extractIntParameter;
 import static google.registry.request.RequestParameters.extractOptionalIntParameter;
@@ -117,6 +118,12 @@ public abstract class DnsModule {
     return extractRequiredParameter(req, PARAM_HOST_KEY);
   }
 
+  @Provides
+  @Parameter(PARAM_LAST_DOMAIN_REPO_ID)
+  static Optional<String> provideLastDomainRepoId(HttpServletRequest req) {
+    return extractOptionalParameter(req, PARAM_LAST_DOMAIN_REPO_ID);
+  }
+
   @Provides
   @Parameter(PARAM_DNS_JITTER_SECONDS)
   static Optional<Integer> provideJitterSeconds(HttpServletRequest req) {
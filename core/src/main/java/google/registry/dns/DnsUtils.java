@@ -15,16 +15,22 @@
 package google.registry.dns;
 
 import static com.google.common.collect.ImmutableList.toImmutableList;
+import static google.registry.config.RegistryConfig.getCoalesceDnsRefreshRequests;
 import static google.registry.persistence.transaction.TransactionManagerFactory.tm;
+import static google.registry.util.DateTimeUtils.START_OF_TIME;
 
 import com.google.common.collect.ImmutableCollection;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterables;
 import com.google.common.net.InternetDomainName;
 import google.registry.model.common.DnsRefreshRequest;
 import google.registry.model.tld.Tld;
 import google.registry.model.tld.Tlds;
 import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import javax.persistence.Query;
 import org.joda.time.DateTime;
 import org.joda.time.Duration;
 
@@ -34,6 +40,16 @@ public final class DnsUtils {
   /** The name of the DNS publish push queue. */
   public static final String DNS_PUBLISH_PUSH_QUEUE_NAME = "dns-publish"; // See queue.xml.
 
+  /**
+   * The maximum number of requests that a single statement inserts or looks up, which keeps the
+   * statements well below the limit on the number of parameters in a query.
+   */
+  private static final int MAX_ROWS_PER_STATEMENT = 1000;
+
+  private static final String INSERT_PREFIX =
+      "INSERT INTO \"DnsRefreshRequest\" (type, name, tld, request_time, last_process_time)"
+          + " VALUES ";
+
   private DnsUtils() {}
 
   private static void requestDnsRefresh(String name, TargetType type, Duration delay) {
@@ -41,23 +57,110 @@ public final class DnsUtils {
     // Throws an IllegalArgumentException if the name is not under a managed TLD -- we only update
     // DNS for names that are under our management.
     String tld = Tlds.findTldForNameOrThrow(InternetDomainName.from(name)).toString();
-    tm().insert(new DnsRefreshRequest(type, name, tld, tm().getTransactionTime().plus(delay)));
+    DnsRefreshRequest request =
+        new DnsRefreshRequest(type, name, tld, tm().getTransactionTime().plus(delay));
+    if (getCoalesceDnsRefreshRequests()) {
+      insertAll(coalesceWithPendingRequests(type, ImmutableList.of(request)));
+    } else {
+      tm().insert(request);
+    }
   }
 
   private static void requestDnsRefresh(
       ImmutableCollection<String> names, TargetType type, Duration delay) {
     tm().assertInTransaction();
     DateTime requestTime = tm().getTransactionTime().plus(delay);
-    tm().insertAll(
-            names.stream()
-                .map(
-                    name ->
-                        new DnsRefreshRequest(
-                            type,
-                            name,
-                            Tlds.findTldForNameOrThrow(InternetDomainName.from(name)).toString(),
-                            requestTime))
-                .collect(toImmutableList()));
+    ImmutableList<DnsRefreshRequest> requests =
+        (getCoalesceDnsRefreshRequests() ? names.stream().distinct() : names.stream())
+            .map(
+                name ->
+                    new DnsRefreshRequest(
+                        type,
+                        name,
+                        Tlds.findTldForNameOrThrow(InternetDomainName.from(name)).toString(),
+                        requestTime))
+            .collect(toImmutableList());
+    insertAll(
+        getCoalesceDnsRefreshRequests() ? coalesceWithPendingRequests(type, requests) : requests);
+  }
+
+  /**
+   * Merges new requests into the pending requests for the same names, and returns the new requests
+   * for the names that have none.
+   *
+   * <p>A request is pending until it is first read by {@link
+   * #readAndUpdateRequestsWithLatestProcessTime}. Once it has been read, it may already be in the
+   * process of being published with the state of the resource before the current transaction, so a
+   * new request is added for the name instead. A pending request that is due later than the new one
+   * is moved forward to the time of the new one.
+   *
+   * <p>Concurrent transactions may still add more than one pending request for the same name, which
+   * is harmless since each of them refreshes the name.
+   */
+  private static ImmutableList<DnsRefreshRequest> coalesceWithPendingRequests(
+      TargetType type, ImmutableList<DnsRefreshRequest> requests) {
+    if (requests.isEmpty()) {
+      return requests;
+    }
+    // All the requests in a call have the same request time.
+    DateTime requestTime = requests.get(0).getRequestTime();
+    ImmutableSet.Builder<String> pendingNames = new ImmutableSet.Builder<>();
+    for (List<DnsRefreshRequest> batch : Iterables.partition(requests, MAX_ROWS_PER_STATEMENT)) {
+      ImmutableList<String> names =
+          batch.stream().map(DnsRefreshRequest::getName).collect(toImmutableList());
+      tm().query(
+              "UPDATE DnsRefreshRequest SET requestTime = :requestTime WHERE type = :type "
+                  + "AND name IN :names AND lastProcessTime = :startOfTime "
+                  + "AND requestTime > :requestTime")
+          .setParameter("requestTime", requestTime)
+          .setParameter("type", type)
+          .setParameter("names", names)
+          .setParameter("startOfTime", START_OF_TIME)
+          .executeUpdate();
+      tm().query(
+              "SELECT name FROM DnsRefreshRequest WHERE type = :type AND name IN :names "
+                  + "AND lastProcessTime = :startOfTime",
+              String.class)
+          .setParameter("type", type)
+          .setParameter("names", names)
+          .setParameter("startOfTime", START_OF_TIME)
+          .getResultStream()
+          .forEach(pendingNames::add);
+    }
+    ImmutableSet<String> alreadyPending = pendingNames.build();
+    return requests.stream()
+        .filter(request -> !alreadyPending.contains(request.getName()))
+        .collect(toImmutableList());
+  }
+
+  /**
+   * Inserts new requests with as few statements as possible.
+   *
+   * <p>The IDs of the requests are generated by the database, which keeps Hibernate from batching
+   * the inserts, so the requests are inserted with multi-row native statements instead.
+   */
+  private static void insertAll(ImmutableList<DnsRefreshRequest> requests) {
+    for (List<DnsRefreshRequest> batch : Iterables.partition(requests, MAX_ROWS_PER_STATEMENT)) {
+      StringBuilder sql = new StringBuilder(INSERT_PREFIX);
+      for (int i = 0; i < batch.size(); i++) {
+        sql.append(i == 0 ? "" : ", ")
+            .append(
+                String.format(
+                    "(:type%1$d, :name%1$d, :tld%1$d, :requestTime%1$d, :lastProcessTime%1$d)",
+                    i));
+      }
+      Query query = tm().getEntityManager().createNativeQuery(sql.toString());
+      for (int i = 0; i < batch.size(); i++) {
+        DnsRefreshRequest request = batch.get(i);
+        query
+            .setParameter("type" + i, request.getType().name())
+            .setParameter("name" + i, request.getName())
+            .setParameter("tld" + i, request.getTld())
+            .setParameter("requestTime" + i, request.getRequestTime().toDate())
+            .setParameter("lastProcessTime" + i, request.getLastProcessTime().toDate());
+      }
+      query.executeUpdate();
+    }
   }
 
   public static void requestDomainDnsRefresh(String domainName, Duration delay) {
@@ -14,15 +14,22 @@
 
 package google.registry.dns;
 
+import static com.google.common.collect.ImmutableList.toImmutableList;
 import static google.registry.dns.DnsUtils.requestDomainDnsRefresh;
 import static google.registry.dns.RefreshDnsOnHostRenameAction.PATH;
-import static google.registry.model.EppResourceUtils.getLinkedDomainKeys;
+import static google.registry.model.domain.DomainBase.DNS_PUBLISHING_PROHIBITED_STATUSES;
 import static google.registry.persistence.transaction.TransactionManagerFactory.tm;
+import static java.util.stream.Collectors.joining;
 import static javax.servlet.http.HttpServletResponse.SC_NO_CONTENT;
 
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMultimap;
+import com.google.common.collect.Iterables;
+import com.google.common.flogger.FluentLogger;
 import com.google.common.net.MediaType;
+import google.registry.batch.CloudTasksUtils;
 import google.registry.model.EppResourceUtils;
-import google.registry.model.domain.Domain;
 import google.registry.model.host.Host;
 import google.registry.persistence.VKey;
 import google.registry.request.Action;
@@ -30,9 +37,20 @@ import google.registry.request.Action.Service;
 import google.registry.request.Parameter;
 import google.registry.request.Response;
 import google.registry.request.auth.Auth;
+import java.util.Optional;
 import javax.inject.Inject;
 import org.joda.time.DateTime;
 
+/**
+ * Requests DNS refreshes of all the domains that use a renamed host as a nameserver.
+ *
+ * <p>The domains are read in chunks ordered by their repo IDs. Each chunk is read and has its
+ * refresh requests inserted in its own transaction, so that hosts linked to very many domains don't
+ * need one huge transaction. After {@link #MAX_BATCHES_PER_TASK} chunks, the rest of the domains
+ * are left to a new task, which resumes after the repo ID of the last domain that was refreshed.
+ * The same happens if a chunk fails after others were committed, so that a retry doesn't start
+ * over.
+ */
 @Action(
     service = Service.BACKEND,
     path = PATH,
@@ -40,49 +58,154 @@ import org.joda.time.DateTime;
     auth = Auth.AUTH_API_ADMIN)
 public class RefreshDnsOnHostRenameAction implements Runnable {
 
+  private static final FluentLogger logger = FluentLogger.forEnclosingClass();
+
   public static final String QUEUE_HOST_RENAME = "async-host-rename";
   public static final String PARAM_HOST_KEY = "hostKey";
+  public static final String PARAM_LAST_DOMAIN_REPO_ID = "lastDomainRepoId";
   public static final String PATH = "/_dr/task/refreshDnsOnHostRename";
 
+  /** The number of domains to refresh in each transaction. */
+  private static final int BATCH_SIZE = 1000;
+
+  /** The number of transactions to run in one task before handing off to a new one. */
+  private static final int MAX_BATCHES_PER_TASK = 50;
+
+  /**
+   * Selects the names of the domains that use a host as a nameserver and can be published to DNS.
+   *
+   * <p>This is the native SQL equivalent of {@link EppResourceUtils#getLinkedDomainKeys} followed
+   * by {@link google.registry.model.domain.DomainBase#shouldPublishToDns}, with keyset pagination.
+   * We have to use native SQL because the DomainHost table doesn't have its entity class.
+   */
+  private static final String PUBLISHABLE_LINKED_DOMAIN_QUERY =
+      "SELECT d.repo_id, d.domain_name FROM \"Domain\" d "
+          + "JOIN \"DomainHost\" dh ON dh.domain_repo_id = d.repo_id "
+          + "WHERE dh.host_repo_id = :hostRepoId "
+          + "AND d.deletion_time > :now "
+          + "AND d.repo_id > :lastRepoId "
+          + "AND (d.statuses IS NULL OR NOT d.statuses && ARRAY["
+          + DNS_PUBLISHING_PROHIBITED_STATUSES.stream()
+              .map(status -> String.format("'%s'", status.name()))
+              .collect(joining(", "))
+          + "]::text[]) "
+          + "ORDER BY d.repo_id";
+
   private final VKey<Host> hostKey;
+  private final Optional<String> lastDomainRepoId;
   private final Response response;
+  private final CloudTasksUtils cloudTasksUtils;
+  private final int batchSize;
+  private final int maxBatchesPerTask;
 
   @Inject
-  RefreshDnsOnHostRenameAction(@Parameter(PARAM_HOST_KEY) String hostKey, Response response) {
+  RefreshDnsOnHostRenameAction(
+      @Parameter(PARAM_HOST_KEY) String hostKey,
+      @Parameter(PARAM_LAST_DOMAIN_REPO_ID) Optional<String> lastDomainRepoId,
+      Response response,
+      CloudTasksUtils cloudTasksUtils) {
+    this(hostKey, lastDomainRepoId, response, cloudTasksUtils, BATCH_SIZE, MAX_BATCHES_PER_TASK);
+  }
+
+  @VisibleForTesting
+  RefreshDnsOnHostRenameAction(
+      String hostKey,
+      Optional<String> lastDomainRepoId,
+      Response response,
+      CloudTasksUtils cloudTasksUtils,
+      int batchSize,
+      int maxBatchesPerTask) {
     this.hostKey = VKey.createEppVKeyFromString(hostKey);
+    this.lastDomainRepoId = lastDomainRepoId;
     this.response = response;
+    this.cloudTasksUtils = cloudTasksUtils;
+    this.batchSize = batchSize;
+    this.maxBatchesPerTask = maxBatchesPerTask;
   }
 
   @Override
   public void run() {
-    tm().transact(
-            () -> {
-              DateTime now = tm().getTransactionTime();
-              Host host = tm().loadByKeyIfPresent(hostKey).orElse(null);
-              boolean hostValid = true;
-              String failureMessage = null;
-              if (host == null) {
-                hostValid = false;
-                failureMessage = String.format("Host to refresh does not exist: %s", hostKey);
-              } else if (EppResourceUtils.isDeleted(host, now)) {
-                hostValid = false;
-                failureMessage =
-                    String.format("Host to refresh is already deleted: %s", host.getHostName());
-              } else {
-                getLinkedDomainKeys(
-                        host.createVKey(), host.getUpdateTimestamp().getTimestamp(), null)
-                    .stream()
-                    .map(domainKey -> tm().loadByKey(domainKey))
-                    .filter(Domain::shouldPublishToDns)
-                    .forEach(domain -> requestDomainDnsRefresh(domain.getDomainName()));
-              }
+    Optional<DateTime> linkTime =
+        tm().transact(
+                () -> {
+                  DateTime now = tm().getTransactionTime();
+                  Host host = tm().loadByKeyIfPresent(hostKey).orElse(null);
+                  String failureMessage = null;
+                  if (host == null) {
+                    failureMessage = String.format("Host to refresh does not exist: %s", hostKey);
+                  } else if (EppResourceUtils.isDeleted(host, now)) {
+                    failureMessage =
+                        String.format("Host to refresh is already deleted: %s", host.getHostName());
+                  }
+                  if (failureMessage != null) {
+                    // Set the response status code to be 204 so to not retry.
+                    response.setContentType(MediaType.PLAIN_TEXT_UTF_8);
+                    response.setStatus(SC_NO_CONTENT);
+                    response.setPayload(failureMessage);
+                    return Optional.empty();
+                  }
+                  return Optional.of(host.getUpdateTimestamp().getTimestamp());
+                });
+    if (!linkTime.isPresent()) {
+      return;
+    }
+    String lastRepoId = lastDomainRepoId.orElse("");
+    for (int batch = 0; batch < maxBatchesPerTask; batch++) {
+      Optional<String> nextRepoId;
+      try {
+        nextRepoId = refreshBatch(linkTime.get(), lastRepoId);
+      } catch (RuntimeException e) {
+        if (batch == 0) {
+          throw e;
+        }
+        logger.atWarning().withCause(e).log(
+            "Failed to refresh the domains of host %s after repo ID %s; resuming in a new task.",
+            hostKey, lastRepoId);
+        enqueueContinuation(lastRepoId);
+        return;
+      }
+      if (!nextRepoId.isPresent()) {
+        return;
+      }
+      lastRepoId = nextRepoId.get();
+    }
+    enqueueContinuation(lastRepoId);
+  }
 
-              if (!hostValid) {
-                // Set the response status code to be 204 so to not retry.
-                response.setContentType(MediaType.PLAIN_TEXT_UTF_8);
-                response.setStatus(SC_NO_CONTENT);
-                response.setPayload(failureMessage);
+  /**
+   * Requests DNS refreshes of the next chunk of domains, and returns the repo ID of the last one if
+   * there might be more.
+   */
+  private Optional<String> refreshBatch(DateTime linkTime, String lastRepoId) {
+    return tm().transact(
+            () -> {
+              @SuppressWarnings("unchecked")
+              ImmutableList<Object[]> rows =
+                  ImmutableList.copyOf(
+                      tm().getEntityManager()
+                          .createNativeQuery(PUBLISHABLE_LINKED_DOMAIN_QUERY)
+                          .setParameter("hostRepoId", hostKey.getKey())
+                          .setParameter("now", linkTime.toDate())
+                          .setParameter("lastRepoId", lastRepoId)
+                          .setMaxResults(batchSize)
+                          .getResultList());
+              if (!rows.isEmpty()) {
+                requestDomainDnsRefresh(
+                    rows.stream().map(row -> (String) row[1]).collect(toImmutableList()));
               }
+              return rows.size() < batchSize
+                  ? Optional.empty()
+                  : Optional.of((String) Iterables.getLast(rows)[0]);
             });
   }
+
+  private void enqueueContinuation(String lastRepoId) {
+    cloudTasksUtils.enqueue(
+        QUEUE_HOST_RENAME,
+        cloudTasksUtils.createPostTask(
+            PATH,
+            Service.BACKEND,
+            ImmutableMultimap.of(
+                PARAM_HOST_KEY, hostKey.stringify(), PARAM_LAST_DOMAIN_REPO_ID, lastRepoId)));
+  }
 }
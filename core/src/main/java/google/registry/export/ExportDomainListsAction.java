@@ -14,16 +14,22 @@
 
 package google.registry.export;
 
-import static com.google.common.base.Verify.verifyNotNull;
 import static google.registry.model.tld.Tlds.getTldsOfType;
-import static google.registry.persistence.transaction.TransactionManagerFactory.tm;
+import static google.registry.persistence.PersistenceModule.TransactionIsolationLevel.TRANSACTION_REPEATABLE_READ;
+import static google.registry.persistence.transaction.TransactionManagerFactory.replicaTm;
 import static google.registry.request.Action.Method.POST;
 import static java.nio.charset.StandardCharsets.UTF_8;
 
 import com.google.cloud.storage.BlobId;
-import com.google.common.base.Joiner;
+import com.google.cloud.storage.BlobInfo;
+import com.google.cloud.storage.StorageException;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.flogger.FluentLogger;
+import com.google.common.hash.Hashing;
+import com.google.common.hash.HashingOutputStream;
 import com.google.common.net.MediaType;
 import google.registry.config.RegistryConfig.Config;
 import google.registry.gcs.GcsUtils;
@@ -33,17 +39,32 @@ import google.registry.request.Action;
 import google.registry.request.auth.Auth;
 import google.registry.storage.drive.DriveConnection;
 import google.registry.util.Clock;
+import google.registry.util.TeeOutputStream;
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
 import java.io.Writer;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.zip.GZIPOutputStream;
+import javax.annotation.Nullable;
 import javax.inject.Inject;
+import org.joda.time.DateTime;
 
 /**
  * An action that exports the list of active domains on all real TLDs to Google Drive and GCS.
  *
  * <p>Each TLD's active domain names are exported as a newline-delimited flat text file with the
  * name TLD.txt into the domain-lists bucket. Note that this overwrites the files in place.
+ *
+ * <p>The domain names are paged through with a keyset cursor in a read-only replica transaction and
+ * streamed into the files, so that a TLD's names are never all held in memory as strings. The
+ * SHA-256 hash of each list is stored in the metadata of its file, and files whose list hasn't
+ * changed since the last export aren't overwritten.
  */
 @Action(
     service = Action.Service.BACKEND,
@@ -55,90 +76,211 @@ public class ExportDomainListsAction implements Runnable {
   private static final FluentLogger logger = FluentLogger.forEnclosingClass();
   public static final String REGISTERED_DOMAINS_FILENAME = "registered_domains.txt";
 
+  /** The metadata key of the SHA-256 hash of the uncompressed domain list in a GCS file. */
+  @VisibleForTesting static final String CONTENT_HASH_METADATA_KEY = "sha256";
+
+  private static final String GZIP_CONTENT_ENCODING = "gzip";
+
+  /** The suffix of the file that a list is written to before it replaces the exported file. */
+  private static final String TEMPORARY_FILE_SUFFIX = ".tmp";
+
   @Inject Clock clock;
   @Inject DriveConnection driveConnection;
   @Inject GcsUtils gcsUtils;
 
   @Inject @Config("domainListsGcsBucket") String gcsBucket;
+  @Inject @Config("domainListsExportPageSize") int pageSize;
+  @Inject @Config("domainListsGzipEnabled") boolean gzipEnabled;
   @Inject ExportDomainListsAction() {}
 
   @Override
   public void run() {
     ImmutableSet<String> realTlds = getTldsOfType(TldType.REAL);
     logger.atInfo().log("Exporting domain lists for TLDs %s.", realTlds);
-    realTlds.forEach(
-        tld -> {
-          List<String> domains =
-              tm().transact(
-                      () ->
-                          // Note that if we had "creationTime <= :now" in the condition (not
-                          // necessary as there is no pending creation, the order of deletionTime
-                          // and creationTime in the query would have been significant and it
-                          // should come after deletionTime. When Hibernate substitutes "now" it
-                          // will first validate that the **first** field that is to be compared
-                          // with it (deletionTime) is assignable from the substituted Java object
-                          // (click.nowUtc()). Since creationTime is a CreateAutoTimestamp, if it
-                          // comes first, we will need to substitute "now" with
-                          // CreateAutoTimestamp.create(clock.nowUtc()). This might look a bit
-                          // strange as the Java object type is clearly incompatible between the
-                          // two fields deletionTime (DateTime) and creationTime, yet they are
-                          // compared with the same "now". It is actually OK because in the end
-                          // Hibernate converts everything to SQL types (and Java field names to
-                          // SQL column names) to run the query. Both CreateAutoTimestamp and
-                          // DateTime are persisted as timestamp_z in SQL. It is only the
-                          // validation that compares the Java types, and only with the first
-                          // field that compares with the substituted value.
-                          tm().query(
-                                  "SELECT domainName FROM Domain "
-                                      + "WHERE tld = :tld "
-                                      + "AND deletionTime > :now "
-                                      + "ORDER by domainName ASC",
-                                  String.class)
-                              .setParameter("tld", tld)
-                              .setParameter("now", clock.nowUtc())
-                              .getResultList());
-          String domainsList = Joiner.on("\n").join(domains);
-          logger.atInfo().log(
-              "Exporting %d domains for TLD %s to GCS and Drive.", domains.size(), tld);
-          exportToGcs(tld, domainsList, gcsBucket, gcsUtils);
-          exportToDrive(tld, domainsList, driveConnection);
-        });
+    realTlds.forEach(this::exportTld);
   }
 
-  protected static boolean exportToDrive(
-      String tldStr, String domains, DriveConnection driveConnection) {
-    verifyNotNull(driveConnection, "Expecting non-null driveConnection");
+  private void exportTld(String tldStr) {
+    Tld tld = Tld.get(tldStr);
+    DateTime now = clock.nowUtc();
+    BlobId blobId = BlobId.of(gcsBucket, tldStr + ".txt");
+    BlobId temporaryBlobId = BlobId.of(gcsBucket, tldStr + ".txt" + TEMPORARY_FILE_SUFFIX);
+    // Drive only accepts whole files as byte arrays, so the list is also buffered for the TLDs that
+    // are exported there.
+    ByteArrayOutputStream buffer =
+        tld.getDriveFolderId() == null ? null : new ByteArrayOutputStream();
     try {
-      Tld tld = Tld.get(tldStr);
-      if (tld.getDriveFolderId() == null) {
-        logger.atInfo().log(
-            "Skipping registered domains export for TLD %s because Drive folder isn't specified.",
-            tldStr);
-      } else {
-        String resultMsg =
-            driveConnection.createOrUpdateFile(
-                REGISTERED_DOMAINS_FILENAME,
-                MediaType.PLAIN_TEXT_UTF_8,
-                tld.getDriveFolderId(),
-                domains.getBytes(UTF_8));
-        logger.atInfo().log(
-            "Exporting registered domains succeeded for TLD %s, response was: %s",
-            tldStr, resultMsg);
+      String contentHash = writeTemporaryFile(tldStr, now, temporaryBlobId, buffer);
+      if (contentHash == null) {
+        return;
       }
+      exportToGcs(tldStr, blobId, temporaryBlobId, contentHash);
+    } finally {
+      deleteTemporaryFile(temporaryBlobId);
+    }
+    if (buffer == null) {
+      logger.atInfo().log(
+          "Skipping registered domains export for TLD %s because Drive folder isn't specified.",
+          tldStr);
+    } else {
+      exportToDrive(tld, buffer.toByteArray(), driveConnection);
+    }
+  }
+
+  /**
+   * Writes the domain list of a TLD to a temporary GCS file, and returns its SHA-256 hash.
+   *
+   * <p>The list is read from the database only once. It is hashed and copied into the given buffer,
+   * if any, as it is written, and compressed only on its way to GCS.
+   *
+   * @return the hash of the uncompressed list, or null if it couldn't be written to GCS, in which
+   *     case the buffer doesn't hold the whole list either
+   */
+  @Nullable
+  private String writeTemporaryFile(
+      String tld, DateTime now, BlobId temporaryBlobId, @Nullable OutputStream buffer) {
+    HashingOutputStream hashingOutput;
+    long numDomains;
+    try {
+      OutputStream gcsOutput = gcsUtils.openOutputStream(temporaryBlobId);
+      try (OutputStream output = gzipEnabled ? new GZIPOutputStream(gcsOutput) : gcsOutput) {
+        hashingOutput =
+            new HashingOutputStream(
+                Hashing.sha256(),
+                buffer == null ? output : new TeeOutputStream(ImmutableList.of(output, buffer)));
+        numDomains = writeDomains(tld, now, hashingOutput);
+      }
+    } catch (IOException | UncheckedIOException | StorageException e) {
+      logger.atSevere().withCause(e).log(
+          "Error exporting registered domains for TLD %s to GCS, skipping...", tld);
+      return null;
+    }
+    logger.atInfo().log("Exporting %d domains for TLD %s to GCS and Drive.", numDomains, tld);
+    return hashingOutput.hash().toString();
+  }
+
+  /**
+   * Writes the names of the active domains of a TLD to a stream, and returns their number.
+   *
+   * <p>The names are sorted and separated by newlines, with no newline after the last one. They are
+   * loaded a page at a time in a single repeatable-read transaction on the replica, so that every
+   * page comes from the same snapshot of the database. The transaction isn't retried, since the
+   * names that were already written can't be taken back.
+   */
+  private long writeDomains(String tld, DateTime now, OutputStream output) {
+    Writer writer = new BufferedWriter(new OutputStreamWriter(output, UTF_8));
+    long numDomains =
+        replicaTm()
+            .transactNoRetry(
+                () -> {
+                  long count = 0;
+                  String cursor = "";
+                  while (true) {
+                    List<String> page =
+                        // Note that if we had "creationTime <= :now" in the condition (not
+                        // necessary as there is no pending creation, the order of deletionTime
+                        // and creationTime in the query would have been significant and it
+                        // should come after deletionTime. When Hibernate substitutes "now" it
+                        // will first validate that the **first** field that is to be compared
+                        // with it (deletionTime) is assignable from the substituted Java object
+                        // (click.nowUtc()). Since creationTime is a CreateAutoTimestamp, if it
+                        // comes first, we will need to substitute "now" with
+                        // CreateAutoTimestamp.create(clock.nowUtc()). This might look a bit
+                        // strange as the Java object type is clearly incompatible between the
+                        // two fields deletionTime (DateTime) and creationTime, yet they are
+                        // compared with the same "now". It is actually OK because in the end
+                        // Hibernate converts everything to SQL types (and Java field names to
+                        // SQL column names) to run the query. Both CreateAutoTimestamp and
+                        // DateTime are persisted as timestamp_z in SQL. It is only the
+                        // validation that compares the Java types, and only with the first
+                        // field that compares with the substituted value.
+                        replicaTm()
+                            .query(
+                                "SELECT domainName FROM Domain "
+                                    + "WHERE tld = :tld "
+                                    + "AND deletionTime > :now "
+                                    + "AND domainName > :cursor "
+                                    + "ORDER by domainName ASC",
+                                String.class)
+                            .setParameter("tld", tld)
+                            .setParameter("now", now)
+                            .setParameter("cursor", cursor)
+                            .setMaxResults(pageSize)
+                            .getResultList();
+                    try {
+                      for (String domainName : page) {
+                        if (count++ > 0) {
+                          writer.write('\n');
+                        }
+                        writer.write(domainName);
+                      }
+                    } catch (IOException e) {
+                      throw new UncheckedIOException(e);
+                    }
+                    if (page.size() < pageSize) {
+                      return count;
+                    }
+                    cursor = page.get(page.size() - 1);
+                    replicaTm().getEntityManager().clear();
+                  }
+                },
+                TRANSACTION_REPEATABLE_READ);
+    try {
+      writer.flush();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return numDomains;
+  }
+
+  protected static boolean exportToDrive(
+      Tld tld, byte[] domains, DriveConnection driveConnection) {
+    try {
+      String resultMsg =
+          driveConnection.createOrUpdateFile(
+              REGISTERED_DOMAINS_FILENAME,
+              MediaType.PLAIN_TEXT_UTF_8,
+              tld.getDriveFolderId(),
+              domains);
+      logger.atInfo().log(
+          "Exporting registered domains succeeded for TLD %s, response was: %s",
+          tld.getTldStr(), resultMsg);
     } catch (Throwable e) {
       logger.atSevere().withCause(e).log(
-          "Error exporting registered domains for TLD %s to Drive, skipping...", tldStr);
+          "Error exporting registered domains for TLD %s to Drive, skipping...", tld.getTldStr());
       return false;
     }
     return true;
   }
 
-  protected static boolean exportToGcs(
-      String tld, String domains, String gcsBucket, GcsUtils gcsUtils) {
-    BlobId blobId = BlobId.of(gcsBucket, tld + ".txt");
-    try (OutputStream gcsOutput = gcsUtils.openOutputStream(blobId);
-        Writer osWriter = new OutputStreamWriter(gcsOutput, UTF_8)) {
-      osWriter.write(domains);
+  /**
+   * Replaces the exported domain list of a TLD with the temporary file it was just written to,
+   * unless the exported file already has the same list.
+   *
+   * <p>The temporary file is copied within GCS, and the hash of the list is set on the copy, so
+   * that the list doesn't need to be read from the database again.
+   */
+  protected boolean exportToGcs(
+      String tld, BlobId blobId, BlobId temporaryBlobId, String contentHash) {
+    String contentEncoding = gzipEnabled ? GZIP_CONTENT_ENCODING : null;
+    try {
+      BlobInfo existingFile = gcsUtils.getBlobInfo(blobId);
+      if (existingFile != null
+          && Objects.equals(existingFile.getContentEncoding(), contentEncoding)
+          && contentHash.equals(getContentHash(existingFile))) {
+        logger.atInfo().log(
+            "Skipping GCS export for TLD %s because its domain list hasn't changed.", tld);
+        return true;
+      }
+      BlobInfo.Builder blobInfo =
+          BlobInfo.newBuilder(blobId)
+              .setContentType(MediaType.PLAIN_TEXT_UTF_8.toString())
+              .setCacheControl("no-cache")
+              .setMetadata(ImmutableMap.of(CONTENT_HASH_METADATA_KEY, contentHash));
+      if (contentEncoding != null) {
+        blobInfo.setContentEncoding(contentEncoding);
+      }
+      gcsUtils.copy(temporaryBlobId, blobInfo.build());
     } catch (Throwable e) {
       logger.atSevere().withCause(e).log(
           "Error exporting registered domains for TLD %s to GCS, skipping...", tld);
@@ -146,4 +288,18 @@ public class ExportDomainListsAction implements Runnable {
     }
     return true;
   }
+
+  private void deleteTemporaryFile(BlobId temporaryBlobId) {
+    try {
+      gcsUtils.delete(temporaryBlobId);
+    } catch (StorageException e) {
+      logger.atWarning().withCause(e).log("Failed to delete temporary file %s.", temporaryBlobId);
+    }
+  }
+
+  @Nullable
+  private static String getContentHash(BlobInfo blobInfo) {
+    Map<String, String> metadata = blobInfo.getMetadata();
+    return metadata == null ? null : metadata.get(CONTENT_HASH_METADATA_KEY);
+  }
 }
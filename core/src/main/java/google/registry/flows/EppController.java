@@ -33,6 +33,9 @@ import google.registry.model.eppoutput.EppResponse;
 import google.registry.model.eppoutput.Result;
 import google.registry.model.eppoutput.Result.Code;
 import google.registry.monitoring.whitebox.EppMetric;
+import google.registry.monitoring.whitebox.LatencyBreakdown;
+import google.registry.monitoring.whitebox.LatencyBreakdown.Phase;
+import google.registry.monitoring.whitebox.LatencyBreakdown.Span;
 import java.util.Optional;
 import javax.inject.Inject;
 import org.json.simple.JSONValue;
@@ -65,7 +68,9 @@ public final class EppController {
     try {
       EppInput eppInput;
       try {
-        eppInput = unmarshalEpp(EppInput.class, inputXmlBytes);
+        try (Span span = LatencyBreakdown.time(Phase.UNMARSHAL)) {
+          eppInput = unmarshalEpp(EppInput.class, inputXmlBytes);
+        }
       } catch (EppException e) {
         // Log the unmarshalling error, with the raw bytes (in base64) to help with debugging.
         logger.atInfo().withCause(e).log(
@@ -119,6 +124,8 @@ public final class EppController {
         EppMetric metric = eppMetricBuilder.build();
         eppMetrics.incrementEppRequests(metric);
         eppMetrics.recordProcessingTime(metric);
+        LatencyBreakdown.current()
+            .ifPresent(breakdown -> breakdown.setCommandName(metric.getCommandName().orElse("")));
       }
     }
   }
@@ -126,7 +133,11 @@ public final class EppController {
   /** Runs an EPP flow and converts known exceptions into EPP error responses. */
   private EppOutput runFlowConvertEppErrors(FlowComponent flowComponent) {
     try {
-      return flowComponent.flowRunner().run(eppMetricBuilder);
+      FlowRunner flowRunner;
+      try (Span span = LatencyBreakdown.time(Phase.FLOW_SETUP)) {
+        flowRunner = flowComponent.flowRunner();
+      }
+      return flowRunner.run(eppMetricBuilder);
     } catch (EppException | EppExceptionInProviderException e) {
       // The command failed. Send the client an error message, but only log at INFO since many of
       // these failures are innocuous or due to client error, so there's nothing we have to change.
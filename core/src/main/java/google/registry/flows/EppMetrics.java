@@ -22,6 +22,7 @@ import com.google.monitoring.metrics.IncrementableMetric;
 import com.google.monitoring.metrics.LabelDescriptor;
 import com.google.monitoring.metrics.MetricRegistryImpl;
 import google.registry.monitoring.whitebox.EppMetric;
+import google.registry.monitoring.whitebox.LatencyBreakdown;
 import javax.inject.Inject;
 
 /** EPP Instrumentation. */
@@ -71,6 +72,34 @@ public class EppMetrics {
               LABEL_DESCRIPTORS,
               DEFAULT_FITTER);
 
+  private static final ImmutableSet<LabelDescriptor> PHASE_LABEL_DESCRIPTORS =
+      ImmutableSet.of(
+          LabelDescriptor.create("command", "The name of the command."),
+          LabelDescriptor.create("phase", "The phase of the request."));
+
+  private static final ImmutableSet<LabelDescriptor> EVENT_LABEL_DESCRIPTORS =
+      ImmutableSet.of(
+          LabelDescriptor.create("command", "The name of the command."),
+          LabelDescriptor.create("event", "The event that was counted."));
+
+  private static final EventMetric requestPhaseTime =
+      MetricRegistryImpl.getDefault()
+          .newEventMetric(
+              "/epp/request_phase_time",
+              "EPP Request Time By Phase",
+              "milliseconds",
+              PHASE_LABEL_DESCRIPTORS,
+              DEFAULT_FITTER);
+
+  private static final EventMetric requestEventCount =
+      MetricRegistryImpl.getDefault()
+          .newEventMetric(
+              "/epp/request_event_count",
+              "Count of Events Per EPP Request",
+              "count",
+              EVENT_LABEL_DESCRIPTORS,
+              DEFAULT_FITTER);
+
   private enum TrafficType {
     CANARY, PROBER, REAL
   }
@@ -104,6 +133,19 @@ public class EppMetrics {
     requestTime.record(processingTime, commandName, getTrafficType(tld).toString(), eppStatusCode);
   }
 
+  /** Records the time spent in each phase of an EPP request, and the events it counted. */
+  public void recordLatencyBreakdown(LatencyBreakdown breakdown) {
+    String commandName = breakdown.getCommandName();
+    breakdown
+        .getPhaseDurations()
+        .forEach(
+            (phase, duration) ->
+                requestPhaseTime.record(duration.toMillis(), commandName, phase.name()));
+    breakdown
+        .getCounts()
+        .forEach((counter, count) -> requestEventCount.record(count, commandName, counter.name()));
+  }
+
   private static TrafficType getTrafficType(String tld) {
     if (tld.endsWith("canary.test")) {
       return TrafficType.CANARY;
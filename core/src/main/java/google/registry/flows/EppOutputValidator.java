@@ -0,0 +1,138 @@
+// Copyright 2023 The Nomulus Authors. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package google.registry.flows;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.flogger.FluentLogger;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.monitoring.metrics.IncrementableMetric;
+import com.google.monitoring.metrics.LabelDescriptor;
+import com.google.monitoring.metrics.MetricRegistryImpl;
+import google.registry.config.RegistryConfig.Config;
+import google.registry.model.eppcommon.EppXmlTransformer;
+import google.registry.xml.XmlException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+/**
+ * Validates a sample of EPP responses against the EPP schemas in the background.
+ *
+ * <p>Validating a response costs about as much as marshalling it, so when the configured sample
+ * rate is below 1, responses are marshalled without validation on the request path, and only a
+ * sample of them is validated, on a single background thread. A response that fails validation has
+ * already been sent by then, so failures are only logged and counted in a metric, to catch bugs
+ * that produce invalid responses.
+ *
+ * <p>Samples that arrive while the queue of the background thread is full are dropped rather than
+ * slowing down requests.
+ */
+@Singleton
+public class EppOutputValidator {
+
+  private static final FluentLogger logger = FluentLogger.forEnclosingClass();
+
+  /** The outcome of a sampled validation. */
+  enum Result {
+    VALID,
+    INVALID,
+    DROPPED,
+    ERROR
+  }
+
+  static final IncrementableMetric validations =
+      MetricRegistryImpl.getDefault()
+          .newIncrementableMetric(
+              "/epp/output_validations",
+              "Count of EPP responses validated in the background",
+              "count",
+              ImmutableSet.of(
+                  LabelDescriptor.create("result", "The outcome of the validation.")));
+
+  private final double sampleRate;
+  private final Executor executor;
+
+  @Inject
+  EppOutputValidator(
+      @Config("eppOutputValidationSampleRate") double sampleRate,
+      @Config("eppOutputValidationMaxQueuedValidations") int maxQueuedValidations) {
+    this(sampleRate, createExecutor(maxQueuedValidations));
+  }
+
+  @VisibleForTesting
+  EppOutputValidator(double sampleRate, Executor executor) {
+    checkArgument(
+        sampleRate >= 0 && sampleRate <= 1, "Sample rate must be between 0 and 1: %s", sampleRate);
+    this.sampleRate = sampleRate;
+    this.executor = executor;
+  }
+
+  /** Returns whether all responses are validated, in which case it's done while marshalling. */
+  public boolean isValidatingAll() {
+    return sampleRate >= 1;
+  }
+
+  /** Validates a marshalled response in the background, if it is sampled. */
+  public void maybeValidate(byte[] responseXmlBytes) {
+    if (sampleRate <= 0 || ThreadLocalRandom.current().nextDouble() >= sampleRate) {
+      return;
+    }
+    try {
+      executor.execute(() -> validate(responseXmlBytes));
+    } catch (RejectedExecutionException e) {
+      validations.increment(Result.DROPPED.name());
+    }
+  }
+
+  private static void validate(byte[] responseXmlBytes) {
+    String responseXml = new String(responseXmlBytes, UTF_8);
+    try {
+      EppXmlTransformer.validateOutput(responseXml);
+      validations.increment(Result.VALID.name());
+    } catch (XmlException e) {
+      validations.increment(Result.INVALID.name());
+      logger.atSevere().withCause(e).log("Sent a response that did not validate: %s", responseXml);
+    } catch (Throwable t) {
+      validations.increment(Result.ERROR.name());
+      logger.atSevere().withCause(t).log("Unexpected error while validating a response.");
+    }
+  }
+
+  private static Executor createExecutor(int maxQueuedValidations) {
+    // Core threads time out, so that the thread is only kept around while validations are sampled.
+    ThreadPoolExecutor executor =
+        new ThreadPoolExecutor(
+            1,
+            1,
+            1,
+            TimeUnit.MINUTES,
+            new ArrayBlockingQueue<>(Math.max(1, maxQueuedValidations)),
+            new ThreadFactoryBuilder()
+                .setNameFormat("epp-output-validator-%d")
+                .setDaemon(true)
+                .build());
+    executor.allowCoreThreadTimeOut(true);
+    return executor;
+  }
+}
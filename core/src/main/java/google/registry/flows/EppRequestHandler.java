@@ -23,7 +23,11 @@ import static javax.servlet.http.HttpServletResponse.SC_OK;
 
 import com.google.common.flogger.FluentLogger;
 import com.google.common.net.MediaType;
+import google.registry.config.RegistryConfig.Config;
 import google.registry.model.eppoutput.EppOutput;
+import google.registry.monitoring.whitebox.LatencyBreakdown;
+import google.registry.monitoring.whitebox.LatencyBreakdown.Phase;
+import google.registry.monitoring.whitebox.LatencyBreakdown.Span;
 import google.registry.request.Response;
 import google.registry.util.ProxyHttpHeaders;
 import javax.inject.Inject;
@@ -38,6 +42,9 @@ public class EppRequestHandler {
 
   @Inject EppController eppController;
   @Inject Response response;
+  @Inject EppMetrics eppMetrics;
+  @Inject EppOutputValidator eppOutputValidator;
+  @Inject @Config("logEppLatencyBreakdown") boolean logLatencyBreakdown;
 
   @Inject
   EppRequestHandler() {}
@@ -50,15 +57,21 @@ public class EppRequestHandler {
       boolean isDryRun,
       boolean isSuperuser,
       byte[] inputXmlBytes) {
+    LatencyBreakdown latencyBreakdown = LatencyBreakdown.start();
     try {
       EppOutput eppOutput =
           eppController.handleEppCommand(
               sessionMetadata, credentials, eppRequestSource, isDryRun, isSuperuser, inputXmlBytes);
       response.setContentType(APPLICATION_EPP_XML);
-      byte[] eppResponseXmlBytes = marshalWithLenientRetry(eppOutput);
+      byte[] eppResponseXmlBytes;
+      try (Span span = LatencyBreakdown.time(Phase.MARSHAL)) {
+        eppResponseXmlBytes = marshalWithLenientRetry(eppOutput, eppOutputValidator);
+      }
       response.setPayload(new String(eppResponseXmlBytes, UTF_8));
-      logger.atInfo().log(
-          "EPP response: %s", prettyPrint(EppXmlSanitizer.sanitizeEppXml(eppResponseXmlBytes)));
+      try (Span span = LatencyBreakdown.time(Phase.LOGGING)) {
+        logger.atInfo().log(
+            "EPP response: %s", prettyPrint(EppXmlSanitizer.sanitizeEppXml(eppResponseXmlBytes)));
+      }
       // Note that we always return 200 (OK) even if the EppController returns an error response.
       // This is because returning a non-OK HTTP status code will cause the proxy server to
       // silently close the connection without returning any data. The only time we will ever return
@@ -86,6 +99,14 @@ public class EppRequestHandler {
     } catch (Exception e) {
       logger.atWarning().withCause(e).log("handleEppCommand general exception.");
       response.setStatus(SC_BAD_REQUEST);
+    } finally {
+      latencyBreakdown.close();
+      if (!isDryRun) {
+        eppMetrics.recordLatencyBreakdown(latencyBreakdown);
+      }
+      if (logLatencyBreakdown) {
+        logger.atInfo().log("EPP latency breakdown: %s", latencyBreakdown);
+      }
     }
   }
 }
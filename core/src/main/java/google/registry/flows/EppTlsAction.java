@@ -14,16 +14,24 @@
 
 package google.registry.flows;
 
+import google.registry.config.RegistryConfig.Config;
 import google.registry.request.Action;
 import google.registry.request.Action.Method;
 import google.registry.request.Payload;
+import google.registry.request.Response;
 import google.registry.request.auth.Auth;
 import javax.inject.Inject;
+import javax.inject.Provider;
+import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpSession;
 
 /**
  * Establishes a transport for EPP+TLS over HTTP. All commands and responses are EPP XML according
  * to RFC 5730. Commands must be requested via POST.
+ *
+ * <p>The state of the EPP session is kept either in the servlet {@link HttpSession}, or, when EPP
+ * session tokens are enabled, in a signed cookie that the proxy sends back with each request (see
+ * {@link SignedSessionMetadata}).
  */
 @Action(
     service = Action.Service.DEFAULT,
@@ -34,14 +42,23 @@ public class EppTlsAction implements Runnable {
 
   @Inject @Payload byte[] inputXmlBytes;
   @Inject TlsCredentials tlsCredentials;
-  @Inject HttpSession session;
+  @Inject Provider<HttpSession> session;
+  @Inject HttpServletRequest request;
+  @Inject Response response;
+  @Inject Provider<SessionTokenSigner> sessionTokenSigner;
+  @Inject @Config("eppSessionTokensEnabled") boolean sessionTokensEnabled;
   @Inject EppRequestHandler eppRequestHandler;
   @Inject EppTlsAction() {}
 
   @Override
   public void run() {
+    // Only get the HttpSession when it is used, since getting it creates one.
+    SessionMetadata sessionMetadata =
+        sessionTokensEnabled
+            ? SignedSessionMetadata.load(request, sessionTokenSigner.get(), response)
+            : new HttpSessionMetadata(session.get());
     eppRequestHandler.executeEpp(
-        new HttpSessionMetadata(session),
+        sessionMetadata,
         tlsCredentials,
         EppRequestSource.TLS,
         false,  // This endpoint is never a dry run.
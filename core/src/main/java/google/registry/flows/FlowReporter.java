@@ -28,6 +28,7 @@ import google.registry.flows.FlowModule.RegistrarId;
 import google.registry.flows.annotations.ReportingSpec;
 import google.registry.model.eppcommon.Trid;
 import google.registry.model.eppinput.EppInput;
+import google.registry.reporting.icann.IcannActivityCounter;
 import java.util.Optional;
 import javax.inject.Inject;
 import org.json.simple.JSONValue;
@@ -49,6 +50,7 @@ public class FlowReporter {
   @Inject @InputXml byte[] inputXmlBytes;
   @Inject EppInput eppInput;
   @Inject Class<? extends Flow> flowClass;
+  @Inject IcannActivityCounter icannActivityCounter;
   @Inject FlowReporter() {}
 
   /** Records information about the current flow execution in the GAE request logs. */
@@ -76,6 +78,21 @@ public class FlowReporter {
                 .build()));
   }
 
+  /**
+   * Counts the current flow execution towards the ICANN activity reports.
+   *
+   * <p>This is counted in the same way as the activity reports count the metadata that {@link
+   * #recordToLogs} writes to the logs.
+   */
+  public void recordToActivityCounter() {
+    boolean isDomainType = eppInput.isDomainType();
+    icannActivityCounter.recordEppCommand(
+        registrarId,
+        extractActivityReportField(flowClass),
+        isDomainType,
+        isDomainType ? extractTlds(eppInput.getTargetIds()) : ImmutableSet.of());
+  }
+
   /**
    * Returns the guessed TLD of the given domain name, assuming a second-level domain name, or
    * absent if no TLD could be detected.
@@ -14,11 +14,13 @@
 
 package google.registry.flows;
 
+import static google.registry.persistence.transaction.TransactionManagerFactory.callOnReplica;
 import static google.registry.persistence.transaction.TransactionManagerFactory.tm;
 import static google.registry.xml.XmlTransformer.prettyPrint;
 
 import com.google.common.base.Strings;
 import com.google.common.flogger.FluentLogger;
+import google.registry.config.RegistryConfig.Config;
 import google.registry.flows.FlowModule.DryRun;
 import google.registry.flows.FlowModule.InputXml;
 import google.registry.flows.FlowModule.RegistrarId;
@@ -28,7 +30,11 @@ import google.registry.flows.session.LoginFlow;
 import google.registry.model.eppcommon.Trid;
 import google.registry.model.eppoutput.EppOutput;
 import google.registry.monitoring.whitebox.EppMetric;
+import google.registry.monitoring.whitebox.LatencyBreakdown;
+import google.registry.monitoring.whitebox.LatencyBreakdown.Phase;
+import google.registry.monitoring.whitebox.LatencyBreakdown.Span;
 import google.registry.persistence.PersistenceModule.TransactionIsolationLevel;
+import google.registry.persistence.transaction.ReplicaLagMonitor;
 import java.util.Optional;
 import javax.inject.Inject;
 import javax.inject.Provider;
@@ -53,11 +59,16 @@ public class FlowRunner {
   @Inject SessionMetadata sessionMetadata;
   @Inject Trid trid;
   @Inject FlowReporter flowReporter;
+  @Inject @Config("eppReplicaReadsEnabled") boolean replicaReadsEnabled;
+  @Inject ReplicaLagMonitor replicaLagMonitor;
   @Inject FlowRunner() {}
 
   /** Runs the EPP flow, and records metrics on the given builder. */
   public EppOutput run(final EppMetric.Builder eppMetricBuilder) throws EppException {
-    String prettyXml = prettyPrint(EppXmlSanitizer.sanitizeEppXml(inputXmlBytes));
+    String prettyXml;
+    try (Span span = LatencyBreakdown.time(Phase.LOGGING)) {
+      prettyXml = prettyPrint(EppXmlSanitizer.sanitizeEppXml(inputXmlBytes));
+    }
 
     logger.atInfo().log(
         COMMAND_LOG_FORMAT,
@@ -69,35 +80,22 @@ public class FlowRunner {
         eppRequestSource,
         isDryRun ? "DRY_RUN" : "LIVE",
         isSuperuser ? "SUPERUSER" : "NORMAL");
-    // Record flow info to the GAE request logs for reporting purposes if it's not a dry run.
+    // Record flow info for reporting purposes if it's not a dry run.
     if (!isDryRun) {
       flowReporter.recordToLogs();
+      flowReporter.recordToActivityCounter();
     }
     eppMetricBuilder.setCommandNameFromFlow(flowClass.getSimpleName());
     if (!isTransactional) {
-      return EppOutput.create(flowProvider.get().run());
+      try (Span span = LatencyBreakdown.time(Phase.FLOW)) {
+        return EppOutput.create(flowProvider.get().run());
+      }
     }
     try {
-      // TODO(mcilwain/weiminyu): Use transactReadOnly() here for TransactionalFlow and transact()
-      //                          for MutatingFlow.
-      return tm().transact(
-              () -> {
-                try {
-                  EppOutput output = EppOutput.create(flowProvider.get().run());
-                  if (isDryRun) {
-                    throw new DryRunException(output);
-                  }
-                  if (flowClass.equals(LoginFlow.class)) {
-                    // In LoginFlow, registrarId isn't known until after the flow executes, so save
-                    // it then.
-                    eppMetricBuilder.setRegistrarId(sessionMetadata.getRegistrarId());
-                  }
-                  return output;
-                } catch (EppException e) {
-                  throw new EppRuntimeException(e);
-                }
-              },
-              isolationLevelOverride.orElse(null));
+      if (isReadOnlyOnReplica()) {
+        return callOnReplica(() -> runInTransaction(eppMetricBuilder));
+      }
+      return runInTransaction(eppMetricBuilder);
     } catch (DryRunException e) {
       return e.output;
     } catch (EppRuntimeException e) {
@@ -105,6 +103,41 @@ public class FlowRunner {
     }
   }
 
+  /**
+   * Returns whether the flow should run in a read-only transaction on the replica database.
+   *
+   * <p>This is the case for {@link ReplicaReadFlow}s, unless they need a specific isolation level,
+   * or the replica lags too far behind the primary. Other flows that don't change the database
+   * still run on the primary, so that they see the changes that the registrar just made.
+   */
+  private boolean isReadOnlyOnReplica() {
+    return replicaReadsEnabled
+        && ReplicaReadFlow.class.isAssignableFrom(flowClass)
+        && !isolationLevelOverride.isPresent()
+        && replicaLagMonitor.isReplicaFresh();
+  }
+
+  private EppOutput runInTransaction(EppMetric.Builder eppMetricBuilder) {
+    return tm().transact(
+        () -> {
+          try (Span span = LatencyBreakdown.time(Phase.FLOW)) {
+            EppOutput output = EppOutput.create(flowProvider.get().run());
+            if (isDryRun) {
+              throw new DryRunException(output);
+            }
+            if (flowClass.equals(LoginFlow.class)) {
+              // In LoginFlow, registrarId isn't known until after the flow executes, so save
+              // it then.
+              eppMetricBuilder.setRegistrarId(sessionMetadata.getRegistrarId());
+            }
+            return output;
+          } catch (EppException e) {
+            throw new EppRuntimeException(e);
+          }
+        },
+        isolationLevelOverride.orElse(null));
+  }
+
   /** Exception for canceling a transaction while capturing what the output would have been. */
   private static class DryRunException extends RuntimeException {
     final EppOutput output;
@@ -81,6 +81,30 @@ public final class FlowUtils {
     }
   }
 
+  /**
+   * Marshals an EPP response, validating it against the EPP schemas if the given validator
+   * validates all responses.
+   *
+   * <p>Otherwise the response is marshalled without validation, and the validator validates it in
+   * the background if it is sampled.
+   */
+  public static byte[] marshalWithLenientRetry(
+      EppOutput eppOutput, EppOutputValidator validator) {
+    if (validator.isValidatingAll()) {
+      return marshalWithLenientRetry(eppOutput);
+    }
+    checkState(eppOutput != null);
+    byte[] lenient;
+    try {
+      lenient = EppXmlTransformer.marshal(eppOutput, LENIENT);
+    } catch (XmlException e) {
+      throw new RuntimeException(e); // Failing to marshal at all is not recoverable.
+    }
+    validator.maybeValidate(lenient);
+    return lenient;
+  }
+
+  /** Marshals an EPP response, validating it against the EPP schemas if possible. */
   public static byte[] marshalWithLenientRetry(EppOutput eppOutput) {
     checkState(eppOutput != null);
     // We need to marshal to a string instead of writing the response directly to the servlet's
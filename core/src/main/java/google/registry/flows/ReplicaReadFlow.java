@@ -0,0 +1,26 @@
+// Copyright 2023 The Nomulus Authors. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package google.registry.flows;
+
+/**
+ * Interface for a {@link TransactionalFlow} that only reads the database, and that may be run on
+ * the replica database.
+ *
+ * <p>The replica lags behind the primary, so such a flow may not see what the same registrar just
+ * wrote. Only flows whose clients can live with that, like checks, should implement this. Flows
+ * that clients use to confirm their own changes, like infos, transfer queries and poll requests,
+ * always run on the primary.
+ */
+public interface ReplicaReadFlow extends TransactionalFlow {}
@@ -0,0 +1,236 @@
+// Copyright 2023 The Nomulus Authors. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package google.registry.flows;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static google.registry.model.CacheUtils.memoizeWithShortExpiration;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.auto.value.AutoValue;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.CharMatcher;
+import com.google.common.base.Joiner;
+import com.google.common.base.Splitter;
+import com.google.common.base.Supplier;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.flogger.FluentLogger;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import com.google.common.io.BaseEncoding;
+import google.registry.config.RegistryConfig.Config;
+import google.registry.keyring.api.KeyModule.Key;
+import google.registry.util.Clock;
+import java.security.MessageDigest;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import javax.annotation.Nullable;
+import javax.inject.Inject;
+import javax.inject.Provider;
+import javax.inject.Singleton;
+import org.joda.time.DateTime;
+import org.joda.time.Duration;
+
+/**
+ * Signs and verifies the tokens that carry the state of EPP sessions.
+ *
+ * <p>A token is {@code keyId.payload.mac}, where the payload is the base64url-encoded state of the
+ * session and its expiration time, and the MAC is the base64url-encoded HMAC-SHA256 of everything
+ * before it. Only characters that are valid in a cookie value are used.
+ *
+ * <p>The keys come from the keyring, as comma-separated {@code keyId:base64Key} pairs. Tokens are
+ * signed with the first key, and tokens signed with any of the keys are accepted. To rotate the
+ * keys, add the new key at the end of the list, wait for all servers to load it, and then move it
+ * to the front; the old key can be removed once the tokens it signed have expired.
+ */
+@Singleton
+public class SessionTokenSigner {
+
+  private static final FluentLogger logger = FluentLogger.forEnclosingClass();
+
+  private static final BaseEncoding BASE64URL = BaseEncoding.base64Url().omitPadding();
+
+  private static final CharMatcher KEY_ID_CHARS =
+      CharMatcher.inRange('a', 'z')
+          .or(CharMatcher.inRange('A', 'Z'))
+          .or(CharMatcher.inRange('0', '9'))
+          .or(CharMatcher.anyOf("-_"));
+
+  /** The minimum length of a key, in bytes, which is the output length of SHA-256. */
+  private static final int MIN_KEY_LENGTH = 32;
+
+  private final Supplier<SigningKeys> keys;
+  private final Clock clock;
+  private final Duration lifetime;
+
+  @Inject
+  SessionTokenSigner(
+      @Key("eppSessionTokenKeys") Provider<String> keys,
+      Clock clock,
+      @Config("eppSessionTokenLifetime") Duration lifetime) {
+    // Reload the keys every once in a while, so that they can be rotated without a restart.
+    this.keys = memoizeWithShortExpiration(() -> SigningKeys.parse(keys.get()));
+    this.clock = clock;
+    this.lifetime = lifetime;
+  }
+
+  /** Returns a token for the given session state, which expires after the configured lifetime. */
+  public String sign(
+      @Nullable String registrarId, Set<String> serviceExtensionUris, int failedLoginAttempts) {
+    SigningKeys signingKeys = keys.get();
+    String payload =
+        BASE64URL.encode(
+            Joiner.on('\n')
+                .join(
+                    clock.nowUtc().plus(lifetime).getMillis(),
+                    registrarId == null ? "" : registrarId,
+                    failedLoginAttempts,
+                    Joiner.on(' ').join(serviceExtensionUris))
+                .getBytes(UTF_8));
+    String signed = signingKeys.currentKeyId() + "." + payload;
+    return signed + "." + BASE64URL.encode(mac(signingKeys.currentKey(), signed));
+  }
+
+  /**
+   * Returns the session state in a token, or empty if the token is malformed, isn't signed with a
+   * known key, or has expired.
+   */
+  public Optional<SessionToken> verify(String token) {
+    List<String> parts = Splitter.on('.').splitToList(token);
+    if (parts.size() != 3) {
+      logger.atWarning().log("Malformed EPP session token.");
+      return Optional.empty();
+    }
+    String keyId = parts.get(0);
+    HashFunction key = keys.get().keysById().get(keyId);
+    if (key == null) {
+      logger.atWarning().log("EPP session token signed with unknown key %s.", keyId);
+      return Optional.empty();
+    }
+    try {
+      byte[] expectedMac = mac(key, keyId + "." + parts.get(1));
+      if (!MessageDigest.isEqual(expectedMac, BASE64URL.decode(parts.get(2)))) {
+        logger.atWarning().log("EPP session token with invalid signature.");
+        return Optional.empty();
+      }
+      List<String> fields =
+          Splitter.on('\n').splitToList(new String(BASE64URL.decode(parts.get(1)), UTF_8));
+      checkArgument(fields.size() == 4, "Wrong number of fields: %s", fields.size());
+      DateTime now = clock.nowUtc();
+      DateTime expirationTime = new DateTime(Long.parseLong(fields.get(0)), now.getZone());
+      if (!expirationTime.isAfter(now)) {
+        logger.atInfo().log("EPP session token expired at %s.", expirationTime);
+        return Optional.empty();
+      }
+      return Optional.of(
+          SessionToken.create(
+              keyId,
+              expirationTime,
+              fields.get(1).isEmpty() ? null : fields.get(1),
+              ImmutableSet.copyOf(Splitter.on(' ').omitEmptyStrings().split(fields.get(3))),
+              Integer.parseInt(fields.get(2))));
+    } catch (IllegalArgumentException e) {
+      // This includes NumberFormatException.
+      logger.atWarning().withCause(e).log("Malformed EPP session token.");
+      return Optional.empty();
+    }
+  }
+
+  /**
+   * Returns whether a verified token should be replaced, because it was signed with a key that is
+   * no longer the current one or because more than half of its lifetime has passed.
+   */
+  public boolean needsRefresh(SessionToken token) {
+    return !token.keyId().equals(keys.get().currentKeyId())
+        || token.expirationTime().isBefore(clock.nowUtc().plus(lifetime.dividedBy(2)));
+  }
+
+  private static byte[] mac(HashFunction key, String data) {
+    return key.hashString(data, UTF_8).asBytes();
+  }
+
+  /** The state of an EPP session, as carried by a verified token. */
+  @AutoValue
+  public abstract static class SessionToken {
+
+    /** The ID of the key that the token was signed with. */
+    abstract String keyId();
+
+    abstract DateTime expirationTime();
+
+    @Nullable
+    public abstract String registrarId();
+
+    public abstract ImmutableSet<String> serviceExtensionUris();
+
+    public abstract int failedLoginAttempts();
+
+    static SessionToken create(
+        String keyId,
+        DateTime expirationTime,
+        @Nullable String registrarId,
+        ImmutableSet<String> serviceExtensionUris,
+        int failedLoginAttempts) {
+      return new AutoValue_SessionTokenSigner_SessionToken(
+          keyId, expirationTime, registrarId, serviceExtensionUris, failedLoginAttempts);
+    }
+  }
+
+  /** The keys from the keyring, by their IDs, with the ID of the key that new tokens use. */
+  @AutoValue
+  abstract static class SigningKeys {
+
+    abstract String currentKeyId();
+
+    abstract ImmutableMap<String, HashFunction> keysById();
+
+    HashFunction currentKey() {
+      return keysById().get(currentKeyId());
+    }
+
+    @VisibleForTesting
+    static SigningKeys parse(String keys) {
+      ImmutableMap.Builder<String, HashFunction> keysById = new ImmutableMap.Builder<>();
+      String currentKeyId = null;
+      for (Map.Entry<String, String> entry :
+          Splitter.on(',')
+              .trimResults()
+              .omitEmptyStrings()
+              .withKeyValueSeparator(':')
+              .split(keys)
+              .entrySet()) {
+        String keyId = entry.getKey();
+        checkArgument(
+            !keyId.isEmpty() && KEY_ID_CHARS.matchesAllOf(keyId),
+            "Invalid EPP session token key ID: %s",
+            keyId);
+        byte[] key = BaseEncoding.base64().decode(entry.getValue());
+        checkArgument(
+            key.length >= MIN_KEY_LENGTH,
+            "EPP session token key %s must be at least %s bytes long",
+            keyId,
+            MIN_KEY_LENGTH);
+        keysById.put(keyId, Hashing.hmacSha256(key));
+        if (currentKeyId == null) {
+          currentKeyId = keyId;
+        }
+      }
+      checkArgument(currentKeyId != null, "No EPP session token keys in the keyring");
+      return new AutoValue_SessionTokenSigner_SigningKeys(currentKeyId, keysById.build());
+    }
+  }
+}
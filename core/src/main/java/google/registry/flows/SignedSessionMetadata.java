@@ -0,0 +1,152 @@
+// Copyright 2023 The Nomulus Authors. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package google.registry.flows;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.net.HttpHeaders.SET_COOKIE;
+
+import com.google.common.base.Joiner;
+import com.google.common.collect.ImmutableSet;
+import google.registry.flows.SessionTokenSigner.SessionToken;
+import google.registry.request.Response;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.Set;
+import javax.annotation.Nullable;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+
+/**
+ * A metadata class that keeps the state of the session in a signed token, instead of on the server.
+ *
+ * <p>The token is sent to the client in a cookie, which the proxy stores and sends back with each
+ * request on the same EPP connection, so that any server can handle any request without a shared
+ * session store. A new token is sent whenever the state of the session changes, or when the token
+ * is about to expire or was signed with an old key.
+ *
+ * <p>The cookie is set when the state changes, which is always before the response is written.
+ */
+public class SignedSessionMetadata implements SessionMetadata {
+
+  public static final String COOKIE_NAME = "EPP_SESSION_TOKEN";
+
+  private final SessionTokenSigner signer;
+  private final Response response;
+
+  @Nullable private String registrarId;
+  private ImmutableSet<String> serviceExtensionUris;
+  private int failedLoginAttempts;
+
+  private SignedSessionMetadata(
+      SessionTokenSigner signer, Response response, Optional<SessionToken> token) {
+    this.signer = signer;
+    this.response = response;
+    this.registrarId = token.map(SessionToken::registrarId).orElse(null);
+    this.serviceExtensionUris =
+        token.map(SessionToken::serviceExtensionUris).orElse(ImmutableSet.of());
+    this.failedLoginAttempts = token.map(SessionToken::failedLoginAttempts).orElse(0);
+  }
+
+  /**
+   * Returns the session whose token is in the cookie of the request, or a new session if there is
+   * no cookie or its token isn't valid.
+   */
+  public static SignedSessionMetadata load(
+      HttpServletRequest request, SessionTokenSigner signer, Response response) {
+    Optional<String> cookie =
+        Optional.ofNullable(request.getCookies())
+            .flatMap(
+                cookies ->
+                    Arrays.stream(cookies)
+                        .filter(c -> COOKIE_NAME.equals(c.getName()))
+                        .map(Cookie::getValue)
+                        .filter(value -> !value.isEmpty())
+                        .findFirst());
+    Optional<SessionToken> token = cookie.flatMap(signer::verify);
+    SignedSessionMetadata session = new SignedSessionMetadata(signer, response, token);
+    if (cookie.isPresent() && (!token.isPresent() || signer.needsRefresh(token.get()))) {
+      // Replace an old token, or clear an invalid one so that the proxy stops sending it.
+      session.save();
+    }
+    return session;
+  }
+
+  @Override
+  public void invalidate() {
+    registrarId = null;
+    serviceExtensionUris = ImmutableSet.of();
+    failedLoginAttempts = 0;
+    save();
+  }
+
+  @Override
+  @Nullable
+  public String getRegistrarId() {
+    return registrarId;
+  }
+
+  @Override
+  public Set<String> getServiceExtensionUris() {
+    return serviceExtensionUris;
+  }
+
+  @Override
+  public int getFailedLoginAttempts() {
+    return failedLoginAttempts;
+  }
+
+  @Override
+  public void setRegistrarId(@Nullable String registrarId) {
+    this.registrarId = registrarId;
+    save();
+  }
+
+  @Override
+  public void setServiceExtensionUris(Set<String> serviceExtensionUris) {
+    this.serviceExtensionUris = ImmutableSet.copyOf(serviceExtensionUris);
+    save();
+  }
+
+  @Override
+  public void incrementFailedLoginAttempts() {
+    failedLoginAttempts++;
+    save();
+  }
+
+  @Override
+  public void resetFailedLoginAttempts() {
+    failedLoginAttempts = 0;
+    save();
+  }
+
+  /** Sends the cookie with a token for the current state, or clears it if the state is empty. */
+  private void save() {
+    if (registrarId == null && serviceExtensionUris.isEmpty() && failedLoginAttempts == 0) {
+      response.setHeader(SET_COOKIE, COOKIE_NAME + "=; Path=/; Max-Age=0; Secure; HttpOnly");
+    } else {
+      String token = signer.sign(registrarId, serviceExtensionUris, failedLoginAttempts);
+      response.setHeader(SET_COOKIE, COOKIE_NAME + "=" + token + "; Path=/; Secure; HttpOnly");
+    }
+  }
+
+  @Override
+  public String toString() {
+    return toStringHelper(getClass())
+        .add("clientId", getRegistrarId())
+        .add("failedLoginAttempts", getFailedLoginAttempts())
+        .add("serviceExtensionUris", Joiner.on('.').join(getServiceExtensionUris()))
+        .toString();
+  }
+}
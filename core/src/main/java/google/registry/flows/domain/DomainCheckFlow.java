@@ -45,7 +45,7 @@ import google.registry.flows.EppException.ParameterValuePolicyErrorException;
 import google.registry.flows.ExtensionManager;
 import google.registry.flows.FlowModule.RegistrarId;
 import google.registry.flows.FlowModule.Superuser;
-import google.registry.flows.TransactionalFlow;
+import google.registry.flows.ReplicaReadFlow;
 import google.registry.flows.annotations.ReportingSpec;
 import google.registry.flows.custom.DomainCheckFlowCustomLogic;
 import google.registry.flows.custom.DomainCheckFlowCustomLogic.BeforeResponseParameters;
@@ -82,7 +82,6 @@ import google.registry.model.tld.Tld;
 import google.registry.model.tld.Tld.TldState;
 import google.registry.model.tld.label.ReservationType;
 import google.registry.persistence.VKey;
-import google.registry.pricing.PricingEngineProxy;
 import google.registry.util.Clock;
 import java.util.HashSet;
 import java.util.Optional;
@@ -121,7 +120,7 @@ import org.joda.time.DateTime;
  * @error {@link OnlyCheckedNamesCanBeFeeCheckedException}
  */
 @ReportingSpec(ActivityReportField.DOMAIN_CHECK)
-public final class DomainCheckFlow implements TransactionalFlow {
+public final class DomainCheckFlow implements ReplicaReadFlow {
 
   @Inject ResourceCommand resourceCommand;
   @Inject ExtensionManager extensionManager;
@@ -276,7 +275,21 @@ public final class DomainCheckFlow implements TransactionalFlow {
     ImmutableMap<String, BillingRecurrence> recurrences = loadRecurrencesForDomains(domainObjs);
 
     for (FeeCheckCommandExtensionItem feeCheckItem : feeCheck.getItems()) {
-      for (String domainName : getDomainNamesToCheckForFee(feeCheckItem, domainNames.keySet())) {
+      ImmutableSet<String> feeCheckDomainNames =
+          getDomainNamesToCheckForFee(feeCheckItem, domainNames.keySet());
+      // Validate the token against all of the domain names of this item at once.
+      ImmutableMap<InternetDomainName, EppException> tokenErrors =
+          allocationToken.isPresent()
+              ? AllocationTokenFlowUtils.validateTokenForDomains(
+                  feeCheckDomainNames.stream()
+                      .map(InternetDomainName::from)
+                      .collect(toImmutableList()),
+                  allocationToken.get(),
+                  feeCheckItem.getCommandName(),
+                  registrarId,
+                  now)
+              : ImmutableMap.of();
+      for (String domainName : feeCheckDomainNames) {
         Optional<AllocationToken> defaultToken =
             DomainFlowUtils.checkForDefaultToken(
                 Tld.get(InternetDomainName.from(domainName).parent().toString()),
@@ -287,14 +300,9 @@ public final class DomainCheckFlow implements TransactionalFlow {
         FeeCheckResponseExtensionItem.Builder<?> builder = feeCheckItem.createResponseBuilder();
         Optional<Domain> domain = Optional.ofNullable(domainObjs.get(domainName));
         try {
-          if (allocationToken.isPresent()) {
-            AllocationTokenFlowUtils.validateToken(
-                InternetDomainName.from(domainName),
-                allocationToken.get(),
-                feeCheckItem.getCommandName(),
-                registrarId,
-                PricingEngineProxy.isDomainPremium(domainName, now),
-                now);
+          EppException tokenError = tokenErrors.get(InternetDomainName.from(domainName));
+          if (tokenError != null) {
+            throw tokenError;
           }
           handleFeeRequest(
               feeCheckItem,
@@ -33,7 +33,7 @@ import google.registry.flows.EppException.CommandUseErrorException;
 import google.registry.flows.ExtensionManager;
 import google.registry.flows.FlowModule.RegistrarId;
 import google.registry.flows.FlowModule.Superuser;
-import google.registry.flows.TransactionalFlow;
+import google.registry.flows.ReplicaReadFlow;
 import google.registry.flows.annotations.ReportingSpec;
 import google.registry.model.domain.DomainCommand.Check;
 import google.registry.model.domain.launch.LaunchCheckExtension;
@@ -67,7 +67,7 @@ import org.joda.time.DateTime;
  * @error {@link DomainClaimsCheckNotAllowedWithAllocationTokens}
  */
 @ReportingSpec(ActivityReportField.DOMAIN_CHECK) // Claims check is a special domain check.
-public final class DomainClaimsCheckFlow implements TransactionalFlow {
+public final class DomainClaimsCheckFlow implements ReplicaReadFlow {
 
   @Inject ExtensionManager extensionManager;
   @Inject EppInput eppInput;
@@ -21,6 +21,7 @@ import static google.registry.pricing.PricingEngineProxy.isDomainPremium;
 import com.google.common.base.Strings;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Maps;
 import com.google.common.net.InternetDomainName;
 import google.registry.flows.EppException;
@@ -77,20 +78,16 @@ public class AllocationTokenFlowUtils {
 
     // If the token is only invalid for some domain names (e.g. an invalid TLD), include those error
     // results for only those domain names
+    ImmutableMap<InternetDomainName, EppException> tokenErrors =
+        validateTokenForDomains(domainNames, tokenEntity, CommandName.CREATE, registrarId, now);
     ImmutableList.Builder<InternetDomainName> validDomainNames = new ImmutableList.Builder<>();
     ImmutableMap.Builder<InternetDomainName, String> resultsBuilder = new ImmutableMap.Builder<>();
     for (InternetDomainName domainName : domainNames) {
-      try {
-        validateToken(
-            domainName,
-            tokenEntity,
-            CommandName.CREATE,
-            registrarId,
-            isDomainPremium(domainName.toString(), now),
-            now);
+      EppException error = tokenErrors.get(domainName);
+      if (error == null) {
         validDomainNames.add(domainName);
-      } catch (EppException e) {
-        resultsBuilder.put(domainName, e.getMessage());
+      } else {
+        resultsBuilder.put(domainName, error.getMessage());
       }
     }
 
@@ -131,28 +128,92 @@ public class AllocationTokenFlowUtils {
       return;
     }
     validateTokenForPossiblePremiumName(Optional.of(token), isPremium);
+    Optional<EppException> error = getCommandOrRegistrarError(token, commandName, registrarId);
+    if (!error.isPresent()) {
+      error = getDomainNameError(token, domainName);
+    }
+    if (!error.isPresent()) {
+      error = getPromotionError(token, now);
+    }
+    if (error.isPresent()) {
+      throw error.get();
+    }
+  }
+
+  /**
+   * Validates a given token against each of the given domain names, in the same way as {@link
+   * #validateToken}, and returns the error for each domain name that it isn't valid for.
+   *
+   * <p>The checks that don't depend on the domain name are only done once for all of them, and
+   * whether a name is premium is only looked up if the token isn't valid for premium names.
+   */
+  public static ImmutableMap<InternetDomainName, EppException> validateTokenForDomains(
+      List<InternetDomainName> domainNames,
+      AllocationToken token,
+      CommandName commandName,
+      String registrarId,
+      DateTime now) {
+    // Only tokens with default behavior require validation
+    if (!TokenBehavior.DEFAULT.equals(token.getTokenBehavior())) {
+      return ImmutableMap.of();
+    }
+    boolean validForPremiumNames =
+        token.getDiscountFraction() == 0.0 || token.shouldDiscountPremiums();
+    Optional<EppException> commandOrRegistrarError =
+        getCommandOrRegistrarError(token, commandName, registrarId);
+    Optional<EppException> promotionError = getPromotionError(token, now);
+    ImmutableMap.Builder<InternetDomainName, EppException> errors = new ImmutableMap.Builder<>();
+    for (InternetDomainName domainName : ImmutableSet.copyOf(domainNames)) {
+      if (!validForPremiumNames && isDomainPremium(domainName.toString(), now)) {
+        errors.put(domainName, new AllocationTokenInvalidForPremiumNameException());
+        continue;
+      }
+      Optional<EppException> error = commandOrRegistrarError;
+      if (!error.isPresent()) {
+        error = getDomainNameError(token, domainName);
+      }
+      if (!error.isPresent()) {
+        error = promotionError;
+      }
+      error.ifPresent(e -> errors.put(domainName, e));
+    }
+    return errors.build();
+  }
+
+  private static Optional<EppException> getCommandOrRegistrarError(
+      AllocationToken token, CommandName commandName, String registrarId) {
     if (!token.getAllowedEppActions().isEmpty()
         && !token.getAllowedEppActions().contains(commandName)) {
-      throw new AllocationTokenNotValidForCommandException();
+      return Optional.of(new AllocationTokenNotValidForCommandException());
     }
     if (!token.getAllowedRegistrarIds().isEmpty()
         && !token.getAllowedRegistrarIds().contains(registrarId)) {
-      throw new AllocationTokenNotValidForRegistrarException();
+      return Optional.of(new AllocationTokenNotValidForRegistrarException());
     }
+    return Optional.empty();
+  }
+
+  private static Optional<EppException> getDomainNameError(
+      AllocationToken token, InternetDomainName domainName) {
     if (!token.getAllowedTlds().isEmpty()
         && !token.getAllowedTlds().contains(domainName.parent().toString())) {
-      throw new AllocationTokenNotValidForTldException();
+      return Optional.of(new AllocationTokenNotValidForTldException());
     }
     if (token.getDomainName().isPresent()
         && !token.getDomainName().get().equals(domainName.toString())) {
-      throw new AllocationTokenNotValidForDomainException();
+      return Optional.of(new AllocationTokenNotValidForDomainException());
     }
+    return Optional.empty();
+  }
+
+  private static Optional<EppException> getPromotionError(AllocationToken token, DateTime now) {
     // Tokens without status transitions will just have a single-entry NOT_STARTED map, so only
     // check the status transitions map if it's non-trivial.
     if (token.getTokenStatusTransitions().size() > 1
         && !TokenStatus.VALID.equals(token.getTokenStatusTransitions().getValueAtTime(now))) {
-      throw new AllocationTokenNotInPromotionException();
+      return Optional.of(new AllocationTokenNotInPromotionException());
     }
+    return Optional.empty();
   }
 
   /** Validates that the given token is valid for a premium name if the name is premium. */
@@ -167,7 +228,13 @@ public class AllocationTokenFlowUtils {
     }
   }
 
-  /** Loads a given token and validates that it is not redeemed */
+  /**
+   * Loads a given token and validates that it is not redeemed.
+   *
+   * <p>Tokens that can be used more than once are loaded through a cache, so they may be slightly
+   * stale. Single-use tokens are always loaded from the database, so they never need to be evicted
+   * from the cache when they are redeemed.
+   */
   private static AllocationToken loadToken(String token) throws EppException {
     if (Strings.isNullOrEmpty(token)) {
       // We load the token directly from the input XML. If it's null or empty we should throw
@@ -181,8 +248,7 @@ public class AllocationTokenFlowUtils {
       return maybeTokenEntity.get();
     }
 
-    maybeTokenEntity =
-        tm().transact(() -> tm().loadByKeyIfPresent(VKey.create(AllocationToken.class, token)));
+    maybeTokenEntity = AllocationToken.getForValidation(VKey.create(AllocationToken.class, token));
 
     if (!maybeTokenEntity.isPresent()) {
       throw new InvalidAllocationTokenException();
@@ -22,6 +22,7 @@ import com.google.cloud.storage.BlobId;
 import com.google.cloud.storage.BlobInfo;
 import com.google.cloud.storage.Storage;
 import com.google.cloud.storage.Storage.BlobListOption;
+import com.google.cloud.storage.Storage.CopyRequest;
 import com.google.cloud.storage.StorageException;
 import com.google.cloud.storage.StorageOptions;
 import com.google.common.annotations.VisibleForTesting;
@@ -98,6 +99,15 @@ public class GcsUtils implements Serializable {
         storage().writer(BlobInfo.newBuilder(blobId).setMetadata(metadata).build()));
   }
 
+  /**
+   * Opens a GCS file for writing as an {@link OutputStream}, overwriting existing files and setting
+   * the given {@link BlobInfo}, e.g. its content type and encoding.
+   */
+  @CheckReturnValue
+  public OutputStream openOutputStream(BlobInfo blobInfo) {
+    return Channels.newOutputStream(storage().writer(blobInfo));
+  }
+
   /** Creates a GCS file with the given byte contents, overwriting existing files. */
   public void createFromBytes(BlobId blobId, byte[] bytes) throws StorageException {
     createFromBytes(createBlobInfo(blobId), bytes);
@@ -113,6 +123,16 @@ public class GcsUtils implements Serializable {
     return storage().readAllBytes(blobId);
   }
 
+  /**
+   * Copies a GCS file to another one, overwriting it, and sets the given {@link BlobInfo} on the
+   * copy, e.g. its content type and metadata.
+   *
+   * <p>The contents are copied within GCS, without being downloaded.
+   */
+  public void copy(BlobId source, BlobInfo target) throws StorageException {
+    storage().copy(CopyRequest.of(source, target)).getResult();
+  }
+
   /** Delete the given GCS file. */
   public void delete(BlobId blobId) throws StorageException {
     storage().delete(blobId);
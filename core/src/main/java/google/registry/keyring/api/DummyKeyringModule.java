@@ -123,6 +123,8 @@ public abstract class DummyKeyringModule {
         "not a real password",
         "not a real login",
         "not a real credential",
+        // A key that is all zeros; it has to be well-formed, since it is actually used.
+        "dummy:AAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAA",
         "not a real password",
         "not a real password");
   }
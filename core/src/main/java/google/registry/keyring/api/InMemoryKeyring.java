@@ -39,6 +39,7 @@ public final class InMemoryKeyring implements Keyring {
   private final String marksdbLordnPassword;
   private final String marksdbSmdrlLoginAndPassword;
   private final String jsonCredential;
+  private final String eppSessionTokenKeys;
 
   public InMemoryKeyring(
       PGPKeyPair rdeStagingKey,
@@ -54,6 +55,7 @@ public final class InMemoryKeyring implements Keyring {
       String marksdbLordnPassword,
       String marksdbSmdrlLoginAndPassword,
       String jsonCredential,
+      String eppSessionTokenKeys,
       String cloudSqlPassword,
       String toolsCloudSqlPassword) {
     checkArgument(PgpHelper.isSigningKey(rdeSigningKey.getPublicKey()),
@@ -81,6 +83,7 @@ public final class InMemoryKeyring implements Keyring {
     this.marksdbSmdrlLoginAndPassword =
         checkNotNull(marksdbSmdrlLoginAndPassword, "marksdbSmdrlLoginAndPassword");
     this.jsonCredential = checkNotNull(jsonCredential, "jsonCredential");
+    this.eppSessionTokenKeys = checkNotNull(eppSessionTokenKeys, "eppSessionTokenKeys");
   }
 
   @Override
@@ -153,6 +156,11 @@ public final class InMemoryKeyring implements Keyring {
     return jsonCredential;
   }
 
+  @Override
+  public String getEppSessionTokenKeys() {
+    return eppSessionTokenKeys;
+  }
+
   /** Does nothing. */
   @Override
   public void close() {}
@@ -54,6 +54,12 @@ public final class KeyModule {
     return keyring.getIcannReportingPassword();
   }
 
+  @Provides
+  @Key("eppSessionTokenKeys")
+  static String provideEppSessionTokenKeys(Keyring keyring) {
+    return keyring.getEppSessionTokenKeys();
+  }
+
   @Provides
   @Key("marksdbDnlLoginAndPassword")
   static Optional<String> provideMarksdbDnlLoginAndPassword(Keyring keyring) {
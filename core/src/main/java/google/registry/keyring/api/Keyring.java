@@ -151,6 +151,17 @@ public interface Keyring extends AutoCloseable {
    */
   String getJsonCredential();
 
+  /**
+   * Returns the keys that sign the tokens carrying EPP session state, as comma-separated {@code
+   * keyId:base64Key} pairs.
+   *
+   * <p>New tokens are signed with the first key, and tokens signed with any of the keys are
+   * accepted, so that the keys can be rotated without ending the sessions in progress.
+   *
+   * @see google.registry.flows.SessionTokenSigner
+   */
+  String getEppSessionTokenKeys();
+
   // Don't throw so try-with-resources works better.
   @Override
   void close();
@@ -58,6 +58,7 @@ public class SecretManagerKeyring implements Keyring {
   /** Key labels for string secrets. */
   enum StringKeyLabel {
     SAFE_BROWSING_API_KEY,
+    EPP_SESSION_TOKEN_KEYS_STRING,
     ICANN_REPORTING_PASSWORD_STRING,
     JSON_CREDENTIAL_STRING,
     MARKSDB_DNL_LOGIN_STRING,
@@ -149,6 +150,11 @@ public class SecretManagerKeyring implements Keyring {
     return getString(StringKeyLabel.JSON_CREDENTIAL_STRING);
   }
 
+  @Override
+  public String getEppSessionTokenKeys() {
+    return getString(StringKeyLabel.EPP_SESSION_TOKEN_KEYS_STRING);
+  }
+
   /** No persistent resources are maintained for this Keyring implementation. */
   @Override
   public void close() {}
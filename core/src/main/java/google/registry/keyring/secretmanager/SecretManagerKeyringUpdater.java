@@ -24,6 +24,7 @@ import static google.registry.keyring.secretmanager.SecretManagerKeyring.PublicK
 import static google.registry.keyring.secretmanager.SecretManagerKeyring.PublicKeyLabel.RDE_RECEIVER_PUBLIC;
 import static google.registry.keyring.secretmanager.SecretManagerKeyring.PublicKeyLabel.RDE_SIGNING_PUBLIC;
 import static google.registry.keyring.secretmanager.SecretManagerKeyring.PublicKeyLabel.RDE_STAGING_PUBLIC;
+import static google.registry.keyring.secretmanager.SecretManagerKeyring.StringKeyLabel.EPP_SESSION_TOKEN_KEYS_STRING;
 import static google.registry.keyring.secretmanager.SecretManagerKeyring.StringKeyLabel.ICANN_REPORTING_PASSWORD_STRING;
 import static google.registry.keyring.secretmanager.SecretManagerKeyring.StringKeyLabel.JSON_CREDENTIAL_STRING;
 import static google.registry.keyring.secretmanager.SecretManagerKeyring.StringKeyLabel.MARKSDB_DNL_LOGIN_STRING;
@@ -124,6 +125,10 @@ public final class SecretManagerKeyringUpdater {
     return setString(credential, JSON_CREDENTIAL_STRING);
   }
 
+  public SecretManagerKeyringUpdater setEppSessionTokenKeys(String keys) {
+    return setString(keys, EPP_SESSION_TOKEN_KEYS_STRING);
+  }
+
   /**
    * Persists the secrets in the Secret Manager.
    *
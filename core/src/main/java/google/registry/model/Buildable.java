@@ -17,9 +17,8 @@ package google.registry.model;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Preconditions.checkState;
 import static google.registry.model.IdService.allocateId;
-import static google.registry.model.ModelUtils.getAllFields;
+import static google.registry.model.ModelUtils.getIdAllocationField;
 
-import google.registry.model.annotations.IdAllocation;
 import google.registry.util.TypeUtils.TypeInstantiator;
 import java.lang.reflect.Field;
 import java.util.Optional;
@@ -56,11 +55,7 @@ public interface Buildable {
     public S build() {
       try {
         // If this object has a Long or long @IdAllocation field that is not set, set it now.
-        Field idField =
-            getAllFields(instance.getClass()).values().stream()
-                .filter(field -> field.isAnnotationPresent(IdAllocation.class))
-                .findFirst()
-                .orElse(null);
+        Field idField = getIdAllocationField(instance.getClass()).orElse(null);
         if (idField != null
             && !idField.getType().equals(String.class)
             && Optional.ofNullable((Long) ModelUtils.getFieldValue(instance, idField))
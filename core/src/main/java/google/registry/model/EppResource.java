@@ -16,6 +16,8 @@ package google.registry.model;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.collect.ImmutableMultiset.toImmutableMultiset;
+import static com.google.common.collect.ImmutableSet.toImmutableSet;
 import static com.google.common.collect.Sets.difference;
 import static com.google.common.collect.Sets.union;
 import static google.registry.config.RegistryConfig.getEppResourceCachingDuration;
@@ -28,16 +30,21 @@ import static google.registry.util.DateTimeUtils.END_OF_TIME;
 import com.github.benmanes.caffeine.cache.CacheLoader;
 import com.github.benmanes.caffeine.cache.LoadingCache;
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableMultiset;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Streams;
 import com.google.gson.annotations.Expose;
 import google.registry.config.RegistryConfig;
+import google.registry.model.EppResourceCacheMetrics.CacheType;
 import google.registry.model.eppcommon.StatusValue;
 import google.registry.model.transfer.TransferData;
 import google.registry.persistence.VKey;
 import google.registry.util.NonFinalForTesting;
 import java.time.Duration;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Optional;
 import java.util.Set;
 import javax.persistence.Access;
@@ -357,13 +364,34 @@ public abstract class EppResource extends UpdateAutoTimestampEntity implements B
 
         @Override
         public EppResource load(VKey<? extends EppResource> key) {
-          return tm().reTransact(() -> tm().loadByKey(key));
+          return loadAll(ImmutableList.of(key)).get(key);
         }
 
         @Override
         public Map<VKey<? extends EppResource>, EppResource> loadAll(
             Iterable<? extends VKey<? extends EppResource>> keys) {
-          return tm().reTransact(() -> tm().loadByKeys(keys));
+          // The same result tells which resources are active under their foreign keys, as of the
+          // time of the transaction that loaded them.
+          ImmutableMap<VKey<? extends EppResource>, EppResource> resources =
+              tm().reTransact(
+                  () -> {
+                    ImmutableMap<VKey<? extends EppResource>, EppResource> loaded =
+                        EppResourceUtils.loadByKeysIfPresent(tm(), keys);
+                    ForeignKeyUtils.putActiveResourcesInCache(
+                        loaded.values(), tm().getTransactionTime());
+                    return loaded;
+                  });
+          ImmutableSet<VKey<? extends EppResource>> missingKeys =
+              Streams.stream(keys)
+                  .filter(key -> !resources.containsKey(key))
+                  .collect(toImmutableSet());
+          if (!missingKeys.isEmpty()) {
+            throw new NoSuchElementException(
+                String.format(
+                    "Expected to find the following VKeys but they were missing: %s.",
+                    missingKeys));
+          }
+          return resources;
         }
       };
 
@@ -404,7 +432,17 @@ public abstract class EppResource extends UpdateAutoTimestampEntity implements B
     if (!RegistryConfig.isEppResourceCachingEnabled()) {
       return tm().reTransact(() -> tm().loadByKeys(keys));
     }
-    return ImmutableMap.copyOf(cacheEppResources.getAll(keys));
+    Map<VKey<? extends EppResource>, EppResource> cached = cacheEppResources.getAllPresent(keys);
+    ImmutableSet<VKey<? extends EppResource>> missingKeys =
+        Streams.stream(keys).filter(key -> !cached.containsKey(key)).collect(toImmutableSet());
+    recordLookups(cached.keySet(), missingKeys);
+    if (missingKeys.isEmpty()) {
+      return ImmutableMap.copyOf(cached);
+    }
+    return new ImmutableMap.Builder<VKey<? extends EppResource>, EppResource>()
+        .putAll(cached)
+        .putAll(cacheEppResources.getAll(missingKeys))
+        .build();
   }
 
   /**
@@ -417,9 +455,24 @@ public abstract class EppResource extends UpdateAutoTimestampEntity implements B
     if (!RegistryConfig.isEppResourceCachingEnabled()) {
       return tm().reTransact(() -> tm().loadByKey(key));
     }
+    EppResource cached = cacheEppResources.getIfPresent(key);
+    EppResourceCacheMetrics.recordLookups(
+        CacheType.RESOURCE, key.getKind(), cached == null ? 0 : 1, cached == null ? 1 : 0);
     // Safe to cast because loading a Key<T> returns an entity of type T.
     @SuppressWarnings("unchecked")
-    T resource = (T) cacheEppResources.get(key);
+    T resource = (T) (cached == null ? cacheEppResources.get(key) : cached);
     return resource;
   }
+
+  private static void recordLookups(
+      Set<VKey<? extends EppResource>> hits, Set<VKey<? extends EppResource>> misses) {
+    ImmutableMultiset<Class<?>> hitKinds =
+        hits.stream().map(VKey::getKind).collect(toImmutableMultiset());
+    ImmutableMultiset<Class<?>> missKinds =
+        misses.stream().map(VKey::getKind).collect(toImmutableMultiset());
+    for (Class<?> kind : union(hitKinds.elementSet(), missKinds.elementSet())) {
+      EppResourceCacheMetrics.recordLookups(
+          CacheType.RESOURCE, kind, hitKinds.count(kind), missKinds.count(kind));
+    }
+  }
 }
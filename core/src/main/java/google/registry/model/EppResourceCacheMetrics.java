@@ -0,0 +1,93 @@
+// Copyright 2023 The Nomulus Authors. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package google.registry.model;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.monitoring.metrics.DistributionFitter;
+import com.google.monitoring.metrics.EventMetric;
+import com.google.monitoring.metrics.ExponentialFitter;
+import com.google.monitoring.metrics.IncrementableMetric;
+import com.google.monitoring.metrics.LabelDescriptor;
+import com.google.monitoring.metrics.MetricRegistryImpl;
+import google.registry.monitoring.whitebox.LatencyBreakdown;
+import google.registry.monitoring.whitebox.LatencyBreakdown.Counter;
+import java.time.Duration;
+
+/** Metrics for the caches of {@link EppResource}s and of their foreign keys. */
+final class EppResourceCacheMetrics {
+
+  /** The cache that a lookup went through. */
+  enum CacheType {
+    RESOURCE,
+    FOREIGN_KEY
+  }
+
+  private static final ImmutableSet<LabelDescriptor> LOOKUP_LABEL_DESCRIPTORS =
+      ImmutableSet.of(
+          LabelDescriptor.create("cache", "The cache that was looked up."),
+          LabelDescriptor.create("kind", "The resource type."),
+          LabelDescriptor.create("result", "Whether the key was found in the cache."));
+
+  private static final ImmutableSet<LabelDescriptor> LOAD_LABEL_DESCRIPTORS =
+      ImmutableSet.of(
+          LabelDescriptor.create("cache", "The cache that was loaded."),
+          LabelDescriptor.create("kind", "The resource type."));
+
+  // Allows values between 1 and 2^16 milliseconds, i.e. a little over a minute.
+  private static final DistributionFitter EXPONENTIAL_FITTER =
+      ExponentialFitter.create(16, 2.0, 1.0);
+
+  private static final IncrementableMetric lookupsMetric =
+      MetricRegistryImpl.getDefault()
+          .newIncrementableMetric(
+              "/epp_resource_cache/lookups",
+              "Count of keys looked up in the EPP resource caches",
+              "count",
+              LOOKUP_LABEL_DESCRIPTORS);
+
+  private static final IncrementableMetric loadedKeysMetric =
+      MetricRegistryImpl.getDefault()
+          .newIncrementableMetric(
+              "/epp_resource_cache/loaded_keys",
+              "Count of keys loaded from the database on cache misses",
+              "count",
+              LOAD_LABEL_DESCRIPTORS);
+
+  private static final EventMetric loadTimeMetric =
+      MetricRegistryImpl.getDefault()
+          .newEventMetric(
+              "/epp_resource_cache/load_time",
+              "Time spent on one bulk load from the database",
+              "milliseconds",
+              LOAD_LABEL_DESCRIPTORS,
+              EXPONENTIAL_FITTER);
+
+  private EppResourceCacheMetrics() {}
+
+  static void recordLookups(CacheType cache, Class<?> kind, long hits, long misses) {
+    if (hits > 0) {
+      lookupsMetric.incrementBy(hits, cache.name(), kind.getSimpleName(), "HIT");
+    }
+    if (misses > 0) {
+      lookupsMetric.incrementBy(misses, cache.name(), kind.getSimpleName(), "MISS");
+      LatencyBreakdown.increment(Counter.CACHE_MISSES, misses);
+    }
+  }
+
+  static void recordLoad(CacheType cache, Class<?> kind, int numKeys, Duration duration) {
+    loadedKeysMetric.incrementBy(numKeys, cache.name(), kind.getSimpleName());
+    loadTimeMetric.record(duration.toMillis(), cache.name(), kind.getSimpleName());
+  }
+}
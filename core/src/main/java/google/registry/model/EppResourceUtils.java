@@ -15,6 +15,9 @@
 package google.registry.model;
 
 import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.collect.ImmutableListMultimap.toImmutableListMultimap;
+import static com.google.common.collect.ImmutableMap.toImmutableMap;
 import static com.google.common.collect.ImmutableSet.toImmutableSet;
 import static google.registry.persistence.transaction.TransactionManagerFactory.tm;
 import static google.registry.util.DateTimeUtils.START_OF_TIME;
@@ -22,13 +25,18 @@ import static google.registry.util.DateTimeUtils.isAtOrAfter;
 import static google.registry.util.DateTimeUtils.isBeforeOrAt;
 import static google.registry.util.DateTimeUtils.latestOf;
 
+import com.google.common.base.Stopwatch;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableListMultimap;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Streams;
 import com.google.common.flogger.FluentLogger;
 import google.registry.config.RegistryConfig;
 import google.registry.model.EppResource.BuilderWithTransferData;
 import google.registry.model.EppResource.ForeignKeyedEppResource;
 import google.registry.model.EppResource.ResourceWithTransferData;
+import google.registry.model.EppResourceCacheMetrics.CacheType;
 import google.registry.model.contact.Contact;
 import google.registry.model.domain.Domain;
 import google.registry.model.eppcommon.StatusValue;
@@ -40,6 +48,7 @@ import google.registry.model.transfer.DomainTransferData;
 import google.registry.model.transfer.TransferData;
 import google.registry.model.transfer.TransferStatus;
 import google.registry.persistence.VKey;
+import google.registry.persistence.transaction.JpaTransactionManager;
 import java.util.Collection;
 import java.util.Comparator;
 import java.util.Optional;
@@ -140,6 +149,88 @@ public final class EppResourceUtils {
         clazz, foreignKey, now, RegistryConfig.isEppResourceCachingEnabled());
   }
 
+  /**
+   * Loads the last created versions of {@link EppResource}s by foreign key, using the caches.
+   *
+   * <p>This is the bulk version of {@link #loadByForeignKeyCached}. Foreign keys and resources that
+   * aren't cached are each loaded with a single query, so the number of queries doesn't grow with
+   * the number of foreign keys. The returned map omits foreign keys for which no resource exists,
+   * or for which the most recently created resource was deleted before time "now".
+   *
+   * <p>Do not call this cached version for anything that needs transactional consistency.
+   */
+  public static <T extends EppResource> ImmutableMap<String, T> loadByForeignKeysCached(
+      Class<T> clazz, Collection<String> foreignKeys, DateTime now) {
+    checkArgument(
+        ForeignKeyedEppResource.class.isAssignableFrom(clazz),
+        "loadByForeignKeysCached may only be called for foreign keyed EPP resources");
+    if (!RegistryConfig.isEppResourceCachingEnabled()) {
+      return foreignKeys.stream()
+          .distinct()
+          .map(foreignKey -> loadByForeignKeyHelper(clazz, foreignKey, now, false))
+          .filter(Optional::isPresent)
+          .map(Optional::get)
+          .collect(toImmutableMap(EppResource::getForeignKey, resource -> resource));
+    }
+    ImmutableMap<String, VKey<T>> keys = ForeignKeyUtils.loadCached(clazz, foreignKeys, now);
+    ImmutableMap<VKey<? extends EppResource>, EppResource> resources =
+        EppResource.loadCached(ImmutableList.copyOf(keys.values()));
+    ImmutableMap.Builder<String, T> builder = new ImmutableMap.Builder<>();
+    keys.forEach(
+        (foreignKey, key) -> {
+          // Safe to cast because loading a VKey<T> returns an entity of type T.
+          @SuppressWarnings("unchecked")
+          T resource = (T) resources.get(key);
+          projectIfActive(resource, now).ifPresent(projected -> builder.put(foreignKey, projected));
+        });
+    return builder.build();
+  }
+
+  /**
+   * Loads {@link EppResource}s by their keys, with one query per kind of resource.
+   *
+   * <p>The keys may be of different kinds. The returned map omits keys for which no resource
+   * exists. Unlike {@link google.registry.persistence.transaction.TransactionManager#loadByKeys},
+   * which finds resources one at a time, the number of queries doesn't grow with the number of
+   * keys.
+   *
+   * <p>The collections of domains (name servers, DS data and grace periods) aren't fetched by the
+   * query itself. Each of them is loaded with one more query per batch of up to 100 domains, so
+   * loading up to 100 domains takes four queries in all.
+   */
+  public static ImmutableMap<VKey<? extends EppResource>, EppResource> loadByKeysIfPresent(
+      JpaTransactionManager tmToUse, Iterable<? extends VKey<? extends EppResource>> keys) {
+    ImmutableListMultimap<Class<? extends EppResource>, VKey<? extends EppResource>> keysByKind =
+        Streams.stream(keys)
+            .distinct()
+            .collect(toImmutableListMultimap(VKey::getKind, key -> key));
+    if (keysByKind.isEmpty()) {
+      return ImmutableMap.of();
+    }
+    return tmToUse.reTransact(
+        () -> {
+          ImmutableMap.Builder<VKey<? extends EppResource>, EppResource> builder =
+              new ImmutableMap.Builder<>();
+          for (Class<? extends EppResource> kind : keysByKind.keySet()) {
+            ImmutableList<VKey<? extends EppResource>> keysOfKind = keysByKind.get(kind);
+            Stopwatch stopwatch = Stopwatch.createStarted();
+            tmToUse
+                .query(
+                    String.format("FROM %s WHERE repoId IN (:repoIds)", kind.getSimpleName()), kind)
+                .setParameter(
+                    "repoIds", keysOfKind.stream().map(VKey::getKey).collect(toImmutableList()))
+                // The results are loaded as a list rather than streamed, so that all of them are
+                // in the session when their collections are loaded in batches.
+                .getResultList()
+                .forEach(
+                    resource -> builder.put(VKey.create(kind, resource.getRepoId()), resource));
+            EppResourceCacheMetrics.recordLoad(
+                CacheType.RESOURCE, kind, keysOfKind.size(), stopwatch.elapsed());
+          }
+          return builder.build();
+        });
+  }
+
   private static <T extends EppResource> Optional<T> loadByForeignKeyHelper(
       Class<T> clazz, String foreignKey, DateTime now, boolean useCache) {
     checkArgument(
@@ -159,6 +250,12 @@ public final class EppResourceUtils {
             // This transaction is buried very deeply inside many outer nested calls, hence merits
             // the use of reTransact() for now pending a substantial refactoring.
             : tm().reTransact(() -> tm().loadByKeyIfPresent(key).orElse(null));
+    return projectIfActive(resource, now);
+  }
+
+  /** Returns the resource projected to "now", or empty if it is null or deleted by then. */
+  private static <T extends EppResource> Optional<T> projectIfActive(
+      @Nullable T resource, DateTime now) {
     if (resource == null || isAtOrAfter(now, resource.getDeletionTime())) {
       return Optional.empty();
     }
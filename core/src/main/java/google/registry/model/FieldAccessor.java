@@ -0,0 +1,37 @@
+// Copyright 2023 The Nomulus Authors. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package google.registry.model;
+
+import com.google.common.collect.ImmutableList;
+import javax.annotation.Nullable;
+
+/**
+ * Reads the instance fields that an {@link ImmutableObject} subclass declares, without reflection.
+ *
+ * <p>Implementations are generated at compile time by {@code
+ * google.registry.processors.FieldAccessorProcessor}, in the package of the class, and are named
+ * {@code FieldAccessor_<simple class name>}, with the names of enclosing classes prepended and
+ * separated by underscores. They only cover non-private fields. {@link ModelUtils} finds them by
+ * name, and falls back to reflection for any field that has none.
+ */
+public interface FieldAccessor {
+
+  /** Returns the names of the fields that this accessor reads, in the order of their indices. */
+  ImmutableList<String> getFieldNames();
+
+  /** Returns the value of the field with the given index on the given instance. */
+  @Nullable
+  Object get(Object instance, int index);
+}
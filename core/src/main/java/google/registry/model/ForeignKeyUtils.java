@@ -14,8 +14,9 @@
 
 package google.registry.model;
 
-import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.collect.ImmutableListMultimap.toImmutableListMultimap;
 import static com.google.common.collect.ImmutableMap.toImmutableMap;
+import static com.google.common.collect.ImmutableSet.toImmutableSet;
 import static google.registry.config.RegistryConfig.getEppResourceCachingDuration;
 import static google.registry.config.RegistryConfig.getEppResourceMaxCachedEntries;
 import static google.registry.persistence.transaction.TransactionManagerFactory.replicaTm;
@@ -25,12 +26,14 @@ import com.github.benmanes.caffeine.cache.CacheLoader;
 import com.github.benmanes.caffeine.cache.LoadingCache;
 import com.google.auto.value.AutoValue;
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Stopwatch;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableListMultimap;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
-import com.google.common.collect.Maps;
 import com.google.common.collect.Streams;
 import google.registry.config.RegistryConfig;
+import google.registry.model.EppResourceCacheMetrics.CacheType;
 import google.registry.model.contact.Contact;
 import google.registry.model.domain.Domain;
 import google.registry.model.host.Host;
@@ -42,6 +45,7 @@ import java.util.Collection;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Optional;
+import java.util.stream.Stream;
 import javax.annotation.Nullable;
 import org.joda.time.DateTime;
 
@@ -139,21 +143,30 @@ public final class ForeignKeyUtils {
             @Override
             public Map<VKey<? extends EppResource>, Optional<MostRecentResource>> loadAll(
                 Iterable<? extends VKey<? extends EppResource>> keys) {
-              if (!keys.iterator().hasNext()) {
-                return ImmutableMap.of();
+              // The keys may be of different kinds, so load each kind with its own query.
+              ImmutableListMultimap<Class<? extends EppResource>, String> foreignKeysByKind =
+                  Streams.stream(keys)
+                      .distinct()
+                      .collect(
+                          toImmutableListMultimap(VKey::getKind, key -> (String) key.getKey()));
+              ImmutableMap.Builder<VKey<? extends EppResource>, Optional<MostRecentResource>>
+                  builder = new ImmutableMap.Builder<>();
+              for (Class<? extends EppResource> clazz : foreignKeysByKind.keySet()) {
+                ImmutableList<String> foreignKeys = foreignKeysByKind.get(clazz);
+                Stopwatch stopwatch = Stopwatch.createStarted();
+                ImmutableMap<String, MostRecentResource> existingKeys =
+                    ForeignKeyUtils.load(clazz, foreignKeys, true);
+                EppResourceCacheMetrics.recordLoad(
+                    CacheType.FOREIGN_KEY, clazz, foreignKeys.size(), stopwatch.elapsed());
+                // The above map only contains keys that exist in the database, so we re-add the
+                // missing ones with Optional.empty() values for caching.
+                for (String foreignKey : foreignKeys) {
+                  builder.put(
+                      VKey.create(clazz, foreignKey),
+                      Optional.ofNullable(existingKeys.get(foreignKey)));
+                }
               }
-              // It is safe to use the resource type of first element because when this function is
-              // called, it is always passed with a list of VKeys with the same type.
-              Class<? extends EppResource> clazz = keys.iterator().next().getKind();
-              ImmutableList<String> foreignKeys =
-                  Streams.stream(keys).map(key -> (String) key.getKey()).collect(toImmutableList());
-              ImmutableMap<String, MostRecentResource> existingKeys =
-                  ForeignKeyUtils.load(clazz, foreignKeys, true);
-              // The above map only contains keys that exist in the database, so we re-add the
-              // missing ones with Optional.empty() values for caching.
-              return Maps.asMap(
-                  ImmutableSet.copyOf(keys),
-                  key -> Optional.ofNullable(existingKeys.get((String) key.getKey())));
+              return builder.build();
             }
           };
 
@@ -208,10 +221,19 @@ public final class ForeignKeyUtils {
     if (!RegistryConfig.isEppResourceCachingEnabled()) {
       return load(clazz, foreignKeys, now);
     }
-    return foreignKeyCache
-        .getAll(foreignKeys.stream().map(fk -> VKey.create(clazz, fk)).collect(toImmutableList()))
-        .entrySet()
-        .stream()
+    ImmutableSet<VKey<E>> keys =
+        foreignKeys.stream().map(fk -> VKey.create(clazz, fk)).collect(toImmutableSet());
+    Map<VKey<? extends EppResource>, Optional<MostRecentResource>> cached =
+        foreignKeyCache.getAllPresent(keys);
+    ImmutableSet<VKey<E>> missingKeys =
+        keys.stream().filter(key -> !cached.containsKey(key)).collect(toImmutableSet());
+    EppResourceCacheMetrics.recordLookups(
+        CacheType.FOREIGN_KEY, clazz, cached.size(), missingKeys.size());
+    return Stream.concat(
+            cached.entrySet().stream(),
+            missingKeys.isEmpty()
+                ? Stream.empty()
+                : foreignKeyCache.getAll(missingKeys).entrySet().stream())
         .filter(e -> e.getValue().isPresent() && now.isBefore(e.getValue().get().deletionTime()))
         .collect(
             toImmutableMap(
@@ -219,6 +241,26 @@ public final class ForeignKeyUtils {
                 e -> VKey.create(clazz, e.getValue().get().repoId())));
   }
 
+  /**
+   * Puts the foreign keys of resources that were loaded by other means into the cache.
+   *
+   * <p>Only resources that are not deleted yet are put into the cache, since no newer resource can
+   * have been created with their foreign keys. A deleted resource may have been superseded.
+   *
+   * @param now the time at which the resources were loaded
+   */
+  static void putActiveResourcesInCache(Collection<? extends EppResource> resources, DateTime now) {
+    for (EppResource resource : resources) {
+      if (RESOURCE_TYPE_TO_FK_PROPERTY.containsKey(resource.getClass())
+          && now.isBefore(resource.getDeletionTime())) {
+        foreignKeyCache.put(
+            VKey.create(resource.getClass(), resource.getForeignKey()),
+            Optional.of(
+                MostRecentResource.create(resource.getRepoId(), resource.getDeletionTime())));
+      }
+    }
+  }
+
   @AutoValue
   abstract static class MostRecentResource {
 
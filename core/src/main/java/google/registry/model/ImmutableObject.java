@@ -34,6 +34,7 @@ import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.NavigableMap;
+import java.util.Objects;
 import java.util.Set;
 import java.util.SortedMap;
 import java.util.TreeMap;
@@ -71,7 +72,25 @@ public abstract class ImmutableObject implements Cloneable {
   private boolean equalsImmutableObject(ImmutableObject other) {
     return getClass().equals(other.getClass())
         && hashCode() == other.hashCode()
-        && getSignificantFields().equals(other.getSignificantFields());
+        && (ModelUtils.overridesSignificantFields(getClass())
+            ? getSignificantFields().equals(other.getSignificantFields())
+            : significantFieldsEqual(other));
+  }
+
+  /**
+   * Compares the significant fields of two objects of the same class one by one.
+   *
+   * <p>This gives the same result as comparing their {@link #getSignificantFields} maps, without
+   * building the maps.
+   */
+  private boolean significantFieldsEqual(ImmutableObject other) {
+    for (ModelUtils.FieldReader reader : ModelUtils.getFieldReaders(getClass())) {
+      if (reader.isSignificant()
+          && !Objects.equals(reader.getValue(this), reader.getValue(other))) {
+        return false;
+      }
+    }
+    return true;
   }
 
   /**
@@ -83,9 +102,9 @@ public abstract class ImmutableObject implements Cloneable {
   protected Map<Field, Object> getSignificantFields() {
     // Can't use streams or ImmutableMap because we can have null values.
     Map<Field, Object> result = new LinkedHashMap<>();
-    for (Map.Entry<Field, Object> entry : ModelUtils.getFieldValues(this).entrySet()) {
-      if (!entry.getKey().isAnnotationPresent(Insignificant.class)) {
-        result.put(entry.getKey(), entry.getValue());
+    for (ModelUtils.FieldReader reader : ModelUtils.getFieldReaders(getClass())) {
+      if (reader.isSignificant()) {
+        result.put(reader.getField(), reader.getValue(this));
       }
     }
     return result;
@@ -99,11 +118,25 @@ public abstract class ImmutableObject implements Cloneable {
   @Override
   public int hashCode() {
     if (hashCode == null) {
-      hashCode = Arrays.hashCode(getSignificantFields().values().toArray());
+      hashCode =
+          ModelUtils.overridesSignificantFields(getClass())
+              ? Arrays.hashCode(getSignificantFields().values().toArray())
+              : hashSignificantFields();
     }
     return hashCode;
   }
 
+  /** Returns the same hash as {@link Arrays#hashCode} of the significant field values. */
+  private int hashSignificantFields() {
+    int result = 1;
+    for (ModelUtils.FieldReader reader : ModelUtils.getFieldReaders(getClass())) {
+      if (reader.isSignificant()) {
+        result = 31 * result + Objects.hashCode(reader.getValue(this));
+      }
+    }
+    return result;
+  }
+
   /** Returns a clone of the given object. */
   @SuppressWarnings("unchecked")
   protected static <T extends ImmutableObject> T clone(T t) {
@@ -17,6 +17,7 @@ package google.registry.model;
 import static com.google.common.base.Predicates.instanceOf;
 import static com.google.common.base.Predicates.isNull;
 import static com.google.common.base.Predicates.or;
+import static com.google.common.collect.ImmutableList.toImmutableList;
 import static com.google.common.collect.Maps.transformValues;
 import static java.util.stream.Collectors.toCollection;
 import static java.util.stream.Collectors.toList;
@@ -24,9 +25,12 @@ import static java.util.stream.Collectors.toList;
 import com.github.benmanes.caffeine.cache.LoadingCache;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Predicate;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSortedMap;
 import com.google.common.collect.Streams;
+import google.registry.model.ImmutableObject.Insignificant;
+import google.registry.model.annotations.IdAllocation;
 import java.lang.reflect.Array;
 import java.lang.reflect.Field;
 import java.lang.reflect.Modifier;
@@ -39,8 +43,10 @@ import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Stream;
+import javax.annotation.Nullable;
 
 /** A collection of static methods that deal with reflection on model classes. */
 public class ModelUtils {
@@ -71,11 +77,91 @@ public class ModelUtils {
                 return ImmutableMap.copyOf(fields);
               });
 
+  /** Caches the generated {@link FieldAccessor} of each class that has one. */
+  private static final LoadingCache<Class<?>, Optional<FieldAccessor>> FIELD_ACCESSOR_CACHE =
+      CacheUtils.newCacheBuilder().build(ModelUtils::loadFieldAccessor);
+
+  /** Caches readers of all instance fields of a class, in the order of {@link #getAllFields}. */
+  private static final LoadingCache<Class<?>, ImmutableList<FieldReader>> FIELD_READERS_CACHE =
+      CacheUtils.newCacheBuilder()
+          .build(
+              clazz ->
+                  getAllFields(clazz).values().stream()
+                      .map(FieldReader::create)
+                      .collect(toImmutableList()));
+
+  /** Caches whether a class (or a superclass) overrides {@code getSignificantFields()}. */
+  private static final LoadingCache<Class<?>, Boolean> OVERRIDES_SIGNIFICANT_FIELDS_CACHE =
+      CacheUtils.newCacheBuilder()
+          .build(
+              clazz -> {
+                for (; clazz != ImmutableObject.class; clazz = clazz.getSuperclass()) {
+                  try {
+                    clazz.getDeclaredMethod("getSignificantFields");
+                    return true;
+                  } catch (NoSuchMethodException e) {
+                    // Keep looking in the superclass.
+                  }
+                }
+                return false;
+              });
+
+  /** Caches the field annotated with {@link IdAllocation} of each class. */
+  private static final LoadingCache<Class<?>, Optional<Field>> ID_ALLOCATION_FIELD_CACHE =
+      CacheUtils.newCacheBuilder()
+          .build(
+              clazz ->
+                  getAllFields(clazz).values().stream()
+                      .filter(field -> field.isAnnotationPresent(IdAllocation.class))
+                      .findFirst());
+
   /** Lists all instance fields on an object, including non-public and inherited fields. */
   public static Map<String, Field> getAllFields(Class<?> clazz) {
     return ALL_FIELDS_CACHE.get(clazz);
   }
 
+  /**
+   * Returns readers of all instance fields of a class, in the same order as {@link #getAllFields}.
+   */
+  static ImmutableList<FieldReader> getFieldReaders(Class<?> clazz) {
+    return FIELD_READERS_CACHE.get(clazz);
+  }
+
+  /**
+   * Returns whether a class overrides {@link ImmutableObject#getSignificantFields}, in which case
+   * its field readers don't tell which fields are significant.
+   */
+  static boolean overridesSignificantFields(Class<? extends ImmutableObject> clazz) {
+    return OVERRIDES_SIGNIFICANT_FIELDS_CACHE.get(clazz);
+  }
+
+  /** Returns the field annotated with {@link IdAllocation}, if the class has one. */
+  static Optional<Field> getIdAllocationField(Class<?> clazz) {
+    return ID_ALLOCATION_FIELD_CACHE.get(clazz);
+  }
+
+  /** Returns a new instance of the generated {@link FieldAccessor} of a class, if it has one. */
+  private static Optional<FieldAccessor> loadFieldAccessor(Class<?> clazz) {
+    String className = clazz.getName();
+    int packageEnd = className.lastIndexOf('.') + 1;
+    String accessorClassName =
+        className.substring(0, packageEnd)
+            + "FieldAccessor_"
+            + className.substring(packageEnd).replace('$', '_');
+    try {
+      return Optional.of(
+          (FieldAccessor)
+              Class.forName(accessorClassName, true, clazz.getClassLoader())
+                  .getConstructor()
+                  .newInstance());
+    } catch (ClassNotFoundException e) {
+      // No accessor was generated, e.g. because the class only has private fields.
+      return Optional.empty();
+    } catch (ReflectiveOperationException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
   /** Retrieves a field value via reflection. */
   static Object getFieldValue(Object instance, Field field) {
     try {
@@ -104,8 +190,56 @@ public class ModelUtils {
   public static Map<Field, Object> getFieldValues(Object instance) {
     // Don't make this ImmutableMap because field values can be null.
     Map<Field, Object> values = new LinkedHashMap<>();
-    for (Field field : getAllFields(instance.getClass()).values()) {
-      Object value = getFieldValue(instance, field);
+    for (FieldReader reader : getFieldReaders(instance.getClass())) {
+      values.put(reader.getField(), reader.getValue(instance));
+    }
+    return values;
+  }
+
+  /**
+   * Reads an instance field, through the generated {@link FieldAccessor} of its declaring class if
+   * there is one and through reflection otherwise.
+   */
+  static final class FieldReader {
+
+    private final Field field;
+    private final boolean isSignificant;
+    @Nullable private final FieldAccessor accessor;
+    private final int index;
+
+    private FieldReader(Field field, @Nullable FieldAccessor accessor, int index) {
+      this.field = field;
+      this.isSignificant = !field.isAnnotationPresent(Insignificant.class);
+      this.accessor = accessor;
+      this.index = index;
+    }
+
+    private static FieldReader create(Field field) {
+      Optional<FieldAccessor> accessor = FIELD_ACCESSOR_CACHE.get(field.getDeclaringClass());
+      // Fields that have no index, such as private ones, fall back to reflection.
+      int index = accessor.map(a -> a.getFieldNames().indexOf(field.getName())).orElse(-1);
+      return new FieldReader(field, index < 0 ? null : accessor.get(), index);
+    }
+
+    Field getField() {
+      return field;
+    }
+
+    /** Returns false if the field is annotated with {@link Insignificant}. */
+    boolean isSignificant() {
+      return isSignificant;
+    }
+
+    /** Returns the value of the field, as it is stored. */
+    @Nullable
+    Object getRawValue(Object instance) {
+      return accessor == null ? getFieldValue(instance, field) : accessor.get(instance, index);
+    }
+
+    /** Returns the value of the field, with arrays turned into lists as in getFieldValues(). */
+    @Nullable
+    Object getValue(Object instance) {
+      Object value = getRawValue(instance);
       if (value != null && value.getClass().isArray()) {
         // It's surprisingly difficult to convert arrays into lists if the array might be primitive.
         final Object arrayValue = value;
@@ -120,9 +254,8 @@ public class ModelUtils {
               return Array.getLength(arrayValue);
             }};
       }
-      values.put(field, value);
+      return value;
     }
-    return values;
   }
 
   /** Functional helper for {@link #cloneEmptyToNull}. */
@@ -159,11 +292,11 @@ public class ModelUtils {
     if (obj instanceof ImmutableObject) {
       // Recurse on the fields of an ImmutableObject.
       ImmutableObject copy = ImmutableObject.clone((ImmutableObject) obj);
-      for (Field field : getAllFields(obj.getClass()).values()) {
-        Object oldValue = getFieldValue(obj, field);
+      for (FieldReader reader : getFieldReaders(obj.getClass())) {
+        Object oldValue = reader.getRawValue(obj);
         Object newValue = cloneEmptyToNullRecursive(oldValue);
         if (!Objects.equals(oldValue, newValue)) {
-          setFieldValue(copy, field, newValue);
+          setFieldValue(copy, reader.getField(), newValue);
         }
       }
       return copy;
@@ -180,5 +313,9 @@ public class ModelUtils {
   @VisibleForTesting
   static void resetCaches() {
     ALL_FIELDS_CACHE.invalidateAll();
+    FIELD_ACCESSOR_CACHE.invalidateAll();
+    FIELD_READERS_CACHE.invalidateAll();
+    OVERRIDES_SIGNIFICANT_FIELDS_CACHE.invalidateAll();
+    ID_ALLOCATION_FIELD_CACHE.invalidateAll();
   }
 }
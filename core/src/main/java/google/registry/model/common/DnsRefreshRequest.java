@@ -35,7 +35,12 @@ import javax.persistence.Table;
 import org.joda.time.DateTime;
 
 @Entity
-@Table(indexes = {@Index(columnList = "requestTime"), @Index(columnList = "lastProcessTime")})
+@Table(
+    indexes = {
+      @Index(columnList = "requestTime"),
+      @Index(columnList = "lastProcessTime"),
+      @Index(name = "dnsrefreshrequest_name_idx", columnList = "name")
+    })
 public class DnsRefreshRequest extends ImmutableObject {
 
   @GeneratedValue(strategy = GenerationType.IDENTITY)
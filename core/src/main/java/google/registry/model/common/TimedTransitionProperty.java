@@ -27,6 +27,7 @@ import com.google.common.collect.Ordering;
 import google.registry.model.UnsafeSerializable;
 import java.io.Serializable;
 import java.util.Iterator;
+import java.util.Map;
 import java.util.NavigableMap;
 import javax.annotation.Nullable;
 import org.joda.time.DateTime;
@@ -127,6 +128,14 @@ public class TimedTransitionProperty<V extends Serializable> extends ForwardingM
   /** The backing map of {@link DateTime} to the value {@link V} that transitions over time. */
   private final ImmutableSortedMap<DateTime, V> backingMap;
 
+  /**
+   * The period of the last value looked up, so that lookups within the same period (usually the
+   * current one, since most lookups are for the current time) don't need to search the backing map.
+   *
+   * <p>This is an immutable object in a volatile field, so it can be replaced concurrently.
+   */
+  @Nullable private transient volatile ActivePeriod<V> lastActivePeriod;
+
   /** Returns a new {@link TimedTransitionProperty} backed by the provided map instance. */
   private TimedTransitionProperty(NavigableMap<DateTime, V> backingMap) {
     checkArgument(
@@ -161,9 +170,23 @@ public class TimedTransitionProperty<V extends Serializable> extends ForwardingM
    * START_OF_TIME}.
    */
   public V getValueAtTime(DateTime time) {
+    long millis = time.getMillis();
+    ActivePeriod<V> period = lastActivePeriod;
+    if (period != null && period.contains(millis)) {
+      return period.value;
+    }
     // Retrieve the current value by finding the latest transition before or at the given time,
     // where any given time earlier than START_OF_TIME is replaced by START_OF_TIME.
-    return backingMap.floorEntry(latestOf(START_OF_TIME, time)).getValue();
+    DateTime effectiveTime = latestOf(START_OF_TIME, time);
+    Map.Entry<DateTime, V> entry = backingMap.floorEntry(effectiveTime);
+    DateTime nextTransition = backingMap.higherKey(effectiveTime);
+    lastActivePeriod =
+        new ActivePeriod<>(
+            // The value at START_OF_TIME extends to all earlier times.
+            entry.getKey().equals(START_OF_TIME) ? Long.MIN_VALUE : entry.getKey().getMillis(),
+            nextTransition == null ? Long.MAX_VALUE : nextTransition.getMillis(),
+            entry.getValue());
+    return entry.getValue();
   }
 
   /** Returns the time of the next transition. Returns null if there is no subsequent transition. */
@@ -171,4 +194,27 @@ public class TimedTransitionProperty<V extends Serializable> extends ForwardingM
   public DateTime getNextTransitionAfter(DateTime time) {
     return backingMap.higherKey(latestOf(START_OF_TIME, time));
   }
+
+  /** A value with the times in which it is active, in milliseconds since the epoch. */
+  private static final class ActivePeriod<V> {
+
+    /** The time at which the value becomes active, inclusive. */
+    private final long startMillis;
+
+    /** The time of the next transition, exclusive, or {@link Long#MAX_VALUE} if there is none. */
+    private final long endMillis;
+
+    private final V value;
+
+    ActivePeriod(long startMillis, long endMillis, V value) {
+      this.startMillis = startMillis;
+      this.endMillis = endMillis;
+      this.value = value;
+    }
+
+    boolean contains(long millis) {
+      // A value that is still active at the end of time is also active at Long.MAX_VALUE.
+      return startMillis <= millis && (millis < endMillis || endMillis == Long.MAX_VALUE);
+    }
+  }
 }
@@ -14,6 +14,8 @@
 
 package google.registry.model.domain;
 
+import static google.registry.util.CollectionUtils.forceEmptyToNull;
+
 import google.registry.model.EppResource;
 import google.registry.model.EppResource.ForeignKeyedEppResource;
 import google.registry.model.annotations.ExternalMessagingName;
@@ -37,6 +39,7 @@ import javax.persistence.OneToMany;
 import javax.persistence.PostLoad;
 import javax.persistence.Table;
 import org.hibernate.Hibernate;
+import org.hibernate.annotations.BatchSize;
 import org.joda.time.DateTime;
 
 /**
@@ -68,6 +71,15 @@ import org.joda.time.DateTime;
 @Access(AccessType.FIELD)
 public class Domain extends DomainBase implements ForeignKeyedEppResource {
 
+  /**
+   * How many domains' collections are loaded at once.
+   *
+   * <p>When a query returns several domains, their collections aren't part of the query, so
+   * Hibernate loads them afterwards, which without batching takes one query per domain and
+   * collection. See {@link google.registry.model.EppResourceUtils#loadByKeysIfPresent}.
+   */
+  private static final int COLLECTION_BATCH_SIZE = 100;
+
   @Override
   @Id
   @Access(AccessType.PROPERTY)
@@ -78,6 +90,7 @@ public class Domain extends DomainBase implements ForeignKeyedEppResource {
   // It seems like this should be FetchType.EAGER, but for some reason when we do that we get a lazy
   // load error during the load of a domain.
   @ElementCollection
+  @BatchSize(size = COLLECTION_BATCH_SIZE)
   @JoinTable(
       name = "DomainHost",
       indexes = {
@@ -102,6 +115,7 @@ public class Domain extends DomainBase implements ForeignKeyedEppResource {
    */
   @Access(AccessType.PROPERTY)
   @OneToMany(cascade = CascadeType.ALL, fetch = FetchType.EAGER, orphanRemoval = true)
+  @BatchSize(size = COLLECTION_BATCH_SIZE)
   @JoinColumn(
       name = "domainRepoId",
       referencedColumnName = "repoId",
@@ -124,6 +138,7 @@ public class Domain extends DomainBase implements ForeignKeyedEppResource {
    */
   @Access(AccessType.PROPERTY)
   @OneToMany(cascade = CascadeType.ALL, fetch = FetchType.EAGER, orphanRemoval = true)
+  @BatchSize(size = COLLECTION_BATCH_SIZE)
   @JoinColumn(
       name = "domainRepoId",
       referencedColumnName = "repoId",
@@ -138,6 +153,8 @@ public class Domain extends DomainBase implements ForeignKeyedEppResource {
   @PostLoad
   protected void postLoad() {
     // TODO(b/188044616): Determine why Eager loading doesn't work here.
+    Hibernate.initialize(nsHosts);
+    nsHosts = forceEmptyToNull(nsHosts);
     Hibernate.initialize(dsData);
     Hibernate.initialize(gracePeriods);
   }
@@ -83,6 +83,7 @@ import javax.persistence.Enumerated;
 import javax.persistence.Id;
 import javax.persistence.MappedSuperclass;
 import javax.persistence.Transient;
+import org.hibernate.Hibernate;
 import org.hibernate.collection.internal.PersistentSet;
 import org.joda.time.DateTime;
 import org.joda.time.Interval;
@@ -106,7 +107,7 @@ public class DomainBase extends EppResource
   public static final int MAX_REGISTRATION_YEARS = 10;
 
   /** Status values which prohibit DNS information from being published. */
-  private static final ImmutableSet<StatusValue> DNS_PUBLISHING_PROHIBITED_STATUSES =
+  public static final ImmutableSet<StatusValue> DNS_PUBLISHING_PROHIBITED_STATUSES =
       ImmutableSet.of(
           StatusValue.CLIENT_HOLD,
           StatusValue.INACTIVE,
@@ -359,7 +360,9 @@ public class DomainBase extends EppResource
   // Hibernate needs this in order to populate nsHosts but no one else should ever use it
   @SuppressWarnings("unused")
   private void setNsHosts(Set<VKey<Host>> nsHosts) {
-    this.nsHosts = forceEmptyToNull(nsHosts);
+    // A collection that isn't loaded yet is kept as is, and only loaded in Domain.postLoad(), once
+    // all domains of a query are in the session, so that it can be loaded along with theirs.
+    this.nsHosts = Hibernate.isInitialized(nsHosts) ? forceEmptyToNull(nsHosts) : nsHosts;
   }
 
   // Note: for the two methods below, how we wish to treat the Hibernate setters depends on the
@@ -29,6 +29,7 @@ import static google.registry.util.PreconditionsUtils.checkArgumentNotNull;
 
 import com.github.benmanes.caffeine.cache.CacheLoader;
 import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.github.benmanes.caffeine.cache.Ticker;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Strings;
 import com.google.common.collect.ImmutableList;
@@ -49,6 +50,8 @@ import google.registry.model.domain.fee.FeeQueryCommandExtensionItem.CommandName
 import google.registry.model.reporting.HistoryEntry.HistoryEntryId;
 import google.registry.persistence.VKey;
 import google.registry.persistence.WithVKey;
+import google.registry.util.NonFinalForTesting;
+import java.time.Duration;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
@@ -289,37 +292,104 @@ public class AllocationToken extends UpdateAutoTimestampEntity implements Builda
   }
 
   public static Optional<AllocationToken> get(VKey<AllocationToken> key) {
-    return ALLOCATION_TOKENS_CACHE.get(key);
+    return allocationTokensCache.get(key);
   }
 
   public static Map<VKey<AllocationToken>, Optional<AllocationToken>> getAll(
       ImmutableList<VKey<AllocationToken>> keys) {
-    return ALLOCATION_TOKENS_CACHE.getAll(keys);
+    return allocationTokensCache.getAll(keys);
   }
 
-  /** A cache that loads the {@link AllocationToken} object for a given AllocationToken VKey. */
-  private static final LoadingCache<VKey<AllocationToken>, Optional<AllocationToken>>
-      ALLOCATION_TOKENS_CACHE =
-          CacheUtils.newCacheBuilder(getSingletonCacheRefreshDuration())
-              .build(
-                  new CacheLoader<VKey<AllocationToken>, Optional<AllocationToken>>() {
-                    @Override
-                    public Optional<AllocationToken> load(VKey<AllocationToken> key) {
-                      return tm().transact(() -> tm().loadByKeyIfPresent(key));
-                    }
-
-                    @Override
-                    public Map<VKey<AllocationToken>, Optional<AllocationToken>> loadAll(
-                        Iterable<? extends VKey<AllocationToken>> keys) {
-                      ImmutableSet<VKey<AllocationToken>> keySet = ImmutableSet.copyOf(keys);
-                      return tm().transact(
-                              () ->
-                                  keySet.stream()
-                                      .collect(
-                                          toImmutableMap(
-                                              key -> key, key -> tm().loadByKeyIfPresent(key))));
-                    }
-                  });
+  /** The maximum number of tokens in {@link #allocationTokensCache}. */
+  private static final int MAX_CACHED_TOKENS = 10000;
+
+  /** How long after it was loaded a cached token is still used by {@link #getForValidation}. */
+  private static final Duration MAX_VALIDATION_AGE = Duration.ofMinutes(1);
+
+  /**
+   * A cache that loads the {@link AllocationToken} object for a given AllocationToken VKey.
+   *
+   * <p>Entries are only ever refreshed when they expire, after the singleton cache refresh
+   * duration. Nothing evicts them when a token is changed, since the tools that change tokens run
+   * in other processes.
+   */
+  @NonFinalForTesting
+  private static LoadingCache<VKey<AllocationToken>, Optional<AllocationToken>>
+      allocationTokensCache =
+          createAllocationTokensCache(getSingletonCacheRefreshDuration(), Ticker.systemTicker());
+
+  private static LoadingCache<VKey<AllocationToken>, Optional<AllocationToken>>
+      createAllocationTokensCache(Duration expiry, Ticker ticker) {
+    return CacheUtils.newCacheBuilder(expiry)
+        .maximumSize(MAX_CACHED_TOKENS)
+        .ticker(ticker)
+        .build(
+            new CacheLoader<VKey<AllocationToken>, Optional<AllocationToken>>() {
+              @Override
+              public Optional<AllocationToken> load(VKey<AllocationToken> key) {
+                return tm().transact(() -> tm().loadByKeyIfPresent(key));
+              }
+
+              @Override
+              public Map<VKey<AllocationToken>, Optional<AllocationToken>> loadAll(
+                  Iterable<? extends VKey<AllocationToken>> keys) {
+                ImmutableSet<VKey<AllocationToken>> keySet = ImmutableSet.copyOf(keys);
+                return tm().transact(
+                        () ->
+                            keySet.stream()
+                                .collect(
+                                    toImmutableMap(
+                                        key -> key, key -> tm().loadByKeyIfPresent(key))));
+              }
+            });
+  }
+
+  @VisibleForTesting
+  public static void setCacheForTest(Optional<Duration> expiry, Ticker ticker) {
+    Duration effectiveExpiry = expiry.orElse(getSingletonCacheRefreshDuration());
+    allocationTokensCache = createAllocationTokensCache(effectiveExpiry, ticker);
+  }
+
+  /**
+   * Returns the token with the given key, for validating it in a flow.
+   *
+   * <p>Tokens that can be used more than once are taken from the cache, and are put in it when they
+   * are loaded. Promotional and bulk pricing tokens tend to be attached to every command that a
+   * registrar sends during a campaign, so this saves a database load per command. A cached token
+   * is only used for up to a minute after it was loaded, which is usually much shorter than the
+   * expiry of the cache, so that a change to such a token, e.g. ending a campaign early, soon takes
+   * effect.
+   *
+   * <p>Single-use tokens are always loaded from the database, even if they are in the cache, since
+   * their redemption has to be seen as soon as it happens.
+   */
+  public static Optional<AllocationToken> getForValidation(VKey<AllocationToken> key) {
+    Optional<AllocationToken> cachedToken = allocationTokensCache.getIfPresent(key);
+    if (cachedToken != null
+        && cachedToken.filter(AllocationToken::isReusable).isPresent()
+        && isFreshForValidation(key)) {
+      return cachedToken;
+    }
+    Optional<AllocationToken> token = tm().transact(() -> tm().loadByKeyIfPresent(key));
+    if (token.filter(AllocationToken::isReusable).isPresent()) {
+      allocationTokensCache.put(key, token);
+    }
+    return token;
+  }
+
+  private static boolean isReusable(AllocationToken token) {
+    return !TokenType.SINGLE_USE.equals(token.getTokenType());
+  }
+
+  /** Returns whether the cached token was loaded recently enough to validate it in a flow. */
+  private static boolean isFreshForValidation(VKey<AllocationToken> key) {
+    return allocationTokensCache
+        .policy()
+        .expireAfterWrite()
+        .flatMap(expiration -> expiration.ageOf(key))
+        .filter(age -> age.compareTo(MAX_VALIDATION_AGE) <= 0)
+        .isPresent();
+  }
 
   @Override
   public VKey<AllocationToken> createVKey() {
@@ -14,6 +14,7 @@
 
 package google.registry.model.eppcommon;
 
+import static google.registry.xml.XmlTransformer.loadXmlSchemas;
 import static java.nio.charset.StandardCharsets.UTF_8;
 
 import com.google.common.annotations.VisibleForTesting;
@@ -26,6 +27,7 @@ import google.registry.xml.XmlException;
 import google.registry.xml.XmlTransformer;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import javax.xml.validation.Schema;
 
 /** {@link XmlTransformer} for marshalling to and from the Epp model classes.  */
 public class EppXmlTransformer  {
@@ -53,11 +55,14 @@ public class EppXmlTransformer  {
           "allocationToken-1.0.xsd",
           "bulkToken.xsd");
 
+  // Compiling the schemas is slow, so they are compiled once for both transformers.
+  private static final Schema SCHEMA = loadXmlSchemas(SCHEMAS);
+
   private static final XmlTransformer INPUT_TRANSFORMER =
-      new XmlTransformer(SCHEMAS, EppInput.class);
+      new XmlTransformer(SCHEMA, EppInput.class);
 
   private static final XmlTransformer OUTPUT_TRANSFORMER =
-      new XmlTransformer(SCHEMAS, EppOutput.class);
+      new XmlTransformer(SCHEMA, EppOutput.class);
 
   public static void validateOutput(String xml) throws XmlException {
     OUTPUT_TRANSFORMER.validate(xml);
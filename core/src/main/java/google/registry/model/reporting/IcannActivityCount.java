@@ -0,0 +1,146 @@
+// Copyright 2023 The Nomulus Authors. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package google.registry.model.reporting;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static google.registry.util.PreconditionsUtils.checkArgumentNotNull;
+
+import google.registry.model.ImmutableObject;
+import google.registry.model.reporting.IcannActivityCount.IcannActivityCountId;
+import java.io.Serializable;
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.IdClass;
+import javax.persistence.Index;
+import javax.persistence.Table;
+
+/**
+ * The number of times that an ICANN activity report field was counted in a month.
+ *
+ * <p>These are accumulated in memory as requests are served and periodically added to the
+ * database, so that the monthly activity reports can be built from this table alone instead of
+ * from the request logs.
+ *
+ * <p>Counts that apply to all TLDs, such as WHOIS and RDAP queries and non-domain EPP commands,
+ * have an empty TLD. Counts that aren't attributed to a registrar have an empty registrar ID.
+ */
+@Entity
+@IdClass(IcannActivityCountId.class)
+@Table(
+    indexes = {
+      @Index(name = "icannactivitycount_reporting_month_idx", columnList = "reportingMonth")
+    })
+public class IcannActivityCount extends ImmutableObject {
+
+  /** The value of {@link #tld} for counts that apply to all TLDs. */
+  public static final String ALL_TLDS = "";
+
+  /** The value of {@link #registrarId} for counts that aren't attributed to a registrar. */
+  public static final String NO_REGISTRAR = "";
+
+  /** The month of the count, formatted as {@code yyyy-MM} in UTC. */
+  @Id String reportingMonth;
+
+  @Id String tld;
+
+  @Id String registrarId;
+
+  /** The activity report field, e.g. {@code srs-dom-create} or {@code rdap-queries}. */
+  @Id String field;
+
+  @Column(nullable = false)
+  long count;
+
+  /** Hibernate requires an empty constructor. */
+  private IcannActivityCount() {}
+
+  public static IcannActivityCount create(
+      String reportingMonth, String tld, String registrarId, String field, long count) {
+    checkArgumentNotNull(reportingMonth, "Reporting month must be specified");
+    checkArgumentNotNull(tld, "TLD must be specified");
+    checkArgumentNotNull(registrarId, "Registrar ID must be specified");
+    checkArgumentNotNull(field, "Field must be specified");
+    checkArgument(count >= 0, "Negative count: %s", count);
+    IcannActivityCount instance = new IcannActivityCount();
+    instance.reportingMonth = reportingMonth;
+    instance.tld = tld;
+    instance.registrarId = registrarId;
+    instance.field = field;
+    instance.count = count;
+    return instance;
+  }
+
+  public String getReportingMonth() {
+    return reportingMonth;
+  }
+
+  public String getTld() {
+    return tld;
+  }
+
+  public String getRegistrarId() {
+    return registrarId;
+  }
+
+  public String getField() {
+    return field;
+  }
+
+  public long getCount() {
+    return count;
+  }
+
+  /** Class to represent the composite primary key of {@link IcannActivityCount} entity. */
+  public static class IcannActivityCountId extends ImmutableObject implements Serializable {
+
+    String reportingMonth;
+
+    String tld;
+
+    String registrarId;
+
+    String field;
+
+    /** Hibernate requires this default constructor. */
+    private IcannActivityCountId() {}
+
+    public static IcannActivityCountId create(
+        String reportingMonth, String tld, String registrarId, String field) {
+      IcannActivityCountId instance = new IcannActivityCountId();
+      instance.reportingMonth = reportingMonth;
+      instance.tld = tld;
+      instance.registrarId = registrarId;
+      instance.field = field;
+      return instance;
+    }
+
+    public String getReportingMonth() {
+      return reportingMonth;
+    }
+
+    public String getTld() {
+      return tld;
+    }
+
+    public String getRegistrarId() {
+      return registrarId;
+    }
+
+    public String getField() {
+      return field;
+    }
+  }
+}
@@ -0,0 +1,122 @@
+// Copyright 2023 The Nomulus Authors. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package google.registry.model.reporting;
+
+import static google.registry.util.PreconditionsUtils.checkArgumentNotNull;
+
+import com.google.common.collect.ImmutableSet;
+import google.registry.model.Buildable;
+import google.registry.model.ImmutableObject;
+import google.registry.model.reporting.Spec11ThreatMatch.ThreatType;
+import java.io.Serializable;
+import java.util.Set;
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+import org.joda.time.LocalDate;
+
+/**
+ * The result of the most recent SafeBrowsing check of a domain.
+ *
+ * <p>The incremental mode of the Spec11 pipeline only sends a domain to SafeBrowsing when it has
+ * no verdict yet, when it has changed since its verdict, when its verdict is older than the
+ * configured TTL, or when it is in the day's rotating slice of all domains. All other domains are
+ * reported according to their verdict, which is clean if it has no threat types.
+ */
+@Entity
+@Table(indexes = {@Index(name = "spec11verdict_check_date_idx", columnList = "checkDate")})
+public class Spec11Verdict extends ImmutableObject implements Buildable, Serializable {
+
+  /** Primary key of the domain table and unique identifier for all EPP resources. */
+  @Id String domainRepoId;
+
+  /** The name of the domain. */
+  @Column(nullable = false)
+  String domainName;
+
+  /** The types of threat detected, which are empty if the domain was found to be clean. */
+  @Column(nullable = false)
+  Set<ThreatType> threatTypes;
+
+  /** Date on which the domain was last checked. */
+  @Column(nullable = false, columnDefinition = "date")
+  LocalDate checkDate;
+
+  public String getDomainRepoId() {
+    return domainRepoId;
+  }
+
+  public String getDomainName() {
+    return domainName;
+  }
+
+  public ImmutableSet<ThreatType> getThreatTypes() {
+    return ImmutableSet.copyOf(threatTypes);
+  }
+
+  public LocalDate getCheckDate() {
+    return checkDate;
+  }
+
+  /** Returns whether the domain was found to be clean on the check date. */
+  public boolean isClean() {
+    return threatTypes.isEmpty();
+  }
+
+  @Override
+  public Builder asBuilder() {
+    return new Builder(clone(this));
+  }
+
+  /** A builder for constructing {@link Spec11Verdict}, since it is immutable. */
+  public static class Builder extends Buildable.Builder<Spec11Verdict> {
+    public Builder() {}
+
+    private Builder(Spec11Verdict instance) {
+      super(instance);
+    }
+
+    @Override
+    public Spec11Verdict build() {
+      checkArgumentNotNull(getInstance().domainRepoId, "Repo ID cannot be null");
+      checkArgumentNotNull(getInstance().domainName, "Domain name cannot be null");
+      checkArgumentNotNull(getInstance().threatTypes, "Threat types cannot be null");
+      checkArgumentNotNull(getInstance().checkDate, "Check date cannot be null");
+      return super.build();
+    }
+
+    public Builder setDomainRepoId(String domainRepoId) {
+      getInstance().domainRepoId = domainRepoId;
+      return this;
+    }
+
+    public Builder setDomainName(String domainName) {
+      getInstance().domainName = domainName;
+      return this;
+    }
+
+    public Builder setThreatTypes(ImmutableSet<ThreatType> threatTypes) {
+      getInstance().threatTypes = threatTypes;
+      return this;
+    }
+
+    public Builder setCheckDate(LocalDate checkDate) {
+      getInstance().checkDate = checkDate;
+      return this;
+    }
+  }
+}
@@ -17,14 +17,34 @@ package google.registry.model.smd;
 import static google.registry.persistence.transaction.TransactionManagerFactory.tm;
 import static google.registry.util.DateTimeUtils.START_OF_TIME;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.flogger.FluentLogger;
+import google.registry.persistence.transaction.BulkCopy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.Optional;
+import java.util.function.BiConsumer;
+import org.joda.time.DateTime;
 
 public class SignedMarkRevocationListDao {
 
   private static final FluentLogger logger = FluentLogger.forEnclosingClass();
 
+  private static final ImmutableList<String> ENTRY_COLUMNS =
+      ImmutableList.of("revision_id", "smd_id", "revocation_time");
+
+  /**
+   * Writes the revocations of a new list, as pairs of an SMD ID and its revocation time.
+   *
+   * <p>This may be called more than once if the transaction that saves the list is retried, and
+   * must write all of the revocations each time.
+   */
+  @FunctionalInterface
+  public interface RevocationWriter {
+    void writeRevocations(BiConsumer<String, DateTime> revocations) throws IOException;
+  }
+
   /** Loads the {@link SignedMarkRevocationList}. */
   static SignedMarkRevocationList load() {
     Optional<SignedMarkRevocationList> smdrl =
@@ -44,6 +64,41 @@ public class SignedMarkRevocationListDao {
     return smdrl.orElseGet(() -> SignedMarkRevocationList.create(START_OF_TIME, ImmutableMap.of()));
   }
 
+  /**
+   * Saves a new {@link SignedMarkRevocationList}, copying its revocations into the database as they
+   * are written, and returns their number.
+   *
+   * <p>Unlike {@link #save(SignedMarkRevocationList)}, the revocations are never all held in
+   * memory, and they are inserted in bulk instead of one statement at a time. The list only becomes
+   * the current one once all of its revocations have been inserted, since they are inserted in the
+   * same transaction.
+   */
+  public static long save(DateTime creationTime, RevocationWriter revocationWriter) {
+    long numRevocations =
+        tm().transact(
+                () -> {
+                  // Created anew in each attempt, since a failed attempt leaves its revision ID.
+                  SignedMarkRevocationList smdrl =
+                      SignedMarkRevocationList.create(creationTime, ImmutableMap.of());
+                  tm().insert(smdrl);
+                  long revisionId = smdrl.revisionId;
+                  return BulkCopy.copyIn(
+                      "SignedMarkRevocationEntry",
+                      ENTRY_COLUMNS,
+                      sink -> {
+                        try {
+                          revocationWriter.writeRevocations(
+                              (smdId, revocationTime) ->
+                                  sink.add(revisionId, smdId, revocationTime));
+                        } catch (IOException e) {
+                          throw new UncheckedIOException(e);
+                        }
+                      });
+                });
+    logger.atInfo().log("Inserted %,d signed mark revocations into Cloud SQL.", numRevocations);
+    return numRevocations;
+  }
+
   /** Save the given {@link SignedMarkRevocationList} */
   static void save(SignedMarkRevocationList signedMarkRevocationList) {
     tm().transact(() -> tm().insert(signedMarkRevocationList));
@@ -72,10 +72,12 @@ import google.registry.persistence.VKey;
 import google.registry.persistence.converter.JodaMoneyType;
 import google.registry.tldconfig.idn.IdnTableEnum;
 import google.registry.util.Idn;
+import google.registry.util.NonFinalForTesting;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
@@ -192,7 +194,7 @@ public class Tld extends ImmutableObject implements Buildable, UnsafeSerializabl
 
   /** Returns the TLD for a given TLD, throwing if none exists. */
   public static Tld get(String tld) {
-    Tld maybeTld = CACHE.get(tld);
+    Tld maybeTld = cache.get(tld);
     if (maybeTld == null) {
       throw new TldNotFoundException(tld);
     } else {
@@ -202,7 +204,7 @@ public class Tld extends ImmutableObject implements Buildable, UnsafeSerializabl
 
   /** Returns the TLD entities for the given TLD strings, throwing if any don't exist. */
   public static ImmutableSet<Tld> get(Set<String> tlds) {
-    Map<String, Tld> registries = CACHE.getAll(tlds);
+    Map<String, Tld> registries = cache.getAll(tlds);
     ImmutableSet<String> missingRegistries =
         registries.entrySet().stream()
             .filter(e -> e.getValue() == null)
@@ -223,28 +225,38 @@ public class Tld extends ImmutableObject implements Buildable, UnsafeSerializabl
    */
   @PostPersist
   public void invalidateInCache() {
-    CACHE.invalidate(tldStr);
+    cache.invalidate(tldStr);
   }
 
   /** A cache that loads the {@link Tld} for a given tld. */
-  private static final LoadingCache<String, Tld> CACHE =
-      CacheUtils.newCacheBuilder(getSingletonCacheRefreshDuration())
-          .build(
-              new CacheLoader<String, Tld>() {
-                @Override
-                public Tld load(final String tld) {
-                  return tm().transact(() -> tm().loadByKeyIfPresent(createVKey(tld))).orElse(null);
-                }
+  @NonFinalForTesting
+  private static LoadingCache<String, Tld> cache =
+      createCache(
+          new CacheLoader<String, Tld>() {
+            @Override
+            public Tld load(final String tld) {
+              return tm().transact(() -> tm().loadByKeyIfPresent(createVKey(tld))).orElse(null);
+            }
+
+            @Override
+            public Map<String, Tld> loadAll(Iterable<? extends String> tlds) {
+              ImmutableMap<String, VKey<Tld>> keysMap =
+                  toMap(ImmutableSet.copyOf(tlds), Tld::createVKey);
+              Map<VKey<? extends Tld>, Tld> entities =
+                  tm().transact(() -> tm().loadByKeysIfPresent(keysMap.values()));
+              return Maps.transformEntries(keysMap, (k, v) -> entities.getOrDefault(v, null));
+            }
+          });
+
+  private static LoadingCache<String, Tld> createCache(CacheLoader<String, Tld> loader) {
+    return CacheUtils.newCacheBuilder(getSingletonCacheRefreshDuration()).build(loader);
+  }
 
-                @Override
-                public Map<String, Tld> loadAll(Iterable<? extends String> tlds) {
-                  ImmutableMap<String, VKey<Tld>> keysMap =
-                      toMap(ImmutableSet.copyOf(tlds), Tld::createVKey);
-                  Map<VKey<? extends Tld>, Tld> entities =
-                      tm().transact(() -> tm().loadByKeysIfPresent(keysMap.values()));
-                  return Maps.transformEntries(keysMap, (k, v) -> entities.getOrDefault(v, null));
-                }
-              });
+  /** Makes {@link #get} look TLDs up with the given function instead of in the database. */
+  @VisibleForTesting
+  public static void setCacheLoaderForTest(Function<String, Optional<Tld>> loader) {
+    cache = createCache(tld -> loader.apply(tld).orElse(null));
+  }
 
   public static VKey<Tld> createVKey(String tld) {
     return VKey.create(Tld.class, tld);
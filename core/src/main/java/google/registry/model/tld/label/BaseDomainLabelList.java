@@ -20,6 +20,7 @@ import static com.google.common.base.Strings.isNullOrEmpty;
 import static com.google.common.collect.ImmutableSet.toImmutableSet;
 import static google.registry.model.tld.Tlds.getTlds;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.HashMultiset;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
@@ -68,6 +69,15 @@ public abstract class BaseDomainLabelList<T extends Comparable<?>, R extends Dom
     return revisionId;
   }
 
+  /**
+   * Sets the ID of this revision, which is otherwise generated by the database when the list is
+   * saved.
+   */
+  @VisibleForTesting
+  public void setRevisionIdForTest(long revisionId) {
+    this.revisionId = revisionId;
+  }
+
   /** Returns the name of the reserved list. */
   public String getName() {
     return name;
@@ -22,6 +22,7 @@ import static google.registry.config.RegistryConfig.getStaticPremiumListMaxCache
 import static google.registry.persistence.transaction.TransactionManagerFactory.tm;
 import static google.registry.util.CollectionUtils.isNullOrEmpty;
 
+import com.github.benmanes.caffeine.cache.CacheLoader;
 import com.github.benmanes.caffeine.cache.LoadingCache;
 import com.google.auto.value.AutoValue;
 import com.google.common.annotations.VisibleForTesting;
@@ -34,6 +35,8 @@ import java.math.BigDecimal;
 import java.time.Duration;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.BiFunction;
+import java.util.function.Function;
 import org.joda.money.CurrencyUnit;
 import org.joda.money.Money;
 
@@ -68,8 +71,13 @@ public class PremiumListDao {
   @VisibleForTesting
   public static LoadingCache<String, Optional<PremiumList>> createPremiumListCache(
       Duration cachePersistDuration) {
-    return CacheUtils.newCacheBuilder(cachePersistDuration)
-        .build(PremiumListDao::getLatestRevisionUncached);
+    return createPremiumListCache(
+        cachePersistDuration, PremiumListDao::getLatestRevisionUncached);
+  }
+
+  private static LoadingCache<String, Optional<PremiumList>> createPremiumListCache(
+      Duration cachePersistDuration, CacheLoader<String, Optional<PremiumList>> loader) {
+    return CacheUtils.newCacheBuilder(cachePersistDuration).build(loader);
   }
 
   /**
@@ -94,9 +102,34 @@ public class PremiumListDao {
   @VisibleForTesting
   static LoadingCache<RevisionIdAndLabel, Optional<BigDecimal>> createPremiumEntryCache(
       Duration cachePersistDuration) {
+    return createPremiumEntryCache(
+        cachePersistDuration, PremiumListDao::getPriceForLabelUncached);
+  }
+
+  private static LoadingCache<RevisionIdAndLabel, Optional<BigDecimal>> createPremiumEntryCache(
+      Duration cachePersistDuration, CacheLoader<RevisionIdAndLabel, Optional<BigDecimal>> loader) {
     return CacheUtils.newCacheBuilder(cachePersistDuration)
         .maximumSize(getStaticPremiumListMaxCachedEntries())
-        .build(PremiumListDao::getPriceForLabelUncached);
+        .build(loader);
+  }
+
+  /**
+   * Makes premium lists and their prices be looked up with the given functions instead of in the
+   * database.
+   *
+   * <p>The price loader is given the revision ID of the list and the label. Both caches are
+   * recreated, so lookups that were cached before are forgotten.
+   */
+  @VisibleForTesting
+  public static void setCacheLoadersForTest(
+      Function<String, Optional<PremiumList>> premiumListLoader,
+      BiFunction<Long, String, Optional<BigDecimal>> priceLoader) {
+    premiumListCache =
+        createPremiumListCache(getDomainLabelListCacheDuration(), premiumListLoader::apply);
+    premiumEntryCache =
+        createPremiumEntryCache(
+            getSingletonCachePersistDuration(),
+            key -> priceLoader.apply(key.revisionId(), key.label()));
   }
 
   /**
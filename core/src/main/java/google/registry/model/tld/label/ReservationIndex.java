@@ -0,0 +1,99 @@
+// Copyright 2023 The Nomulus Authors. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package google.registry.model.tld.label;
+
+import static com.google.common.collect.ImmutableMap.toImmutableMap;
+import static com.google.common.collect.ImmutableSet.toImmutableSet;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ImmutableSetMultimap;
+import google.registry.model.tld.label.DomainLabelMetrics.MetricsReservedListMatch;
+import google.registry.model.tld.label.ReservedList.ReservedListEntry;
+import java.util.Map;
+
+/**
+ * The reservations of all the labels in a set of {@link ReservedList}s, merged into a single map.
+ *
+ * <p>This is built once for each set of reserved list revisions that a TLD uses, so that checking
+ * a label against all of the lists only takes a single hash lookup.
+ */
+final class ReservationIndex {
+
+  private static final Reservations NO_RESERVATIONS =
+      new Reservations(ImmutableSet.of(), ImmutableSet.of());
+
+  private final ImmutableMap<String, Reservations> reservationsByLabel;
+
+  private ReservationIndex(ImmutableMap<String, Reservations> reservationsByLabel) {
+    this.reservationsByLabel = reservationsByLabel;
+  }
+
+  static ReservationIndex create(Iterable<ReservedList> reservedLists) {
+    ImmutableSetMultimap.Builder<String, MetricsReservedListMatch> matches =
+        new ImmutableSetMultimap.Builder<>();
+    for (ReservedList reservedList : reservedLists) {
+      for (Map.Entry<String, ReservedListEntry> entry :
+          reservedList.getReservedListEntries().entrySet()) {
+        matches.put(
+            entry.getKey(),
+            MetricsReservedListMatch.create(reservedList.getName(), entry.getValue().getValue()));
+      }
+    }
+    return new ReservationIndex(
+        matches.build().asMap().entrySet().stream()
+            .collect(
+                toImmutableMap(
+                    Map.Entry::getKey,
+                    entry -> Reservations.create(ImmutableSet.copyOf(entry.getValue())))));
+  }
+
+  /** Returns the reservations of a label, which are empty if it is in none of the lists. */
+  Reservations get(String label) {
+    return reservationsByLabel.getOrDefault(label, NO_RESERVATIONS);
+  }
+
+  /** The reservations of a single label. */
+  static final class Reservations {
+
+    private final ImmutableSet<ReservationType> reservationTypes;
+    private final ImmutableSet<MetricsReservedListMatch> matches;
+
+    private Reservations(
+        ImmutableSet<ReservationType> reservationTypes,
+        ImmutableSet<MetricsReservedListMatch> matches) {
+      this.reservationTypes = reservationTypes;
+      this.matches = matches;
+    }
+
+    private static Reservations create(ImmutableSet<MetricsReservedListMatch> matches) {
+      return new Reservations(
+          matches.stream()
+              .map(MetricsReservedListMatch::reservationType)
+              .collect(toImmutableSet()),
+          matches);
+    }
+
+    /** Returns the reservation types of the label across all of the lists. */
+    ImmutableSet<ReservationType> getReservationTypes() {
+      return reservationTypes;
+    }
+
+    /** Returns the lists that the label is in, with its reservation type in each, for metrics. */
+    ImmutableSet<MetricsReservedListMatch> getMatches() {
+      return matches;
+    }
+  }
+}
@@ -23,10 +23,11 @@ import static google.registry.config.RegistryConfig.getDomainLabelListCacheDurat
 import static google.registry.model.tld.label.ReservationType.FULLY_BLOCKED;
 import static google.registry.persistence.transaction.QueryComposer.Comparator.EQ;
 import static google.registry.persistence.transaction.TransactionManagerFactory.tm;
-import static google.registry.util.CollectionUtils.nullToEmpty;
 import static org.joda.time.DateTimeZone.UTC;
 
+import com.github.benmanes.caffeine.cache.CacheLoader;
 import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Splitter;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
@@ -34,11 +35,13 @@ import com.google.common.util.concurrent.UncheckedExecutionException;
 import google.registry.model.Buildable;
 import google.registry.model.CacheUtils;
 import google.registry.model.tld.Tld;
-import google.registry.model.tld.label.DomainLabelMetrics.MetricsReservedListMatch;
+import google.registry.model.tld.label.ReservationIndex.Reservations;
+import google.registry.util.NonFinalForTesting;
 import java.io.Serializable;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.function.Function;
 import javax.annotation.Nullable;
 import javax.persistence.Column;
 import javax.persistence.Id;
@@ -71,7 +74,7 @@ public final class ReservedList
    */
   @Insignificant
   @Transient
-  Map<String, ReservedListEntry> reservedListMap;
+  volatile Map<String, ReservedListEntry> reservedListMap;
 
   @Column(nullable = false)
   boolean shouldPublish = true;
@@ -196,18 +199,27 @@ public final class ReservedList
    * <p>Note that this involves a database fetch of a potentially large number of elements and
    * should be avoided unless necessary.
    */
-  public synchronized ImmutableMap<String, ReservedListEntry> getReservedListEntries() {
-    if (reservedListMap == null) {
-      reservedListMap =
-          tm().transact(
-                  () ->
-                      tm()
-                          .createQueryComposer(ReservedListEntry.class)
-                          .where("revisionId", EQ, revisionId)
-                          .stream()
-                          .collect(toImmutableMap(ReservedListEntry::getDomainLabel, e -> e)));
+  public ImmutableMap<String, ReservedListEntry> getReservedListEntries() {
+    // Only take the lock to load the entries, since they are read on every domain check.
+    Map<String, ReservedListEntry> entries = reservedListMap;
+    if (entries == null) {
+      synchronized (this) {
+        entries = reservedListMap;
+        if (entries == null) {
+          entries =
+              tm().transact(
+                      () ->
+                          tm()
+                              .createQueryComposer(ReservedListEntry.class)
+                              .where("revisionId", EQ, revisionId)
+                              .stream()
+                              .collect(toImmutableMap(ReservedListEntry::getDomainLabel, e -> e)));
+          reservedListMap = entries;
+        }
+      }
     }
-    return ImmutableMap.copyOf(nullToEmpty(reservedListMap));
+    // This doesn't copy anything when the entries are already immutable, as they usually are.
+    return ImmutableMap.copyOf(entries);
   }
 
   /**
@@ -233,39 +245,19 @@ public final class ReservedList
     if (label.length() == 0) {
       return ImmutableSet.of(FULLY_BLOCKED);
     }
-    return getReservedListEntries(label, tld)
-        .stream()
-        .map(ReservedListEntry::getValue)
-        .collect(toImmutableSet());
+    DateTime startTime = DateTime.now(UTC);
+    Reservations reservations = getReservationIndex(tld).get(label);
+    DomainLabelMetrics.recordReservedListCheckOutcome(
+        tld, reservations.getMatches(), DateTime.now(UTC).getMillis() - startTime.getMillis());
+    return reservations.getReservationTypes();
   }
 
-  /**
-   * Helper function to retrieve the entries associated with this label and TLD, or an empty set if
-   * no such entry exists.
-   */
-  private static ImmutableSet<ReservedListEntry> getReservedListEntries(
-      String label, String tldStr) {
-    DateTime startTime = DateTime.now(UTC);
+  /** Returns the merged reservations of all the reserved lists of the given TLD. */
+  private static ReservationIndex getReservationIndex(String tldStr) {
     Tld tld = Tld.get(checkNotNull(tldStr, "tld must not be null"));
-    ImmutableSet.Builder<ReservedListEntry> entriesBuilder = new ImmutableSet.Builder<>();
-    ImmutableSet.Builder<MetricsReservedListMatch> metricMatchesBuilder =
-        new ImmutableSet.Builder<>();
-
-    // Loop through all reservation lists and add each of them.
-    for (ReservedList rl : loadReservedLists(tld.getReservedListNames())) {
-      if (rl.getReservedListEntries().containsKey(label)) {
-        ReservedListEntry entry = rl.getReservedListEntries().get(label);
-        entriesBuilder.add(entry);
-        metricMatchesBuilder.add(
-            MetricsReservedListMatch.create(rl.getName(), entry.reservationType));
-      }
-    }
-    ImmutableSet<ReservedListEntry> entries = entriesBuilder.build();
-    DomainLabelMetrics.recordReservedListCheckOutcome(
-        tldStr,
-        metricMatchesBuilder.build(),
-        DateTime.now(UTC).getMillis() - startTime.getMillis());
-    return entries;
+    // The index is looked up by the current revisions of the lists, so it is rebuilt as soon as
+    // any of them changes, and a change to the lists of the TLD picks a different index.
+    return reservationIndexCache.get(loadReservedLists(tld.getReservedListNames()));
   }
 
   /** Loads and returns the reserved lists with the given names, skipping those that don't exist. */
@@ -277,9 +269,26 @@ public final class ReservedList
         .collect(toImmutableSet());
   }
 
-  private static final LoadingCache<String, Optional<ReservedList>> cache =
-      CacheUtils.newCacheBuilder(getDomainLabelListCacheDuration())
-          .build(ReservedListDao::getLatestRevision);
+  @NonFinalForTesting
+  private static LoadingCache<String, Optional<ReservedList>> cache =
+      createCache(ReservedListDao::getLatestRevision);
+
+  private static LoadingCache<String, Optional<ReservedList>> createCache(
+      CacheLoader<String, Optional<ReservedList>> loader) {
+    return CacheUtils.newCacheBuilder(getDomainLabelListCacheDuration()).build(loader);
+  }
+
+  /** Makes {@link #get} look reserved lists up with the given function instead of the database. */
+  @VisibleForTesting
+  public static void setCacheLoaderForTest(Function<String, Optional<ReservedList>> loader) {
+    cache = createCache(loader::apply);
+  }
+
+  /** Caches the merged reservations of each set of reserved lists that is used by some TLD. */
+  private static final LoadingCache<ImmutableSet<ReservedList>, ReservationIndex>
+      reservationIndexCache =
+          CacheUtils.newCacheBuilder(getDomainLabelListCacheDuration())
+              .build(ReservationIndex::create);
 
   /**
    * Gets the {@link ReservationType} of a label in a single ReservedList, or returns an absent
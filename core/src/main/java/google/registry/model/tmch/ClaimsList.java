@@ -220,4 +220,15 @@ public class ClaimsList extends ImmutableObject {
     instance.labelsToKeys = checkNotNull(labelsToKeys);
     return instance;
   }
+
+  /**
+   * Creates a claims list whose entries are inserted into the database separately from it.
+   *
+   * <p>The entries are loaded lazily from the database once the list has been saved.
+   */
+  static ClaimsList createWithoutEntries(DateTime tmdbGenerationTime) {
+    ClaimsList instance = new ClaimsList();
+    instance.tmdbGenerationTime = checkNotNull(tmdbGenerationTime);
+    return instance;
+  }
 }
@@ -21,14 +21,35 @@ import static google.registry.util.DateTimeUtils.START_OF_TIME;
 
 import com.github.benmanes.caffeine.cache.LoadingCache;
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import google.registry.model.CacheUtils;
+import google.registry.persistence.transaction.BulkCopy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.time.Duration;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
+import org.joda.time.DateTime;
 
 /** Data access object for {@link ClaimsList}. */
 public class ClaimsListDao {
 
+  private static final ImmutableList<String> ENTRY_COLUMNS =
+      ImmutableList.of("revision_id", "domain_label", "claim_key");
+
+  /**
+   * Writes the entries of a new claims list, as pairs of a domain label and its claim key.
+   *
+   * <p>This may be called more than once if the transaction that saves the list is retried, and
+   * must write all of the entries each time.
+   */
+  @FunctionalInterface
+  public interface EntryWriter {
+    void writeEntries(BiConsumer<String, String> entries) throws IOException;
+  }
+
   /**
    * Cache of the {@link ClaimsList} instance.
    *
@@ -55,6 +76,40 @@ public class ClaimsListDao {
     CACHE.put(ClaimsListDao.class, claimsList);
   }
 
+  /**
+   * Saves a new {@link ClaimsList} to Cloud SQL, copying its entries into the database as they are
+   * written, and returns their number.
+   *
+   * <p>Unlike {@link #save(ClaimsList)}, the entries are never all held in memory, and they are
+   * inserted in bulk instead of one statement at a time. The list only becomes the current one
+   * once all of its entries have been inserted, since they are inserted in the same transaction.
+   */
+  public static long save(DateTime tmdbGenerationTime, EntryWriter entryWriter) {
+    // The list is created anew in each attempt of the transaction, since a failed attempt leaves
+    // the revision ID that it was assigned in it.
+    AtomicReference<ClaimsList> claimsList = new AtomicReference<>();
+    long numEntries =
+        tm().transact(
+                () -> {
+                  claimsList.set(ClaimsList.createWithoutEntries(tmdbGenerationTime));
+                  tm().insert(claimsList.get());
+                  long revisionId = claimsList.get().getRevisionId();
+                  return BulkCopy.copyIn(
+                      "ClaimsEntry",
+                      ENTRY_COLUMNS,
+                      sink -> {
+                        try {
+                          entryWriter.writeEntries(
+                              (label, claimKey) -> sink.add(revisionId, label, claimKey));
+                        } catch (IOException e) {
+                          throw new UncheckedIOException(e);
+                        }
+                      });
+                });
+    CACHE.put(ClaimsListDao.class, claimsList.get());
+    return numEntries;
+  }
+
   /** Returns the most recent revision of the {@link ClaimsList} from the cache. */
   public static ClaimsList get() {
     return CACHE.get(ClaimsListDao.class);
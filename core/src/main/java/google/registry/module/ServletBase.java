@@ -15,9 +15,12 @@
 package google.registry.module;
 
 import com.google.appengine.api.LifecycleManager;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.flogger.FluentLogger;
 import com.google.monitoring.metrics.MetricReporter;
 import dagger.Lazy;
+import google.registry.config.RegistryConfig;
+import google.registry.reporting.icann.IcannActivityCounter;
 import google.registry.request.RequestHandler;
 import google.registry.util.SystemClock;
 import java.io.IOException;
@@ -34,18 +37,43 @@ public class ServletBase extends HttpServlet {
 
   private final RequestHandler<?> requestHandler;
   private final Lazy<MetricReporter> metricReporter;
+  private final ImmutableMap<String, Runnable> warmUpPhases;
+  private final IcannActivityCounter icannActivityCounter;
   private static final FluentLogger logger = FluentLogger.forEnclosingClass();
   private static final SystemClock clock = new SystemClock();
 
-  public ServletBase(RequestHandler<?> requestHandler, Lazy<MetricReporter> metricReporter) {
+  public ServletBase(
+      RequestHandler<?> requestHandler,
+      Lazy<MetricReporter> metricReporter,
+      IcannActivityCounter icannActivityCounter) {
+    this(requestHandler, metricReporter, icannActivityCounter, ImmutableMap.of());
+  }
+
+  /**
+   * Creates a servlet that runs the given phases of a {@link StartupWarmer} when it is initialized,
+   * before it serves any requests.
+   */
+  public ServletBase(
+      RequestHandler<?> requestHandler,
+      Lazy<MetricReporter> metricReporter,
+      IcannActivityCounter icannActivityCounter,
+      ImmutableMap<String, Runnable> warmUpPhases) {
     this.requestHandler = requestHandler;
     this.metricReporter = metricReporter;
+    this.icannActivityCounter = icannActivityCounter;
+    this.warmUpPhases = warmUpPhases;
   }
 
   @Override
   public void init() {
     Security.addProvider(new BouncyCastleProvider());
 
+    new StartupWarmer(
+            warmUpPhases,
+            RegistryConfig.getStartupWarmUpThreads(),
+            RegistryConfig.getStartupWarmUpTimeout())
+        .run();
+
     // If metric reporter failed to instantiate for any reason (bad keyring, bad json credential,
     // etc), we log the error but keep the main thread running. Also the shutdown hook will only be
     // registered if metric reporter starts up correctly.
@@ -68,6 +96,14 @@ public class ServletBase extends HttpServlet {
     } catch (Exception e) {
       logger.atSevere().withCause(e).log("Failed to initialize MetricReporter.");
     }
+
+    icannActivityCounter.startPeriodicFlush();
+  }
+
+  @Override
+  public void destroy() {
+    // Flush the ICANN activity counts that were accumulated since the last periodic flush.
+    icannActivityCounter.stopPeriodicFlush();
   }
 
   @Override
@@ -0,0 +1,216 @@
+// Copyright 2023 The Nomulus Authors. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package google.registry.module;
+
+import static com.google.common.net.MediaType.PLAIN_TEXT_UTF_8;
+import static javax.servlet.http.HttpServletResponse.SC_OK;
+
+import com.beust.jcommander.JCommander;
+import com.beust.jcommander.Parameter;
+import com.beust.jcommander.Parameters;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.flogger.FluentLogger;
+import google.registry.config.RegistryEnvironment;
+import google.registry.module.backend.BackendServlet;
+import google.registry.module.frontend.FrontendServlet;
+import google.registry.module.pubapi.PubApiServlet;
+import google.registry.module.tools.ToolsServlet;
+import java.io.IOException;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.eclipse.jetty.server.HttpConfiguration;
+import org.eclipse.jetty.server.HttpConnectionFactory;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
+import org.eclipse.jetty.server.handler.gzip.GzipHandler;
+import org.eclipse.jetty.servlet.ServletContextHandler;
+import org.eclipse.jetty.servlet.ServletHolder;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+
+/**
+ * Runs the servlet of one of the services in an embedded Jetty server, outside of App Engine.
+ *
+ * <p>This serves the same actions as the App Engine service, through the same servlet and request
+ * handler, so that the service can run on plain VMs or containers of any size, or on a workstation
+ * for end-to-end performance tests. Static files, such as those of the registrar console, aren't
+ * served.
+ *
+ * <p>The servlet is initialized, including its {@link StartupWarmer} phases, before the server
+ * starts accepting connections, and {@value #HEALTH_PATH} then responds with a 200. The server
+ * stops gracefully on shutdown, finishing the requests in progress for up to {@code
+ * --stop_timeout_seconds}.
+ *
+ * <p>Jetty 9.4 needs the servlet 3.1 API, which App Engine provides but which isn't on the runtime
+ * classpath of this project, so run this with the {@code standaloneServer} Gradle task, which adds
+ * it.
+ */
+@Parameters(separators = " =", commandDescription = "Runs a service in an embedded Jetty server.")
+public final class StandaloneServer {
+
+  private static final FluentLogger logger = FluentLogger.forEnclosingClass();
+
+  private static final String HEALTH_PATH = "/healthz";
+
+  /** The media types of the responses that are compressed, when the client accepts it. */
+  private static final String[] GZIP_MIME_TYPES = {
+    "application/json", "application/rdap+json", "application/x-ndjson", "text/plain"
+  };
+
+  /** The services that can be run, with the servlet that handles their requests. */
+  enum Service {
+    FRONTEND(FrontendServlet.class),
+    BACKEND(BackendServlet.class),
+    PUBAPI(PubApiServlet.class),
+    TOOLS(ToolsServlet.class);
+
+    final Class<? extends HttpServlet> servletClass;
+
+    Service(Class<? extends HttpServlet> servletClass) {
+      this.servletClass = servletClass;
+    }
+  }
+
+  @Parameter(
+      names = {"-e", "--environment"},
+      description = "The registry environment whose configuration the service runs with.",
+      required = true)
+  private RegistryEnvironment environment;
+
+  @Parameter(names = "--service", description = "The service to run.", required = true)
+  private Service service;
+
+  @Parameter(names = "--port", description = "The port to listen on.")
+  private int port = 8080;
+
+  @Parameter(
+      names = "--acceptors",
+      description = "The number of threads that accept connections, or -1 for Jetty's default.")
+  private int acceptors = -1;
+
+  @Parameter(
+      names = "--selectors",
+      description = "The number of threads that select for I/O, or -1 for Jetty's default.")
+  private int selectors = -1;
+
+  @Parameter(
+      names = "--min_threads",
+      description = "The minimum number of threads in the pool that handles requests.")
+  private int minThreads = 8;
+
+  @Parameter(
+      names = "--max_threads",
+      description =
+          "The maximum number of threads in the pool that handles requests, including the"
+              + " acceptor and selector threads.")
+  private int maxThreads = 200;
+
+  @Parameter(
+      names = "--accept_queue_size",
+      description = "The number of connections that the OS queues before they are accepted.")
+  private int acceptQueueSize = 128;
+
+  @Parameter(
+      names = "--idle_timeout_seconds",
+      description = "How long an idle keep-alive connection is kept open.")
+  private int idleTimeoutSeconds = 60;
+
+  @Parameter(
+      names = "--gzip",
+      description = "Whether to compress JSON and text responses for clients that accept it.",
+      arity = 1)
+  private boolean gzip = true;
+
+  @Parameter(
+      names = "--gzip_min_size",
+      description = "The size, in bytes, below which responses aren't compressed.")
+  private int gzipMinSize = 1024;
+
+  @Parameter(
+      names = "--stop_timeout_seconds",
+      description = "How long to wait for the requests in progress when the server stops.")
+  private int stopTimeoutSeconds = 30;
+
+  public static void main(String[] args) throws Exception {
+    StandaloneServer standaloneServer = new StandaloneServer();
+    JCommander jcommander = new JCommander(standaloneServer);
+    jcommander.setProgramName("standalone_server");
+    jcommander.parse(args);
+    standaloneServer.run();
+  }
+
+  private void run() throws Exception {
+    // This must happen before the servlet class is initialized, since it reads the configuration.
+    environment.setup();
+    Server server = createServer(service.servletClass);
+    server.start();
+    logger.atInfo().log("Serving %s on port %d.", service, port);
+    server.join();
+  }
+
+  /** Creates a server that serves the given servlet, with the configured settings. */
+  @VisibleForTesting
+  Server createServer(Class<? extends HttpServlet> servletClass) {
+    QueuedThreadPool threadPool = new QueuedThreadPool(maxThreads, minThreads);
+    threadPool.setName("standalone-server");
+    Server server = new Server(threadPool);
+
+    HttpConfiguration httpConfig = new HttpConfiguration();
+    httpConfig.setSendServerVersion(false);
+    httpConfig.setSendXPoweredBy(false);
+    ServerConnector connector =
+        new ServerConnector(server, acceptors, selectors, new HttpConnectionFactory(httpConfig));
+    connector.setPort(port);
+    connector.setAcceptQueueSize(acceptQueueSize);
+    connector.setIdleTimeout(idleTimeoutSeconds * 1000L);
+    server.addConnector(connector);
+
+    // Unless eppSessionTokens is enabled, EPP sessions are kept in servlet sessions, which are only
+    // in memory and so aren't shared between instances.
+    ServletContextHandler context = new ServletContextHandler(ServletContextHandler.SESSIONS);
+    context.setContextPath("/");
+    context.addServlet(new ServletHolder(new HealthServlet()), HEALTH_PATH);
+    ServletHolder servletHolder = new ServletHolder(servletClass);
+    // Initializes the servlet when the server starts, like load-on-startup does in web.xml.
+    servletHolder.setInitOrder(1);
+    context.addServlet(servletHolder, "/*");
+
+    if (gzip) {
+      GzipHandler gzipHandler = new GzipHandler();
+      gzipHandler.setIncludedMimeTypes(GZIP_MIME_TYPES);
+      gzipHandler.setMinGzipSize(gzipMinSize);
+      gzipHandler.setHandler(context);
+      server.setHandler(gzipHandler);
+    } else {
+      server.setHandler(context);
+    }
+    server.setStopAtShutdown(true);
+    server.setStopTimeout(stopTimeoutSeconds * 1000L);
+    return server;
+  }
+
+  /** Responds to health checks once the server has started. */
+  private static final class HealthServlet extends HttpServlet {
+
+    private static final long serialVersionUID = 8274162357153048761L;
+
+    @Override
+    public void doGet(HttpServletRequest req, HttpServletResponse rsp) throws IOException {
+      rsp.setStatus(SC_OK);
+      rsp.setContentType(PLAIN_TEXT_UTF_8.toString());
+      rsp.getWriter().write("ok\n");
+    }
+  }
+}
@@ -0,0 +1,120 @@
+// Copyright 2023 The Nomulus Authors. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package google.registry.module;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.google.common.base.Stopwatch;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.flogger.FluentLogger;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the expensive one-time initializations of a module when an instance starts, so that they
+ * don't delay the first requests that it serves.
+ *
+ * <p>Each phase of the warm-up is a task that triggers one of these initializations, such as
+ * compiling XML schemas or bootstrapping Hibernate. The phases are run in parallel on a pool of
+ * daemon threads, and the time that each of them takes is logged. A phase that fails is only
+ * logged, since the failure surfaces again when a request first needs the same initialization.
+ *
+ * <p>The warm-up waits for the phases for up to a timeout, after which the instance starts serving
+ * anyway. Phases that are still running then carry on in the background, and requests that need
+ * them wait for them to finish.
+ */
+public final class StartupWarmer {
+
+  private static final FluentLogger logger = FluentLogger.forEnclosingClass();
+
+  private final ImmutableMap<String, Runnable> phases;
+  private final int threads;
+  private final Duration timeout;
+
+  /**
+   * Creates a warm-up of the given phases, by name.
+   *
+   * @param threads the maximum number of phases to run at the same time, or zero to skip the
+   *     warm-up entirely
+   */
+  public StartupWarmer(ImmutableMap<String, Runnable> phases, int threads, Duration timeout) {
+    checkArgument(threads >= 0, "The number of warm-up threads can't be negative: %s", threads);
+    this.phases = phases;
+    this.threads = threads;
+    this.timeout = timeout;
+  }
+
+  /**
+   * Runs the phases, and returns when they have all finished or the timeout has passed.
+   *
+   * @return whether all of the phases finished in time, whether they succeeded or not
+   */
+  public boolean run() {
+    if (phases.isEmpty() || threads == 0) {
+      return true;
+    }
+    Stopwatch stopwatch = Stopwatch.createStarted();
+    CountDownLatch remainingPhases = new CountDownLatch(phases.size());
+    ExecutorService executor =
+        Executors.newFixedThreadPool(
+            Math.min(threads, phases.size()),
+            new ThreadFactoryBuilder().setNameFormat("startup-warmer-%d").setDaemon(true).build());
+    try {
+      phases.forEach(
+          (name, phase) ->
+              executor.execute(
+                  () -> {
+                    try {
+                      runPhase(name, phase);
+                    } finally {
+                      remainingPhases.countDown();
+                    }
+                  }));
+      boolean finished = remainingPhases.await(timeout.toMillis(), TimeUnit.MILLISECONDS);
+      if (finished) {
+        logger.atInfo().log("Finished the startup warm-up in %s.", stopwatch);
+      } else {
+        logger.atWarning().log(
+            "The startup warm-up didn't finish in %s; %d of %d phases are still running.",
+            timeout, remainingPhases.getCount(), phases.size());
+      }
+      return finished;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      logger.atWarning().log("The startup warm-up was interrupted.");
+      return false;
+    } finally {
+      // Lets any phases that are still queued or running finish in the background.
+      executor.shutdown();
+    }
+  }
+
+  private static void runPhase(String name, Runnable phase) {
+    Stopwatch stopwatch = Stopwatch.createStarted();
+    try {
+      phase.run();
+      logger.atInfo().log("Startup warm-up phase '%s' took %s.", name, stopwatch);
+    } catch (Throwable e) {
+      // Also catches errors such as ExceptionInInitializerError, after which any use of the class
+      // fails with a NoClassDefFoundError.
+      logger.atSevere().withCause(e).log(
+          "Startup warm-up phase '%s' failed after %s.", name, stopwatch);
+    }
+  }
+}
@@ -40,6 +40,7 @@ import google.registry.monitoring.whitebox.StackdriverModule;
 import google.registry.persistence.PersistenceModule;
 import google.registry.privileges.secretmanager.SecretManagerModule;
 import google.registry.rde.JSchModule;
+import google.registry.reporting.icann.IcannActivityCounter;
 import google.registry.request.Modules.GsonModule;
 import google.registry.request.Modules.NetHttpTransportModule;
 import google.registry.request.Modules.UrlConnectionServiceModule;
@@ -90,4 +91,6 @@ interface BackendComponent {
   BackendRequestHandler requestHandler();
 
   Lazy<MetricReporter> metricReporter();
+
+  IcannActivityCounter icannActivityCounter();
 }
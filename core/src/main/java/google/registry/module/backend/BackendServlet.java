@@ -17,6 +17,7 @@ package google.registry.module.backend;
 import com.google.monitoring.metrics.MetricReporter;
 import dagger.Lazy;
 import google.registry.module.ServletBase;
+import google.registry.reporting.icann.IcannActivityCounter;
 
 /** Servlet that should handle all requests to our "backend" App Engine module. */
 public final class BackendServlet extends ServletBase {
@@ -24,8 +25,9 @@ public final class BackendServlet extends ServletBase {
   private static final BackendComponent component = DaggerBackendComponent.create();
   private static final BackendRequestHandler requestHandler = component.requestHandler();
   private static final Lazy<MetricReporter> metricReporter = component.metricReporter();
+  private static final IcannActivityCounter icannActivityCounter = component.icannActivityCounter();
 
   public BackendServlet() {
-    super(requestHandler, metricReporter);
+    super(requestHandler, metricReporter, icannActivityCounter);
   }
 }
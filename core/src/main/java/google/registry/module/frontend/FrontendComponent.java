@@ -33,6 +33,7 @@ import google.registry.keyring.secretmanager.SecretManagerKeyringModule;
 import google.registry.module.frontend.FrontendRequestComponent.FrontendRequestComponentModule;
 import google.registry.monitoring.whitebox.StackdriverModule;
 import google.registry.privileges.secretmanager.SecretManagerModule;
+import google.registry.reporting.icann.IcannActivityCounter;
 import google.registry.request.Modules.GsonModule;
 import google.registry.request.Modules.NetHttpTransportModule;
 import google.registry.request.Modules.UserServiceModule;
@@ -73,4 +74,6 @@ interface FrontendComponent {
   FrontendRequestHandler requestHandler();
 
   Lazy<MetricReporter> metricReporter();
+
+  IcannActivityCounter icannActivityCounter();
 }
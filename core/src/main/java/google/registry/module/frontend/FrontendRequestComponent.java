@@ -26,6 +26,7 @@ import google.registry.request.RequestComponentBuilder;
 import google.registry.request.RequestModule;
 import google.registry.request.RequestScope;
 import google.registry.ui.server.console.ConsoleDomainGetAction;
+import google.registry.ui.server.console.ConsoleRegistrarSummaryAction;
 import google.registry.ui.server.console.ConsoleUserDataAction;
 import google.registry.ui.server.console.RegistrarsAction;
 import google.registry.ui.server.console.settings.ContactAction;
@@ -57,6 +58,9 @@ interface FrontendRequestComponent {
 
   ConsoleOteSetupAction consoleOteSetupAction();
   ConsoleRegistrarCreatorAction consoleRegistrarCreatorAction();
+
+  ConsoleRegistrarSummaryAction consoleRegistrarSummaryAction();
+
   ConsoleUiAction consoleUiAction();
 
   ConsoleUserDataAction consoleUserDataAction();
@@ -14,9 +14,17 @@
 
 package google.registry.module.frontend;
 
+import static google.registry.persistence.transaction.TransactionManagerFactory.replicaTm;
+import static google.registry.persistence.transaction.TransactionManagerFactory.tm;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.reflect.Reflection;
 import com.google.monitoring.metrics.MetricReporter;
 import dagger.Lazy;
+import google.registry.model.eppcommon.EppXmlTransformer;
 import google.registry.module.ServletBase;
+import google.registry.reporting.icann.IcannActivityCounter;
+import google.registry.tmch.TmchXmlSignature;
 
 /** Servlet that should handle all requests to our "default" App Engine module. */
 public final class FrontendServlet extends ServletBase {
@@ -24,8 +32,26 @@ public final class FrontendServlet extends ServletBase {
   private static final FrontendComponent component = DaggerFrontendComponent.create();
   private static final FrontendRequestHandler requestHandler = component.requestHandler();
   private static final Lazy<MetricReporter> metricReporter = component.metricReporter();
+  private static final IcannActivityCounter icannActivityCounter = component.icannActivityCounter();
+
+  /**
+   * The initializations that the first EPP commands on an instance would otherwise wait for.
+   *
+   * <p>Initializing a class compiles the XML schemas and creates the JAXB contexts in its static
+   * fields. Running an empty transaction bootstraps Hibernate and opens the connection pool.
+   */
+  private static final ImmutableMap<String, Runnable> WARM_UP_PHASES =
+      ImmutableMap.of(
+          "EPP XML schemas and JAXB contexts",
+          () -> Reflection.initialize(EppXmlTransformer.class),
+          "SMD XML schemas",
+          () -> Reflection.initialize(TmchXmlSignature.class),
+          "Primary database",
+          () -> tm().transact(() -> {}),
+          "Replica database",
+          () -> replicaTm().transact(() -> {}));
 
   public FrontendServlet() {
-    super(requestHandler, metricReporter);
+    super(requestHandler, metricReporter, icannActivityCounter, WARM_UP_PHASES);
   }
 }
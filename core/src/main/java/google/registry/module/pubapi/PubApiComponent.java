@@ -32,6 +32,7 @@ import google.registry.module.pubapi.PubApiRequestComponent.PubApiRequestCompone
 import google.registry.monitoring.whitebox.StackdriverModule;
 import google.registry.persistence.PersistenceModule;
 import google.registry.privileges.secretmanager.SecretManagerModule;
+import google.registry.reporting.icann.IcannActivityCounter;
 import google.registry.request.Modules.GsonModule;
 import google.registry.request.Modules.NetHttpTransportModule;
 import google.registry.request.Modules.UserServiceModule;
@@ -68,4 +69,6 @@ interface PubApiComponent {
   PubApiRequestHandler requestHandler();
 
   Lazy<MetricReporter> metricReporter();
+
+  IcannActivityCounter icannActivityCounter();
 }
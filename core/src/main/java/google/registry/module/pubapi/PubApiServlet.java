@@ -17,6 +17,7 @@ package google.registry.module.pubapi;
 import com.google.monitoring.metrics.MetricReporter;
 import dagger.Lazy;
 import google.registry.module.ServletBase;
+import google.registry.reporting.icann.IcannActivityCounter;
 
 /** Servlet that should handle all requests to our "default" App Engine module. */
 public final class PubApiServlet extends ServletBase {
@@ -24,8 +25,9 @@ public final class PubApiServlet extends ServletBase {
   private static final PubApiComponent component = DaggerPubApiComponent.create();
   private static final PubApiRequestHandler requestHandler = component.requestHandler();
   private static final Lazy<MetricReporter> metricReporter = component.metricReporter();
+  private static final IcannActivityCounter icannActivityCounter = component.icannActivityCounter();
 
   public PubApiServlet() {
-    super(requestHandler, metricReporter);
+    super(requestHandler, metricReporter, icannActivityCounter);
   }
 }
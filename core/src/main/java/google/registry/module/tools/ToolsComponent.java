@@ -33,6 +33,7 @@ import google.registry.keyring.secretmanager.SecretManagerKeyringModule;
 import google.registry.module.tools.ToolsRequestComponent.ToolsRequestComponentModule;
 import google.registry.monitoring.whitebox.StackdriverModule;
 import google.registry.privileges.secretmanager.SecretManagerModule;
+import google.registry.reporting.icann.IcannActivityCounter;
 import google.registry.request.Modules.GsonModule;
 import google.registry.request.Modules.NetHttpTransportModule;
 import google.registry.request.Modules.UserServiceModule;
@@ -70,4 +71,6 @@ interface ToolsComponent {
   ToolsRequestHandler requestHandler();
 
   Lazy<MetricReporter> metricReporter();
+
+  IcannActivityCounter icannActivityCounter();
 }
@@ -29,6 +29,7 @@ import google.registry.request.RequestScope;
 import google.registry.tools.server.CreateGroupsAction;
 import google.registry.tools.server.GenerateZoneFilesAction;
 import google.registry.tools.server.ListDomainsAction;
+import google.registry.tools.server.ListDomainsPageAction;
 import google.registry.tools.server.ListHostsAction;
 import google.registry.tools.server.ListPremiumListsAction;
 import google.registry.tools.server.ListRegistrarsAction;
@@ -55,6 +56,7 @@ interface ToolsRequestComponent {
   FlowComponent.Builder flowComponentBuilder();
   GenerateZoneFilesAction generateZoneFilesAction();
   ListDomainsAction listDomainsAction();
+  ListDomainsPageAction listDomainsPageAction();
   ListHostsAction listHostsAction();
   ListPremiumListsAction listPremiumListsAction();
   ListRegistrarsAction listRegistrarsAction();
@@ -17,6 +17,7 @@ package google.registry.module.tools;
 import com.google.monitoring.metrics.MetricReporter;
 import dagger.Lazy;
 import google.registry.module.ServletBase;
+import google.registry.reporting.icann.IcannActivityCounter;
 
 /** Servlet that should handle all requests to our "tools" App Engine module. */
 public final class ToolsServlet extends ServletBase {
@@ -24,8 +25,9 @@ public final class ToolsServlet extends ServletBase {
   private static final ToolsComponent component = DaggerToolsComponent.create();
   private static final ToolsRequestHandler requestHandler = component.requestHandler();
   private static final Lazy<MetricReporter> metricReporter = component.metricReporter();
+  private static final IcannActivityCounter icannActivityCounter = component.icannActivityCounter();
 
   public ToolsServlet() {
-    super(requestHandler, metricReporter);
+    super(requestHandler, metricReporter, icannActivityCounter);
   }
 }
@@ -0,0 +1,204 @@
+// Copyright 2023 The Nomulus Authors. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package google.registry.monitoring.whitebox;
+
+import static com.google.common.base.Preconditions.checkState;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Joiner;
+import com.google.common.base.Ticker;
+import com.google.common.collect.ImmutableMap;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Optional;
+import javax.annotation.Nullable;
+
+/**
+ * The time spent in each phase of a request, and counts of a few costly events along the way.
+ *
+ * <p>A breakdown is started at the beginning of a request and bound to the current thread, so that
+ * code deep in the request can add to it through the static {@link #time} and {@link #increment}
+ * methods without it being passed around. These methods do nothing when no breakdown has been
+ * started, e.g. in tools and batch jobs that share the same code.
+ *
+ * <p>Phases may be nested in one another, e.g. the flow runs within a transaction, so their times
+ * don't add up to the time of the request. When a phase is nested in itself, e.g. for nested
+ * transactions, only the outermost span counts.
+ */
+public final class LatencyBreakdown implements AutoCloseable {
+
+  /** A phase of the request that is timed. */
+  public enum Phase {
+    /** Parsing the request XML into model classes. */
+    UNMARSHAL,
+    /** Building the flow and its dependencies from the parsed request. */
+    FLOW_SETUP,
+    /** Database transactions, including their retries and the flow running within them. */
+    TRANSACTION,
+    /** The flow itself. */
+    FLOW,
+    /** Computing domain prices. */
+    PRICING,
+    /**
+     * Writing the response XML, including validating it against the schemas unless sampled.
+     *
+     * <p>The marshaller validates the XML as it writes it, so validation can't be timed as a phase
+     * of its own without validating the written XML separately, which would parse it again.
+     */
+    MARSHAL,
+    /** Pretty-printing and sanitizing the request and response XML for the logs. */
+    LOGGING
+  }
+
+  /** An event that is counted. */
+  public enum Counter {
+    /** Attempts at committing top-level database transactions, including retries. */
+    TRANSACTION_ATTEMPTS,
+    /** Keys looked up in the EPP resource caches that had to be loaded from the database. */
+    CACHE_MISSES
+  }
+
+  /** A timed span of a phase, which ends when closed. */
+  public interface Span extends AutoCloseable {
+    @Override
+    void close();
+  }
+
+  private static final ThreadLocal<LatencyBreakdown> current = new ThreadLocal<>();
+
+  private static final Span NO_OP_SPAN = () -> {};
+
+  private final Ticker ticker;
+  @Nullable private final LatencyBreakdown previous;
+  private final long[] phaseNanos = new long[Phase.values().length];
+  private final long[] phaseStartNanos = new long[Phase.values().length];
+  private final int[] phaseDepths = new int[Phase.values().length];
+  private final boolean[] phaseTimed = new boolean[Phase.values().length];
+  private final long[] counts = new long[Counter.values().length];
+  private String commandName = "";
+
+  private LatencyBreakdown(Ticker ticker, @Nullable LatencyBreakdown previous) {
+    this.ticker = ticker;
+    this.previous = previous;
+  }
+
+  /** Starts a breakdown on the current thread, which lasts until it is closed. */
+  public static LatencyBreakdown start() {
+    return start(Ticker.systemTicker());
+  }
+
+  @VisibleForTesting
+  static LatencyBreakdown start(Ticker ticker) {
+    LatencyBreakdown breakdown = new LatencyBreakdown(ticker, current.get());
+    current.set(breakdown);
+    return breakdown;
+  }
+
+  /** Returns the breakdown started on the current thread, if any. */
+  public static Optional<LatencyBreakdown> current() {
+    return Optional.ofNullable(current.get());
+  }
+
+  /**
+   * Starts timing a phase in the current breakdown, until the returned span is closed.
+   *
+   * <p>Use this in a try-with-resources statement, so that the span is closed even if the phase
+   * throws.
+   */
+  public static Span time(Phase phase) {
+    LatencyBreakdown breakdown = current.get();
+    if (breakdown == null) {
+      return NO_OP_SPAN;
+    }
+    breakdown.startSpan(phase);
+    return () -> breakdown.endSpan(phase);
+  }
+
+  /** Adds to a counter of the current breakdown. */
+  public static void increment(Counter counter, long delta) {
+    LatencyBreakdown breakdown = current.get();
+    if (breakdown != null) {
+      breakdown.counts[counter.ordinal()] += delta;
+    }
+  }
+
+  private void startSpan(Phase phase) {
+    int i = phase.ordinal();
+    if (phaseDepths[i]++ == 0) {
+      phaseStartNanos[i] = ticker.read();
+    }
+  }
+
+  private void endSpan(Phase phase) {
+    int i = phase.ordinal();
+    checkState(phaseDepths[i] > 0, "Phase %s is not being timed", phase);
+    if (--phaseDepths[i] == 0) {
+      phaseNanos[i] += ticker.read() - phaseStartNanos[i];
+      phaseTimed[i] = true;
+    }
+  }
+
+  /** Sets the name of the command, by which the breakdown is labeled in metrics. */
+  public void setCommandName(String commandName) {
+    this.commandName = commandName;
+  }
+
+  public String getCommandName() {
+    return commandName;
+  }
+
+  /** Returns the time spent in each phase that was timed at least once. */
+  public ImmutableMap<Phase, Duration> getPhaseDurations() {
+    Map<Phase, Duration> durations = new EnumMap<>(Phase.class);
+    for (Phase phase : Phase.values()) {
+      if (phaseTimed[phase.ordinal()]) {
+        durations.put(phase, Duration.ofNanos(phaseNanos[phase.ordinal()]));
+      }
+    }
+    return ImmutableMap.copyOf(durations);
+  }
+
+  /** Returns the value of each counter. */
+  public ImmutableMap<Counter, Long> getCounts() {
+    Map<Counter, Long> values = new EnumMap<>(Counter.class);
+    for (Counter counter : Counter.values()) {
+      values.put(counter, counts[counter.ordinal()]);
+    }
+    return ImmutableMap.copyOf(values);
+  }
+
+  /** Unbinds the breakdown from the current thread. */
+  @Override
+  public void close() {
+    if (current.get() == this) {
+      if (previous == null) {
+        current.remove();
+      } else {
+        current.set(previous);
+      }
+    }
+  }
+
+  @Override
+  public String toString() {
+    ImmutableMap.Builder<String, Object> fields = new ImmutableMap.Builder<>();
+    fields.put("command", commandName);
+    getPhaseDurations()
+        .forEach((phase, duration) -> fields.put(phase.name(), duration.toMillis() + "ms"));
+    getCounts().forEach((counter, count) -> fields.put(counter.name(), count));
+    return Joiner.on(' ').withKeyValueSeparator('=').join(fields.build());
+  }
+}
@@ -0,0 +1,112 @@
+// Copyright 2023 The Nomulus Authors. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package google.registry.persistence.transaction;
+
+import static google.registry.persistence.transaction.TransactionManagerFactory.tm;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.base.Joiner;
+import com.google.common.collect.ImmutableList;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVPrinter;
+import org.hibernate.Session;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.PGCopyOutputStream;
+
+/**
+ * Inserts rows into a table with the PostgreSQL {@code COPY} command.
+ *
+ * <p>This is much faster than inserting the rows as entities when there are a lot of them, since
+ * the rows are streamed to the database in a single command instead of being inserted one
+ * statement at a time, and they never have to be held in memory.
+ *
+ * <p>The rows are copied within the current transaction, so they only become visible when it
+ * commits, and nothing is copied if it rolls back.
+ */
+public final class BulkCopy {
+
+  /** The size of the buffer that the rows are written to before being sent to the database. */
+  private static final int BUFFER_SIZE = 1 << 16;
+
+  private static final CSVFormat COPY_FORMAT =
+      CSVFormat.Builder.create(CSVFormat.DEFAULT).setRecordSeparator('\n').build();
+
+  /** Receives the rows to copy. */
+  @FunctionalInterface
+  public interface RowSink {
+
+    /**
+     * Adds a row, with the values of its columns in order.
+     *
+     * @throws UncheckedIOException if the row couldn't be sent to the database
+     */
+    void add(Object... values);
+  }
+
+  private BulkCopy() {}
+
+  /**
+   * Copies the rows that the given writer adds to the sink into a table, and returns their number.
+   *
+   * <p>Values are converted to text with {@link Object#toString}, so they must be in a format that
+   * PostgreSQL can parse for the type of their column. Pending changes to entities are flushed
+   * first, so that the copied rows can refer to rows that were inserted in the same transaction.
+   *
+   * <p>This must be called within a transaction.
+   */
+  public static long copyIn(
+      String table, ImmutableList<String> columns, Consumer<RowSink> rowWriter) {
+    tm().assertInTransaction();
+    tm().getEntityManager().flush();
+    String sql =
+        String.format(
+            "COPY \"%s\" (%s) FROM STDIN WITH (FORMAT csv)", table, Joiner.on(", ").join(columns));
+    return tm().getEntityManager()
+        .unwrap(Session.class)
+        .doReturningWork(
+            connection -> {
+              PGCopyOutputStream out =
+                  new PGCopyOutputStream(connection.unwrap(PGConnection.class), sql, BUFFER_SIZE);
+              try {
+                CSVPrinter printer =
+                    new CSVPrinter(new OutputStreamWriter(out, UTF_8), COPY_FORMAT);
+                rowWriter.accept(
+                    values -> {
+                      try {
+                        printer.printRecord(values);
+                      } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                      }
+                    });
+                printer.flush();
+                return out.endCopy();
+              } catch (IOException e) {
+                if (out.isActive()) {
+                  out.cancelCopy();
+                }
+                throw new UncheckedIOException(e);
+              } catch (RuntimeException e) {
+                if (out.isActive()) {
+                  out.cancelCopy();
+                }
+                throw e;
+              }
+            });
+  }
+}
@@ -32,6 +32,10 @@ import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Streams;
 import com.google.common.flogger.FluentLogger;
 import google.registry.model.ImmutableObject;
+import google.registry.monitoring.whitebox.LatencyBreakdown;
+import google.registry.monitoring.whitebox.LatencyBreakdown.Counter;
+import google.registry.monitoring.whitebox.LatencyBreakdown.Phase;
+import google.registry.monitoring.whitebox.LatencyBreakdown.Span;
 import google.registry.persistence.JpaRetries;
 import google.registry.persistence.PersistenceModule.TransactionIsolationLevel;
 import google.registry.persistence.VKey;
@@ -155,8 +159,14 @@ public class JpaTransactionManagerImpl implements JpaTransactionManager {
     if (inTransaction()) {
       return transactNoRetry(work, isolationLevel);
     }
-    return retrier.callWithRetry(
-        () -> transactNoRetry(work, isolationLevel), JpaRetries::isFailedTxnRetriable);
+    try (Span span = LatencyBreakdown.time(Phase.TRANSACTION)) {
+      return retrier.callWithRetry(
+          () -> {
+            LatencyBreakdown.increment(Counter.TRANSACTION_ATTEMPTS, 1);
+            return transactNoRetry(work, isolationLevel);
+          },
+          JpaRetries::isFailedTxnRetriable);
+    }
   }
 
   @Override
@@ -728,10 +738,16 @@ public class JpaTransactionManagerImpl implements JpaTransactionManager {
       this.delegate = delegate;
     }
 
+    /**
+     * Returns all results, detached.
+     *
+     * <p>The results are only detached once all of them are loaded, so that Hibernate can load the
+     * lazy collections of all of them in batches, where they are annotated with {@code
+     * BatchSize}. Detaching each result as it is streamed would load them one entity at a time.
+     */
     @Override
     public List<T> getResultList() {
-      return delegate
-          .getResultStream()
+      return delegate.getResultList().stream()
           .map(JpaTransactionManagerImpl.this::detachIfEntity)
           .collect(toImmutableList());
     }
@@ -0,0 +1,201 @@
+// Copyright 2023 The Nomulus Authors. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package google.registry.persistence.transaction;
+
+import static google.registry.persistence.transaction.TransactionManagerFactory.replicaTm;
+import static google.registry.persistence.transaction.TransactionManagerFactory.tm;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.flogger.FluentLogger;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import google.registry.config.RegistryConfig.Config;
+import google.registry.util.Clock;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+import javax.annotation.Nullable;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+/**
+ * Tells whether the replica database is close enough to the primary to serve reads from it.
+ *
+ * <p>The replication lag is measured at most once per check interval, so that checking it doesn't
+ * add a query to every request. The measurement runs on a background thread, and requests use the
+ * last one that was taken, so that no request waits for it.
+ *
+ * <p>Each measurement reads the current WAL position of the primary, and then checks whether the
+ * replica has replayed up to it. A replica that has is at most as far behind as the measurement
+ * took, even if nothing was written for a while. A replica that hasn't is as far behind as the last
+ * transaction it replayed, which keeps growing while its WAL receiver is stalled, since the
+ * replica itself can't tell that there is more to receive.
+ *
+ * <p>The replica is considered too stale when the lag can't be measured, e.g. because the replica
+ * is down, and when no measurement was taken in the last two check intervals, e.g. because the
+ * measurement itself hangs or the process just started.
+ */
+@Singleton
+public class ReplicaLagMonitor {
+
+  private static final FluentLogger logger = FluentLogger.forEnclosingClass();
+
+  /** Returns the current WAL position of the primary. */
+  private static final String PRIMARY_LSN_QUERY = "SELECT CAST(pg_current_wal_lsn() AS TEXT)";
+
+  /**
+   * Returns the replication lag in milliseconds, given the WAL position that the primary was at
+   * when the measurement started, or null if the replica is behind it and never replayed anything.
+   *
+   * <p>An instance that isn't in recovery isn't a replica at all, and has no lag.
+   */
+  private static final String REPLICA_LAG_QUERY =
+      "SELECT CASE"
+          + " WHEN NOT pg_is_in_recovery() THEN 0"
+          + " WHEN pg_last_wal_replay_lsn() >= CAST(:primaryLsn AS pg_lsn) THEN 0"
+          + " ELSE EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) * 1000"
+          + " END";
+
+  private final Supplier<Optional<Duration>> lagMeasurer;
+  private final Duration maxLag;
+  private final long checkIntervalMillis;
+  private final Executor executor;
+  private final Clock clock;
+  private final AtomicBoolean measuring = new AtomicBoolean();
+
+  @Nullable private volatile Measurement lastMeasurement;
+
+  @Inject
+  ReplicaLagMonitor(
+      @Config("eppReplicaReadsMaxLag") Duration maxLag,
+      @Config("replicaLagCheckInterval") Duration checkInterval,
+      Clock clock) {
+    this(
+        () -> measureLag(clock),
+        maxLag,
+        checkInterval,
+        Executors.newSingleThreadExecutor(
+            new ThreadFactoryBuilder()
+                .setNameFormat("replica-lag-monitor-%d")
+                .setDaemon(true)
+                .build()),
+        clock);
+  }
+
+  @VisibleForTesting
+  ReplicaLagMonitor(
+      Supplier<Optional<Duration>> lagMeasurer,
+      Duration maxLag,
+      Duration checkInterval,
+      Executor executor,
+      Clock clock) {
+    this.lagMeasurer = lagMeasurer;
+    this.maxLag = maxLag;
+    this.checkIntervalMillis = checkInterval.toMillis();
+    this.executor = executor;
+    this.clock = clock;
+  }
+
+  /**
+   * Returns whether the replica lagged behind the primary by no more than the maximum lag, as of
+   * the last measurement.
+   *
+   * <p>This starts a new measurement in the background if the last one is older than the check
+   * interval, but never waits for it.
+   */
+  public boolean isReplicaFresh() {
+    long nowMillis = clock.nowUtc().getMillis();
+    Measurement measurement = lastMeasurement;
+    if (measurement == null || nowMillis - measurement.takenAtMillis >= checkIntervalMillis) {
+      startMeasurement();
+      measurement = lastMeasurement;
+    }
+    return measurement != null
+        && nowMillis - measurement.takenAtMillis < 2 * checkIntervalMillis
+        && measurement.lag.isPresent()
+        && measurement.lag.get().compareTo(maxLag) <= 0;
+  }
+
+  /** Measures the lag in the background, unless a measurement is already running. */
+  private void startMeasurement() {
+    if (!measuring.compareAndSet(false, true)) {
+      return;
+    }
+    try {
+      executor.execute(
+          () -> {
+            try {
+              lastMeasurement = new Measurement(lagMeasurer.get(), clock.nowUtc().getMillis());
+            } finally {
+              measuring.set(false);
+            }
+          });
+    } catch (RejectedExecutionException e) {
+      measuring.set(false);
+      logger.atWarning().withCause(e).log("Failed to start measuring the replication lag.");
+    }
+  }
+
+  /**
+   * Measures the lag of the replica of {@link TransactionManagerFactory#replicaTm} behind the
+   * primary.
+   *
+   * <p>The lag is never less than the time the measurement took, since the replica may have
+   * replayed the WAL position of the primary only just before it was queried.
+   */
+  private static Optional<Duration> measureLag(Clock clock) {
+    try {
+      long startMillis = clock.nowUtc().getMillis();
+      String primaryLsn =
+          tm().transact(
+                  () ->
+                      (String)
+                          tm().getEntityManager()
+                              .createNativeQuery(PRIMARY_LSN_QUERY)
+                              .getSingleResult());
+      Number lagMillis =
+          replicaTm()
+              .transact(
+                  () ->
+                      (Number)
+                          replicaTm()
+                              .getEntityManager()
+                              .createNativeQuery(REPLICA_LAG_QUERY)
+                              .setParameter("primaryLsn", primaryLsn)
+                              .getSingleResult());
+      long elapsedMillis = clock.nowUtc().getMillis() - startMillis;
+      return Optional.ofNullable(lagMillis)
+          .map(millis -> Duration.ofMillis(Math.max(millis.longValue(), elapsedMillis)));
+    } catch (RuntimeException e) {
+      logger.atWarning().withCause(e).log("Failed to measure the replication lag.");
+      return Optional.empty();
+    }
+  }
+
+  /** A measurement of the replication lag, and when it was taken. */
+  private static final class Measurement {
+
+    private final Optional<Duration> lag;
+    private final long takenAtMillis;
+
+    private Measurement(Optional<Duration> lag, long takenAtMillis) {
+      this.lag = lag;
+      this.takenAtMillis = takenAtMillis;
+    }
+  }
+}
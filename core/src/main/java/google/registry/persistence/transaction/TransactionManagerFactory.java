@@ -38,6 +38,9 @@ public final class TransactionManagerFactory {
   private static Supplier<JpaTransactionManager> replicaJpaTm =
       Suppliers.memoize(TransactionManagerFactory::createReplicaJpaTransactionManager);
 
+  /** Overrides the return of {@link #tm()} on the current thread, see {@link #callOnReplica}. */
+  private static final ThreadLocal<JpaTransactionManager> tmOverride = new ThreadLocal<>();
+
   private TransactionManagerFactory() {}
 
   private static JpaTransactionManager createJpaTransactionManager() {
@@ -78,7 +81,8 @@ public final class TransactionManagerFactory {
    * returns the same instance.
    */
   public static JpaTransactionManager tm() {
-    return jpaTm.get();
+    JpaTransactionManager override = tmOverride.get();
+    return override != null ? override : jpaTm.get();
   }
 
   /** Returns a read-only {@link JpaTransactionManager} instance if configured. */
@@ -86,6 +90,26 @@ public final class TransactionManagerFactory {
     return replicaJpaTm.get();
   }
 
+  /**
+   * Runs some work with {@link #tm()} returning {@link #replicaTm()} on the current thread.
+   *
+   * <p>This lets code that is written against {@link #tm()}, such as flows, read from the replica
+   * without any change. The work must not write to the database, since the replica is read-only.
+   */
+  public static <T> T callOnReplica(Supplier<T> work) {
+    JpaTransactionManager previous = tmOverride.get();
+    tmOverride.set(replicaTm());
+    try {
+      return work.get();
+    } finally {
+      if (previous == null) {
+        tmOverride.remove();
+      } else {
+        tmOverride.set(previous);
+      }
+    }
+  }
+
   /** Sets the return of {@link #tm()} to the given instance of {@link JpaTransactionManager}. */
   public static void setJpaTm(Supplier<JpaTransactionManager> jpaTmSupplier) {
     checkArgumentNotNull(jpaTmSupplier, "jpaTmSupplier");
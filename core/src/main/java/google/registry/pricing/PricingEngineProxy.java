@@ -21,6 +21,9 @@ import static google.registry.util.DomainNameUtils.getTldFromDomainName;
 import google.registry.model.pricing.PremiumPricingEngine;
 import google.registry.model.pricing.PremiumPricingEngine.DomainPrices;
 import google.registry.model.tld.Tld;
+import google.registry.monitoring.whitebox.LatencyBreakdown;
+import google.registry.monitoring.whitebox.LatencyBreakdown.Phase;
+import google.registry.monitoring.whitebox.LatencyBreakdown.Span;
 import java.util.Map;
 import org.joda.money.Money;
 import org.joda.time.DateTime;
@@ -57,11 +60,13 @@ public final class PricingEngineProxy {
    * domain is under.
    */
   public static DomainPrices getPricesForDomainName(String domainName, DateTime priceTime) {
-    String tld = getTldFromDomainName(domainName);
-    String clazz = Tld.get(tld).getPricingEngineClassName();
-    PremiumPricingEngine engine = premiumPricingEngines.get(clazz);
-    checkState(engine != null, "Could not load pricing engine %s for TLD %s", clazz, tld);
-    return engine.getDomainPrices(domainName, priceTime);
+    try (Span span = LatencyBreakdown.time(Phase.PRICING)) {
+      String tld = getTldFromDomainName(domainName);
+      String clazz = Tld.get(tld).getPricingEngineClassName();
+      PremiumPricingEngine engine = premiumPricingEngines.get(clazz);
+      checkState(engine != null, "Could not load pricing engine %s for TLD %s", clazz, tld);
+      return engine.getDomainPrices(domainName, priceTime);
+    }
   }
 
   private PricingEngineProxy() {}
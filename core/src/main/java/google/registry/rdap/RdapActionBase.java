@@ -35,6 +35,7 @@ import google.registry.rdap.RdapObjectClasses.ErrorResponse;
 import google.registry.rdap.RdapObjectClasses.ReplyPayloadBase;
 import google.registry.rdap.RdapObjectClasses.TopLevelReplyObject;
 import google.registry.rdap.RdapSearchResults.BaseSearchResponse;
+import google.registry.reporting.icann.IcannActivityCounter;
 import google.registry.request.Action;
 import google.registry.request.HttpException;
 import google.registry.request.Parameter;
@@ -75,6 +76,7 @@ public abstract class RdapActionBase implements Runnable {
   @Inject @Parameter("formatOutput") Optional<Boolean> formatOutputParam;
   @Inject @Config("rdapResultSetMaxSize") int rdapResultSetMaxSize;
   @Inject RdapMetrics rdapMetrics;
+  @Inject IcannActivityCounter icannActivityCounter;
 
   /** Builder for metric recording. */
   final RdapMetrics.RdapMetricInformation.Builder metricInformationBuilder =
@@ -163,6 +165,7 @@ public abstract class RdapActionBase implements Runnable {
       logger.atSevere().withCause(e).log("Exception encountered while processing RDAP command.");
     }
     rdapMetrics.updateMetrics(metricInformationBuilder.build());
+    icannActivityCounter.recordRdapQuery();
   }
 
   void setError(int status, String title, String description) {
@@ -14,12 +14,14 @@
 
 package google.registry.rdap;
 
+import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Predicates.not;
 import static com.google.common.base.Strings.nullToEmpty;
 import static com.google.common.collect.ImmutableList.toImmutableList;
 import static com.google.common.collect.ImmutableSet.toImmutableSet;
 import static com.google.common.collect.ImmutableSetMultimap.toImmutableSetMultimap;
 import static google.registry.model.EppResourceUtils.isLinked;
+import static google.registry.model.EppResourceUtils.loadByKeysIfPresent;
 import static google.registry.persistence.transaction.TransactionManagerFactory.replicaTm;
 import static google.registry.util.CollectionUtils.union;
 
@@ -29,6 +31,7 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.ImmutableSetMultimap;
+import com.google.common.collect.Iterables;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Ordering;
 import com.google.common.collect.Streams;
@@ -361,16 +364,19 @@ public class RdapJsonFormatter {
     // RDAP Response Profile 2.6.3, must have a notice about statuses. That is in {@link
     // RdapIcannStandardInformation#domainBoilerplateNotices}
 
-    // Kick off the database loads of the nameservers that we will need, so it can load
-    // asynchronously while we load and process the contacts.
+    // Load the nameservers and the contacts that we will need together, with one query per kind.
+    ImmutableMap<VKey<? extends EppResource>, EppResource> loadedResources =
+        loadByKeysIfPresent(
+            replicaTm(),
+            Iterables.concat(domain.getNameservers(), domain.getReferencedContacts()));
     ImmutableSet<Host> loadedHosts =
-        replicaTm()
-            .transact(
-                () ->
-                    ImmutableSet.copyOf(replicaTm().loadByKeys(domain.getNameservers()).values()));
-    // Load the registrant and other contacts and add them to the data.
-    ImmutableMap<VKey<? extends Contact>, Contact> loadedContacts =
-        replicaTm().transact(() -> replicaTm().loadByKeysIfPresent(domain.getReferencedContacts()));
+        domain.getNameservers().stream()
+            .map(
+                hostKey ->
+                    (Host)
+                        checkNotNull(
+                            loadedResources.get(hostKey), "Nameserver %s is missing", hostKey))
+            .collect(toImmutableSet());
     // RDAP Response Profile 2.7.3, A domain MUST have the REGISTRANT, ADMIN, TECH roles and MAY
     // have others. We also add the BILLING.
     //
@@ -399,9 +405,9 @@ public class RdapJsonFormatter {
           .entitiesBuilder()
           .add(
               createRdapContactEntity(
-                  loadedContacts.get(contactKey), roles, OutputDataType.INTERNAL));
+                  (Contact) loadedResources.get(contactKey), roles, OutputDataType.INTERNAL));
     }
-    // Add the nameservers to the data; the load was kicked off above for efficiency.
+    // Add the nameservers to the data; they were loaded above along with the contacts.
     // RDAP Response Profile 2.9: we MUST have the nameservers
     for (Host host : HOST_RESOURCE_ORDERING.immutableSortedCopy(loadedHosts)) {
       builder.nameserversBuilder().add(createRdapNameserver(host, OutputDataType.INTERNAL));
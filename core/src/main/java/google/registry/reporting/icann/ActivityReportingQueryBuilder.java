@@ -130,6 +130,16 @@ public final class ActivityReportingQueryBuilder implements QueryBuilder {
     return queriesBuilder.build();
   }
 
+  /**
+   * Returns the query for the DNS counts of the month on its own.
+   *
+   * <p>This is used when the other counts come from the {@link IcannActivityCounter}, since DNS
+   * queries aren't served by this application.
+   */
+  String getDnsCountsQuery(YearMonth yearMonth) {
+    return dnsCountQueryCoordinator.createQuery(yearMonth);
+  }
+
   void prepareForQuery(YearMonth yearMonth) throws InterruptedException {
     dnsCountQueryCoordinator.prepareForQuery(yearMonth);
   }
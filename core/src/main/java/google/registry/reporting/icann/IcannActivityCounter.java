@@ -0,0 +1,321 @@
+// Copyright 2023 The Nomulus Authors. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package google.registry.reporting.icann;
+
+import static google.registry.model.reporting.IcannActivityCount.ALL_TLDS;
+import static google.registry.model.reporting.IcannActivityCount.NO_REGISTRAR;
+import static google.registry.persistence.transaction.TransactionManagerFactory.tm;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterables;
+import com.google.common.flogger.FluentLogger;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import google.registry.config.RegistryConfig.Config;
+import google.registry.model.reporting.IcannActivityCount;
+import google.registry.model.reporting.IcannActivityCount.IcannActivityCountId;
+import google.registry.util.Clock;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.Nullable;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import javax.persistence.Query;
+import org.joda.time.format.DateTimeFormat;
+import org.joda.time.format.DateTimeFormatter;
+
+/**
+ * Counts the requests that make up the ICANN monthly activity reports, as they are served.
+ *
+ * <p>The counts are accumulated in memory and periodically added to the {@link IcannActivityCount}
+ * table in a single transaction, with one upsert statement per batch of counts, so that serving a
+ * request never waits on the database. If a flush fails, its counts are added back to the memory
+ * and retried with the next flush. Counts that weren't flushed yet are lost if the process
+ * crashes, which costs at most one flush interval of requests.
+ *
+ * <p>Requests are counted in the same way as the BigQuery views over the request logs count them,
+ * so that {@link IcannReportingStager} can build the activity reports from either source.
+ *
+ * <p>Each servlet's component has its own counter, which the servlet flushes while it is running.
+ */
+@Singleton
+public final class IcannActivityCounter {
+
+  private static final FluentLogger logger = FluentLogger.forEnclosingClass();
+
+  static final String WHOIS_43_QUERIES = "whois-43-queries";
+  static final String WEB_WHOIS_QUERIES = "web-whois-queries";
+  static final String RDAP_QUERIES = "rdap-queries";
+
+  private static final DateTimeFormatter REPORTING_MONTH_FORMATTER =
+      DateTimeFormat.forPattern("yyyy-MM").withZoneUTC();
+
+  /**
+   * The maximum number of counts to add to the database in a single statement.
+   *
+   * <p>Each count takes five parameters, and PostgreSQL allows at most 65535 in a statement.
+   */
+  private static final int MAX_COUNTS_PER_STATEMENT = 1000;
+
+  private static final String UPSERT_PREFIX =
+      "INSERT INTO \"IcannActivityCount\" (reporting_month, tld, registrar_id, field, count) "
+          + "VALUES ";
+
+  private static final String UPSERT_SUFFIX =
+      " ON CONFLICT (reporting_month, tld, registrar_id, field) DO UPDATE "
+          + "SET count = \"IcannActivityCount\".count + EXCLUDED.count";
+
+  private final Clock clock;
+  private final boolean enabled;
+  private final Duration flushInterval;
+  private final ConcurrentHashMap<IcannActivityCountId, Count> counts = new ConcurrentHashMap<>();
+
+  @Nullable private ScheduledExecutorService flushExecutor;
+
+  @Inject
+  @VisibleForTesting
+  public IcannActivityCounter(
+      Clock clock,
+      @Config("icannActivityCountersEnabled") boolean enabled,
+      @Config("icannActivityCountersFlushInterval") Duration flushInterval) {
+    this.clock = clock;
+    this.enabled = enabled;
+    this.flushInterval = flushInterval;
+  }
+
+  /** Returns whether requests are counted at all, which is set in the config. */
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * Counts an EPP command.
+   *
+   * <p>Commands that aren't reported have no activity report field. Domain commands are counted
+   * once under each TLD of their target domains, and aren't counted if no TLD could be determined.
+   * Other commands are counted under all TLDs.
+   *
+   * @param activityReportField the activity report field of the flow, or an empty string if it has
+   *     none
+   * @param isDomainCommand whether the command targets domains
+   * @param tlds the TLDs of the target domains of a domain command
+   */
+  public void recordEppCommand(
+      String registrarId,
+      String activityReportField,
+      boolean isDomainCommand,
+      Iterable<String> tlds) {
+    if (activityReportField.isEmpty()) {
+      return;
+    }
+    if (Iterables.isEmpty(tlds)) {
+      if (!isDomainCommand) {
+        increment(ALL_TLDS, registrarId, activityReportField);
+      }
+      return;
+    }
+    for (String tld : tlds) {
+      increment(tld, registrarId, activityReportField);
+    }
+  }
+
+  /** Counts a WHOIS query that was received on port 43. */
+  public void recordWhois43Query() {
+    increment(ALL_TLDS, NO_REGISTRAR, WHOIS_43_QUERIES);
+  }
+
+  /** Counts a WHOIS query that was received over HTTP. */
+  public void recordWebWhoisQuery() {
+    increment(ALL_TLDS, NO_REGISTRAR, WEB_WHOIS_QUERIES);
+  }
+
+  /** Counts an RDAP query. */
+  public void recordRdapQuery() {
+    increment(ALL_TLDS, NO_REGISTRAR, RDAP_QUERIES);
+  }
+
+  private void increment(String tld, String registrarId, String field) {
+    if (!enabled) {
+      return;
+    }
+    add(
+        IcannActivityCountId.create(
+            REPORTING_MONTH_FORMATTER.print(clock.nowUtc()), tld, registrarId, field),
+        1);
+  }
+
+  /**
+   * Adds to the count of an ID.
+   *
+   * <p>The count is added while the entry is locked, so that it can't go to an entry that {@link
+   * #drain} has just removed.
+   */
+  private void add(IcannActivityCountId id, long delta) {
+    counts.compute(
+        id,
+        (key, count) -> {
+          Count result = count == null ? new Count(key) : count;
+          result.value.addAndGet(delta);
+          return result;
+        });
+  }
+
+  /**
+   * Removes the counts accumulated since the last call, and returns them.
+   *
+   * <p>The entries of past months are removed as they are drained, so that the memory used by the
+   * counter doesn't grow with the time that the process has been running.
+   */
+  @VisibleForTesting
+  ImmutableList<IcannActivityCount> drain() {
+    String currentMonth = REPORTING_MONTH_FORMATTER.print(clock.nowUtc());
+    ImmutableList.Builder<IcannActivityCount> drained = new ImmutableList.Builder<>();
+    for (Map.Entry<IcannActivityCountId, Count> entry : counts.entrySet()) {
+      Count count = entry.getValue();
+      // Once removed, an entry can't be added to anymore, so its value is final. A late addition
+      // for a past month goes to a new entry, which is drained by the next call.
+      if (!count.reportingMonth.equals(currentMonth) && !counts.remove(entry.getKey(), count)) {
+        continue;
+      }
+      long value = count.value.getAndSet(0);
+      if (value > 0) {
+        drained.add(count.toEntity(value));
+      }
+    }
+    return drained.build();
+  }
+
+  /** Adds the counts accumulated since the last flush to the database. */
+  public void flush() {
+    ImmutableList<IcannActivityCount> drained = drain();
+    if (drained.isEmpty()) {
+      return;
+    }
+    try {
+      tm().transact(
+              () -> {
+                for (List<IcannActivityCount> batch :
+                    Iterables.partition(drained, MAX_COUNTS_PER_STATEMENT)) {
+                  upsert(batch);
+                }
+              });
+      logger.atInfo().log("Flushed %d ICANN activity counts.", drained.size());
+    } catch (RuntimeException e) {
+      logger.atWarning().withCause(e).log(
+          "Failed to flush %d ICANN activity counts; will retry with the next flush.",
+          drained.size());
+      for (IcannActivityCount count : drained) {
+        add(
+            IcannActivityCountId.create(
+                count.getReportingMonth(),
+                count.getTld(),
+                count.getRegistrarId(),
+                count.getField()),
+            count.getCount());
+      }
+    }
+  }
+
+  private static void upsert(List<IcannActivityCount> batch) {
+    StringBuilder sql = new StringBuilder(UPSERT_PREFIX);
+    for (int i = 0; i < batch.size(); i++) {
+      sql.append(i == 0 ? "" : ", ")
+          .append(
+              String.format(
+                  "(:month%1$d, :tld%1$d, :registrar%1$d, :field%1$d, :count%1$d)", i));
+    }
+    Query query = tm().getEntityManager().createNativeQuery(sql.append(UPSERT_SUFFIX).toString());
+    for (int i = 0; i < batch.size(); i++) {
+      IcannActivityCount count = batch.get(i);
+      query
+          .setParameter("month" + i, count.getReportingMonth())
+          .setParameter("tld" + i, count.getTld())
+          .setParameter("registrar" + i, count.getRegistrarId())
+          .setParameter("field" + i, count.getField())
+          .setParameter("count" + i, count.getCount());
+    }
+    query.executeUpdate();
+  }
+
+  /**
+   * Starts flushing the counts periodically in a background thread, if counting is enabled.
+   *
+   * <p>This is idempotent, so that it doesn't matter how often the servlet that owns the counter is
+   * initialized.
+   */
+  public synchronized void startPeriodicFlush() {
+    if (!enabled || flushExecutor != null) {
+      return;
+    }
+    flushExecutor =
+        Executors.newSingleThreadScheduledExecutor(
+            new ThreadFactoryBuilder()
+                .setNameFormat("icann-activity-counter-%d")
+                .setDaemon(true)
+                .build());
+    flushExecutor.scheduleWithFixedDelay(
+        this::flushQuietly,
+        flushInterval.toMillis(),
+        flushInterval.toMillis(),
+        TimeUnit.MILLISECONDS);
+    logger.atInfo().log("Started flushing ICANN activity counts every %s.", flushInterval);
+  }
+
+  /** Stops flushing the counts periodically, and flushes them one last time. */
+  public synchronized void stopPeriodicFlush() {
+    if (flushExecutor == null) {
+      return;
+    }
+    flushExecutor.shutdownNow();
+    flushExecutor = null;
+    flushQuietly();
+  }
+
+  /** Flushes the counts, without letting an exception end the periodic flushes. */
+  private void flushQuietly() {
+    try {
+      flush();
+    } catch (Throwable t) {
+      logger.atSevere().withCause(t).log("Unexpected error while flushing ICANN activity counts.");
+    }
+  }
+
+  /** The count of a single {@link IcannActivityCountId} since the last flush. */
+  private static final class Count {
+
+    private final String reportingMonth;
+    private final String tld;
+    private final String registrarId;
+    private final String field;
+    private final AtomicLong value = new AtomicLong();
+
+    private Count(IcannActivityCountId id) {
+      this.reportingMonth = id.getReportingMonth();
+      this.tld = id.getTld();
+      this.registrarId = id.getRegistrarId();
+      this.field = id.getField();
+    }
+
+    private IcannActivityCount toEntity(long count) {
+      return IcannActivityCount.create(reportingMonth, tld, registrarId, field, count);
+    }
+  }
+}
@@ -17,27 +17,41 @@ package google.registry.reporting.icann;
 import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.base.Strings.isNullOrEmpty;
 import static com.google.common.collect.ImmutableList.toImmutableList;
+import static google.registry.model.reporting.IcannActivityCount.ALL_TLDS;
+import static google.registry.persistence.transaction.TransactionManagerFactory.tm;
+import static google.registry.reporting.icann.IcannActivityCounter.RDAP_QUERIES;
+import static google.registry.reporting.icann.IcannActivityCounter.WEB_WHOIS_QUERIES;
+import static google.registry.reporting.icann.IcannActivityCounter.WHOIS_43_QUERIES;
 import static google.registry.reporting.icann.IcannReportingModule.MANIFEST_FILE_NAME;
 import static java.nio.charset.StandardCharsets.UTF_8;
 
+import com.google.api.client.util.Data;
 import com.google.api.services.bigquery.model.TableFieldSchema;
 import com.google.cloud.storage.BlobId;
 import com.google.common.base.Ascii;
 import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.HashBasedTable;
 import com.google.common.collect.ImmutableCollection;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ImmutableSortedSet;
 import com.google.common.collect.ImmutableTable;
 import com.google.common.collect.ListMultimap;
+import com.google.common.collect.Table;
 import com.google.common.flogger.FluentLogger;
 import google.registry.bigquery.BigqueryConnection;
 import google.registry.bigquery.BigqueryUtils.TableType;
 import google.registry.config.RegistryConfig.Config;
 import google.registry.gcs.GcsUtils;
+import google.registry.model.registrar.Registrar;
+import google.registry.model.reporting.IcannReportingTypes.ActivityReportField;
+import google.registry.model.tld.Tld.TldType;
+import google.registry.model.tld.Tlds;
 import google.registry.reporting.icann.IcannReportingModule.ReportType;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
@@ -59,7 +73,34 @@ public class IcannReportingStager {
 
   private static final FluentLogger logger = FluentLogger.forEnclosingClass();
 
+  /** Metric names of the DNS counts, which are each reported as both received and responded. */
+  private static final String DNS_UDP_QUERIES = "dns-udp-queries";
+
+  private static final String DNS_TCP_QUERIES = "dns-tcp-queries";
+
+  /** The columns of the activity reports, in the order of the activity report aggregation query. */
+  private static final ImmutableList<String> ACTIVITY_REPORT_COLUMNS =
+      new ImmutableList.Builder<String>()
+          .add(
+              "tld",
+              "operational-registrars",
+              "zfa-passwords",
+              "whois-43-queries",
+              "web-whois-queries",
+              "searchable-whois-queries",
+              "dns-udp-queries-received",
+              "dns-udp-queries-responded",
+              "dns-tcp-queries-received",
+              "dns-tcp-queries-responded")
+          .addAll(
+              Arrays.stream(ActivityReportField.values())
+                  .map(ActivityReportField::getFieldName)
+                  .collect(toImmutableList()))
+          .add("rdap-queries")
+          .build();
+
   @Inject @Config("reportingBucket") String reportingBucket;
+  @Inject @Config("icannActivityCountersEnabled") boolean activityCountersEnabled;
 
   @Inject ActivityReportingQueryBuilder activityQueryBuilder;
   @Inject TransactionsReportingQueryBuilder transactionsQueryBuilder;
@@ -82,6 +123,9 @@ public class IcannReportingStager {
     if (reportType == ReportType.ACTIVITY) {
       // Prepare for the DNS count query, which may have special needs.
       activityQueryBuilder.prepareForQuery(yearMonth);
+      if (activityCountersEnabled) {
+        return stageActivityReportsFromCounters(yearMonth, subdir);
+      }
     }
 
     ImmutableMap<String, String> viewQueryMap = queryBuilder.getViewQueryMap(yearMonth);
@@ -150,6 +194,97 @@ public class IcannReportingStager {
     return manifestBuilder.build();
   }
 
+  /**
+   * Creates and stores activity reports on GCS from the {@link IcannActivityCounter} counts,
+   * returns a list of files stored.
+   *
+   * <p>Only the DNS counts are still queried from BigQuery, since DNS queries aren't served by this
+   * application. Everything else is read from the database, without creating any views.
+   */
+  @SuppressWarnings("unchecked")
+  private ImmutableList<String> stageActivityReportsFromCounters(YearMonth yearMonth, String subdir)
+      throws IOException {
+    // Counts keyed by TLD and metric name, where counts of ALL_TLDS apply to every TLD.
+    Table<String, String, Long> counts = HashBasedTable.create();
+    ImmutableTable<Integer, TableFieldSchema, Object> dnsCountsTable =
+        bigquery.queryToLocalTableSync(activityQueryBuilder.getDnsCountsQuery(yearMonth));
+    for (Map<TableFieldSchema, Object> row : dnsCountsTable.rowMap().values()) {
+      Iterator<Object> values = row.values().iterator();
+      Object tld = values.next();
+      addCount(
+          counts,
+          Data.isNull(tld) ? ALL_TLDS : tld.toString(),
+          values.next().toString(),
+          Long.parseLong(values.next().toString()));
+    }
+    String reportingMonth = DateTimeFormat.forPattern("yyyy-MM").print(yearMonth);
+    List<Object[]> rows =
+        tm().transact(
+                () ->
+                    tm().getEntityManager()
+                        .createNativeQuery(
+                            "SELECT tld, field, SUM(count) FROM \"IcannActivityCount\" "
+                                + "WHERE reporting_month = :reportingMonth GROUP BY tld, field")
+                        .setParameter("reportingMonth", reportingMonth)
+                        .getResultList());
+    for (Object[] row : rows) {
+      addCount(counts, (String) row[0], (String) row[1], ((Number) row[2]).longValue());
+    }
+    long operationalRegistrars =
+        tm().transact(
+                () ->
+                    tm().query("SELECT COUNT(*) FROM Registrar WHERE type IN (:types)", Long.class)
+                        .setParameter(
+                            "types", ImmutableSet.of(Registrar.Type.REAL, Registrar.Type.INTERNAL))
+                        .getSingleResult());
+
+    String headerRow = constructRow(ACTIVITY_REPORT_COLUMNS);
+    ImmutableList.Builder<String> manifestBuilder = new ImmutableList.Builder<>();
+    for (String tld : ImmutableSortedSet.copyOf(Tlds.getTldsOfType(TldType.REAL))) {
+      ImmutableList.Builder<Object> row =
+          new ImmutableList.Builder<>()
+              .add(
+                  tld,
+                  operationalRegistrars,
+                  // We use the Centralized Zone Data Service.
+                  "CZDS",
+                  getCount(counts, tld, WHOIS_43_QUERIES),
+                  getCount(counts, tld, WEB_WHOIS_QUERIES),
+                  // We don't support searchable WHOIS.
+                  0,
+                  // DNS queries for UDP/TCP are all assumed to be received/responded.
+                  getCount(counts, tld, DNS_UDP_QUERIES),
+                  getCount(counts, tld, DNS_UDP_QUERIES),
+                  getCount(counts, tld, DNS_TCP_QUERIES),
+                  getCount(counts, tld, DNS_TCP_QUERIES));
+      for (ActivityReportField field : ActivityReportField.values()) {
+        row.add(getCount(counts, tld, field.getFieldName()));
+      }
+      row.add(getCount(counts, tld, RDAP_QUERIES));
+      manifestBuilder.add(
+          saveReportToGcs(
+              tld,
+              yearMonth,
+              subdir,
+              createReport(headerRow, ImmutableList.of(constructRow(row.build()))),
+              ReportType.ACTIVITY));
+    }
+    return manifestBuilder.build();
+  }
+
+  private static void addCount(
+      Table<String, String, Long> counts, String tld, String metricName, long count) {
+    Long existingCount = counts.get(tld, metricName);
+    counts.put(tld, metricName, existingCount == null ? count : existingCount + count);
+  }
+
+  /** Returns the count of a metric for a TLD, including the count that applies to all TLDs. */
+  private static long getCount(Table<String, String, Long> counts, String tld, String metricName) {
+    Long tldCount = counts.get(tld, metricName);
+    Long allTldsCount = counts.get(ALL_TLDS, metricName);
+    return (tldCount == null ? 0 : tldCount) + (allTldsCount == null ? 0 : allTldsCount);
+  }
+
   /** Creates and stores transactions reports on GCS, returns a list of files stored. */
   private ImmutableList<String> stageTransactionsReports(
       YearMonth yearMonth,
@@ -66,6 +66,7 @@ public class GenerateSpec11ReportAction implements Runnable {
   private final String stagingBucketUrl;
   private final String reportingBucketUrl;
   private final String apiKey;
+  private final boolean incremental;
   private final LocalDate date;
   private final Clock clock;
   private final Response response;
@@ -80,6 +81,7 @@ public class GenerateSpec11ReportAction implements Runnable {
       @Config("beamStagingBucketUrl") String stagingBucketUrl,
       @Config("reportingBucketUrl") String reportingBucketUrl,
       @Key("safeBrowsingAPIKey") String apiKey,
+      @Config("spec11IncrementalScan") boolean incremental,
       @Parameter(ReportingModule.PARAM_DATE) LocalDate date,
       @Parameter(ReportingModule.SEND_EMAIL) boolean sendEmail,
       Clock clock,
@@ -91,6 +93,7 @@ public class GenerateSpec11ReportAction implements Runnable {
     this.stagingBucketUrl = stagingBucketUrl;
     this.reportingBucketUrl = reportingBucketUrl;
     this.apiKey = apiKey;
+    this.incremental = incremental;
     this.date = date;
     this.clock = clock;
     this.response = response;
@@ -117,7 +120,9 @@ public class GenerateSpec11ReportAction implements Runnable {
                       "reportingBucketUrl",
                       reportingBucketUrl,
                       "registryEnvironment",
-                      RegistryEnvironment.get().name()));
+                      RegistryEnvironment.get().name(),
+                      "incremental",
+                      String.valueOf(incremental)));
       LaunchFlexTemplateResponse launchResponse =
           dataflow
               .projects()
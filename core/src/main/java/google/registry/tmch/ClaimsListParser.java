@@ -19,10 +19,15 @@ import static com.google.common.base.Preconditions.checkArgument;
 import com.google.common.base.Joiner;
 import com.google.common.base.Splitter;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.io.CharSource;
 import google.registry.model.tmch.ClaimsList;
+import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.Reader;
 import java.io.StringReader;
 import java.util.List;
+import java.util.function.BiConsumer;
+import javax.annotation.Nullable;
 import org.apache.commons.csv.CSVFormat;
 import org.apache.commons.csv.CSVParser;
 import org.apache.commons.csv.CSVRecord;
@@ -43,9 +48,37 @@ public class ClaimsListParser {
    */
   public static ClaimsList parse(List<String> lines) throws IOException {
     ImmutableMap.Builder<String, String> builder = new ImmutableMap.Builder<>();
+    DateTime creationTime = parseFirstLine(lines.get(0));
+    // Note: we have to skip the first line because it contains the version metadata
+    parseRecords(
+        new StringReader(Joiner.on('\n').join(lines.subList(1, lines.size()))), builder::put);
+    return ClaimsList.create(creationTime, builder.build());
+  }
+
+  /** Returns the DNL List creation datetime from the first line of the DNL CSV file. */
+  public static DateTime parseCreationTime(CharSource csv) throws IOException {
+    return parseFirstLine(csv.readFirstLine());
+  }
 
-    // First line: <version>,<DNL List creation datetime>
-    List<String> firstLine = Splitter.on(',').splitToList(lines.get(0));
+  /**
+   * Parses the DNL CSV file one line at a time, passing each label and its claim key to the given
+   * consumer.
+   *
+   * <p>Unlike {@link #parse}, this never holds the whole list in memory.
+   */
+  public static void parseEntries(CharSource csv, BiConsumer<String, String> entries)
+      throws IOException {
+    try (BufferedReader reader = csv.openBufferedStream()) {
+      // Note: we have to skip the first line because it contains the version metadata
+      reader.readLine();
+      parseRecords(reader, entries);
+    }
+  }
+
+  /** Parses the first line, {@code <version>,<DNL List creation datetime>}. */
+  private static DateTime parseFirstLine(@Nullable String line) {
+    checkArgument(line != null, "Line 1: Expected version and creation time, found none");
+    List<String> firstLine = Splitter.on(',').splitToList(line);
     checkArgument(firstLine.size() == 2, String.format(
         "Line 1: Expected 2 elements, found %d", firstLine.size()));
 
@@ -53,20 +86,21 @@ public class ClaimsListParser {
     DateTime creationTime = DateTime.parse(firstLine.get(1));
     checkArgument(version == 1, String.format(
         "Line 1: Expected version 1, found %d", version));
+    return creationTime;
+  }
 
-    // Note: we have to skip the first line because it contains the version metadata
+  private static void parseRecords(Reader reader, BiConsumer<String, String> entries)
+      throws IOException {
     CSVParser csv =
         CSVFormat.Builder.create(CSVFormat.DEFAULT)
             .setHeader()
             .setSkipHeaderRecord(true)
             .build()
-            .parse(new StringReader(Joiner.on('\n').join(lines.subList(1, lines.size()))));
+            .parse(reader);
     for (CSVRecord record : csv) {
       String label = record.get("DNL");
       String lookupKey = record.get("lookup-key");
-      builder.put(label, lookupKey);
+      entries.accept(label, lookupKey);
     }
-
-    return ClaimsList.create(creationTime, builder.build());
   }
 }
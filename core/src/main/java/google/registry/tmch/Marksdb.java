@@ -21,9 +21,9 @@ import static google.registry.util.HexDumper.dumpHex;
 import static java.nio.charset.StandardCharsets.US_ASCII;
 import static javax.servlet.http.HttpServletResponse.SC_OK;
 
-import com.google.common.collect.ImmutableList;
 import com.google.common.flogger.FluentLogger;
 import com.google.common.io.ByteSource;
+import com.google.common.io.CharSource;
 import google.registry.config.RegistryConfig.Config;
 import google.registry.keyring.api.KeyModule.Key;
 import google.registry.request.UrlConnectionService;
@@ -124,8 +124,15 @@ public final class Marksdb {
     }
   }
 
-  ImmutableList<String> fetchSignedCsv(
-      Optional<String> loginAndPassword, String csvPath, String sigPath)
+  /**
+   * Fetches a CSV file and its signature, and returns the contents of the file once the signature
+   * has been verified.
+   *
+   * <p>The file is only downloaded once, and can be read as many times as needed from the returned
+   * source, one line at a time, without ever being split into a list of lines or copied into a
+   * string.
+   */
+  CharSource fetchVerifiedCsv(Optional<String> loginAndPassword, String csvPath, String sigPath)
       throws IOException, GeneralSecurityException, PGPException {
     checkArgument(
         loginAndPassword.isPresent(), "Cannot fetch from MarksDB without login credentials");
@@ -139,9 +146,7 @@ public final class Marksdb {
     logFetchedBytes(sigUrl, sig);
 
     pgpVerifySignature(csv, sig, marksdbPublicKey);
-    ImmutableList<String> lines = ByteSource.wrap(csv).asCharSource(US_ASCII).readLines();
-    logger.atInfo().log("Parsed %d lines.", lines.size());
-    return lines;
+    return ByteSource.wrap(csv).asCharSource(US_ASCII);
   }
 
   /**
@@ -20,10 +20,15 @@ import static org.joda.time.DateTimeZone.UTC;
 import com.google.common.base.Joiner;
 import com.google.common.base.Splitter;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.io.CharSource;
 import google.registry.model.smd.SignedMarkRevocationList;
+import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.Reader;
 import java.io.StringReader;
 import java.util.List;
+import java.util.function.BiConsumer;
+import javax.annotation.Nullable;
 import org.apache.commons.csv.CSVFormat;
 import org.apache.commons.csv.CSVParser;
 import org.apache.commons.csv.CSVRecord;
@@ -40,29 +45,57 @@ public final class SmdrlCsvParser {
   /** Converts the lines from the DNL CSV file into a data structure. */
   public static SignedMarkRevocationList parse(List<String> lines) throws IOException {
     ImmutableMap.Builder<String, DateTime> revokes = new ImmutableMap.Builder<>();
+    DateTime creationTime = parseFirstLine(lines.get(0));
+    // Note: we have to skip the first line because it contains the version metadata
+    parseRecords(
+        new StringReader(Joiner.on('\n').join(lines.subList(1, lines.size()))), revokes::put);
+    return SignedMarkRevocationList.create(creationTime, revokes.build());
+  }
+
+  /** Returns the SMD Revocation List creation datetime from the first line of the CSV file. */
+  public static DateTime parseCreationTime(CharSource csv) throws IOException {
+    return parseFirstLine(csv.readFirstLine());
+  }
+
+  /**
+   * Parses the SMDRL CSV file one line at a time, passing each SMD ID and its revocation time to
+   * the given consumer.
+   *
+   * <p>Unlike {@link #parse}, this never holds the whole list in memory.
+   */
+  public static void parseRevocations(CharSource csv, BiConsumer<String, DateTime> revocations)
+      throws IOException {
+    try (BufferedReader reader = csv.openBufferedStream()) {
+      // Note: we have to skip the first line because it contains the version metadata
+      reader.readLine();
+      parseRecords(reader, revocations);
+    }
+  }
 
-    // First line: <version>,<SMD Revocation List creation datetime>
-    List<String> firstLine = Splitter.on(',').splitToList(lines.get(0));
+  /** Parses the first line, {@code <version>,<SMD Revocation List creation datetime>}. */
+  private static DateTime parseFirstLine(@Nullable String line) {
+    checkArgument(line != null, "Line 1: Expected version and creation time, found none");
+    List<String> firstLine = Splitter.on(',').splitToList(line);
     checkArgument(
         firstLine.size() == 2,
         String.format("Line 1: Expected 2 elements, found %d", firstLine.size()));
     int version = Integer.parseInt(firstLine.get(0));
     checkArgument(version == 1, String.format("Line 1: Expected version 1, found %d", version));
-    DateTime creationTime = DateTime.parse(firstLine.get(1)).withZone(UTC);
+    return DateTime.parse(firstLine.get(1)).withZone(UTC);
+  }
 
-    // Note: we have to skip the first line because it contains the version metadata
+  private static void parseRecords(Reader reader, BiConsumer<String, DateTime> revocations)
+      throws IOException {
     CSVParser csv =
         CSVFormat.Builder.create(CSVFormat.DEFAULT)
             .setHeader()
             .setSkipHeaderRecord(true)
             .build()
-            .parse(new StringReader(Joiner.on('\n').join(lines.subList(1, lines.size()))));
-
+            .parse(reader);
     for (CSVRecord record : csv) {
       String smdId = record.get("smd-id");
       DateTime revokedTime = DateTime.parse(record.get("insertion-datetime"));
-      revokes.put(smdId, revokedTime);
+      revocations.accept(smdId, revokedTime);
     }
-    return SignedMarkRevocationList.create(creationTime, revokes.build());
   }
 }
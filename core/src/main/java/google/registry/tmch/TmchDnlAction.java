@@ -16,10 +16,9 @@ package google.registry.tmch;
 
 import static google.registry.request.Action.Method.POST;
 
-import com.google.common.collect.ImmutableList;
 import com.google.common.flogger.FluentLogger;
+import com.google.common.io.CharSource;
 import google.registry.keyring.api.KeyModule.Key;
-import google.registry.model.tmch.ClaimsList;
 import google.registry.model.tmch.ClaimsListDao;
 import google.registry.request.Action;
 import google.registry.request.auth.Auth;
@@ -28,6 +27,7 @@ import java.security.GeneralSecurityException;
 import java.util.Optional;
 import javax.inject.Inject;
 import org.bouncycastle.openpgp.PGPException;
+import org.joda.time.DateTime;
 
 /** Action to download the latest domain name list (aka claims list) from MarksDB. */
 @Action(
@@ -49,17 +49,17 @@ public final class TmchDnlAction implements Runnable {
   /** Synchronously fetches latest domain name list and saves it to Cloud SQL. */
   @Override
   public void run() {
-    ClaimsList claims;
+    CharSource csv;
+    DateTime creationTime;
     try {
-      ImmutableList<String> lines =
-          marksdb.fetchSignedCsv(marksdbDnlLoginAndPassword, DNL_CSV_PATH, DNL_SIG_PATH);
-      claims = ClaimsListParser.parse(lines);
+      csv = marksdb.fetchVerifiedCsv(marksdbDnlLoginAndPassword, DNL_CSV_PATH, DNL_SIG_PATH);
+      creationTime = ClaimsListParser.parseCreationTime(csv);
     } catch (GeneralSecurityException | IOException | PGPException e) {
       throw new RuntimeException(e);
     }
-    ClaimsListDao.save(claims);
+    long numClaims =
+        ClaimsListDao.save(creationTime, entries -> ClaimsListParser.parseEntries(csv, entries));
     logger.atInfo().log(
-        "Inserted %,d claims into the DB(s), created at %s.",
-        claims.size(), claims.getTmdbGenerationTime());
+        "Inserted %,d claims into the DB(s), created at %s.", numClaims, creationTime);
   }
 }
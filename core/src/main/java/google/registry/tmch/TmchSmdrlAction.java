@@ -16,10 +16,10 @@ package google.registry.tmch;
 
 import static google.registry.request.Action.Method.POST;
 
-import com.google.common.collect.ImmutableList;
 import com.google.common.flogger.FluentLogger;
+import com.google.common.io.CharSource;
 import google.registry.keyring.api.KeyModule.Key;
-import google.registry.model.smd.SignedMarkRevocationList;
+import google.registry.model.smd.SignedMarkRevocationListDao;
 import google.registry.request.Action;
 import google.registry.request.auth.Auth;
 import java.io.IOException;
@@ -27,6 +27,7 @@ import java.security.GeneralSecurityException;
 import java.util.Optional;
 import javax.inject.Inject;
 import org.bouncycastle.openpgp.PGPException;
+import org.joda.time.DateTime;
 
 /** Action to download the latest signed mark revocation list from MarksDB. */
 @Action(
@@ -48,17 +49,19 @@ public final class TmchSmdrlAction implements Runnable {
   /** Synchronously fetches latest signed mark revocation list and saves it to the database. */
   @Override
   public void run() {
-    SignedMarkRevocationList smdrl;
+    CharSource csv;
+    DateTime creationTime;
     try {
-      ImmutableList<String> lines =
-          marksdb.fetchSignedCsv(marksdbSmdrlLoginAndPassword, SMDRL_CSV_PATH, SMDRL_SIG_PATH);
-      smdrl = SmdrlCsvParser.parse(lines);
+      csv = marksdb.fetchVerifiedCsv(marksdbSmdrlLoginAndPassword, SMDRL_CSV_PATH, SMDRL_SIG_PATH);
+      creationTime = SmdrlCsvParser.parseCreationTime(csv);
     } catch (GeneralSecurityException | IOException | PGPException e) {
       throw new RuntimeException(e);
     }
-    smdrl.save();
+    long numRevocations =
+        SignedMarkRevocationListDao.save(
+            creationTime, revocations -> SmdrlCsvParser.parseRevocations(csv, revocations));
     logger.atInfo().log(
         "Inserted %,d smd revocations into the database, created at %s.",
-        smdrl.size(), smdrl.getCreationTime());
+        numRevocations, creationTime);
   }
 }
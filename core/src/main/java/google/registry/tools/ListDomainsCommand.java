@@ -16,6 +16,8 @@ package google.registry.tools;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static google.registry.model.tld.Tlds.getTldsOfType;
+import static google.registry.tools.server.ListDomainsPageAction.PAGE_SIZE_PARAM;
+import static google.registry.tools.server.ListDomainsPageAction.REGISTRAR_PARAM;
 import static google.registry.util.CollectionUtils.isNullOrEmpty;
 
 import com.beust.jcommander.Parameter;
@@ -24,7 +26,9 @@ import com.google.common.base.Joiner;
 import com.google.common.collect.ImmutableMap;
 import google.registry.model.tld.Tld.TldType;
 import google.registry.tools.server.ListDomainsAction;
+import google.registry.tools.server.ListDomainsPageAction;
 import java.util.List;
+import javax.annotation.Nullable;
 
 /** Command to list all second-level domains on specified TLD(s). */
 @Parameters(separators = " =", commandDescription = "List domains on TLD(s).")
@@ -41,9 +45,28 @@ final class ListDomainsCommand extends ListObjectsCommand {
   )
   private int maxDomains = Integer.MAX_VALUE;
 
+  @Nullable
+  @Parameter(
+      names = {"--page_size"},
+      description =
+          "Fetch the domains this many at a time, in order of their names, loading only the "
+              + "requested fields; use this to list more domains than fit in a single response.")
+  private Integer pageSize;
+
+  @Nullable
+  @Parameter(
+      names = {"--registrar"},
+      description = "Only list the domains sponsored by this registrar; requires --page_size.")
+  private String registrarId;
+
   @Override
   String getCommandPath() {
-    return ListDomainsAction.PATH;
+    return isPaged() ? ListDomainsPageAction.PATH : ListDomainsAction.PATH;
+  }
+
+  @Override
+  boolean isPaged() {
+    return pageSize != null;
   }
 
   /** Returns a map of parameters to be sent to the server (in addition to the usual ones). */
@@ -55,6 +78,18 @@ final class ListDomainsCommand extends ListObjectsCommand {
     }
     String tldsParam = Joiner.on(',').join(tlds);
     checkArgument(tldsParam.length() < 1024, "Total length of TLDs is too long for URL parameter");
-    return ImmutableMap.of("tlds", tldsParam, "limit", maxDomains);
+    if (!isPaged()) {
+      checkArgument(registrarId == null, "--registrar requires --page_size");
+      return ImmutableMap.of("tlds", tldsParam, "limit", maxDomains);
+    }
+    checkArgument(maxDomains == Integer.MAX_VALUE, "--limit can't be used with --page_size");
+    ImmutableMap.Builder<String, Object> params =
+        new ImmutableMap.Builder<String, Object>()
+            .put("tlds", tldsParam)
+            .put(PAGE_SIZE_PARAM, pageSize);
+    if (registrarId != null) {
+      params.put(REGISTRAR_PARAM, registrarId);
+    }
+    return params.build();
   }
 }
@@ -15,16 +15,20 @@
 package google.registry.tools;
 
 import static google.registry.security.JsonHttp.JSON_SAFETY_PREFIX;
+import static google.registry.tools.server.ListDomainsPageAction.PAGE_TOKEN_PARAM;
 import static google.registry.tools.server.ListObjectsAction.FIELDS_PARAM;
 import static google.registry.tools.server.ListObjectsAction.FULL_FIELD_NAMES_PARAM;
 import static google.registry.tools.server.ListObjectsAction.PRINT_HEADER_ROW_PARAM;
 
 import com.beust.jcommander.Parameter;
+import com.google.common.base.Joiner;
+import com.google.common.base.Splitter;
 import com.google.common.base.VerifyException;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.net.MediaType;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import javax.annotation.Nullable;
 import org.json.simple.JSONValue;
 
@@ -32,6 +36,8 @@ import org.json.simple.JSONValue;
  * Abstract base class for commands that list objects by calling a server task.
  *
  * <p>The formatting is done on the server side; this class just dumps the results to the screen.
+ * Commands whose server task lists the objects a page at a time instead print each page as it is
+ * received.
  */
 abstract class ListObjectsCommand implements CommandWithConnection {
 
@@ -69,6 +75,15 @@ abstract class ListObjectsCommand implements CommandWithConnection {
     return ImmutableMap.of();
   }
 
+  /**
+   * Returns whether the server task lists the objects a page at a time.
+   *
+   * @see google.registry.tools.server.ListDomainsPageAction
+   */
+  boolean isPaged() {
+    return false;
+  }
+
   @Override
   public void run() throws Exception {
     ImmutableMap.Builder<String, Object> params = new ImmutableMap.Builder<>();
@@ -82,6 +97,10 @@ abstract class ListObjectsCommand implements CommandWithConnection {
       params.put(FULL_FIELD_NAMES_PARAM, Boolean.TRUE);
     }
     params.putAll(getParameterMap());
+    if (isPaged()) {
+      runPaged(params.build());
+      return;
+    }
     // Call the server and get the response data.
     String response =
         connection.sendPostRequest(
@@ -93,8 +112,73 @@ abstract class ListObjectsCommand implements CommandWithConnection {
     }
     @SuppressWarnings("unchecked")
     Map<String, Object> responseMap = (Map<String, Object>) obj;
-    // Get the status.
-    obj = responseMap.get("status");
+    checkStatus(responseMap);
+    obj = responseMap.get("lines");
+    if (obj == null) {
+      throw new VerifyException("Server returned no response data");
+    }
+    if (!(obj instanceof List<?>)) {
+      throw new VerifyException("Server returned unexpected response data");
+    }
+    for (Object lineObj : (List<?>) obj) {
+      System.out.println(lineObj);
+    }
+  }
+
+  /**
+   * Lists the objects a page at a time, printing each page as soon as it is received.
+   *
+   * <p>Each page is newline-delimited JSON: a map with the names of the fields, an array of field
+   * values for each object, and a map with the status and the token of the next page, if any. The
+   * columns are separated by tabs rather than padded, since their widths aren't known in advance.
+   */
+  private void runPaged(ImmutableMap<String, Object> params) throws Exception {
+    Optional<String> pageToken = Optional.empty();
+    boolean isFirstPage = true;
+    do {
+      ImmutableMap.Builder<String, Object> pageParams =
+          new ImmutableMap.Builder<String, Object>().putAll(params);
+      pageToken.ifPresent(token -> pageParams.put(PAGE_TOKEN_PARAM, token));
+      String response =
+          connection.sendPostRequest(
+              getCommandPath(), pageParams.build(), MediaType.PLAIN_TEXT_UTF_8, new byte[0]);
+      pageToken = Optional.empty();
+      boolean hasStatus = false;
+      for (String line :
+          Splitter.on('\n')
+              .omitEmptyStrings()
+              .split(response.substring(JSON_SAFETY_PREFIX.length()))) {
+        Object obj = JSONValue.parse(line);
+        if (obj instanceof List<?>) {
+          System.out.println(Joiner.on('\t').join((List<?>) obj));
+        } else if (obj instanceof Map<?, ?>) {
+          @SuppressWarnings("unchecked")
+          Map<String, Object> lineMap = (Map<String, Object>) obj;
+          if (lineMap.containsKey("fields")) {
+            List<?> fieldNames = (List<?>) lineMap.get("fields");
+            if (isFirstPage
+                && (printHeaderRow == null ? fieldNames.size() > 1 : printHeaderRow)) {
+              System.out.println(Joiner.on('\t').join(fieldNames));
+            }
+          } else {
+            checkStatus(lineMap);
+            hasStatus = true;
+            pageToken = Optional.ofNullable((String) lineMap.get("nextPageToken"));
+          }
+        } else {
+          throw new VerifyException("Server returned unexpected JSON: " + line);
+        }
+      }
+      if (!hasStatus) {
+        throw new VerifyException("Server returned no status");
+      }
+      isFirstPage = false;
+    } while (pageToken.isPresent());
+  }
+
+  /** Checks the status of a response, and throws if it is an error or unexpected. */
+  private static void checkStatus(Map<String, Object> responseMap) {
+    Object obj = responseMap.get("status");
     if (obj == null) {
       throw new VerifyException("Server returned no status");
     }
@@ -109,20 +193,8 @@ abstract class ListObjectsCommand implements CommandWithConnection {
         throw new VerifyException("Server returned an error with no error message");
       }
       throw new VerifyException(String.format("Server returned an error with message '%s'", obj));
-    // Handle success.
-    } else if (status.equals("success")) {
-      obj = responseMap.get("lines");
-      if (obj == null) {
-        throw new VerifyException("Server returned no response data");
-      }
-      if (!(obj instanceof List<?>)) {
-        throw new VerifyException("Server returned unexpected response data");
-      }
-      for (Object lineObj : (List<?>) obj) {
-        System.out.println(lineObj);
-      }
     // Handle unexpected status values.
-    } else {
+    } else if (!status.equals("success")) {
       throw new VerifyException("Server returned unexpected status");
     }
   }
@@ -24,6 +24,7 @@ public enum KeyringKeyName {
   BRDA_RECEIVER_PUBLIC_KEY,
   BRDA_SIGNING_KEY_PAIR,
   BRDA_SIGNING_PUBLIC_KEY,
+  EPP_SESSION_TOKEN_KEYS,
   ICANN_REPORTING_PASSWORD,
   JSON_CREDENTIAL,
   MARKSDB_DNL_LOGIN_AND_PASSWORD,
@@ -0,0 +1,250 @@
+// Copyright 2023 The Nomulus Authors. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package google.registry.tools.server;
+
+import static com.google.common.base.MoreObjects.firstNonNull;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.collect.ImmutableSet.toImmutableSet;
+import static com.google.common.net.HttpHeaders.CONTENT_DISPOSITION;
+import static com.google.common.net.HttpHeaders.X_CONTENT_TYPE_OPTIONS;
+import static google.registry.model.tld.Tlds.assertTldsExist;
+import static google.registry.persistence.transaction.TransactionManagerFactory.replicaTm;
+import static google.registry.request.Action.Method.GET;
+import static google.registry.request.Action.Method.POST;
+import static google.registry.request.JsonResponse.JSON_SAFETY_PREFIX;
+import static google.registry.request.RequestParameters.PARAM_TLDS;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.stream.Collectors.joining;
+
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Streams;
+import com.google.common.flogger.FluentLogger;
+import com.google.common.io.BaseEncoding;
+import com.google.common.net.MediaType;
+import google.registry.request.Action;
+import google.registry.request.Parameter;
+import google.registry.request.Response;
+import google.registry.request.auth.Auth;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.stream.Stream;
+import javax.inject.Inject;
+import javax.persistence.Query;
+import org.json.simple.JSONValue;
+
+/**
+ * An action that lists domains a page at a time, for use by {@code nomulus list_domains
+ * --page_size}.
+ *
+ * <p>Unlike {@link ListDomainsAction}, this doesn't load whole {@code Domain} entities. It only
+ * selects the requested columns from the replica, so it can list all of the domains of many TLDs
+ * without hitting the response size limit. The values are as stored in the database, and aren't
+ * projected to the current time, so for instance a transfer that has been implicitly approved but
+ * not yet server-approved still shows the losing registrar as the sponsor.
+ *
+ * <p>Domains are listed in order of their names, and each page ends with an opaque token that
+ * requests the next one. The response is newline-delimited JSON after the usual {@link
+ * google.registry.request.JsonResponse#JSON_SAFETY_PREFIX}: a first line with the names of the
+ * fields, then one array of field values per domain, and a last line with the status and, unless
+ * this is the last page, the token for the next page. For example:
+ *
+ * <pre>
+ * {"fields":["domainName","currentSponsorRegistrarId"]}
+ * ["example1.foo","TheRegistrar"]
+ * ["example2.foo","NewRegistrar"]
+ * {"status":"success","nextPageToken":"ZXhhbXBsZTIuZm9v"}
+ * </pre>
+ *
+ * <p>Errors are returned as a single line with an "error" status and message.
+ */
+@Action(
+    service = Action.Service.TOOLS,
+    path = ListDomainsPageAction.PATH,
+    method = {GET, POST},
+    auth = Auth.AUTH_API_ADMIN)
+public final class ListDomainsPageAction implements Runnable {
+
+  private static final FluentLogger logger = FluentLogger.forEnclosingClass();
+
+  public static final String PATH = "/_dr/admin/list/domainsPage";
+
+  public static final String PAGE_SIZE_PARAM = "pageSize";
+  public static final String PAGE_TOKEN_PARAM = "pageToken";
+  public static final String REGISTRAR_PARAM = "registrar";
+
+  public static final MediaType NDJSON_UTF_8 =
+      MediaType.create("application", "x-ndjson").withCharset(UTF_8);
+
+  static final int MAX_PAGE_SIZE = 10000;
+
+  /** The fields that can be listed, mapped to their paths in the {@code Domain} entity. */
+  private static final ImmutableMap<String, String> FIELD_PATHS =
+      new ImmutableMap.Builder<String, String>()
+          .put("domainName", "domainName")
+          .put("repoId", "repoId")
+          .put("tld", "tld")
+          .put("currentSponsorRegistrarId", "currentSponsorRegistrarId")
+          .put("creationRegistrarId", "creationRegistrarId")
+          .put("creationTime", "creationTime.creationTime")
+          .put("lastEppUpdateRegistrarId", "lastEppUpdateRegistrarId")
+          .put("lastEppUpdateTime", "lastEppUpdateTime")
+          .put("registrationExpirationTime", "registrationExpirationTime")
+          .put("lastTransferTime", "lastTransferTime")
+          .put("deletionTime", "deletionTime")
+          .put("autorenewEndTime", "autorenewEndTime")
+          .put("idnTableName", "idnTableName")
+          .put("smdId", "smdId")
+          .build();
+
+  @Inject Response response;
+
+  @Inject
+  @Parameter(PARAM_TLDS)
+  ImmutableSet<String> tlds;
+
+  @Inject
+  @Parameter("fields")
+  Optional<String> fields;
+
+  @Inject
+  @Parameter(REGISTRAR_PARAM)
+  Optional<String> registrarId;
+
+  @Inject
+  @Parameter(PAGE_SIZE_PARAM)
+  int pageSize;
+
+  @Inject
+  @Parameter(PAGE_TOKEN_PARAM)
+  Optional<String> pageToken;
+
+  @Inject
+  ListDomainsPageAction() {}
+
+  @Override
+  public void run() {
+    response.setContentType(NDJSON_UTF_8);
+    response.setHeader(X_CONTENT_TYPE_OPTIONS, "nosniff");
+    response.setHeader(CONTENT_DISPOSITION, "attachment");
+    try {
+      checkArgument(!tlds.isEmpty(), "Must specify TLDs to query");
+      checkArgument(
+          pageSize > 0 && pageSize <= MAX_PAGE_SIZE,
+          "Page size must be between 1 and %s",
+          MAX_PAGE_SIZE);
+      assertTldsExist(tlds);
+      ImmutableList<String> fieldsToUse = getFieldsToUse();
+      Optional<String> cursor = pageToken.map(ListDomainsPageAction::decodePageToken);
+      List<Object[]> rows =
+          replicaTm().transact(() -> loadRows(fieldsToUse, cursor, pageSize + 1));
+      boolean hasNextPage = rows.size() > pageSize;
+      StringBuilder payload = new StringBuilder(JSON_SAFETY_PREFIX);
+      appendLine(payload, ImmutableMap.of("fields", fieldsToUse));
+      for (Object[] row : rows.subList(0, Math.min(rows.size(), pageSize))) {
+        appendLine(
+            payload,
+            Stream.of(row).map(value -> Objects.toString(value, "")).collect(toImmutableList()));
+      }
+      Map<String, Object> status = new HashMap<>();
+      status.put("status", "success");
+      if (hasNextPage) {
+        // The first field is always the domain name, which the pages are keyed on.
+        status.put("nextPageToken", encodePageToken((String) rows.get(pageSize - 1)[0]));
+      }
+      appendLine(payload, status);
+      logger.atInfo().log("Listed %d domains.", Math.min(rows.size(), pageSize));
+      response.setPayload(payload.toString());
+    } catch (IllegalArgumentException e) {
+      logger.atWarning().withCause(e).log("Error while listing domains.");
+      // Like ListObjectsAction, return a 200 response so that the command can show a clean error.
+      response.setPayload(
+          JSON_SAFETY_PREFIX
+              + JSONValue.toJSONString(
+                  ImmutableMap.of(
+                      "error", firstNonNull(e.getMessage(), e.getClass().getName()),
+                      "status", "error"))
+              + "\n");
+    }
+  }
+
+  /** Returns the requested fields in order, without duplicates, after the domain name. */
+  private ImmutableList<String> getFieldsToUse() {
+    ImmutableSet<String> fieldsToUse =
+        Streams.concat(
+                Stream.of("domainName"),
+                fields.map(f -> Splitter.on(',').splitToStream(f)).orElse(Stream.empty()))
+            .collect(toImmutableSet());
+    for (String field : fieldsToUse) {
+      checkArgument(
+          FIELD_PATHS.containsKey(field),
+          "Field '%s' can't be listed a page at a time - listable fields are:\n%s",
+          field,
+          FIELD_PATHS.keySet());
+    }
+    return fieldsToUse.asList();
+  }
+
+  private List<Object[]> loadRows(
+      ImmutableList<String> fieldsToUse, Optional<String> cursor, int maxResults) {
+    StringBuilder jpql =
+        new StringBuilder("SELECT ")
+            .append(
+                fieldsToUse.stream()
+                    .map(field -> "d." + FIELD_PATHS.get(field))
+                    .collect(joining(", ")))
+            .append(" FROM Domain d WHERE d.tld IN (:tlds) AND d.deletionTime > :now");
+    registrarId.ifPresent(r -> jpql.append(" AND d.currentSponsorRegistrarId = :registrarId"));
+    cursor.ifPresent(c -> jpql.append(" AND d.domainName > :cursor"));
+    jpql.append(" ORDER BY d.domainName ASC");
+    Query query =
+        replicaTm()
+            .getEntityManager()
+            .createQuery(jpql.toString())
+            .setParameter("tlds", tlds)
+            .setParameter("now", replicaTm().getTransactionTime())
+            .setMaxResults(maxResults);
+    registrarId.ifPresent(r -> query.setParameter("registrarId", r));
+    cursor.ifPresent(c -> query.setParameter("cursor", c));
+    @SuppressWarnings("unchecked")
+    List<Object> results = query.getResultList();
+    // A query that selects a single field returns its values directly rather than in arrays.
+    return results.stream()
+        .map(result -> result instanceof Object[] ? (Object[]) result : new Object[] {result})
+        .collect(toImmutableList());
+  }
+
+  private static void appendLine(StringBuilder payload, Object value) {
+    payload.append(JSONValue.toJSONString(value)).append('\n');
+  }
+
+  private static String encodePageToken(String lastDomainName) {
+    return BaseEncoding.base64Url().omitPadding().encode(lastDomainName.getBytes(UTF_8));
+  }
+
+  private static String decodePageToken(String token) {
+    try {
+      return new String(BaseEncoding.base64Url().omitPadding().decode(token), UTF_8);
+    } catch (IllegalArgumentException e) {
+      throw new IllegalArgumentException("Invalid page token: " + token, e);
+    }
+  }
+}
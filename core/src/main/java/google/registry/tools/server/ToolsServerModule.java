@@ -64,6 +64,24 @@ public class ToolsServerModule {
     return extractIntParameter(req, "limit");
   }
 
+  @Provides
+  @Parameter(ListDomainsPageAction.PAGE_SIZE_PARAM)
+  static int providePageSize(HttpServletRequest req) {
+    return extractIntParameter(req, ListDomainsPageAction.PAGE_SIZE_PARAM);
+  }
+
+  @Provides
+  @Parameter(ListDomainsPageAction.PAGE_TOKEN_PARAM)
+  static Optional<String> providePageToken(HttpServletRequest req) {
+    return extractOptionalParameter(req, ListDomainsPageAction.PAGE_TOKEN_PARAM);
+  }
+
+  @Provides
+  @Parameter(ListDomainsPageAction.REGISTRAR_PARAM)
+  static Optional<String> provideRegistrar(HttpServletRequest req) {
+    return extractOptionalParameter(req, ListDomainsPageAction.REGISTRAR_PARAM);
+  }
+
   @Provides
   @Parameter("rawKeys")
   static String provideRawKeys(HttpServletRequest req) {
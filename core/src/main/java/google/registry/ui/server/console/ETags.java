@@ -0,0 +1,91 @@
+// Copyright 2023 The Nomulus Authors. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package google.registry.ui.server.console;
+
+import static com.google.common.net.HttpHeaders.CACHE_CONTROL;
+import static com.google.common.net.HttpHeaders.ETAG;
+import static com.google.common.net.HttpHeaders.IF_NONE_MATCH;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static javax.servlet.http.HttpServletResponse.SC_NOT_MODIFIED;
+
+import com.google.api.client.http.HttpStatusCodes;
+import com.google.common.base.Splitter;
+import com.google.common.hash.Hashing;
+import com.google.common.io.BaseEncoding;
+import google.registry.request.Response;
+import javax.annotation.Nullable;
+import javax.servlet.http.HttpServletRequest;
+
+/**
+ * Conditional responses for the console API, so that the console can poll for changes cheaply.
+ *
+ * <p>Each response carries an entity tag derived from its payload. When the console sends that tag
+ * back in an {@code If-None-Match} header and the payload hasn't changed, the response is an empty
+ * 304 instead of the payload.
+ */
+public final class ETags {
+
+  private ETags() {}
+
+  /**
+   * Sets the JSON payload of a successful response, or a 304 if the request already has it.
+   *
+   * <p>Responses can only be cached by the browser of the user, and must be revalidated each time,
+   * since they depend on the permissions of the user and may change at any time.
+   */
+  public static void setPayloadIfModified(
+      HttpServletRequest req, Response response, String payload) {
+    String etag = computeETag(payload);
+    response.setHeader(ETAG, etag);
+    response.setHeader(CACHE_CONTROL, "private, no-cache");
+    if (matches(req.getHeader(IF_NONE_MATCH), etag)) {
+      response.setStatus(SC_NOT_MODIFIED);
+      return;
+    }
+    response.setStatus(HttpStatusCodes.STATUS_CODE_OK);
+    response.setPayload(payload);
+  }
+
+  static String computeETag(String payload) {
+    return '"'
+        + BaseEncoding.base64Url()
+            .omitPadding()
+            .encode(Hashing.sha256().hashString(payload, UTF_8).asBytes())
+        + '"';
+  }
+
+  /**
+   * Returns whether an {@code If-None-Match} header matches a tag, using the weak comparison that
+   * RFC 9110 requires for this header.
+   */
+  static boolean matches(@Nullable String ifNoneMatch, String etag) {
+    if (ifNoneMatch == null) {
+      return false;
+    }
+    for (String candidate : Splitter.on(',').trimResults().omitEmptyStrings().split(ifNoneMatch)) {
+      if (candidate.equals("*")) {
+        return true;
+      }
+      // Proxies that compress the response may turn the tag into a weak one.
+      if (candidate.startsWith("W/")) {
+        candidate = candidate.substring(2);
+      }
+      if (candidate.equals(etag)) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
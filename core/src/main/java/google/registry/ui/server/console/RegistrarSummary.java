@@ -0,0 +1,202 @@
+// Copyright 2023 The Nomulus Authors. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package google.registry.ui.server.console;
+
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static google.registry.config.RegistryConfig.getConsoleSummaryCachingDuration;
+import static google.registry.config.RegistryConfig.getConsoleSummaryMaxCachedEntries;
+import static google.registry.persistence.transaction.TransactionManagerFactory.replicaTm;
+import static google.registry.persistence.transaction.TransactionManagerFactory.tm;
+
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableSortedMap;
+import com.google.common.flogger.FluentLogger;
+import com.google.gson.annotations.Expose;
+import google.registry.model.CacheUtils;
+import google.registry.model.registrar.Registrar;
+import google.registry.model.registrar.RegistrarPoc;
+import google.registry.persistence.transaction.JpaTransactionManager;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import org.joda.time.DateTime;
+
+/**
+ * A compact, read-only summary of a registrar for the registrar console.
+ *
+ * <p>The console polls for the state of the registrars its users manage, and loading the full
+ * {@link Registrar}, {@link RegistrarPoc} and domain entities from the primary database for each of
+ * these calls adds up when many users are logged in. A summary only contains what the console
+ * shows, including the number of domains rather than the domains themselves, and is cached in
+ * memory per registrar.
+ *
+ * <p>Cached summaries are loaded from the replica database and expire after {@link
+ * google.registry.config.RegistryConfig#getConsoleSummaryCachingDuration}. Actions that change a
+ * registrar or its contacts call {@link #refresh} after their transaction commits, which reloads
+ * the summary from the primary database so that the user who made the change sees it right away,
+ * regardless of replication lag. Other instances, and changes to the domains of the registrar, are
+ * only picked up when the cached summary expires.
+ *
+ * <p>A failed refresh doesn't fail the action, whose change was already committed. The cached
+ * summary is dropped instead, so that the next request loads it again from the replica database.
+ */
+public final class RegistrarSummary {
+
+  private static final FluentLogger logger = FluentLogger.forEnclosingClass();
+
+  private static final String DOMAIN_COUNT_QUERY =
+      "SELECT COUNT(*) FROM Domain WHERE currentSponsorRegistrarId = :registrarId"
+          + " AND deletionTime > :now";
+
+  private static final String DOMAIN_COUNT_BY_STATUS_QUERY =
+      "SELECT s.status, COUNT(*) FROM \"Domain\" d, unnest(d.statuses) AS s(status)"
+          + " WHERE d.current_sponsor_registrar_id = :registrarId AND d.deletion_time > :now"
+          + " GROUP BY s.status";
+
+  private static final LoadingCache<String, Optional<RegistrarSummary>> CACHE =
+      CacheUtils.newCacheBuilder(getConsoleSummaryCachingDuration())
+          .maximumSize(getConsoleSummaryMaxCachedEntries())
+          .build(registrarId -> replicaTm().transact(() -> load(replicaTm(), registrarId)));
+
+  @Expose String registrarId;
+  @Expose String registrarName;
+  @Expose Registrar.Type type;
+  @Expose Registrar.State state;
+  @Expose List<String> allowedTlds;
+  @Expose List<ContactSummary> contacts;
+  @Expose long activeDomainCount;
+
+  /**
+   * The number of active domains with each status, by the name of the status.
+   *
+   * <p>A domain with several statuses is counted once for each of them.
+   */
+  @Expose Map<String, Long> domainCountsByStatus;
+
+  private RegistrarSummary() {}
+
+  /** Returns the summary of a registrar, from the cache if possible. */
+  public static Optional<RegistrarSummary> get(String registrarId) {
+    return CACHE.get(registrarId);
+  }
+
+  /**
+   * Reloads the summary of a registrar from the primary database, and caches it.
+   *
+   * <p>This must be called outside of the transaction that changed the registrar, once it has
+   * committed. If the summary can't be loaded, the failure is logged and the cached summary is
+   * invalidated.
+   */
+  public static void refresh(String registrarId) {
+    try {
+      CACHE.put(registrarId, tm().transact(() -> load(tm(), registrarId)));
+    } catch (RuntimeException e) {
+      logger.atWarning().withCause(e).log(
+          "Failed to refresh the summary of registrar %s; invalidating it instead.", registrarId);
+      CACHE.invalidate(registrarId);
+    }
+  }
+
+  @VisibleForTesting
+  static Optional<RegistrarSummary> load(JpaTransactionManager txm, String registrarId) {
+    Optional<Registrar> maybeRegistrar =
+        txm.loadByKeyIfPresent(Registrar.createVKey(registrarId));
+    if (!maybeRegistrar.isPresent()) {
+      return Optional.empty();
+    }
+    Registrar registrar = maybeRegistrar.get();
+    DateTime now = txm.getTransactionTime();
+    RegistrarSummary summary = new RegistrarSummary();
+    summary.registrarId = registrarId;
+    summary.registrarName = registrar.getRegistrarName();
+    summary.type = registrar.getType();
+    summary.state = registrar.getState();
+    summary.allowedTlds = registrar.getAllowedTlds().asList();
+    summary.contacts =
+        txm
+            .query("FROM RegistrarPoc WHERE registrarId = :registrarId", RegistrarPoc.class)
+            .setParameter("registrarId", registrarId)
+            .getResultStream()
+            .map(ContactSummary::create)
+            .sorted(Comparator.comparing(contact -> contact.emailAddress))
+            .collect(toImmutableList());
+    summary.activeDomainCount =
+        txm.query(DOMAIN_COUNT_QUERY, Long.class)
+            .setParameter("registrarId", registrarId)
+            .setParameter("now", now)
+            .getSingleResult();
+    ImmutableSortedMap.Builder<String, Long> domainCountsByStatus =
+        ImmutableSortedMap.naturalOrder();
+    @SuppressWarnings("unchecked")
+    List<Object[]> rows =
+        txm.getEntityManager()
+            .createNativeQuery(DOMAIN_COUNT_BY_STATUS_QUERY)
+            .setParameter("registrarId", registrarId)
+            .setParameter("now", now.toDate())
+            .getResultList();
+    for (Object[] row : rows) {
+      domainCountsByStatus.put((String) row[0], ((Number) row[1]).longValue());
+    }
+    summary.domainCountsByStatus = domainCountsByStatus.build();
+    return Optional.of(summary);
+  }
+
+  public String getRegistrarId() {
+    return registrarId;
+  }
+
+  public long getActiveDomainCount() {
+    return activeDomainCount;
+  }
+
+  public Map<String, Long> getDomainCountsByStatus() {
+    return domainCountsByStatus;
+  }
+
+  public List<ContactSummary> getContacts() {
+    return contacts;
+  }
+
+  /** The fields of a registrar contact that the console lists. */
+  public static final class ContactSummary {
+
+    @Expose String name;
+    @Expose String emailAddress;
+    @Expose String phoneNumber;
+    @Expose Set<RegistrarPoc.Type> types;
+
+    private ContactSummary() {}
+
+    static ContactSummary create(RegistrarPoc contact) {
+      ContactSummary summary = new ContactSummary();
+      summary.name = contact.getName();
+      summary.emailAddress = contact.getEmailAddress();
+      summary.phoneNumber = contact.getPhoneNumber();
+      summary.types = contact.getTypes();
+      return summary;
+    }
+
+    public String getEmailAddress() {
+      return emailAddress;
+    }
+
+    public Set<RegistrarPoc.Type> getTypes() {
+      return types;
+    }
+  }
+}
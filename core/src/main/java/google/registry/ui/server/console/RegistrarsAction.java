@@ -16,13 +16,13 @@ package google.registry.ui.server.console;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Strings.isNullOrEmpty;
+import static google.registry.persistence.transaction.TransactionManagerFactory.replicaTm;
 import static google.registry.persistence.transaction.TransactionManagerFactory.tm;
 import static google.registry.request.Action.Method.GET;
 import static google.registry.request.Action.Method.POST;
 
 import com.google.api.client.http.HttpStatusCodes;
 import com.google.common.collect.ImmutableList;
-import com.google.common.collect.Streams;
 import com.google.gson.Gson;
 import google.registry.model.console.ConsolePermission;
 import google.registry.model.console.User;
@@ -92,13 +92,18 @@ public class RegistrarsAction implements JsonGetAction {
       response.setStatus(HttpStatusCodes.STATUS_CODE_FORBIDDEN);
       return;
     }
+    // Registrars created through this action are written to the primary database, so the replica
+    // may briefly lag behind, but the console only needs to eventually list them.
     ImmutableList<Registrar> registrars =
-        Streams.stream(Registrar.loadAll())
-            .filter(r -> r.getType() == Registrar.Type.REAL)
-            .collect(ImmutableList.toImmutableList());
-
-    response.setPayload(gson.toJson(registrars));
-    response.setStatus(HttpStatusCodes.STATUS_CODE_OK);
+        replicaTm()
+            .transact(
+                () ->
+                    replicaTm()
+                        .loadAllOfStream(Registrar.class)
+                        .filter(r -> r.getType() == Registrar.Type.REAL)
+                        .collect(ImmutableList.toImmutableList()));
+
+    ETags.setPayloadIfModified(req, response, gson.toJson(registrars));
   }
 
   private void postHandler(User user) {
@@ -169,6 +174,7 @@ public class RegistrarsAction implements JsonGetAction {
                     registrar.getRegistrarId());
                 tm().putAll(registrar, contact);
               });
+      RegistrarSummary.refresh(registrar.getRegistrarId());
 
     } catch (IllegalArgumentException e) {
       response.setStatus(HttpStatusCodes.STATUS_CODE_BAD_REQUEST);
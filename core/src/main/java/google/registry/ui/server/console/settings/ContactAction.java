@@ -35,6 +35,8 @@ import google.registry.request.Response;
 import google.registry.request.auth.Auth;
 import google.registry.request.auth.AuthResult;
 import google.registry.ui.forms.FormException;
+import google.registry.ui.server.console.ETags;
+import google.registry.ui.server.console.RegistrarSummary;
 import google.registry.ui.server.registrar.JsonGetAction;
 import google.registry.ui.server.registrar.RegistrarSettingsAction;
 import java.util.Collections;
@@ -99,8 +101,7 @@ public class ContactAction implements JsonGetAction {
                         .filter(r -> !r.getTypes().isEmpty())
                         .collect(toImmutableList()));
 
-    response.setStatus(HttpStatusCodes.STATUS_CODE_OK);
-    response.setPayload(gson.toJson(am));
+    ETags.setPayloadIfModified(req, response, gson.toJson(am));
   }
 
   private void postHandler(User user) {
@@ -143,6 +144,7 @@ public class ContactAction implements JsonGetAction {
     }
 
     RegistrarPoc.updateContacts(registrar, updatedContacts);
+    RegistrarSummary.refresh(registrarId);
     response.setStatus(HttpStatusCodes.STATUS_CODE_OK);
   }
 }
@@ -32,6 +32,7 @@ import google.registry.request.auth.Auth;
 import google.registry.request.auth.AuthResult;
 import google.registry.request.auth.AuthenticatedRegistrarAccessor;
 import google.registry.request.auth.AuthenticatedRegistrarAccessor.RegistrarAccessDeniedException;
+import google.registry.ui.server.console.RegistrarSummary;
 import google.registry.ui.server.registrar.JsonGetAction;
 import java.util.Optional;
 import javax.inject.Inject;
@@ -93,10 +94,13 @@ public class SecurityAction implements JsonGetAction {
       return;
     }
 
-    tm().transact(() -> setResponse(savedRegistrar));
+    if (tm().transact(() -> setResponse(savedRegistrar))) {
+      RegistrarSummary.refresh(registrarId);
+    }
   }
 
-  private void setResponse(Registrar savedRegistrar) {
+  /** Saves the changes and sets the response, and returns whether the changes were valid. */
+  private boolean setResponse(Registrar savedRegistrar) {
     Registrar registrarParameter = registrar.get();
     Registrar.Builder updatedRegistrar =
         savedRegistrar
@@ -123,7 +127,7 @@ public class SecurityAction implements JsonGetAction {
     if (hasInvalidCerts) {
       response.setStatus(HttpStatusCodes.STATUS_CODE_BAD_REQUEST);
       response.setPayload("Insecure Certificate in parameter");
-      return;
+      return false;
     }
 
     registrarParameter
@@ -141,5 +145,6 @@ public class SecurityAction implements JsonGetAction {
 
     tm().put(updatedRegistrar.build());
     response.setStatus(HttpStatusCodes.STATUS_CODE_OK);
+    return true;
   }
 }
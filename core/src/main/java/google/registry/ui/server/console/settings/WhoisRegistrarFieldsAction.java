@@ -29,6 +29,7 @@ import google.registry.request.auth.Auth;
 import google.registry.request.auth.AuthResult;
 import google.registry.request.auth.AuthenticatedRegistrarAccessor;
 import google.registry.request.auth.AuthenticatedRegistrarAccessor.RegistrarAccessDeniedException;
+import google.registry.ui.server.console.RegistrarSummary;
 import google.registry.ui.server.registrar.JsonGetAction;
 import java.util.Optional;
 import javax.inject.Inject;
@@ -83,10 +84,13 @@ public class WhoisRegistrarFieldsAction implements JsonGetAction {
       return;
     }
 
-    tm().transact(() -> loadAndModifyRegistrar(registrar.get()));
+    if (tm().transact(() -> loadAndModifyRegistrar(registrar.get()))) {
+      RegistrarSummary.refresh(registrar.get().getRegistrarId());
+    }
   }
 
-  private void loadAndModifyRegistrar(Registrar providedRegistrar) {
+  /** Saves the changes and sets the response, and returns whether the changes were allowed. */
+  private boolean loadAndModifyRegistrar(Registrar providedRegistrar) {
     Registrar savedRegistrar;
     try {
       // reload to make sure the object has all the correct fields
@@ -94,7 +98,7 @@ public class WhoisRegistrarFieldsAction implements JsonGetAction {
     } catch (RegistrarAccessDeniedException e) {
       response.setStatus(HttpStatusCodes.STATUS_CODE_FORBIDDEN);
       response.setPayload(e.getMessage());
-      return;
+      return false;
     }
 
     Registrar.Builder newRegistrar = savedRegistrar.asBuilder();
@@ -103,5 +107,6 @@ public class WhoisRegistrarFieldsAction implements JsonGetAction {
     newRegistrar.setLocalizedAddress(providedRegistrar.getLocalizedAddress());
     tm().put(newRegistrar.build());
     response.setStatus(HttpStatusCodes.STATUS_CODE_OK);
+    return true;
   }
 }
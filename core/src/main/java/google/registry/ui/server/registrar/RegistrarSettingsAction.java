@@ -59,6 +59,7 @@ import google.registry.ui.forms.FormException;
 import google.registry.ui.forms.FormFieldException;
 import google.registry.ui.server.RegistrarFormFields;
 import google.registry.ui.server.SendEmailUtils;
+import google.registry.ui.server.console.RegistrarSummary;
 import google.registry.util.CollectionUtils;
 import google.registry.util.DiffUtils;
 import java.util.HashSet;
@@ -230,6 +231,7 @@ public class RegistrarSettingsAction implements Runnable, JsonActionRunner.JsonA
   private RegistrarResult update(final Map<String, ?> args, String registrarId) {
     // Email the updates
     sendExternalUpdatesIfNecessary(tm().transact(() -> saveUpdates(args, registrarId)));
+    RegistrarSummary.refresh(registrarId);
     // Reload the result outside the transaction to get the most recent version
     return RegistrarResult.create("Saved " + registrarId, loadRegistrarUnchecked(registrarId));
   }
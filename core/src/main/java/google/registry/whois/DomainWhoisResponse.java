@@ -20,6 +20,7 @@ import static google.registry.util.CollectionUtils.isNullOrEmpty;
 import static google.registry.xml.UtcDateTimeAdapter.getFormattedString;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.flogger.FluentLogger;
 import google.registry.model.EppResource;
@@ -84,8 +85,12 @@ final class DomainWhoisResponse extends WhoisResponseImpl {
         registrar.getContacts().stream()
             .filter(RegistrarPoc::getVisibleInDomainWhoisAsAbuse)
             .findFirst();
+    // Load all the contacts at once rather than one at a time as they are emitted.
+    ImmutableMap<VKey<? extends EppResource>, EppResource> contacts =
+        EppResource.loadCached(
+            ImmutableList.<VKey<? extends EppResource>>copyOf(domain.getReferencedContacts()));
     return WhoisResponseResults.create(
-        new DomainEmitter()
+        new DomainEmitter(contacts)
             .emitField("Domain Name", maybeFormatHostname(domain.getDomainName(), preferUnicode))
             .emitField("Registry Domain ID", domain.getRepoId())
             .emitField("Registrar WHOIS Server", registrar.getWhoisServer())
@@ -132,6 +137,13 @@ final class DomainWhoisResponse extends WhoisResponseImpl {
 
   /** Output emitter with logic for domains. */
   class DomainEmitter extends Emitter<DomainEmitter> {
+
+    private final ImmutableMap<VKey<? extends EppResource>, EppResource> contacts;
+
+    DomainEmitter(ImmutableMap<VKey<? extends EppResource>, EppResource> contacts) {
+      this.contacts = contacts;
+    }
+
     DomainEmitter emitPhone(
         String contactType, String title, @Nullable ContactPhoneNumber phoneNumber) {
       if (phoneNumber == null) {
@@ -152,7 +164,7 @@ final class DomainWhoisResponse extends WhoisResponseImpl {
       // If we refer to a contact that doesn't exist, that's a bug. It means referential integrity
       // has somehow been broken. We skip the rest of this contact, but log it to hopefully bring it
       // someone's attention.
-      Contact contact1 = EppResource.loadCached(contact.get());
+      Contact contact1 = (Contact) contacts.get(contact.get());
       if (contact1 == null) {
         logger.atSevere().log(
             "(BUG) Broken reference found from domain %s to contact %s.",
@@ -21,6 +21,7 @@ import static javax.servlet.http.HttpServletResponse.SC_OK;
 import com.google.common.flogger.FluentLogger;
 import com.google.common.net.MediaType;
 import google.registry.config.RegistryConfig.Config;
+import google.registry.reporting.icann.IcannActivityCounter;
 import google.registry.request.Action;
 import google.registry.request.Response;
 import google.registry.request.auth.Auth;
@@ -73,6 +74,7 @@ public class WhoisAction implements Runnable {
   @Inject @Config("whoisDisclaimer") String disclaimer;
   @Inject WhoisMetric.Builder metricBuilder;
   @Inject WhoisMetrics whoisMetrics;
+  @Inject IcannActivityCounter icannActivityCounter;
 
   @Inject
   WhoisAction() {}
@@ -114,6 +116,7 @@ public class WhoisAction implements Runnable {
     response.setContentType(CONTENT_TYPE);
     response.setPayload(responseText);
     whoisMetrics.recordWhoisMetric(metricBuilder.build());
+    icannActivityCounter.recordWhois43Query();
   }
 
   private static void setWhoisMetrics(
@@ -31,6 +31,7 @@ import com.google.common.base.Splitter;
 import com.google.common.base.Throwables;
 import com.google.common.flogger.FluentLogger;
 import google.registry.config.RegistryConfig.Config;
+import google.registry.reporting.icann.IcannActivityCounter;
 import google.registry.request.Action;
 import google.registry.request.RequestPath;
 import google.registry.request.Response;
@@ -140,6 +141,7 @@ public final class WhoisHttpAction implements Runnable {
   @Inject @RequestPath String requestPath;
   @Inject WhoisMetric.Builder metricBuilder;
   @Inject WhoisMetrics whoisMetrics;
+  @Inject IcannActivityCounter icannActivityCounter;
 
   @Inject
   WhoisHttpAction() {}
@@ -167,6 +169,7 @@ public final class WhoisHttpAction implements Runnable {
       throw new RuntimeException(e);
     } finally {
       whoisMetrics.recordWhoisMetric(metricBuilder.build());
+      icannActivityCounter.recordWebWhoisQuery();
     }
   }
 
@@ -91,6 +91,25 @@ public class XmlTransformer {
     }
   }
 
+  /**
+   * Create a new XmlTransformer that validates using the given compiled schema, but uses the given
+   * classes (rather than generated ones) for marshaling and unmarshaling.
+   *
+   * <p>Since a {@link Schema} is immutable and thread-safe, this lets transformers for the same
+   * schemas share it instead of each compiling the schemas again.
+   *
+   * @param schema the schema, as returned by {@link #loadXmlSchemas}, used only for validating
+   * @param recognizedClasses the classes that can be used to marshal to and from
+   */
+  public XmlTransformer(Schema schema, Class<?>... recognizedClasses) {
+    try {
+      this.jaxbContext = JAXBContext.newInstance(recognizedClasses);
+      this.schema = schema;
+    } catch (JAXBException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
   /**
    * Create a new XmlTransformer that validates using the given schemas and marshals to and from
    * classes generated off of those schemas.
@@ -24,10 +24,11 @@ import static google.registry.testing.DatabaseHelper.loadByEntity;
 import static google.registry.testing.DatabaseHelper.persistActiveDomain;
 import static google.registry.testing.DatabaseHelper.persistResource;
 import static google.registry.util.DateTimeUtils.END_OF_TIME;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 import com.google.common.collect.ImmutableSet;
 import google.registry.flows.DaggerEppTestComponent;
-import google.registry.flows.EppController;
+import google.registry.flows.EppTestComponent;
 import google.registry.flows.EppTestComponent.FakesAndMocksModule;
 import google.registry.model.billing.BillingBase.Flag;
 import google.registry.model.billing.BillingBase.Reason;
@@ -45,6 +46,7 @@ import google.registry.testing.FakeLockHandler;
 import google.registry.testing.FakeResponse;
 import java.util.Optional;
 import org.joda.time.DateTime;
+import org.joda.time.Duration;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.RegisterExtension;
@@ -58,21 +60,34 @@ class DeleteExpiredDomainsActionTest {
   final JpaIntegrationTestExtension jpa =
       new JpaTestExtensions.Builder().withClock(clock).buildIntegrationTestExtension();
 
+  private static final int MAX_CONCURRENCY = 4;
+
   private final FakeResponse response = new FakeResponse();
+  private EppTestComponent eppTestComponent;
   private DeleteExpiredDomainsAction action;
 
   @BeforeEach
   void beforeEach() {
     createTld("tld");
-    EppController eppController =
+    eppTestComponent =
         DaggerEppTestComponent.builder()
             .fakesAndMocksModule(FakesAndMocksModule.create(clock))
-            .build()
-            .startRequest()
-            .eppController();
-    action =
-        new DeleteExpiredDomainsAction(
-            eppController, "NewRegistrar", clock, new FakeLockHandler(true), response);
+            .build();
+    action = createAction(Optional.empty(), Optional.empty());
+  }
+
+  private DeleteExpiredDomainsAction createAction(
+      Optional<Integer> concurrency, Optional<Integer> timeLimitMinutes) {
+    return new DeleteExpiredDomainsAction(
+        () -> eppTestComponent.startRequest().eppController(),
+        "NewRegistrar",
+        clock,
+        new FakeLockHandler(true),
+        response,
+        new DeleteExpiredDomainsMetrics(),
+        MAX_CONCURRENCY,
+        concurrency,
+        timeLimitMinutes);
   }
 
   @Test
@@ -160,6 +175,60 @@ class DeleteExpiredDomainsActionTest {
     assertThat(loadByEntity(domain3).getStatusValues()).contains(PENDING_DELETE);
   }
 
+  @Test
+  void test_deletesDomainsOnMultipleTldsInParallel() {
+    createTld("other");
+    Domain domain1 = persistNonAutorenewingDomain("ecck1.tld");
+    Domain domain2 = persistNonAutorenewingDomain("veee2.tld");
+    Domain domain3 = persistNonAutorenewingDomain("tarm3.other");
+    Domain domain4 = persistNonAutorenewingDomain("gord4.other");
+
+    clock.setAutoIncrementByOneMilli();
+    createAction(Optional.of(2), Optional.empty()).run();
+    clock.disableAutoIncrement();
+
+    assertThat(loadByEntity(domain1).getStatusValues()).contains(PENDING_DELETE);
+    assertThat(loadByEntity(domain2).getStatusValues()).contains(PENDING_DELETE);
+    assertThat(loadByEntity(domain3).getStatusValues()).contains(PENDING_DELETE);
+    assertThat(loadByEntity(domain4).getStatusValues()).contains(PENDING_DELETE);
+    assertThat(response.getPayload())
+        .isEqualTo("Finished; 4 domains were successfully deleted and 0 errored out.");
+  }
+
+  @Test
+  void testFailure_concurrencyAboveMaximum() {
+    IllegalArgumentException thrown =
+        assertThrows(
+            IllegalArgumentException.class,
+            () -> createAction(Optional.of(MAX_CONCURRENCY + 1), Optional.empty()));
+    assertThat(thrown).hasMessageThat().isEqualTo("Concurrency must be at most 4");
+  }
+
+  @Test
+  void test_timeLimitExceeded_remainingDomainsDeletedByNextRun() {
+    Domain domain1 = persistNonAutorenewingDomain("ecck1.tld");
+    Domain domain2 = persistNonAutorenewingDomain("veee2.tld");
+
+    // Every read of the clock moves it past the time limit, so no deletes are attempted at all.
+    clock.setAutoIncrementStep(Duration.standardHours(1));
+    createAction(Optional.empty(), Optional.of(1)).run();
+    clock.disableAutoIncrement();
+
+    assertThat(loadByEntity(domain1).getStatusValues()).doesNotContain(PENDING_DELETE);
+    assertThat(loadByEntity(domain2).getStatusValues()).doesNotContain(PENDING_DELETE);
+    assertThat(response.getPayload())
+        .isEqualTo(
+            "Finished; 0 domains were successfully deleted and 0 errored out. Time limit of"
+                + " PT60S reached; 2 domains left for the next run.");
+
+    clock.setAutoIncrementByOneMilli();
+    action.run();
+    clock.disableAutoIncrement();
+
+    assertThat(loadByEntity(domain1).getStatusValues()).contains(PENDING_DELETE);
+    assertThat(loadByEntity(domain2).getStatusValues()).contains(PENDING_DELETE);
+  }
+
   private Domain persistNonAutorenewingDomain(String domainName) {
     Domain pendingExpirationDomain = persistActiveDomain(domainName);
     DomainHistory createHistoryEntry =
@@ -61,6 +61,7 @@ public class ExpandBillingRecurrencesActionTest extends BeamActionTestBase {
     action.clock = clock;
     action.isDryRun = false;
     action.advanceCursor = true;
+    action.batchedExpansion = false;
     action.startTimeParam = Optional.empty();
     action.endTimeParam = Optional.empty();
     action.projectId = "projectId";
@@ -73,6 +74,7 @@ public class ExpandBillingRecurrencesActionTest extends BeamActionTestBase {
     expectedParameters.put("endTime", "2020-02-02T00:00:00.000Z");
     expectedParameters.put("isDryRun", "false");
     expectedParameters.put("advanceCursor", "true");
+    expectedParameters.put("batchedExpansion", "false");
     tm().transact(() -> tm().put(Cursor.createGlobal(CursorType.RECURRING_BILLING, cursorTime)));
   }
 
@@ -126,6 +128,17 @@ public class ExpandBillingRecurrencesActionTest extends BeamActionTestBase {
         .containsExactlyEntriesIn(expectedParameters);
   }
 
+  @Test
+  void testSuccess_batchedExpansion() throws Exception {
+    action.batchedExpansion = true;
+    expectedParameters.put("batchedExpansion", "true");
+    action.run();
+    assertThat(response.getStatus()).isEqualTo(200);
+    verify(templates, times(1)).launch(eq("projectId"), eq("jobRegion"), launchRequest.capture());
+    assertThat(launchRequest.getValue().getLaunchParameter().getParameters())
+        .containsExactlyEntriesIn(expectedParameters);
+  }
+
   @Test
   void testSuccess_dryRun() throws Exception {
     action.isDryRun = true;
@@ -28,6 +28,7 @@ import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
 import org.joda.time.DateTime;
+import org.joda.time.Duration;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
@@ -46,6 +47,9 @@ class WipeOutContactHistoryPiiActionTest extends BeamActionTestBase {
           false,
           Optional.empty(),
           8,
+          false,
+          1000,
+          Duration.millis(100),
           "tucketBucket",
           "testProject",
           "testRegion",
@@ -57,6 +61,9 @@ class WipeOutContactHistoryPiiActionTest extends BeamActionTestBase {
     expectedParameters.put("registryEnvironment", "UNITTEST");
     expectedParameters.put("isDryRun", "false");
     expectedParameters.put("cutoffTime", "2018-05-19T01:02:03.000Z");
+    expectedParameters.put("bulkWipeOut", "false");
+    expectedParameters.put("bulkWipeOutChunkSize", "1000");
+    expectedParameters.put("bulkWipeOutChunkIntervalMillis", "100");
   }
 
   @Test
@@ -79,6 +86,9 @@ class WipeOutContactHistoryPiiActionTest extends BeamActionTestBase {
             false,
             Optional.of(now.minusYears(1)),
             8,
+            false,
+            1000,
+            Duration.millis(100),
             "tucketBucket",
             "testProject",
             "testRegion",
@@ -103,6 +113,9 @@ class WipeOutContactHistoryPiiActionTest extends BeamActionTestBase {
             true,
             Optional.empty(),
             8,
+            false,
+            1000,
+            Duration.millis(100),
             "tucketBucket",
             "testProject",
             "testRegion",
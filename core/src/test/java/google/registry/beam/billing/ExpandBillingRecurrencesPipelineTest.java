@@ -279,6 +279,34 @@ public class ExpandBillingRecurrencesPipelineTest {
     assertCursorAt(endTime);
   }
 
+  @Test
+  void testSuccess_expandSingleEvent_batched() {
+    options.setBatchedExpansion(true);
+    runPipeline();
+
+    assertAutoRenewDomainHistories(defaultDomainHistory());
+    assertBillingEventsForResource(
+        domain,
+        defaultOneTime(getOnlyAutoRenewHistory()),
+        billingRecurrence
+            .asBuilder()
+            .setRecurrenceLastExpansion(domain.getCreationTime().plusYears(1))
+            .build());
+    assertCursorAt(endTime);
+  }
+
+  @Test
+  void testSuccess_noExpansion_oneTimeAlreadyExists_batched() {
+    options.setBatchedExpansion(true);
+    DomainHistory history = persistResource(defaultDomainHistory());
+    BillingEvent billingEvent = persistResource(defaultOneTime(history));
+    runPipeline();
+
+    assertAutoRenewDomainHistories(history);
+    assertBillingEventsForResource(domain, billingEvent, billingRecurrence);
+    assertCursorAt(endTime);
+  }
+
   @Test
   void testSuccess_expandSingleEvent_dryRun() {
     options.setIsDryRun(true);
@@ -313,6 +341,17 @@ public class ExpandBillingRecurrencesPipelineTest {
   @ParameterizedTest
   @ValueSource(ints = {1, 2})
   void testSuccess_expandMultipleEvents_multipleDomains(int numOfThreads) {
+    expandMultipleEventsForMultipleDomains(numOfThreads);
+  }
+
+  @ParameterizedTest
+  @ValueSource(ints = {1, 2})
+  void testSuccess_expandMultipleEvents_multipleDomains_batched(int numOfThreads) {
+    options.setBatchedExpansion(true);
+    expandMultipleEventsForMultipleDomains(numOfThreads);
+  }
+
+  private void expandMultipleEventsForMultipleDomains(int numOfThreads) {
     createTld("test");
     persistResource(
         Tld.get("test")
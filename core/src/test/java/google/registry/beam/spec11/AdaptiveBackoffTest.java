@@ -0,0 +1,76 @@
+// Copyright 2023 The Nomulus Authors. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package google.registry.beam.spec11;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import google.registry.testing.FakeClock;
+import google.registry.testing.FakeSleeper;
+import java.util.Optional;
+import org.joda.time.DateTime;
+import org.joda.time.Duration;
+import org.junit.jupiter.api.Test;
+
+/** Unit tests for {@link AdaptiveBackoff}. */
+class AdaptiveBackoffTest {
+
+  private final FakeClock clock = new FakeClock(DateTime.parse("2023-01-01T00:00:00Z"));
+  private final AdaptiveBackoff backoff =
+      new AdaptiveBackoff(
+          new FakeSleeper(clock), Duration.standardSeconds(1), Duration.standardSeconds(8));
+
+  @Test
+  void testAwait_noDelayInitially() throws Exception {
+    DateTime start = clock.nowUtc();
+    assertThat(backoff.await()).isEqualTo(Duration.ZERO);
+    assertThat(clock.nowUtc()).isEqualTo(start);
+  }
+
+  @Test
+  void testOnThrottled_doublesUpToMaximum() throws Exception {
+    backoff.onThrottled(Optional.empty());
+    assertThat(backoff.getDelay()).isEqualTo(Duration.standardSeconds(1));
+    backoff.onThrottled(Optional.empty());
+    backoff.onThrottled(Optional.empty());
+    assertThat(backoff.getDelay()).isEqualTo(Duration.standardSeconds(4));
+    backoff.onThrottled(Optional.empty());
+    backoff.onThrottled(Optional.empty());
+    assertThat(backoff.getDelay()).isEqualTo(Duration.standardSeconds(8));
+    DateTime start = clock.nowUtc();
+    assertThat(backoff.await()).isEqualTo(Duration.standardSeconds(8));
+    assertThat(clock.nowUtc()).isEqualTo(start.plusSeconds(8));
+  }
+
+  @Test
+  void testOnThrottled_honorsRetryAfter() {
+    backoff.onThrottled(Optional.of(Duration.standardSeconds(3)));
+    assertThat(backoff.getDelay()).isEqualTo(Duration.standardSeconds(3));
+    backoff.onThrottled(Optional.of(Duration.standardSeconds(60)));
+    assertThat(backoff.getDelay()).isEqualTo(Duration.standardSeconds(8));
+  }
+
+  @Test
+  void testOnSuccess_halvesDownToZero() {
+    backoff.onThrottled(Optional.empty());
+    backoff.onThrottled(Optional.empty());
+    backoff.onThrottled(Optional.empty());
+    backoff.onSuccess();
+    assertThat(backoff.getDelay()).isEqualTo(Duration.standardSeconds(2));
+    backoff.onSuccess();
+    assertThat(backoff.getDelay()).isEqualTo(Duration.standardSeconds(1));
+    backoff.onSuccess();
+    assertThat(backoff.getDelay()).isEqualTo(Duration.ZERO);
+  }
+}
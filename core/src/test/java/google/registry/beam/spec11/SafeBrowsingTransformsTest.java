@@ -14,7 +14,9 @@
 
 package google.registry.beam.spec11;
 
+import static com.google.common.truth.Truth.assertThat;
 import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
@@ -24,8 +26,10 @@ import com.google.common.base.Suppliers;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.io.CharStreams;
+import com.sun.net.httpserver.HttpServer;
 import google.registry.beam.TestPipelineExtension;
 import google.registry.beam.spec11.SafeBrowsingTransforms.EvaluateSafeBrowsingFn;
+import google.registry.beam.spec11.SafeBrowsingTransforms.LookupFailedException;
 import google.registry.testing.FakeClock;
 import google.registry.testing.FakeSleeper;
 import google.registry.util.Retrier;
@@ -34,7 +38,13 @@ import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
+import java.io.OutputStream;
 import java.io.Serializable;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.beam.sdk.Pipeline.PipelineExecutionException;
 import org.apache.beam.sdk.coders.SerializableCoder;
 import org.apache.beam.sdk.testing.PAssert;
 import org.apache.beam.sdk.transforms.Create;
@@ -161,6 +171,129 @@ class SafeBrowsingTransformsTest {
     pipeline.run().waitUntilFinish();
   }
 
+  @Test
+  void testSuccess_localFakeLookupApi_manyBatchesInFlight() throws Exception {
+    AtomicInteger requests = new AtomicInteger();
+    HttpServer server = startFakeLookupApi(requests, 0);
+    try {
+      ImmutableList.Builder<DomainNameInfo> domainNameInfos = new ImmutableList.Builder<>();
+      for (int i = 0; i < 1200; i++) {
+        domainNameInfos.add(createDomainNameInfo(String.format("clean-%d.example", i)));
+      }
+      domainNameInfos.add(createDomainNameInfo("111.com"), createDomainNameInfo("bitcoin.bank"));
+      PCollection<KV<DomainNameInfo, ThreatMatch>> threats =
+          pipeline
+              .apply(
+                  Create.of(domainNameInfos.build())
+                      .withCoder(SerializableCoder.of(DomainNameInfo.class)))
+              .apply(ParDo.of(createLocalSafeBrowsingFn(server)));
+
+      PAssert.that(threats).containsInAnyOrder(getKv("111.com"), getKv("bitcoin.bank"));
+      pipeline.run().waitUntilFinish();
+      assertThat(requests.get()).isAtLeast(3);
+    } finally {
+      server.stop(0);
+    }
+  }
+
+  @Test
+  void testSuccess_localFakeLookupApi_retriesThrottledRequest() throws Exception {
+    AtomicInteger requests = new AtomicInteger();
+    HttpServer server = startFakeLookupApi(requests, 1);
+    try {
+      PCollection<KV<DomainNameInfo, ThreatMatch>> threats =
+          pipeline
+              .apply(
+                  Create.of(createDomainNameInfo("111.com"))
+                      .withCoder(SerializableCoder.of(DomainNameInfo.class)))
+              .apply(ParDo.of(createLocalSafeBrowsingFn(server)));
+
+      PAssert.that(threats).containsInAnyOrder(getKv("111.com"));
+      pipeline.run().waitUntilFinish();
+      assertThat(requests.get()).isEqualTo(2);
+    } finally {
+      server.stop(0);
+    }
+  }
+
+  @Test
+  void testFailure_localFakeLookupApi_failedRequest() throws Exception {
+    AtomicInteger requests = new AtomicInteger();
+    HttpServer server = startFailingLookupApi(requests, 403);
+    try {
+      pipeline
+          .apply(
+              Create.of(createDomainNameInfo("111.com"))
+                  .withCoder(SerializableCoder.of(DomainNameInfo.class)))
+          .apply(ParDo.of(createLocalSafeBrowsingFn(server)));
+
+      PipelineExecutionException thrown =
+          assertThrows(PipelineExecutionException.class, () -> pipeline.run().waitUntilFinish());
+      assertThat(thrown).hasCauseThat().isInstanceOf(LookupFailedException.class);
+      // A failed request is not retried.
+      assertThat(requests.get()).isEqualTo(1);
+    } finally {
+      server.stop(0);
+    }
+  }
+
+  /**
+   * Starts a local fake of the Lookup API, which throttles the given number of requests before it
+   * starts to answer them.
+   */
+  private static HttpServer startFakeLookupApi(AtomicInteger requests, int throttledRequests)
+      throws IOException {
+    HttpServer server =
+        HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+    server.createContext(
+        "/v4/threatMatches:find",
+        exchange -> {
+          String request =
+              CharStreams.toString(new InputStreamReader(exchange.getRequestBody(), UTF_8));
+          if (requests.incrementAndGet() <= throttledRequests) {
+            exchange.getResponseHeaders().add("Retry-After", "1");
+            exchange.sendResponseHeaders(429, -1);
+            exchange.close();
+            return;
+          }
+          byte[] response = getAPIResponse(getBadUrls(request)).getBytes(UTF_8);
+          exchange.sendResponseHeaders(200, response.length);
+          try (OutputStream responseBody = exchange.getResponseBody()) {
+            responseBody.write(response);
+          }
+        });
+    server.setExecutor(Executors.newCachedThreadPool());
+    server.start();
+    return server;
+  }
+
+  /** Starts a local fake of the Lookup API, which fails all requests with the given status. */
+  static HttpServer startFailingLookupApi(AtomicInteger requests, int statusCode)
+      throws IOException {
+    HttpServer server =
+        HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+    server.createContext(
+        "/v4/threatMatches:find",
+        exchange -> {
+          requests.incrementAndGet();
+          exchange.sendResponseHeaders(statusCode, -1);
+          exchange.close();
+        });
+    server.setExecutor(Executors.newCachedThreadPool());
+    server.start();
+    return server;
+  }
+
+  static EvaluateSafeBrowsingFn createLocalSafeBrowsingFn(HttpServer server) {
+    FakeClock clock = new FakeClock();
+    return new EvaluateSafeBrowsingFn(
+        String.format("http://localhost:%d/v4/threatMatches:find", server.getAddress().getPort()),
+        "API_KEY",
+        2,
+        new Retrier(new FakeSleeper(clock), 2),
+        new FakeSleeper(clock));
+  }
+
   /**
    * A serializable {@link Answer} that returns a mock HTTP response based on the HTTP request's
    * content.
@@ -180,12 +313,7 @@ class SafeBrowsingTransformsTest {
    * (no threat) API examples based on the request data.
    */
   private static CloseableHttpResponse getMockResponse(String request) throws JSONException {
-    // Determine which bad URLs are in the request (if any)
-    ImmutableList<String> badUrls =
-        THREAT_MAP.keySet().stream()
-            .filter(request::contains)
-            .collect(ImmutableList.toImmutableList());
-
+    ImmutableList<String> badUrls = getBadUrls(request);
     CloseableHttpResponse httpResponse =
         mock(CloseableHttpResponse.class, withSettings().serializable());
     when(httpResponse.getStatusLine())
@@ -194,6 +322,13 @@ class SafeBrowsingTransformsTest {
     return httpResponse;
   }
 
+  /** Returns the bad URLs that are in the request, if any. */
+  private static ImmutableList<String> getBadUrls(String request) {
+    return THREAT_MAP.keySet().stream()
+        .filter(request::contains)
+        .collect(ImmutableList.toImmutableList());
+  }
+
   /**
    * Returns the expected API response for a list of bad URLs.
    *
@@ -16,13 +16,17 @@ package google.registry.beam.spec11;
 
 import static com.google.common.collect.ImmutableList.toImmutableList;
 import static com.google.common.truth.Truth.assertThat;
+import static google.registry.beam.spec11.SafeBrowsingTransformsTest.createLocalSafeBrowsingFn;
+import static google.registry.beam.spec11.SafeBrowsingTransformsTest.startFailingLookupApi;
 import static google.registry.model.ImmutableObjectSubject.immutableObjectCorrespondence;
 import static google.registry.persistence.transaction.JpaTransactionManagerExtension.makeRegistrar1;
 import static google.registry.persistence.transaction.TransactionManagerFactory.tm;
 import static google.registry.testing.DatabaseHelper.createTld;
+import static google.registry.testing.DatabaseHelper.loadAllOf;
 import static google.registry.testing.DatabaseHelper.persistActiveContact;
 import static google.registry.testing.DatabaseHelper.persistNewRegistrar;
 import static google.registry.testing.DatabaseHelper.persistResource;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
@@ -34,6 +38,7 @@ import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Streams;
 import com.google.common.truth.Correspondence;
 import com.google.common.truth.Correspondence.BinaryPredicate;
+import com.sun.net.httpserver.HttpServer;
 import google.registry.beam.TestPipelineExtension;
 import google.registry.beam.spec11.SafeBrowsingTransforms.EvaluateSafeBrowsingFn;
 import google.registry.beam.spec11.SafeBrowsingTransformsTest.HttpResponder;
@@ -45,6 +50,7 @@ import google.registry.model.registrar.Registrar;
 import google.registry.model.reporting.Spec11ThreatMatch;
 import google.registry.model.reporting.Spec11ThreatMatch.ThreatType;
 import google.registry.model.reporting.Spec11ThreatMatchDao;
+import google.registry.model.reporting.Spec11Verdict;
 import google.registry.persistence.transaction.JpaTestExtensions;
 import google.registry.persistence.transaction.JpaTestExtensions.JpaIntegrationTestExtension;
 import google.registry.testing.FakeClock;
@@ -54,6 +60,8 @@ import google.registry.util.Retrier;
 import java.io.File;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.beam.sdk.Pipeline.PipelineExecutionException;
 import org.apache.beam.sdk.coders.KvCoder;
 import org.apache.beam.sdk.coders.SerializableCoder;
 import org.apache.beam.sdk.options.PipelineOptionsFactory;
@@ -199,6 +207,81 @@ class Spec11PipelineTest {
     verifySaveToCloudSql();
   }
 
+  @Test
+  void testSuccess_incrementalSqlPipeline() throws Exception {
+    setupCloudSql();
+    persistResource(
+        createVerdict(
+            "111.com", "123456789-COM", new LocalDate(2020, 1, 20), ThreatType.MALWARE));
+    persistResource(createVerdict("party-night.net", "2244AABBC-NET", new LocalDate(2020, 1, 20)));
+    persistResource(createVerdict("bitcoin.bank", "1C3D5E7F9-BANK", new LocalDate(2019, 12, 1)));
+    options.setIncremental(true);
+    options.setVerdictTtlDays(30);
+    options.setRotationDays(0);
+    EvaluateSafeBrowsingFn safeBrowsingFn =
+        new EvaluateSafeBrowsingFn(
+            SAFE_BROWSING_API_KEY,
+            new Retrier(new FakeSleeper(new FakeClock()), 1),
+            Suppliers.ofInstance(mockHttpClient));
+    when(mockHttpClient.execute(any(HttpPost.class))).thenAnswer(new HttpResponder());
+    Spec11Pipeline spec11Pipeline = new Spec11Pipeline(options, safeBrowsingFn);
+    spec11Pipeline.setupPipeline(pipeline);
+    pipeline.run(options).waitUntilFinish();
+
+    // The cached clean verdict of party-night.net is used, so the fake API never flags it.
+    tm().transact(
+            () ->
+                assertThat(Spec11ThreatMatchDao.loadEntriesByDate(tm(), new LocalDate(2020, 1, 27)))
+                    .comparingElementsUsing(immutableObjectCorrespondence("id"))
+                    .containsExactlyElementsIn(
+                        sqlThreatMatches.stream()
+                            .filter(match -> !match.getDomainName().equals("party-night.net"))
+                            .collect(toImmutableList())));
+    assertThat(loadAllOf(Spec11Verdict.class))
+        .containsExactly(
+            createVerdict(
+                "111.com", "123456789-COM", new LocalDate(2020, 1, 20), ThreatType.MALWARE),
+            createVerdict("party-night.net", "2244AABBC-NET", new LocalDate(2020, 1, 20)),
+            createVerdict(
+                "bitcoin.bank",
+                "1C3D5E7F9-BANK",
+                new LocalDate(2020, 1, 27),
+                ThreatType.POTENTIALLY_HARMFUL_APPLICATION),
+            createVerdict(
+                "no-email.com",
+                "2A4BA9BBC-COM",
+                new LocalDate(2020, 1, 27),
+                ThreatType.THREAT_TYPE_UNSPECIFIED),
+            createVerdict(
+                "anti-anti-anti-virus.dev",
+                "555666888-DEV",
+                new LocalDate(2020, 1, 27),
+                ThreatType.UNWANTED_SOFTWARE));
+  }
+
+  @Test
+  void testFailure_incrementalSqlPipeline_failedLookupSavesNoVerdicts() throws Exception {
+    setupCloudSql();
+    persistResource(createVerdict("bitcoin.bank", "1C3D5E7F9-BANK", new LocalDate(2019, 12, 1)));
+    options.setIncremental(true);
+    options.setVerdictTtlDays(30);
+    options.setRotationDays(0);
+    HttpServer server = startFailingLookupApi(new AtomicInteger(), 400);
+    try {
+      Spec11Pipeline spec11Pipeline =
+          new Spec11Pipeline(options, createLocalSafeBrowsingFn(server));
+      spec11Pipeline.setupPipeline(pipeline);
+      assertThrows(PipelineExecutionException.class, () -> pipeline.run(options).waitUntilFinish());
+    } finally {
+      server.stop(0);
+    }
+
+    // The domains whose lookup failed are not cached as clean.
+    assertThat(loadAllOf(Spec11Verdict.class))
+        .containsExactly(
+            createVerdict("bitcoin.bank", "1C3D5E7F9-BANK", new LocalDate(2019, 12, 1)));
+  }
+
   @Test
   void testSuccess_saveToSql() {
     Spec11Pipeline.saveToSql(threatMatches, options);
@@ -304,6 +387,16 @@ class Spec11PipelineTest {
         .build();
   }
 
+  private static Spec11Verdict createVerdict(
+      String domainName, String repoId, LocalDate checkDate, ThreatType... threatTypes) {
+    return new Spec11Verdict.Builder()
+        .setDomainName(domainName)
+        .setDomainRepoId(repoId)
+        .setCheckDate(checkDate)
+        .setThreatTypes(ImmutableSet.copyOf(threatTypes))
+        .build();
+  }
+
   /** Returns the text contents of a file under the beamBucket/results directory. */
   private ImmutableList<String> resultFileContents() throws Exception {
     File resultFile =
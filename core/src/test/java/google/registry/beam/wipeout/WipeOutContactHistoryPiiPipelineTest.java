@@ -179,6 +179,49 @@ public class WipeOutContactHistoryPiiPipelineTest {
         .isEmpty();
   }
 
+  @Test
+  void testSuccess_bulkWipeOut() {
+    options.setBulkWipeOut(true);
+    // Small enough for the histories to span several chunks.
+    options.setBulkWipeOutChunkSize(2);
+    options.setBulkWipeOutChunkIntervalMillis(0);
+    new WipeOutContactHistoryPiiPipeline(options).run(pipeline).waitUntilFinish();
+    ImmutableList<ContactHistory> histories =
+        HistoryEntryDao.loadHistoryObjectsForResource(contact1.createVKey(), ContactHistory.class);
+    assertThat(histories.size()).isEqualTo(2);
+    ImmutableList<ContactHistory> wipedEntries =
+        histories.stream()
+            .filter(e -> e.getContactBase().get().getEmailAddress() == null)
+            .collect(toImmutableList());
+    // Only the history entry at T = 0 is wiped, as in the entity-based wipeout.
+    assertThat(wipedEntries.size()).isEqualTo(1);
+    assertThat(wipedEntries.get(0).getContactBase().get().getFaxNumber()).isNull();
+    assertThat(wipedEntries.get(0).getContactBase().get().getSearchName()).isNull();
+    histories =
+        HistoryEntryDao.loadHistoryObjectsForResource(contact2.createVKey(), ContactHistory.class);
+    wipedEntries =
+        histories.stream()
+            .filter(e -> e.getContactBase().get().getEmailAddress() == null)
+            .collect(toImmutableList());
+    assertThat(wipedEntries.size()).isEqualTo(2);
+    assertThat(wipedEntries.get(0).getContactBase().get().getVoiceNumber()).isNull();
+    assertThat(wipedEntries.get(1).getContactBase().get().getVoiceNumber()).isNull();
+  }
+
+  @Test
+  void testSuccess_bulkWipeOut_dryRun() {
+    options.setIsDryRun(true);
+    options.setBulkWipeOut(true);
+    options.setBulkWipeOutChunkSize(2);
+    options.setBulkWipeOutChunkIntervalMillis(0);
+    new WipeOutContactHistoryPiiPipeline(options).run(pipeline).waitUntilFinish();
+    assertThat(
+            loadAllOf(ContactHistory.class).stream()
+                .filter(e -> e.getContactBase().get().getEmailAddress() == null)
+                .collect(toImmutableList()))
+        .isEmpty();
+  }
+
   private ContactHistory createHistory(Contact contact) {
     return new ContactHistory.Builder()
         .setContact(contact)
@@ -27,6 +27,7 @@ import static google.registry.util.DateTimeUtils.START_OF_TIME;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterables;
+import google.registry.config.RegistryConfig;
 import google.registry.dns.DnsUtils.TargetType;
 import google.registry.model.common.DnsRefreshRequest;
 import google.registry.persistence.transaction.JpaTestExtensions;
@@ -193,6 +194,82 @@ public class DnsUtilsTest {
     assertThat(loadAllOf(DnsRefreshRequest.class).size()).isEqualTo(0);
   }
 
+  @Test
+  void testSuccess_coalesce_mergesIntoPendingRequest() {
+    withCoalescing(
+        () -> {
+          tm().transact(() -> requestDomainDnsRefresh(domainName, Duration.standardMinutes(3)));
+          clock.advanceOneMilli();
+          tm().transact(() -> requestDomainDnsRefresh(domainName));
+          clock.advanceOneMilli();
+          tm().transact(() -> requestDomainDnsRefresh(domainName, Duration.standardMinutes(1)));
+          // A host with the same name is a different target.
+          tm().transact(() -> requestHostDnsRefresh(domainName));
+        });
+    ImmutableList<DnsRefreshRequest> requests = loadAllOf(DnsRefreshRequest.class);
+    assertThat(requests.size()).isEqualTo(2);
+    assertRequest(
+        requests.get(0), TargetType.DOMAIN, domainName, tld, clock.nowUtc().minusMillis(1));
+    assertRequest(requests.get(1), TargetType.HOST, domainName, tld, clock.nowUtc());
+  }
+
+  @Test
+  void testSuccess_coalesce_doesNotMergeIntoProcessedRequest() {
+    withCoalescing(
+        () -> {
+          tm().transact(() -> requestDomainDnsRefresh(domainName));
+          clock.advanceOneMilli();
+          readAndUpdateRequestsWithLatestProcessTime(tld, Duration.standardMinutes(1), 10);
+          tm().transact(() -> requestDomainDnsRefresh(domainName));
+        });
+    ImmutableList<DnsRefreshRequest> requests = loadAllOf(DnsRefreshRequest.class);
+    assertThat(requests.size()).isEqualTo(2);
+    assertRequest(
+        requests.get(0),
+        TargetType.DOMAIN,
+        domainName,
+        tld,
+        clock.nowUtc().minusMillis(1),
+        clock.nowUtc());
+    assertRequest(requests.get(1), TargetType.DOMAIN, domainName, tld, clock.nowUtc());
+  }
+
+  @Test
+  void testSuccess_coalesce_multipleNames() {
+    withCoalescing(
+        () -> {
+          tm().transact(() -> requestDomainDnsRefresh("test1.tld"));
+          clock.advanceOneMilli();
+          tm().transact(
+                  () ->
+                      requestDomainDnsRefresh(
+                          ImmutableList.of("test1.tld", "test2.tld", "test2.tld", "test3.tld")));
+        });
+    ImmutableList<DnsRefreshRequest> requests = loadAllOf(DnsRefreshRequest.class);
+    assertThat(requests.size()).isEqualTo(3);
+    assertRequest(
+        requests.get(0), TargetType.DOMAIN, "test1.tld", tld, clock.nowUtc().minusMillis(1));
+    assertRequest(requests.get(1), TargetType.DOMAIN, "test2.tld", tld, clock.nowUtc());
+    assertRequest(requests.get(2), TargetType.DOMAIN, "test3.tld", tld, clock.nowUtc());
+  }
+
+  @Test
+  void testSuccess_noCoalescing_addsDuplicateRequests() {
+    tm().transact(() -> requestDomainDnsRefresh(domainName));
+    tm().transact(() -> requestDomainDnsRefresh(ImmutableList.of(domainName, domainName)));
+    assertThat(loadAllOf(DnsRefreshRequest.class).size()).isEqualTo(3);
+  }
+
+  private static void withCoalescing(Runnable runnable) {
+    boolean originalCoalesce = RegistryConfig.getCoalesceDnsRefreshRequests();
+    try {
+      RegistryConfig.overrideCoalesceDnsRefreshRequestsForTesting(true);
+      runnable.run();
+    } finally {
+      RegistryConfig.overrideCoalesceDnsRefreshRequestsForTesting(originalCoalesce);
+    }
+  }
+
   private ImmutableList<DnsRefreshRequest> processRequests() {
     createTld("example");
     // Domain Included.
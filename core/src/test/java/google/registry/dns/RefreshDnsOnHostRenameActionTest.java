@@ -14,9 +14,14 @@
 
 package google.registry.dns;
 
+import static com.google.common.collect.ImmutableList.toImmutableList;
 import static com.google.common.truth.Truth.assertThat;
+import static google.registry.dns.RefreshDnsOnHostRenameAction.PARAM_HOST_KEY;
+import static google.registry.dns.RefreshDnsOnHostRenameAction.PARAM_LAST_DOMAIN_REPO_ID;
+import static google.registry.dns.RefreshDnsOnHostRenameAction.QUEUE_HOST_RENAME;
 import static google.registry.testing.DatabaseHelper.assertDomainDnsRequests;
 import static google.registry.testing.DatabaseHelper.assertNoDnsRequests;
+import static google.registry.testing.DatabaseHelper.assertNoDnsRequestsExcept;
 import static google.registry.testing.DatabaseHelper.createTld;
 import static google.registry.testing.DatabaseHelper.newDomain;
 import static google.registry.testing.DatabaseHelper.persistActiveHost;
@@ -26,13 +31,20 @@ import static google.registry.testing.DatabaseHelper.persistResource;
 import static javax.servlet.http.HttpServletResponse.SC_NO_CONTENT;
 import static javax.servlet.http.HttpServletResponse.SC_OK;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
+import google.registry.model.domain.Domain;
 import google.registry.model.eppcommon.StatusValue;
 import google.registry.model.host.Host;
 import google.registry.persistence.transaction.JpaTestExtensions;
 import google.registry.persistence.transaction.JpaTestExtensions.JpaIntegrationTestExtension;
+import google.registry.testing.CloudTasksHelper;
+import google.registry.testing.CloudTasksHelper.TaskMatcher;
 import google.registry.testing.FakeClock;
 import google.registry.testing.FakeResponse;
+import java.util.Comparator;
+import java.util.Optional;
+import java.util.stream.Stream;
 import org.joda.time.DateTime;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -48,10 +60,25 @@ public class RefreshDnsOnHostRenameActionTest {
   final JpaIntegrationTestExtension jpa =
       new JpaTestExtensions.Builder().withClock(clock).buildIntegrationTestExtension();
 
+  private final CloudTasksHelper cloudTasksHelper = new CloudTasksHelper(clock);
   private RefreshDnsOnHostRenameAction action;
 
   private void createAction(String hostKey) {
-    action = new RefreshDnsOnHostRenameAction(hostKey, response);
+    action =
+        new RefreshDnsOnHostRenameAction(
+            hostKey, Optional.empty(), response, cloudTasksHelper.getTestCloudTasksUtils());
+  }
+
+  private void createAction(
+      String hostKey, Optional<String> lastDomainRepoId, int batchSize, int maxBatchesPerTask) {
+    action =
+        new RefreshDnsOnHostRenameAction(
+            hostKey,
+            lastDomainRepoId,
+            response,
+            cloudTasksHelper.getTestCloudTasksUtils(),
+            batchSize,
+            maxBatchesPerTask);
   }
 
   @BeforeEach
@@ -75,6 +102,55 @@ public class RefreshDnsOnHostRenameActionTest {
     action.run();
     assertDomainDnsRequests("example.tld", "otherexample.tld");
     assertThat(response.getStatus()).isEqualTo(SC_OK);
+    cloudTasksHelper.assertNoTasksEnqueued(QUEUE_HOST_RENAME);
+  }
+
+  @Test
+  void testSuccess_inBatches() {
+    Host host = persistActiveHost("ns1.example.tld");
+    persistResource(newDomain("example1.tld", host));
+    persistResource(newDomain("example2.tld", host));
+    persistResource(newDomain("example3.tld", host));
+    createAction(host.createVKey().stringify(), Optional.empty(), 1, 5);
+    action.run();
+    assertDomainDnsRequests("example1.tld", "example2.tld", "example3.tld");
+    cloudTasksHelper.assertNoTasksEnqueued(QUEUE_HOST_RENAME);
+  }
+
+  @Test
+  void testSuccess_continuesInNewTask() {
+    Host host = persistActiveHost("ns1.example.tld");
+    ImmutableList<Domain> domains = persistDomainsInRepoIdOrder(host);
+    createAction(host.createVKey().stringify(), Optional.empty(), 1, 1);
+    action.run();
+    assertDomainDnsRequests(domains.get(0).getDomainName());
+    assertNoDnsRequestsExcept(domains.get(0).getDomainName());
+    cloudTasksHelper.assertTasksEnqueued(
+        QUEUE_HOST_RENAME,
+        new TaskMatcher()
+            .path(RefreshDnsOnHostRenameAction.PATH)
+            .param(PARAM_HOST_KEY, host.createVKey().stringify())
+            .param(PARAM_LAST_DOMAIN_REPO_ID, domains.get(0).getRepoId()));
+  }
+
+  @Test
+  void testSuccess_resumesAfterLastDomain() {
+    Host host = persistActiveHost("ns1.example.tld");
+    ImmutableList<Domain> domains = persistDomainsInRepoIdOrder(host);
+    createAction(host.createVKey().stringify(), Optional.of(domains.get(0).getRepoId()), 1, 5);
+    action.run();
+    assertDomainDnsRequests(domains.get(1).getDomainName());
+    assertNoDnsRequestsExcept(domains.get(1).getDomainName());
+    cloudTasksHelper.assertNoTasksEnqueued(QUEUE_HOST_RENAME);
+  }
+
+  /** Persists two domains on the host and returns them in the order that they are refreshed in. */
+  private static ImmutableList<Domain> persistDomainsInRepoIdOrder(Host host) {
+    return Stream.of(
+            persistResource(newDomain("example1.tld", host)),
+            persistResource(newDomain("example2.tld", host)))
+        .sorted(Comparator.comparing(Domain::getRepoId))
+        .collect(toImmutableList());
   }
 
   @Test
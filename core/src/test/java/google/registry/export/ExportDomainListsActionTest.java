@@ -15,6 +15,7 @@
 package google.registry.export;
 
 import static com.google.common.truth.Truth.assertThat;
+import static google.registry.export.ExportDomainListsAction.CONTENT_HASH_METADATA_KEY;
 import static google.registry.export.ExportDomainListsAction.REGISTERED_DOMAINS_FILENAME;
 import static google.registry.testing.DatabaseHelper.createTld;
 import static google.registry.testing.DatabaseHelper.persistActiveDomain;
@@ -24,13 +25,18 @@ import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 
 import com.google.cloud.storage.BlobId;
+import com.google.cloud.storage.BlobInfo;
 import com.google.cloud.storage.StorageException;
 import com.google.cloud.storage.contrib.nio.testing.LocalStorageHelper;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.hash.Hashing;
+import com.google.common.io.ByteStreams;
 import com.google.common.net.MediaType;
 import google.registry.gcs.GcsUtils;
 import google.registry.model.tld.Tld;
@@ -39,6 +45,8 @@ import google.registry.persistence.transaction.JpaTestExtensions;
 import google.registry.persistence.transaction.JpaTestExtensions.JpaIntegrationTestExtension;
 import google.registry.storage.drive.DriveConnection;
 import google.registry.testing.FakeClock;
+import java.io.ByteArrayInputStream;
+import java.util.zip.GZIPInputStream;
 import org.joda.time.DateTime;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -67,6 +75,7 @@ class ExportDomainListsActionTest {
 
     action = new ExportDomainListsAction();
     action.gcsBucket = "outputbucket";
+    action.pageSize = 10000;
     action.gcsUtils = gcsUtils;
     action.clock = clock;
     action.driveConnection = driveConnection;
@@ -143,4 +152,111 @@ class ExportDomainListsActionTest {
     // tldthree does not have a drive id, so no export to drive is performed.
     verifyNoMoreInteractions(driveConnection);
   }
+
+  @Test
+  void test_pagesThroughDomains() throws Exception {
+    action.pageSize = 2;
+    createTld("tldthree");
+    persistActiveDomain("dasher.tld");
+    persistActiveDomain("prancer.tld");
+    persistActiveDomain("vixen.tld");
+    persistActiveDomain("comet.tldthree");
+    persistActiveDomain("cupid.tldthree");
+    persistActiveDomain("donner.tldthree");
+    persistActiveDomain("blitzen.tldthree");
+    action.run();
+    assertThat(new String(gcsUtils.readBytesFrom(BlobId.of("outputbucket", "tld.txt")), UTF_8))
+        .isEqualTo("dasher.tld\nprancer.tld\nvixen.tld");
+    assertThat(
+            new String(gcsUtils.readBytesFrom(BlobId.of("outputbucket", "tldthree.txt")), UTF_8))
+        .isEqualTo("blitzen.tldthree\ncomet.tldthree\ncupid.tldthree\ndonner.tldthree");
+    verifyExportedToDrive("brouhaha", "dasher.tld\nprancer.tld\nvixen.tld");
+    verifyNoMoreInteractions(driveConnection);
+  }
+
+  @Test
+  void test_storesContentHash() throws Exception {
+    persistActiveDomain("onetwo.tld");
+    persistActiveDomain("rudnitzky.tld");
+    action.run();
+    BlobInfo blobInfo = gcsUtils.getBlobInfo(BlobId.of("outputbucket", "tld.txt"));
+    assertThat(blobInfo.getMetadata())
+        .containsExactly(
+            CONTENT_HASH_METADATA_KEY,
+            Hashing.sha256().hashString("onetwo.tld\nrudnitzky.tld", UTF_8).toString());
+  }
+
+  @Test
+  void test_skipsUploadOfUnchangedList() throws Exception {
+    persistActiveDomain("onetwo.tld");
+    action.run();
+    BlobId file = BlobId.of("outputbucket", "tld.txt");
+    // Overwrite the file with the same hash but different contents, to detect another upload.
+    gcsUtils.createFromBytes(
+        BlobInfo.newBuilder(file)
+            .setMetadata(gcsUtils.getBlobInfo(file).getMetadata())
+            .build(),
+        "stale".getBytes(UTF_8));
+    action.run();
+    assertThat(new String(gcsUtils.readBytesFrom(file), UTF_8)).isEqualTo("stale");
+    // The list is still written once, to a temporary file that is then deleted.
+    assertThat(gcsUtils.listFolderObjects("outputbucket", "")).doesNotContain("tld.txt.tmp");
+    persistActiveDomain("rudnitzky.tld");
+    action.run();
+    assertThat(new String(gcsUtils.readBytesFrom(file), UTF_8))
+        .isEqualTo("onetwo.tld\nrudnitzky.tld");
+    // The Drive file doesn't record a hash, so it's always exported.
+    verify(driveConnection, times(3))
+        .createOrUpdateFile(
+            eq(REGISTERED_DOMAINS_FILENAME),
+            eq(MediaType.PLAIN_TEXT_UTF_8),
+            eq("brouhaha"),
+            bytesExportedToDrive.capture());
+  }
+
+  @Test
+  void test_uploadsWhenHashIsMissing() throws Exception {
+    persistActiveDomain("onetwo.tld");
+    BlobId file = BlobId.of("outputbucket", "tld.txt");
+    gcsUtils.createFromBytes(file, "stale".getBytes(UTF_8));
+    action.run();
+    assertThat(new String(gcsUtils.readBytesFrom(file), UTF_8)).isEqualTo("onetwo.tld");
+  }
+
+  @Test
+  void test_gzipsLists() throws Exception {
+    action.gzipEnabled = true;
+    createTld("tldthree");
+    persistActiveDomain("onetwo.tld");
+    persistActiveDomain("rudnitzky.tld");
+    persistActiveDomain("cupid.tldthree");
+    action.run();
+    BlobId file = BlobId.of("outputbucket", "tld.txt");
+    assertThat(gunzip(gcsUtils.readBytesFrom(file))).isEqualTo("onetwo.tld\nrudnitzky.tld");
+    assertThat(gcsUtils.getBlobInfo(file).getContentEncoding()).isEqualTo("gzip");
+    assertThat(gunzip(gcsUtils.readBytesFrom(BlobId.of("outputbucket", "tldthree.txt"))))
+        .isEqualTo("cupid.tldthree");
+    // Drive gets the uncompressed list.
+    verifyExportedToDrive("brouhaha", "onetwo.tld\nrudnitzky.tld");
+  }
+
+  @Test
+  void test_reuploadsWhenCompressionChanges() throws Exception {
+    persistActiveDomain("onetwo.tld");
+    action.run();
+    action.gzipEnabled = true;
+    action.run();
+    BlobId file = BlobId.of("outputbucket", "tld.txt");
+    assertThat(gunzip(gcsUtils.readBytesFrom(file))).isEqualTo("onetwo.tld");
+    assertThat(gcsUtils.getBlobInfo(file).getMetadata())
+        .isEqualTo(
+            ImmutableMap.of(
+                CONTENT_HASH_METADATA_KEY,
+                Hashing.sha256().hashString("onetwo.tld", UTF_8).toString()));
+  }
+
+  private static String gunzip(byte[] bytes) throws Exception {
+    return new String(
+        ByteStreams.toByteArray(new GZIPInputStream(new ByteArrayInputStream(bytes))), UTF_8);
+  }
 }
@@ -0,0 +1,152 @@
+// Copyright 2023 The Nomulus Authors. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package google.registry.flows;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
+import static com.google.monitoring.metrics.contrib.LongMetricSubject.assertThat;
+import static google.registry.testing.TestDataHelper.loadBytes;
+import static google.registry.util.DateTimeUtils.START_OF_TIME;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.google.common.collect.ImmutableSet;
+import google.registry.model.eppcommon.EppXmlTransformer;
+import google.registry.model.eppoutput.EppOutput;
+import google.registry.model.eppoutput.EppResponse;
+import google.registry.model.host.HostInfoData;
+import google.registry.xml.ValidationMode;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/** Unit tests for {@link EppOutputValidator}. */
+class EppOutputValidatorTest {
+
+  private static final Executor REJECTING_EXECUTOR =
+      command -> {
+        throw new RejectedExecutionException();
+      };
+
+  /** The highest sample rate that doesn't validate all responses, which samples them all. */
+  private static final double SAMPLE_ALMOST_ALL = Math.nextDown(1.0);
+
+  private byte[] validResponse;
+
+  private final byte[] invalidResponse = "<epp><response/></epp>".getBytes(UTF_8);
+
+  /** A response that lacks the result and transaction ID that the schemas require. */
+  private final EppOutput invalidOutput =
+      EppOutput.create(
+          new EppResponse.Builder()
+              .setResData(
+                  HostInfoData.newBuilder()
+                      .setCreationRegistrarId("TheRegistrar")
+                      .setCreationTime(START_OF_TIME)
+                      .setCurrentSponsorRegistrarId("TheRegistrar")
+                      .setHostName("ns1.example.tld")
+                      .setInetAddresses(ImmutableSet.of())
+                      .setRepoId("1-ROID")
+                      .setStatusValues(ImmutableSet.of())
+                      .build())
+              .build());
+
+  @BeforeEach
+  void beforeEach() throws Exception {
+    validResponse = loadBytes(getClass(), "contact_delete_response_sh8013.xml").read();
+    EppOutputValidator.validations.reset();
+  }
+
+  @Test
+  void testIsValidatingAll() {
+    assertThat(new EppOutputValidator(1, directExecutor()).isValidatingAll()).isTrue();
+    assertThat(new EppOutputValidator(0.5, directExecutor()).isValidatingAll()).isFalse();
+    assertThat(new EppOutputValidator(0, directExecutor()).isValidatingAll()).isFalse();
+  }
+
+  @Test
+  void testMaybeValidate_valid() {
+    new EppOutputValidator(1, directExecutor()).maybeValidate(validResponse);
+    assertThat(EppOutputValidator.validations)
+        .hasValueForLabels(1, "VALID")
+        .and()
+        .hasNoOtherValues();
+  }
+
+  @Test
+  void testMaybeValidate_invalid() {
+    new EppOutputValidator(1, directExecutor()).maybeValidate(invalidResponse);
+    assertThat(EppOutputValidator.validations)
+        .hasValueForLabels(1, "INVALID")
+        .and()
+        .hasNoOtherValues();
+  }
+
+  @Test
+  void testMaybeValidate_notSampled() {
+    new EppOutputValidator(0, directExecutor()).maybeValidate(invalidResponse);
+    assertThat(EppOutputValidator.validations).hasNoOtherValues();
+  }
+
+  @Test
+  void testMaybeValidate_dropped() {
+    new EppOutputValidator(1, REJECTING_EXECUTOR).maybeValidate(validResponse);
+    assertThat(EppOutputValidator.validations)
+        .hasValueForLabels(1, "DROPPED")
+        .and()
+        .hasNoOtherValues();
+  }
+
+  @Test
+  void testFailure_invalidSampleRate() {
+    assertThrows(IllegalArgumentException.class, () -> new EppOutputValidator(2, directExecutor()));
+    assertThrows(
+        IllegalArgumentException.class, () -> new EppOutputValidator(-0.5, directExecutor()));
+  }
+
+  @Test
+  void testMarshalWithLenientRetry_validatingAll_retriesWithoutValidation() throws Exception {
+    byte[] marshalled =
+        FlowUtils.marshalWithLenientRetry(
+            invalidOutput, new EppOutputValidator(1, REJECTING_EXECUTOR));
+    assertThat(marshalled)
+        .isEqualTo(EppXmlTransformer.marshal(invalidOutput, ValidationMode.LENIENT));
+    assertThat(EppOutputValidator.validations).hasNoOtherValues();
+  }
+
+  @Test
+  void testMarshalWithLenientRetry_sampled_validatesAfterMarshalling() throws Exception {
+    byte[] marshalled =
+        FlowUtils.marshalWithLenientRetry(
+            invalidOutput, new EppOutputValidator(SAMPLE_ALMOST_ALL, directExecutor()));
+    assertThat(marshalled)
+        .isEqualTo(EppXmlTransformer.marshal(invalidOutput, ValidationMode.LENIENT));
+    assertThat(EppOutputValidator.validations)
+        .hasValueForLabels(1, "INVALID")
+        .and()
+        .hasNoOtherValues();
+  }
+
+  @Test
+  void testMarshalWithLenientRetry_notSampled() throws Exception {
+    byte[] marshalled =
+        FlowUtils.marshalWithLenientRetry(
+            invalidOutput, new EppOutputValidator(0, directExecutor()));
+    assertThat(marshalled)
+        .isEqualTo(EppXmlTransformer.marshal(invalidOutput, ValidationMode.LENIENT));
+    assertThat(EppOutputValidator.validations).hasNoOtherValues();
+  }
+}
@@ -16,6 +16,7 @@ package google.registry.flows;
 
 import static com.google.common.truth.Truth.assertThat;
 import static com.google.common.truth.Truth8.assertThat;
+import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
 import static google.registry.testing.DatabaseHelper.getOnlyHistoryEntryOfType;
 import static google.registry.testing.DatabaseHelper.loadAllOf;
 import static google.registry.testing.DatabaseHelper.stripBillingEventId;
@@ -173,6 +174,8 @@ public class EppTestCase {
     EppRequestHandler handler = new EppRequestHandler();
     FakeResponse response = new FakeResponse();
     handler.response = response;
+    handler.eppMetrics = new EppMetrics();
+    handler.eppOutputValidator = new EppOutputValidator(1, directExecutor());
     FakesAndMocksModule fakesAndMocksModule = FakesAndMocksModule.create(clock);
     eppMetricBuilder = fakesAndMocksModule.getMetricBuilder();
     handler.eppController =
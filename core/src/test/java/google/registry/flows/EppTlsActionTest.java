@@ -15,14 +15,22 @@
 
 package google.registry.flows;
 
+import static com.google.common.net.HttpHeaders.SET_COOKIE;
 import static com.google.common.truth.Truth.assertThat;
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.same;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
+import com.google.common.collect.ImmutableSet;
+import google.registry.testing.FakeClock;
 import google.registry.testing.FakeHttpSession;
+import google.registry.testing.FakeResponse;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import org.joda.time.Duration;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
 
@@ -36,8 +44,9 @@ class EppTlsActionTest {
     EppTlsAction action = new EppTlsAction();
     action.inputXmlBytes = INPUT_XML_BYTES;
     action.tlsCredentials = mock(TlsCredentials.class);
-    action.session = new FakeHttpSession();
-    action.session.setAttribute("REGISTRAR_ID", "ClientIdentifier");
+    FakeHttpSession session = new FakeHttpSession();
+    session.setAttribute("REGISTRAR_ID", "ClientIdentifier");
+    action.session = () -> session;
     action.eppRequestHandler = mock(EppRequestHandler.class);
     action.run();
     ArgumentCaptor<SessionMetadata> captor = ArgumentCaptor.forClass(SessionMetadata.class);
@@ -50,4 +59,45 @@ class EppTlsActionTest {
         eq(INPUT_XML_BYTES));
     assertThat(captor.getValue().getRegistrarId()).isEqualTo("ClientIdentifier");
   }
+
+  @Test
+  void testSessionTokens_usesSignedSession() {
+    SessionTokenSigner signer =
+        new SessionTokenSigner(
+            () -> "key:" + SessionTokenSignerTest.KEY, new FakeClock(), Duration.standardHours(1));
+    EppTlsAction action = new EppTlsAction();
+    action.inputXmlBytes = INPUT_XML_BYTES;
+    action.tlsCredentials = mock(TlsCredentials.class);
+    action.session =
+        () -> {
+          throw new AssertionError("HttpSession shouldn't be used");
+        };
+    action.request = mock(HttpServletRequest.class);
+    when(action.request.getCookies())
+        .thenReturn(
+            new Cookie[] {
+              new Cookie(
+                  SignedSessionMetadata.COOKIE_NAME,
+                  signer.sign("ClientIdentifier", ImmutableSet.of(), 0))
+            });
+    FakeResponse response = new FakeResponse();
+    action.response = response;
+    action.sessionTokenSigner = () -> signer;
+    action.sessionTokensEnabled = true;
+    action.eppRequestHandler = mock(EppRequestHandler.class);
+    action.run();
+    ArgumentCaptor<SessionMetadata> captor = ArgumentCaptor.forClass(SessionMetadata.class);
+    verify(action.eppRequestHandler)
+        .executeEpp(
+            captor.capture(),
+            same(action.tlsCredentials),
+            eq(EppRequestSource.TLS),
+            eq(false),
+            eq(false),
+            eq(INPUT_XML_BYTES));
+    assertThat(captor.getValue()).isInstanceOf(SignedSessionMetadata.class);
+    assertThat(captor.getValue().getRegistrarId()).isEqualTo("ClientIdentifier");
+    // A fresh token doesn't need to be sent again.
+    assertThat(response.getHeaders()).doesNotContainKey(SET_COOKIE);
+  }
 }
@@ -17,6 +17,7 @@ package google.registry.flows;
 import static com.google.common.truth.Truth.assertThat;
 import static com.google.common.truth.Truth.assertWithMessage;
 import static com.google.common.truth.Truth8.assertThat;
+import static google.registry.persistence.transaction.TransactionManagerFactory.replicaTm;
 import static google.registry.persistence.transaction.TransactionManagerFactory.tm;
 import static google.registry.testing.TestDataHelper.loadFile;
 import static google.registry.testing.TestLogHandlerUtils.findFirstLogMessageByPrefix;
@@ -25,6 +26,7 @@ import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 import com.google.common.base.Joiner;
 import com.google.common.base.Splitter;
@@ -40,11 +42,14 @@ import google.registry.monitoring.whitebox.EppMetric;
 import google.registry.persistence.PersistenceModule.TransactionIsolationLevel;
 import google.registry.persistence.transaction.JpaTestExtensions;
 import google.registry.persistence.transaction.JpaTestExtensions.JpaIntegrationTestExtension;
+import google.registry.persistence.transaction.JpaTransactionManager;
+import google.registry.persistence.transaction.ReplicaLagMonitor;
 import google.registry.testing.FakeClock;
 import google.registry.testing.FakeHttpSession;
 import google.registry.util.JdkLoggerConfig;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
 import org.joda.time.DateTime;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -95,6 +100,20 @@ class FlowRunnerTest {
     }
   }
 
+  static class TestReplicaReadFlow implements ReplicaReadFlow {
+    @Override
+    public ResponseOrGreeting run() {
+      return mock(EppResponse.class);
+    }
+  }
+
+  static class TestMutatingFlow implements MutatingFlow {
+    @Override
+    public ResponseOrGreeting run() {
+      return mock(EppResponse.class);
+    }
+  }
+
   @BeforeEach
   void beforeEach() {
     JdkLoggerConfig.getConfig(FlowRunner.class).addHandler(handler);
@@ -112,6 +131,8 @@ class FlowRunnerTest {
         new StatelessRequestSessionMetadata("TheRegistrar", ImmutableSet.of());
     flowRunner.trid = Trid.create("client-123", "server-456");
     flowRunner.flowReporter = mock(FlowReporter.class);
+    flowRunner.replicaLagMonitor = mock(ReplicaLagMonitor.class);
+    when(flowRunner.replicaLagMonitor.isReplicaFresh()).thenReturn(true);
   }
 
   @Test
@@ -142,10 +163,63 @@ class FlowRunnerTest {
     }
   }
 
+  @Test
+  void testRun_replicaReadsEnabled_replicaReadCommandRunsOnReplica() throws Exception {
+    AtomicReference<JpaTransactionManager> flowTm = new AtomicReference<>();
+    flowRunner.isTransactional = true;
+    flowRunner.replicaReadsEnabled = true;
+    flowRunner.flowClass = TestReplicaReadFlow.class;
+    flowRunner.flowProvider = () -> recordingTm(flowTm);
+    flowRunner.run(eppMetricBuilder);
+    assertThat(flowTm.get()).isSameInstanceAs(replicaTm());
+    assertThat(tm()).isNotSameInstanceAs(replicaTm());
+  }
+
+  @Test
+  void testRun_replicaReadsEnabled_otherReadOnlyCommandRunsOnPrimary() throws Exception {
+    AtomicReference<JpaTransactionManager> flowTm = new AtomicReference<>();
+    flowRunner.isTransactional = true;
+    flowRunner.replicaReadsEnabled = true;
+    flowRunner.flowClass = TestTransactionalFlow.class;
+    flowRunner.flowProvider = () -> recordingTm(flowTm);
+    flowRunner.run(eppMetricBuilder);
+    assertThat(flowTm.get()).isSameInstanceAs(tm());
+  }
+
+  @Test
+  void testRun_replicaReadsEnabled_mutatingCommandRunsOnPrimary() throws Exception {
+    AtomicReference<JpaTransactionManager> flowTm = new AtomicReference<>();
+    flowRunner.isTransactional = true;
+    flowRunner.replicaReadsEnabled = true;
+    flowRunner.flowClass = TestMutatingFlow.class;
+    flowRunner.flowProvider = () -> recordingTm(flowTm);
+    flowRunner.run(eppMetricBuilder);
+    assertThat(flowTm.get()).isSameInstanceAs(tm());
+  }
+
+  @Test
+  void testRun_replicaReadsDisabled_replicaReadCommandRunsOnPrimary() throws Exception {
+    AtomicReference<JpaTransactionManager> flowTm = new AtomicReference<>();
+    flowRunner.isTransactional = true;
+    flowRunner.flowClass = TestReplicaReadFlow.class;
+    flowRunner.flowProvider = () -> recordingTm(flowTm);
+    flowRunner.run(eppMetricBuilder);
+    assertThat(flowTm.get()).isSameInstanceAs(tm());
+  }
+
+  /** Returns a flow that records the transaction manager it runs with. */
+  private static Flow recordingTm(AtomicReference<JpaTransactionManager> flowTm) {
+    return () -> {
+      flowTm.set(tm());
+      return mock(EppResponse.class);
+    };
+  }
+
   @Test
   void testRun_callsFlowReporterOnce() throws Exception {
     flowRunner.run(eppMetricBuilder);
     verify(flowRunner.flowReporter).recordToLogs();
+    verify(flowRunner.flowReporter).recordToActivityCounter();
   }
 
   @Test
@@ -153,6 +227,7 @@ class FlowRunnerTest {
     flowRunner.isDryRun = true;
     flowRunner.run(eppMetricBuilder);
     verify(flowRunner.flowReporter, never()).recordToLogs();
+    verify(flowRunner.flowReporter, never()).recordToActivityCounter();
   }
 
   @Test
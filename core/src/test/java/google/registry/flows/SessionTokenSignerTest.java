@@ -0,0 +1,120 @@
+// Copyright 2023 The Nomulus Authors. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package google.registry.flows;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.common.truth.Truth8.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.google.common.collect.ImmutableSet;
+import google.registry.flows.SessionTokenSigner.SessionToken;
+import google.registry.testing.FakeClock;
+import org.joda.time.DateTime;
+import org.joda.time.Duration;
+import org.junit.jupiter.api.Test;
+
+/** Unit tests for {@link SessionTokenSigner}. */
+class SessionTokenSignerTest {
+
+  static final String KEY = "MDEyMzQ1Njc4OWFiY2RlZjAxMjM0NTY3ODlhYmNkZWY=";
+  private static final String OTHER_KEY = "ZmVkY2JhOTg3NjU0MzIxMGZlZGNiYTk4NzY1NDMyMTA=";
+
+  private final FakeClock clock = new FakeClock(DateTime.parse("2023-06-01T00:00:00Z"));
+  private String keys = "current:" + KEY;
+  private final SessionTokenSigner signer =
+      new SessionTokenSigner(() -> keys, clock, Duration.standardHours(1));
+
+  @Test
+  void testSignAndVerify() {
+    String token =
+        signer.sign(
+            "TheRegistrar", ImmutableSet.of("urn:ietf:params:xml:ns:fee-0.12", "urn:foo"), 2);
+    SessionToken session = signer.verify(token).get();
+    assertThat(session.registrarId()).isEqualTo("TheRegistrar");
+    assertThat(session.serviceExtensionUris())
+        .containsExactly("urn:ietf:params:xml:ns:fee-0.12", "urn:foo");
+    assertThat(session.failedLoginAttempts()).isEqualTo(2);
+    assertThat(session.expirationTime()).isEqualTo(DateTime.parse("2023-06-01T01:00:00Z"));
+    assertThat(signer.needsRefresh(session)).isFalse();
+  }
+
+  @Test
+  void testSignAndVerify_noRegistrar() {
+    SessionToken session = signer.verify(signer.sign(null, ImmutableSet.of(), 1)).get();
+    assertThat(session.registrarId()).isNull();
+    assertThat(session.serviceExtensionUris()).isEmpty();
+    assertThat(session.failedLoginAttempts()).isEqualTo(1);
+  }
+
+  @Test
+  void testSign_usesOnlyCookieSafeCharacters() {
+    assertThat(signer.sign("TheRegistrar", ImmutableSet.of("urn:foo"), 0))
+        .matches("[A-Za-z0-9_.-]+");
+  }
+
+  @Test
+  void testVerify_expired() {
+    String token = signer.sign("TheRegistrar", ImmutableSet.of(), 0);
+    clock.advanceBy(Duration.standardMinutes(40));
+    assertThat(signer.needsRefresh(signer.verify(token).get())).isTrue();
+    clock.advanceBy(Duration.standardMinutes(20));
+    assertThat(signer.verify(token)).isEmpty();
+  }
+
+  @Test
+  void testVerify_tamperedPayload() {
+    String token = signer.sign("TheRegistrar", ImmutableSet.of(), 0);
+    String otherPayload = signer.sign("NewRegistrar", ImmutableSet.of(), 0).split("\\.")[1];
+    String[] parts = token.split("\\.");
+    assertThat(signer.verify(parts[0] + "." + otherPayload + "." + parts[2])).isEmpty();
+  }
+
+  @Test
+  void testVerify_malformed() {
+    assertThat(signer.verify("")).isEmpty();
+    assertThat(signer.verify("current.abc")).isEmpty();
+    assertThat(signer.verify("current.!!!.???")).isEmpty();
+    assertThat(signer.verify("unknown.abc.def")).isEmpty();
+  }
+
+  @Test
+  void testKeyRotation() {
+    String oldToken = signer.sign("TheRegistrar", ImmutableSet.of(), 0);
+    // The new key is added, and then made the current one.
+    keys = "current:" + KEY + ",next:" + OTHER_KEY;
+    assertThat(signer.needsRefresh(signer.verify(oldToken).get())).isFalse();
+    keys = "next:" + OTHER_KEY + ",current:" + KEY;
+    SessionToken oldSession = signer.verify(oldToken).get();
+    assertThat(oldSession.registrarId()).isEqualTo("TheRegistrar");
+    assertThat(signer.needsRefresh(oldSession)).isTrue();
+    String newToken = signer.sign("TheRegistrar", ImmutableSet.of(), 0);
+    assertThat(newToken).startsWith("next.");
+    assertThat(signer.needsRefresh(signer.verify(newToken).get())).isFalse();
+    // Once the old key is removed, its tokens are no longer accepted.
+    keys = "next:" + OTHER_KEY;
+    assertThat(signer.verify(oldToken)).isEmpty();
+    assertThat(signer.verify(newToken)).isPresent();
+  }
+
+  @Test
+  void testFailure_invalidKeys() {
+    keys = "";
+    assertThrows(IllegalArgumentException.class, () -> signer.sign(null, ImmutableSet.of(), 1));
+    keys = "short:c2hvcnQ=";
+    assertThrows(IllegalArgumentException.class, () -> signer.sign(null, ImmutableSet.of(), 1));
+    keys = "bad.id:" + KEY;
+    assertThrows(IllegalArgumentException.class, () -> signer.sign(null, ImmutableSet.of(), 1));
+  }
+}
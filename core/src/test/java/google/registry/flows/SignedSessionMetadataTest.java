@@ -0,0 +1,123 @@
+// Copyright 2023 The Nomulus Authors. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package google.registry.flows;
+
+import static com.google.common.net.HttpHeaders.SET_COOKIE;
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.google.common.collect.ImmutableSet;
+import google.registry.testing.FakeClock;
+import google.registry.testing.FakeResponse;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import org.joda.time.DateTime;
+import org.joda.time.Duration;
+import org.junit.jupiter.api.Test;
+
+/** Unit tests for {@link SignedSessionMetadata}. */
+class SignedSessionMetadataTest {
+
+  private final FakeClock clock = new FakeClock(DateTime.parse("2023-06-01T00:00:00Z"));
+  private final SessionTokenSigner signer =
+      new SessionTokenSigner(
+          () -> "key:" + SessionTokenSignerTest.KEY, clock, Duration.standardHours(1));
+  private final HttpServletRequest request = mock(HttpServletRequest.class);
+  private final FakeResponse response = new FakeResponse();
+
+  private SignedSessionMetadata load(String... cookieValues) {
+    Cookie[] cookies = new Cookie[cookieValues.length];
+    for (int i = 0; i < cookieValues.length; i++) {
+      cookies[i] = new Cookie(SignedSessionMetadata.COOKIE_NAME, cookieValues[i]);
+    }
+    when(request.getCookies()).thenReturn(cookieValues.length == 0 ? null : cookies);
+    return SignedSessionMetadata.load(request, signer, response);
+  }
+
+  private String getSetCookie() {
+    return (String) response.getHeaders().get(SET_COOKIE);
+  }
+
+  private String getToken() {
+    String setCookie = getSetCookie();
+    return setCookie.substring(
+        SignedSessionMetadata.COOKIE_NAME.length() + 1, setCookie.indexOf(';'));
+  }
+
+  @Test
+  void testNewSession() {
+    SignedSessionMetadata session = load();
+    assertThat(session.getRegistrarId()).isNull();
+    assertThat(session.getServiceExtensionUris()).isEmpty();
+    assertThat(session.getFailedLoginAttempts()).isEqualTo(0);
+    assertThat(response.getHeaders()).doesNotContainKey(SET_COOKIE);
+  }
+
+  @Test
+  void testLogin_setsCookie() {
+    SignedSessionMetadata session = load();
+    session.setServiceExtensionUris(ImmutableSet.of("urn:foo"));
+    session.setRegistrarId("TheRegistrar");
+    assertThat(getSetCookie()).endsWith("; Path=/; Secure; HttpOnly");
+
+    SignedSessionMetadata nextSession = load(getToken());
+    assertThat(nextSession.getRegistrarId()).isEqualTo("TheRegistrar");
+    assertThat(nextSession.getServiceExtensionUris()).containsExactly("urn:foo");
+  }
+
+  @Test
+  void testFailedLoginAttempts_carriedAcrossRequests() {
+    load().incrementFailedLoginAttempts();
+    SignedSessionMetadata session = load(getToken());
+    assertThat(session.getFailedLoginAttempts()).isEqualTo(1);
+    session.incrementFailedLoginAttempts();
+    assertThat(load(getToken()).getFailedLoginAttempts()).isEqualTo(2);
+  }
+
+  @Test
+  void testInvalidate_clearsCookie() {
+    SignedSessionMetadata session = load(signer.sign("TheRegistrar", ImmutableSet.of(), 0));
+    session.invalidate();
+    assertThat(session.getRegistrarId()).isNull();
+    assertThat(getSetCookie())
+        .isEqualTo("EPP_SESSION_TOKEN=; Path=/; Max-Age=0; Secure; HttpOnly");
+  }
+
+  @Test
+  void testInvalidToken_startsNewSessionAndClearsCookie() {
+    SignedSessionMetadata session = load("not.a.token");
+    assertThat(session.getRegistrarId()).isNull();
+    assertThat(getSetCookie()).contains("Max-Age=0");
+  }
+
+  @Test
+  void testClearedCookie_isIgnored() {
+    SignedSessionMetadata session = load("");
+    assertThat(session.getRegistrarId()).isNull();
+    assertThat(response.getHeaders()).doesNotContainKey(SET_COOKIE);
+  }
+
+  @Test
+  void testOldToken_isRefreshed() {
+    String token = signer.sign("TheRegistrar", ImmutableSet.of(), 0);
+    clock.advanceBy(Duration.standardMinutes(45));
+    SignedSessionMetadata session = load(token);
+    assertThat(session.getRegistrarId()).isEqualTo("TheRegistrar");
+    assertThat(getToken()).isNotEqualTo(token);
+    clock.advanceBy(Duration.standardMinutes(45));
+    assertThat(load(getToken()).getRegistrarId()).isEqualTo("TheRegistrar");
+  }
+}
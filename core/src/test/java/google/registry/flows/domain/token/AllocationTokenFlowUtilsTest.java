@@ -31,6 +31,7 @@ import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
+import com.github.benmanes.caffeine.cache.Ticker;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
@@ -54,6 +55,8 @@ import google.registry.model.tld.Tld;
 import google.registry.persistence.transaction.JpaTestExtensions;
 import google.registry.persistence.transaction.JpaTestExtensions.JpaIntegrationTestExtension;
 import google.registry.testing.DatabaseHelper;
+import google.registry.testing.FakeClock;
+import java.time.Duration;
 import java.util.Optional;
 import org.joda.time.DateTime;
 import org.junit.jupiter.api.BeforeEach;
@@ -426,6 +429,115 @@ class AllocationTokenFlowUtilsTest {
         .inOrder();
   }
 
+  @Test
+  void test_validateTokenForDomains_returnsErrorsForInvalidDomainsOnly() {
+    AllocationToken token =
+        persistResource(
+            new AllocationToken.Builder()
+                .setToken("tokeN")
+                .setTokenType(UNLIMITED_USE)
+                .setAllowedTlds(ImmutableSet.of("tld"))
+                .build());
+    ImmutableMap<InternetDomainName, EppException> errors =
+        AllocationTokenFlowUtils.validateTokenForDomains(
+            ImmutableList.of(
+                InternetDomainName.from("blah.tld"), InternetDomainName.from("blah.other")),
+            token,
+            CommandName.CREATE,
+            "TheRegistrar",
+            DateTime.now(UTC));
+    assertThat(errors.keySet()).containsExactly(InternetDomainName.from("blah.other"));
+    assertThat(errors.get(InternetDomainName.from("blah.other")))
+        .isInstanceOf(AllocationTokenNotValidForTldException.class);
+  }
+
+  @Test
+  void test_validateTokenForDomains_nameIndependentErrorAppliesToAllDomains() {
+    AllocationToken token =
+        persistResource(
+            new AllocationToken.Builder()
+                .setToken("tokeN")
+                .setTokenType(UNLIMITED_USE)
+                .setAllowedRegistrarIds(ImmutableSet.of("NewRegistrar"))
+                .build());
+    ImmutableMap<InternetDomainName, EppException> errors =
+        AllocationTokenFlowUtils.validateTokenForDomains(
+            ImmutableList.of(
+                InternetDomainName.from("blah.tld"), InternetDomainName.from("blah2.tld")),
+            token,
+            CommandName.CREATE,
+            "TheRegistrar",
+            DateTime.now(UTC));
+    assertThat(errors.keySet())
+        .containsExactly(InternetDomainName.from("blah.tld"), InternetDomainName.from("blah2.tld"));
+    for (EppException error : errors.values()) {
+      assertThat(error).isInstanceOf(AllocationTokenNotValidForRegistrarException.class);
+    }
+  }
+
+  @Test
+  void test_checkDomainsWithToken_reusableTokenCanBeCheckedRepeatedly() {
+    persistResource(
+        new AllocationToken.Builder()
+            .setToken("tokeN")
+            .setTokenType(UNLIMITED_USE)
+            .setAllowedTlds(ImmutableSet.of("tld"))
+            .build());
+    for (int i = 0; i < 2; i++) {
+      assertThat(
+              flowUtils
+                  .checkDomainsWithToken(
+                      ImmutableList.of(
+                          InternetDomainName.from("blah.tld"),
+                          InternetDomainName.from("blah.other")),
+                      "tokeN",
+                      "TheRegistrar",
+                      DateTime.now(UTC))
+                  .domainCheckResults())
+          .containsExactly(
+              InternetDomainName.from("blah.tld"),
+              "",
+              InternetDomainName.from("blah.other"),
+              "Alloc token invalid for TLD");
+    }
+  }
+
+  @Test
+  void test_checkDomainsWithToken_reusableTokenIsCachedBriefly() {
+    FakeClock clock = new FakeClock();
+    AllocationToken.setCacheForTest(
+        Optional.of(Duration.ofMinutes(10)), () -> clock.nowUtc().getMillis() * 1_000_000);
+    try {
+      AllocationToken token =
+          persistResource(
+              new AllocationToken.Builder()
+                  .setToken("tokeN")
+                  .setTokenType(UNLIMITED_USE)
+                  .setAllowedTlds(ImmutableSet.of("tld"))
+                  .build());
+      assertThat(checkWithToken("blah.tld")).isEqualTo("");
+      // The token is loaded only once, so a check doesn't see that it changed.
+      persistResource(token.asBuilder().setAllowedTlds(ImmutableSet.of("example")).build());
+      assertThat(checkWithToken("blah.tld")).isEqualTo("");
+      // The token is loaded again soon, long before its cache entry expires.
+      clock.setTo(clock.nowUtc().plusMinutes(2));
+      assertThat(checkWithToken("blah.tld")).isEqualTo("Alloc token invalid for TLD");
+    } finally {
+      AllocationToken.setCacheForTest(Optional.empty(), Ticker.systemTicker());
+    }
+  }
+
+  private String checkWithToken(String domainName) {
+    return flowUtils
+        .checkDomainsWithToken(
+            ImmutableList.of(InternetDomainName.from(domainName)),
+            "tokeN",
+            "TheRegistrar",
+            DateTime.now(UTC))
+        .domainCheckResults()
+        .get(InternetDomainName.from(domainName));
+  }
+
   private void assertValidateCreateThrowsEppException(Class<? extends EppException> clazz) {
     assertAboutEppExceptions()
         .that(
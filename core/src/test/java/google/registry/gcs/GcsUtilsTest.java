@@ -68,6 +68,23 @@ class GcsUtilsTest {
     assertThat(gcsUtils.getBlobInfo(blobId).getMetadata()).containsExactlyEntriesIn(metadata);
   }
 
+  @Test
+  void testCopy() throws Exception {
+    gcsUtils.createFromBytes(BlobInfo.newBuilder(blobId).setMetadata(metadata).build(), bytes);
+    BlobId target = BlobId.of(bucket, "my-copy");
+    gcsUtils.copy(
+        blobId,
+        BlobInfo.newBuilder(target)
+            .setContentType(MediaType.PLAIN_TEXT_UTF_8.toString())
+            .setMetadata(ImmutableMap.of("key3", "val3"))
+            .build());
+    assertThat(gcsUtils.readBytesFrom(target)).isEqualTo(bytes);
+    assertThat(gcsUtils.getBlobInfo(target).getContentType())
+        .isEqualTo(MediaType.PLAIN_TEXT_UTF_8.toString());
+    assertThat(gcsUtils.getBlobInfo(target).getMetadata()).containsExactly("key3", "val3");
+    assertThat(gcsUtils.readBytesFrom(blobId)).isEqualTo(bytes);
+  }
+
   @Test
   void testCreateListReadDelete() throws Exception {
     gcsUtils.createFromBytes(BlobInfo.newBuilder(blobId).setMetadata(metadata).build(), bytes);
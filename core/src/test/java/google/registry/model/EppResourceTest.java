@@ -62,4 +62,27 @@ public class EppResourceTest extends EntityTestCase {
     assertThat(loadByForeignKey(Host.class, "ns1.example.com", fakeClock.nowUtc()))
         .hasValue(modifiedHost);
   }
+
+  @Test
+  void test_loadCached_mixedKinds() {
+    Contact contact = persistActiveContact("contact123");
+    Host host = persistActiveHost("ns1.example.com");
+    assertThat(EppResource.loadCached(ImmutableList.of(contact.createVKey(), host.createVKey())))
+        .containsExactly(contact.createVKey(), contact, host.createVKey(), host);
+  }
+
+  @Test
+  void test_loadCached_warmsForeignKeyCache() {
+    Host originalHost = persistActiveHost("ns1.example.com");
+    EppResource.loadCached(ImmutableList.of(originalHost.createVKey()));
+    persistResource(originalHost.asBuilder().setDeletionTime(fakeClock.nowUtc()).build());
+    Host newHost = persistActiveHost("ns1.example.com");
+    // The foreign key still points to the original host, as it was cached when that was loaded.
+    assertThat(
+            ForeignKeyUtils.loadCached(
+                Host.class, ImmutableList.of("ns1.example.com"), fakeClock.nowUtc()))
+        .containsExactly("ns1.example.com", originalHost.createVKey());
+    assertThat(ForeignKeyUtils.load(Host.class, "ns1.example.com", fakeClock.nowUtc()))
+        .isEqualTo(newHost.createVKey());
+  }
 }
@@ -14,18 +14,31 @@
 
 package google.registry.model;
 
+import static com.google.common.collect.ImmutableList.toImmutableList;
 import static com.google.common.truth.Truth.assertThat;
 import static google.registry.model.EppResourceUtils.loadAtPointInTime;
+import static google.registry.model.EppResourceUtils.loadByKeysIfPresent;
+import static google.registry.persistence.transaction.TransactionManagerFactory.tm;
 import static google.registry.testing.DatabaseHelper.createTld;
+import static google.registry.testing.DatabaseHelper.newDomain;
 import static google.registry.testing.DatabaseHelper.newHost;
+import static google.registry.testing.DatabaseHelper.persistActiveHost;
 import static google.registry.testing.DatabaseHelper.persistResource;
 import static google.registry.util.DateTimeUtils.START_OF_TIME;
 import static org.joda.time.DateTimeZone.UTC;
 
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import google.registry.model.domain.Domain;
+import google.registry.model.domain.secdns.DomainDsData;
 import google.registry.model.host.Host;
+import google.registry.persistence.VKey;
 import google.registry.persistence.transaction.JpaTestExtensions;
 import google.registry.persistence.transaction.JpaTestExtensions.JpaIntegrationTestExtension;
 import google.registry.testing.FakeClock;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
 import org.joda.time.DateTime;
 import org.joda.time.Duration;
 import org.junit.jupiter.api.BeforeEach;
@@ -39,7 +52,25 @@ class EppResourceUtilsTest {
 
   @RegisterExtension
   final JpaIntegrationTestExtension jpa =
-      new JpaTestExtensions.Builder().withClock(clock).buildIntegrationTestExtension();
+      new JpaTestExtensions.Builder()
+          .withClock(clock)
+          .withProperty(
+              "hibernate.session_factory.statement_inspector", SelectCounter.class.getName())
+          .buildIntegrationTestExtension();
+
+  /** Counts the SELECT statements that Hibernate sends to the database. */
+  public static class SelectCounter implements StatementInspector {
+
+    private static final AtomicInteger count = new AtomicInteger();
+
+    @Override
+    public String inspect(String sql) {
+      if (sql.trim().toLowerCase().startsWith("select")) {
+        count.incrementAndGet();
+      }
+      return sql;
+    }
+  }
 
   @BeforeEach
   void beforeEach() {
@@ -65,4 +96,40 @@ class EppResourceUtilsTest {
             newHost("ns1.cat.tld").asBuilder().setCreationTimeForTest(START_OF_TIME).build());
     assertThat(loadAtPointInTime(host, clock.nowUtc())).isEqualTo(host);
   }
+
+  @Test
+  void testLoadByKeysIfPresent_loadsDomainCollectionsInBatches() {
+    Host host1 = persistActiveHost("ns1.example.tld");
+    Host host2 = persistActiveHost("ns2.example.tld");
+    ImmutableList<Domain> domains =
+        ImmutableList.of("a.tld", "b.tld", "c.tld").stream()
+            .map(
+                name ->
+                    persistResource(
+                        newDomain(name, host1, host2)
+                            .asBuilder()
+                            .setDsData(
+                                ImmutableSet.of(DomainDsData.create(1, 2, 2, new byte[] {0, 1, 2})))
+                            .build()))
+            .collect(toImmutableList());
+    ImmutableList<VKey<Domain>> keys =
+        domains.stream().map(Domain::createVKey).collect(toImmutableList());
+    ImmutableMap<VKey<? extends EppResource>, EppResource> loaded =
+        tm().transact(
+                () -> {
+                  SelectCounter.count.set(0);
+                  ImmutableMap<VKey<? extends EppResource>, EppResource> result =
+                      loadByKeysIfPresent(tm(), keys);
+                  // One query for the domains, and one for each of their three collections.
+                  assertThat(SelectCounter.count.get()).isEqualTo(4);
+                  return result;
+                });
+    assertThat(loaded.keySet()).containsExactlyElementsIn(keys);
+    for (EppResource resource : loaded.values()) {
+      Domain domain = (Domain) resource;
+      assertThat(domain.getNameservers())
+          .containsExactly(host1.createVKey(), host2.createVKey());
+      assertThat(domain.getDsData()).hasSize(1);
+    }
+  }
 }
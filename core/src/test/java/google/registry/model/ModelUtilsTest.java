@@ -15,9 +15,12 @@
 package google.registry.model;
 
 import static com.google.common.truth.Truth.assertThat;
+import static java.util.stream.Collectors.toList;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import java.lang.reflect.Field;
+import java.util.Arrays;
 import java.util.Map;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -69,6 +72,14 @@ public class ModelUtilsTest {
     }
   }
 
+  /** Test class whose fields can't be read by a generated accessor. */
+  public static class PrivateFieldsClass extends TestClass {
+
+    private String c;
+
+    private int[] d;
+  }
+
   @BeforeEach
   void resetCaches() {
     ModelUtils.resetCaches();
@@ -115,6 +126,53 @@ public class ModelUtilsTest {
         .inOrder();
   }
 
+  @Test
+  void testGetFieldReaders_usesGeneratedAccessor() {
+    assertThat(new FieldAccessor_ModelUtilsTest_TestClass().getFieldNames())
+        .containsExactly("id", "a", "b")
+        .inOrder();
+    TestClass testInstance = new TestClass.Builder().setId("foo").setB("b").build();
+    assertThat(
+            ModelUtils.getFieldReaders(TestClass.class).stream()
+                .map(reader -> reader.getValue(testInstance))
+                .collect(toList()))
+        .containsExactly("foo", null, "b")
+        .inOrder();
+  }
+
+  @Test
+  void testGetFieldValues_privateFieldsFallBackToReflection() throws Exception {
+    PrivateFieldsClass testInstance = new PrivateFieldsClass();
+    testInstance.id = "foo";
+    testInstance.c = "c";
+    testInstance.d = new int[] {1, 2};
+    assertThat(ModelUtils.getFieldValues(testInstance))
+        .containsExactly(
+            TestClass.class.getDeclaredField("id"), "foo",
+            TestClass.class.getDeclaredField("a"), null,
+            TestClass.class.getDeclaredField("b"), null,
+            PrivateFieldsClass.class.getDeclaredField("c"), "c",
+            PrivateFieldsClass.class.getDeclaredField("d"), ImmutableList.of(1, 2))
+        .inOrder();
+  }
+
+  @Test
+  void testEqualsAndHashCode_matchSignificantFields() {
+    PrivateFieldsClass first = new PrivateFieldsClass();
+    first.id = "foo";
+    first.d = new int[] {1, 2};
+    PrivateFieldsClass second = new PrivateFieldsClass();
+    second.id = "foo";
+    second.d = new int[] {1, 2};
+    assertThat(first).isEqualTo(second);
+    assertThat(first.hashCode()).isEqualTo(second.hashCode());
+    assertThat(first.hashCode())
+        .isEqualTo(Arrays.hashCode(first.getSignificantFields().values().toArray()));
+    second.hashCode = null;
+    second.c = "c";
+    assertThat(first).isNotEqualTo(second);
+  }
+
   @Test
   void testBuildingResetsHashCode() {
     TestClass original = new TestClass();
@@ -72,6 +72,29 @@ class TimedTransitionPropertyTest {
     testGetValueAtTime(timedString);
   }
 
+  @Test
+  void testSuccess_getValueAtTime_repeatedAndOutOfOrder() {
+    // Lookups within the period of the previous one are answered without the backing map, so check
+    // that moving between periods in either direction doesn't return a stale value.
+    testGetValueAtTime(timedString);
+    testGetValueAtTime(timedString);
+    assertThat(timedString.getValueAtTime(DATE_3)).isEqualTo("3");
+    assertThat(timedString.getValueAtTime(DATE_2.plusMillis(1))).isEqualTo("2");
+    assertThat(timedString.getValueAtTime(DATE_2)).isEqualTo("2");
+    assertThat(timedString.getValueAtTime(DATE_2.minusMillis(1))).isEqualTo("1");
+    assertThat(timedString.getValueAtTime(A_LONG_TIME_AGO)).isEqualTo("0");
+    assertThat(timedString.getValueAtTime(DATE_1.minusMillis(1))).isEqualTo("0");
+    assertThat(timedString.getValueAtTime(new DateTime(Long.MAX_VALUE, UTC))).isEqualTo("3");
+  }
+
+  @Test
+  void testSuccess_getValueAtTime_singleValue() {
+    TimedTransitionProperty<String> property = TimedTransitionProperty.withInitialValue("only");
+    assertThat(property.getValueAtTime(A_LONG_TIME_AGO)).isEqualTo("only");
+    assertThat(property.getValueAtTime(DATE_2)).isEqualTo("only");
+    assertThat(property.getValueAtTime(new DateTime(Long.MAX_VALUE, UTC))).isEqualTo("only");
+  }
+
   @Test
   void testSuccess_getNextTransitionAfter() {
     assertThat(timedString.getNextTransitionAfter(A_LONG_TIME_AGO)).isEqualTo(DATE_1);
@@ -0,0 +1,81 @@
+// Copyright 2023 The Nomulus Authors. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package google.registry.model.reporting;
+
+import static com.google.common.truth.Truth.assertThat;
+import static google.registry.model.reporting.IcannActivityCount.ALL_TLDS;
+import static google.registry.model.reporting.IcannActivityCount.NO_REGISTRAR;
+import static google.registry.testing.DatabaseHelper.insertInDb;
+import static google.registry.testing.DatabaseHelper.loadByKey;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import google.registry.model.EntityTestCase;
+import google.registry.model.reporting.IcannActivityCount.IcannActivityCountId;
+import google.registry.persistence.VKey;
+import org.junit.jupiter.api.Test;
+
+/** Unit tests for {@link IcannActivityCount}. */
+public final class IcannActivityCountTest extends EntityTestCase {
+
+  IcannActivityCountTest() {
+    super(JpaEntityCoverageCheck.ENABLED);
+  }
+
+  @Test
+  void testPersistence() {
+    IcannActivityCount count =
+        IcannActivityCount.create("2023-06", "tld", "TheRegistrar", "srs-dom-create", 12);
+    insertInDb(count);
+    assertThat(
+            loadByKey(
+                VKey.create(
+                    IcannActivityCount.class,
+                    IcannActivityCountId.create(
+                        "2023-06", "tld", "TheRegistrar", "srs-dom-create"))))
+        .isEqualTo(count);
+  }
+
+  @Test
+  void testPersistence_allTldsWithoutRegistrar() {
+    IcannActivityCount count =
+        IcannActivityCount.create("2023-06", ALL_TLDS, NO_REGISTRAR, "rdap-queries", 34);
+    insertInDb(count);
+    assertThat(
+            loadByKey(
+                VKey.create(
+                    IcannActivityCount.class,
+                    IcannActivityCountId.create("2023-06", "", "", "rdap-queries"))))
+        .isEqualTo(count);
+  }
+
+  @Test
+  void testFailure_invalidFields() {
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> IcannActivityCount.create(null, "tld", "TheRegistrar", "srs-dom-create", 1));
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> IcannActivityCount.create("2023-06", null, "TheRegistrar", "srs-dom-create", 1));
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> IcannActivityCount.create("2023-06", "tld", null, "srs-dom-create", 1));
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> IcannActivityCount.create("2023-06", "tld", "TheRegistrar", null, 1));
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> IcannActivityCount.create("2023-06", "tld", "TheRegistrar", "srs-dom-create", -1));
+  }
+}
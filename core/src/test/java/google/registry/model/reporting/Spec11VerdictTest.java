@@ -0,0 +1,76 @@
+// Copyright 2023 The Nomulus Authors. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package google.registry.model.reporting;
+
+import static com.google.common.truth.Truth.assertThat;
+import static google.registry.model.reporting.Spec11ThreatMatch.ThreatType.MALWARE;
+import static google.registry.model.reporting.Spec11ThreatMatch.ThreatType.UNWANTED_SOFTWARE;
+import static google.registry.testing.DatabaseHelper.insertInDb;
+import static google.registry.testing.DatabaseHelper.loadByEntity;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.google.common.collect.ImmutableSet;
+import google.registry.model.EntityTestCase;
+import org.joda.time.LocalDate;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/** Unit tests for {@link Spec11Verdict}. */
+public final class Spec11VerdictTest extends EntityTestCase {
+
+  private Spec11Verdict verdict;
+
+  Spec11VerdictTest() {
+    super(JpaEntityCoverageCheck.ENABLED);
+  }
+
+  @BeforeEach
+  void setUp() {
+    verdict =
+        new Spec11Verdict.Builder()
+            .setDomainRepoId("4-TLD")
+            .setDomainName("foo.tld")
+            .setThreatTypes(ImmutableSet.of(MALWARE, UNWANTED_SOFTWARE))
+            .setCheckDate(LocalDate.parse("2023-06-10"))
+            .build();
+  }
+
+  @Test
+  void testPersistence() {
+    insertInDb(verdict);
+    assertThat(loadByEntity(verdict)).isEqualTo(verdict);
+  }
+
+  @Test
+  void testPersistence_clean() {
+    Spec11Verdict cleanVerdict = verdict.asBuilder().setThreatTypes(ImmutableSet.of()).build();
+    insertInDb(cleanVerdict);
+    Spec11Verdict loaded = loadByEntity(cleanVerdict);
+    assertThat(loaded.isClean()).isTrue();
+    assertThat(loaded.getThreatTypes()).isEmpty();
+  }
+
+  @Test
+  void testFailure_missingFields() {
+    assertThrows(
+        IllegalArgumentException.class, () -> verdict.asBuilder().setDomainRepoId(null).build());
+    assertThrows(
+        IllegalArgumentException.class, () -> verdict.asBuilder().setDomainName(null).build());
+    assertThrows(
+        IllegalArgumentException.class, () -> verdict.asBuilder().setThreatTypes(null).build());
+    assertThrows(
+        IllegalArgumentException.class, () -> verdict.asBuilder().setCheckDate(null).build());
+  }
+}
@@ -63,4 +63,21 @@ public class SignedMarkRevocationListDaoTest extends EntityTestCase {
         .isFalse();
   }
 
+  @Test
+  void testSave_streamedRevocations() {
+    long numRevocations =
+        SignedMarkRevocationListDao.save(
+            fakeClock.nowUtc(),
+            revocations -> {
+              revocations.accept("mark1", fakeClock.nowUtc().minusHours(1));
+              revocations.accept("mark2", fakeClock.nowUtc().plusHours(1));
+            });
+    assertThat(numRevocations).isEqualTo(2);
+    SignedMarkRevocationList fromDb = SignedMarkRevocationListDao.load();
+    assertThat(fromDb.getCreationTime()).isEqualTo(fakeClock.nowUtc());
+    assertThat(fromDb.size()).isEqualTo(2);
+    assertThat(fromDb.isSmdRevoked("mark1", fakeClock.nowUtc())).isTrue();
+    assertThat(fromDb.isSmdRevoked("mark2", fakeClock.nowUtc())).isFalse();
+    assertThat(fromDb.isSmdRevoked("mark2", fakeClock.nowUtc().plusHours(1))).isTrue();
+  }
 }
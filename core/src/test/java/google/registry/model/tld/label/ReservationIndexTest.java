@@ -0,0 +1,75 @@
+// Copyright 2023 The Nomulus Authors. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package google.registry.model.tld.label;
+
+import static com.google.common.truth.Truth.assertThat;
+import static google.registry.model.tld.label.ReservationType.FULLY_BLOCKED;
+import static google.registry.model.tld.label.ReservationType.NAME_COLLISION;
+import static google.registry.model.tld.label.ReservationType.RESERVED_FOR_SPECIFIC_USE;
+
+import com.google.common.collect.ImmutableList;
+import google.registry.model.tld.label.DomainLabelMetrics.MetricsReservedListMatch;
+import google.registry.model.tld.label.ReservationIndex.Reservations;
+import org.joda.time.DateTime;
+import org.junit.jupiter.api.Test;
+
+/** Unit tests for {@link ReservationIndex}. */
+class ReservationIndexTest {
+
+  private static ReservedList createList(String name, String... lines) {
+    return new ReservedList.Builder()
+        .setName(name)
+        .setCreationTimestamp(DateTime.parse("2010-01-01T10:00:00Z"))
+        .setReservedListMapFromLines(ImmutableList.copyOf(lines))
+        .build();
+  }
+
+  @Test
+  void testGet_mergesLists() {
+    ReservationIndex index =
+        ReservationIndex.create(
+            ImmutableList.of(
+                createList("list1", "lol,FULLY_BLOCKED", "cat,NAME_COLLISION"),
+                createList("list2", "lol,RESERVED_FOR_SPECIFIC_USE", "dog,FULLY_BLOCKED")));
+    Reservations lol = index.get("lol");
+    assertThat(lol.getReservationTypes()).containsExactly(FULLY_BLOCKED, RESERVED_FOR_SPECIFIC_USE);
+    assertThat(lol.getMatches())
+        .containsExactly(
+            MetricsReservedListMatch.create("list1", FULLY_BLOCKED),
+            MetricsReservedListMatch.create("list2", RESERVED_FOR_SPECIFIC_USE));
+    assertThat(index.get("cat").getReservationTypes()).containsExactly(NAME_COLLISION);
+    assertThat(index.get("dog").getMatches())
+        .containsExactly(MetricsReservedListMatch.create("list2", FULLY_BLOCKED));
+  }
+
+  @Test
+  void testGet_sameTypeInTwoLists() {
+    ReservationIndex index =
+        ReservationIndex.create(
+            ImmutableList.of(
+                createList("list1", "lol,FULLY_BLOCKED"),
+                createList("list2", "lol,FULLY_BLOCKED")));
+    assertThat(index.get("lol").getReservationTypes()).containsExactly(FULLY_BLOCKED);
+    assertThat(index.get("lol").getMatches()).hasSize(2);
+  }
+
+  @Test
+  void testGet_unreservedLabel() {
+    ReservationIndex index =
+        ReservationIndex.create(ImmutableList.of(createList("list1", "lol,FULLY_BLOCKED")));
+    assertThat(index.get("cat").getReservationTypes()).isEmpty();
+    assertThat(index.get("cat").getMatches()).isEmpty();
+  }
+}
@@ -24,6 +24,8 @@ import google.registry.persistence.transaction.JpaTestExtensions;
 import google.registry.persistence.transaction.JpaTestExtensions.JpaIntegrationWithCoverageExtension;
 import google.registry.testing.FakeClock;
 import google.registry.testing.TestCacheExtension;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.time.Duration;
 import javax.persistence.PersistenceException;
 import org.junit.jupiter.api.Test;
@@ -76,6 +78,46 @@ public class ClaimsListDaoTest {
     assertThat(insertedClaimsList.getLabelsToKeys()).isEmpty();
   }
 
+  @Test
+  void save_streamedEntries() {
+    long numEntries =
+        ClaimsListDao.save(
+            fakeClock.nowUtc(),
+            entries -> {
+              entries.accept("label1", "key1");
+              entries.accept("label2", "key2");
+            });
+    assertThat(numEntries).isEqualTo(2);
+    ClaimsList insertedClaimsList = ClaimsListDao.get();
+    assertThat(insertedClaimsList.getTmdbGenerationTime()).isEqualTo(fakeClock.nowUtc());
+    assertThat(tm().transact(() -> insertedClaimsList.getClaimKey("label1"))).hasValue("key1");
+    assertThat(tm().transact(insertedClaimsList::getLabelsToKeys))
+        .containsExactly("label1", "key1", "label2", "key2");
+  }
+
+  @Test
+  void save_streamedEntries_becomeCurrentOnlyWhenComplete() {
+    ClaimsList oldClaimsList =
+        ClaimsList.create(fakeClock.nowUtc(), ImmutableMap.of("label1", "key1"));
+    ClaimsListDao.save(oldClaimsList);
+    assertThrows(
+        IOException.class,
+        () -> {
+          try {
+            ClaimsListDao.save(
+                fakeClock.nowUtc(),
+                entries -> {
+                  entries.accept("label2", "key2");
+                  throw new IOException("Truncated file");
+                });
+          } catch (UncheckedIOException e) {
+            throw e.getCause();
+          }
+        });
+    ClaimsListDao.CACHE.invalidateAll();
+    assertClaimsListEquals(oldClaimsList, ClaimsListDao.get());
+  }
+
   @Test
   void getCurrent_returnsEmptyListIfTableIsEmpty() {
     assertThat(ClaimsListDao.get().labelsToKeys).isEmpty();
@@ -0,0 +1,106 @@
+// Copyright 2023 The Nomulus Authors. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package google.registry.module;
+
+import static com.google.common.truth.Truth.assertThat;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static javax.servlet.http.HttpServletResponse.SC_OK;
+
+import com.beust.jcommander.JCommander;
+import com.google.common.io.ByteStreams;
+import google.registry.module.StandaloneServer.Service;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Smoke test of {@link StandaloneServer}.
+ *
+ * <p>Embedded Jetty needs the servlet 3.1 API, which isn't on the test runtime classpath, so this
+ * is run by the {@code standaloneServerTest} Gradle task, which adds it like the {@code
+ * standaloneServer} task does.
+ */
+class StandaloneServerTest {
+
+  private Server server;
+
+  /** Stands in for the servlet of a service, whose initialization needs a database. */
+  public static final class EchoServlet extends HttpServlet {
+
+    private static final long serialVersionUID = 2914765071563890114L;
+
+    @Override
+    public void doGet(HttpServletRequest req, HttpServletResponse rsp) throws IOException {
+      rsp.setStatus(SC_OK);
+      rsp.getWriter().write(req.getRequestURI());
+    }
+  }
+
+  @BeforeEach
+  void beforeEach() throws Exception {
+    StandaloneServer standaloneServer = new StandaloneServer();
+    new JCommander(standaloneServer)
+        .parse("--environment", "unittest", "--service", "frontend", "--port", "0");
+    server = standaloneServer.createServer(EchoServlet.class);
+    server.start();
+  }
+
+  @AfterEach
+  void afterEach() throws Exception {
+    if (server != null) {
+      server.stop();
+    }
+  }
+
+  private String get(String path) throws IOException {
+    int port = ((ServerConnector) server.getConnectors()[0]).getLocalPort();
+    HttpURLConnection connection =
+        (HttpURLConnection) new URL("http", "localhost", port, path).openConnection();
+    try (InputStream in = connection.getInputStream()) {
+      assertThat(connection.getResponseCode()).isEqualTo(SC_OK);
+      return new String(ByteStreams.toByteArray(in), UTF_8);
+    } finally {
+      connection.disconnect();
+    }
+  }
+
+  @Test
+  void testServletClassesResolve() throws Exception {
+    for (Service service : Service.values()) {
+      // Loading the servlet also loads its superclasses from the servlet API. It isn't initialized,
+      // which would set up the whole service.
+      Class.forName(service.servletClass.getName(), false, getClass().getClassLoader());
+    }
+  }
+
+  @Test
+  void testHealthCheck() throws Exception {
+    assertThat(get("/healthz")).isEqualTo("ok\n");
+  }
+
+  @Test
+  void testServesServlet() throws Exception {
+    assertThat(get("/_dr/epp")).isEqualTo("/_dr/epp");
+  }
+}
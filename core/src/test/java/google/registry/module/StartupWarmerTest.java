@@ -0,0 +1,127 @@
+// Copyright 2023 The Nomulus Authors. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package google.registry.module;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.google.common.collect.ImmutableMap;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+/** Unit tests for {@link StartupWarmer}. */
+class StartupWarmerTest {
+
+  private final Set<String> finishedPhases = ConcurrentHashMap.newKeySet();
+
+  @Test
+  void testRun_runsAllPhases() {
+    assertThat(
+            new StartupWarmer(
+                    ImmutableMap.of(
+                        "one", () -> finishedPhases.add("one"),
+                        "two", () -> finishedPhases.add("two"),
+                        "three", () -> finishedPhases.add("three")),
+                    2,
+                    Duration.ofSeconds(10))
+                .run())
+        .isTrue();
+    assertThat(finishedPhases).containsExactly("one", "two", "three");
+  }
+
+  @Test
+  void testRun_runsPhasesInParallel() {
+    // Each phase waits for the other one, so this only finishes if they run at the same time.
+    CountDownLatch started = new CountDownLatch(2);
+    Runnable phase =
+        () -> {
+          started.countDown();
+          try {
+            if (started.await(10, TimeUnit.SECONDS)) {
+              finishedPhases.add(Thread.currentThread().getName());
+            }
+          } catch (InterruptedException e) {
+            throw new RuntimeException(e);
+          }
+        };
+    assertThat(
+            new StartupWarmer(ImmutableMap.of("one", phase, "two", phase), 2, Duration.ofSeconds(10))
+                .run())
+        .isTrue();
+    assertThat(finishedPhases).hasSize(2);
+  }
+
+  @Test
+  void testRun_failedPhase_doesNotStopOthers() {
+    assertThat(
+            new StartupWarmer(
+                    ImmutableMap.of(
+                        "failing",
+                        () -> {
+                          throw new ExceptionInInitializerError("boom");
+                        },
+                        "working",
+                        () -> finishedPhases.add("working")),
+                    1,
+                    Duration.ofSeconds(10))
+                .run())
+        .isTrue();
+    assertThat(finishedPhases).containsExactly("working");
+  }
+
+  @Test
+  void testRun_timeout() {
+    CountDownLatch release = new CountDownLatch(1);
+    assertThat(
+            new StartupWarmer(
+                    ImmutableMap.of(
+                        "slow",
+                        () -> {
+                          try {
+                            release.await();
+                          } catch (InterruptedException e) {
+                            throw new RuntimeException(e);
+                          }
+                        }),
+                    1,
+                    Duration.ofMillis(10))
+                .run())
+        .isFalse();
+    release.countDown();
+  }
+
+  @Test
+  void testRun_disabled() {
+    assertThat(
+            new StartupWarmer(
+                    ImmutableMap.of("one", () -> finishedPhases.add("one")),
+                    0,
+                    Duration.ofSeconds(10))
+                .run())
+        .isTrue();
+    assertThat(finishedPhases).isEmpty();
+  }
+
+  @Test
+  void testFailure_negativeThreads() {
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> new StartupWarmer(ImmutableMap.of(), -1, Duration.ofSeconds(10)));
+  }
+}
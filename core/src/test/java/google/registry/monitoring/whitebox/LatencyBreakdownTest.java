@@ -0,0 +1,169 @@
+// Copyright 2023 The Nomulus Authors. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package google.registry.monitoring.whitebox;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.common.truth.Truth8.assertThat;
+
+import com.google.common.base.Ticker;
+import google.registry.monitoring.whitebox.LatencyBreakdown.Counter;
+import google.registry.monitoring.whitebox.LatencyBreakdown.Phase;
+import google.registry.monitoring.whitebox.LatencyBreakdown.Span;
+import java.time.Duration;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+/** Unit tests for {@link LatencyBreakdown}. */
+class LatencyBreakdownTest {
+
+  private final FakeTicker ticker = new FakeTicker();
+
+  @AfterEach
+  void afterEach() {
+    LatencyBreakdown.current().ifPresent(LatencyBreakdown::close);
+  }
+
+  @Test
+  void testTime_recordsPhases() {
+    try (LatencyBreakdown breakdown = LatencyBreakdown.start(ticker)) {
+      try (Span span = LatencyBreakdown.time(Phase.UNMARSHAL)) {
+        ticker.advanceMillis(3);
+      }
+      try (Span span = LatencyBreakdown.time(Phase.TRANSACTION)) {
+        ticker.advanceMillis(1);
+        try (Span flowSpan = LatencyBreakdown.time(Phase.FLOW)) {
+          ticker.advanceMillis(10);
+        }
+      }
+      assertThat(breakdown.getPhaseDurations())
+          .containsExactly(
+              Phase.UNMARSHAL, Duration.ofMillis(3),
+              Phase.TRANSACTION, Duration.ofMillis(11),
+              Phase.FLOW, Duration.ofMillis(10));
+    }
+  }
+
+  @Test
+  void testTime_sumsRepeatedPhases() {
+    try (LatencyBreakdown breakdown = LatencyBreakdown.start(ticker)) {
+      try (Span span = LatencyBreakdown.time(Phase.PRICING)) {
+        ticker.advanceMillis(2);
+      }
+      ticker.advanceMillis(100);
+      try (Span span = LatencyBreakdown.time(Phase.PRICING)) {
+        ticker.advanceMillis(5);
+      }
+      assertThat(breakdown.getPhaseDurations())
+          .containsExactly(Phase.PRICING, Duration.ofMillis(7));
+    }
+  }
+
+  @Test
+  void testTime_onlyCountsOutermostNestedSpan() {
+    try (LatencyBreakdown breakdown = LatencyBreakdown.start(ticker)) {
+      try (Span span = LatencyBreakdown.time(Phase.TRANSACTION)) {
+        ticker.advanceMillis(2);
+        try (Span nestedSpan = LatencyBreakdown.time(Phase.TRANSACTION)) {
+          ticker.advanceMillis(5);
+        }
+        ticker.advanceMillis(1);
+      }
+      assertThat(breakdown.getPhaseDurations())
+          .containsExactly(Phase.TRANSACTION, Duration.ofMillis(8));
+    }
+  }
+
+  @Test
+  void testTime_spanClosedOnException() {
+    try (LatencyBreakdown breakdown = LatencyBreakdown.start(ticker)) {
+      try (Span span = LatencyBreakdown.time(Phase.FLOW)) {
+        ticker.advanceMillis(4);
+        throw new IllegalStateException("failed");
+      } catch (IllegalStateException e) {
+        // Expected.
+      }
+      ticker.advanceMillis(10);
+      assertThat(breakdown.getPhaseDurations()).containsExactly(Phase.FLOW, Duration.ofMillis(4));
+    }
+  }
+
+  @Test
+  void testIncrement() {
+    try (LatencyBreakdown breakdown = LatencyBreakdown.start(ticker)) {
+      LatencyBreakdown.increment(Counter.TRANSACTION_ATTEMPTS, 1);
+      LatencyBreakdown.increment(Counter.TRANSACTION_ATTEMPTS, 1);
+      LatencyBreakdown.increment(Counter.CACHE_MISSES, 3);
+      assertThat(breakdown.getCounts())
+          .containsExactly(Counter.TRANSACTION_ATTEMPTS, 2L, Counter.CACHE_MISSES, 3L);
+    }
+  }
+
+  @Test
+  void testNoBreakdown_doesNothing() {
+    assertThat(LatencyBreakdown.current()).isEmpty();
+    try (Span span = LatencyBreakdown.time(Phase.FLOW)) {
+      ticker.advanceMillis(4);
+    }
+    LatencyBreakdown.increment(Counter.CACHE_MISSES, 3);
+    assertThat(LatencyBreakdown.current()).isEmpty();
+  }
+
+  @Test
+  void testClose_unbindsFromThread() {
+    LatencyBreakdown breakdown = LatencyBreakdown.start(ticker);
+    assertThat(LatencyBreakdown.current()).hasValue(breakdown);
+    breakdown.close();
+    assertThat(LatencyBreakdown.current()).isEmpty();
+    LatencyBreakdown.increment(Counter.CACHE_MISSES, 3);
+    assertThat(breakdown.getCounts()).containsEntry(Counter.CACHE_MISSES, 0L);
+  }
+
+  @Test
+  void testClose_restoresEnclosingBreakdown() {
+    try (LatencyBreakdown outer = LatencyBreakdown.start(ticker)) {
+      try (LatencyBreakdown inner = LatencyBreakdown.start(ticker)) {
+        assertThat(LatencyBreakdown.current()).hasValue(inner);
+      }
+      assertThat(LatencyBreakdown.current()).hasValue(outer);
+    }
+  }
+
+  @Test
+  void testToString() {
+    try (LatencyBreakdown breakdown = LatencyBreakdown.start(ticker)) {
+      breakdown.setCommandName("DomainCreate");
+      try (Span span = LatencyBreakdown.time(Phase.FLOW)) {
+        ticker.advanceMillis(12);
+      }
+      LatencyBreakdown.increment(Counter.TRANSACTION_ATTEMPTS, 1);
+      assertThat(breakdown.toString())
+          .isEqualTo("command=DomainCreate FLOW=12ms TRANSACTION_ATTEMPTS=1 CACHE_MISSES=0");
+    }
+  }
+
+  /** A {@link Ticker} that only moves when told to. */
+  private static class FakeTicker extends Ticker {
+    private long nanos;
+
+    void advanceMillis(long millis) {
+      nanos += Duration.ofMillis(millis).toNanos();
+    }
+
+    @Override
+    public long read() {
+      return nanos;
+    }
+  }
+}
@@ -0,0 +1,134 @@
+// Copyright 2023 The Nomulus Authors. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package google.registry.persistence.transaction;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
+
+import google.registry.testing.FakeClock;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+/** Unit tests for {@link ReplicaLagMonitor}. */
+class ReplicaLagMonitorTest {
+
+  private static final Duration MAX_LAG = Duration.ofSeconds(1);
+  private static final Duration CHECK_INTERVAL = Duration.ofHours(1);
+
+  private final AtomicInteger measurements = new AtomicInteger();
+  private final FakeClock clock = new FakeClock();
+
+  /** Tasks that were started in the background, and that the test runs when it chooses to. */
+  private final Queue<Runnable> backgroundTasks = new ArrayDeque<>();
+
+  private final Executor backgroundExecutor = backgroundTasks::add;
+
+  private ReplicaLagMonitor createMonitor(Optional<Duration> lag, Executor executor) {
+    return new ReplicaLagMonitor(
+        () -> {
+          measurements.incrementAndGet();
+          return lag;
+        },
+        MAX_LAG,
+        CHECK_INTERVAL,
+        executor,
+        clock);
+  }
+
+  private ReplicaLagMonitor createMonitor(Optional<Duration> lag) {
+    return createMonitor(lag, directExecutor());
+  }
+
+  private void runBackgroundTasks() {
+    while (!backgroundTasks.isEmpty()) {
+      backgroundTasks.remove().run();
+    }
+  }
+
+  @Test
+  void testIsReplicaFresh_noLag() {
+    assertThat(createMonitor(Optional.of(Duration.ZERO)).isReplicaFresh()).isTrue();
+  }
+
+  @Test
+  void testIsReplicaFresh_lagAtMaximum() {
+    assertThat(createMonitor(Optional.of(MAX_LAG)).isReplicaFresh()).isTrue();
+  }
+
+  @Test
+  void testIsReplicaFresh_lagAboveMaximum() {
+    assertThat(createMonitor(Optional.of(MAX_LAG.plusMillis(1))).isReplicaFresh()).isFalse();
+  }
+
+  @Test
+  void testIsReplicaFresh_lagUnknown() {
+    assertThat(createMonitor(Optional.empty()).isReplicaFresh()).isFalse();
+  }
+
+  @Test
+  void testIsReplicaFresh_measuresOncePerInterval() {
+    ReplicaLagMonitor monitor = createMonitor(Optional.of(Duration.ZERO));
+    assertThat(measurements.get()).isEqualTo(0);
+    monitor.isReplicaFresh();
+    monitor.isReplicaFresh();
+    monitor.isReplicaFresh();
+    assertThat(measurements.get()).isEqualTo(1);
+    clock.setTo(clock.nowUtc().plus(CHECK_INTERVAL.toMillis()));
+    monitor.isReplicaFresh();
+    monitor.isReplicaFresh();
+    assertThat(measurements.get()).isEqualTo(2);
+  }
+
+  @Test
+  void testIsReplicaFresh_doesNotWaitForMeasurement() {
+    ReplicaLagMonitor monitor = createMonitor(Optional.of(Duration.ZERO), backgroundExecutor);
+    // Nothing was measured yet, so the replica isn't used.
+    assertThat(monitor.isReplicaFresh()).isFalse();
+    assertThat(monitor.isReplicaFresh()).isFalse();
+    // Only one measurement is started at a time.
+    assertThat(backgroundTasks).hasSize(1);
+    runBackgroundTasks();
+    assertThat(monitor.isReplicaFresh()).isTrue();
+    assertThat(measurements.get()).isEqualTo(1);
+  }
+
+  @Test
+  void testIsReplicaFresh_usesLastMeasurementWhileMeasuringAgain() {
+    ReplicaLagMonitor monitor = createMonitor(Optional.of(Duration.ZERO), backgroundExecutor);
+    monitor.isReplicaFresh();
+    runBackgroundTasks();
+    clock.setTo(clock.nowUtc().plus(CHECK_INTERVAL.toMillis()));
+    assertThat(monitor.isReplicaFresh()).isTrue();
+    assertThat(backgroundTasks).hasSize(1);
+  }
+
+  @Test
+  void testIsReplicaFresh_outdatedMeasurement() {
+    ReplicaLagMonitor monitor = createMonitor(Optional.of(Duration.ZERO), backgroundExecutor);
+    monitor.isReplicaFresh();
+    runBackgroundTasks();
+    // The measurement that was started after the first interval never finished.
+    clock.setTo(clock.nowUtc().plus(CHECK_INTERVAL.toMillis()));
+    monitor.isReplicaFresh();
+    clock.setTo(clock.nowUtc().plus(CHECK_INTERVAL.toMillis()));
+    assertThat(monitor.isReplicaFresh()).isFalse();
+    assertThat(backgroundTasks).hasSize(1);
+  }
+}
@@ -26,6 +26,7 @@ import com.google.appengine.api.users.User;
 import com.google.gson.JsonObject;
 import google.registry.persistence.transaction.JpaTestExtensions;
 import google.registry.persistence.transaction.JpaTestExtensions.JpaIntegrationTestExtension;
+import google.registry.reporting.icann.IcannActivityCounter;
 import google.registry.request.Actions;
 import google.registry.request.auth.AuthResult;
 import google.registry.request.auth.AuthSettings.AuthLevel;
@@ -34,6 +35,7 @@ import google.registry.testing.FakeClock;
 import google.registry.testing.FakeResponse;
 import google.registry.util.Idn;
 import google.registry.util.TypeUtils;
+import java.time.Duration;
 import java.util.HashMap;
 import java.util.Optional;
 import org.joda.time.DateTime;
@@ -80,6 +82,7 @@ abstract class RdapActionBaseTestCase<A extends RdapActionBase> {
     action.response = response;
     action.rdapJsonFormatter = RdapTestHelper.getTestRdapJsonFormatter(clock);
     action.rdapMetrics = rdapMetrics;
+    action.icannActivityCounter = new IcannActivityCounter(clock, false, Duration.ZERO);
     action.requestMethod = GET;
     logout();
   }
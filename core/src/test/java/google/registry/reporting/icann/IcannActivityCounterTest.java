@@ -0,0 +1,183 @@
+// Copyright 2023 The Nomulus Authors. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package google.registry.reporting.icann;
+
+import static com.google.common.truth.Truth.assertThat;
+import static google.registry.model.reporting.IcannActivityCount.ALL_TLDS;
+import static google.registry.model.reporting.IcannActivityCount.NO_REGISTRAR;
+import static google.registry.testing.DatabaseHelper.loadAllOf;
+
+import com.google.common.collect.ImmutableSet;
+import google.registry.model.reporting.IcannActivityCount;
+import google.registry.persistence.transaction.JpaTestExtensions;
+import google.registry.persistence.transaction.JpaTestExtensions.JpaIntegrationTestExtension;
+import google.registry.testing.FakeClock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.joda.time.DateTime;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+/** Unit tests for {@link IcannActivityCounter}. */
+class IcannActivityCounterTest {
+
+  private static final Duration FLUSH_INTERVAL = Duration.ofMinutes(1);
+
+  private final FakeClock clock = new FakeClock(DateTime.parse("2023-06-30T23:59:00Z"));
+  private final IcannActivityCounter counter =
+      new IcannActivityCounter(clock, true, FLUSH_INTERVAL);
+
+  @RegisterExtension
+  final JpaIntegrationTestExtension jpa =
+      new JpaTestExtensions.Builder().withClock(clock).buildIntegrationTestExtension();
+
+  @Test
+  void testRecordEppCommand_domainCommand_countedPerTld() {
+    counter.recordEppCommand(
+        "TheRegistrar", "srs-dom-check", true, ImmutableSet.of("tld", "example"));
+    counter.recordEppCommand("TheRegistrar", "srs-dom-check", true, ImmutableSet.of("tld"));
+    assertThat(counter.drain())
+        .containsExactly(
+            IcannActivityCount.create("2023-06", "tld", "TheRegistrar", "srs-dom-check", 2),
+            IcannActivityCount.create("2023-06", "example", "TheRegistrar", "srs-dom-check", 1));
+  }
+
+  @Test
+  void testRecordEppCommand_domainCommandWithoutTld_notCounted() {
+    counter.recordEppCommand("TheRegistrar", "srs-dom-check", true, ImmutableSet.of());
+    assertThat(counter.drain()).isEmpty();
+  }
+
+  @Test
+  void testRecordEppCommand_otherCommand_countedForAllTlds() {
+    counter.recordEppCommand("TheRegistrar", "srs-host-create", false, ImmutableSet.of());
+    assertThat(counter.drain())
+        .containsExactly(
+            IcannActivityCount.create("2023-06", ALL_TLDS, "TheRegistrar", "srs-host-create", 1));
+  }
+
+  @Test
+  void testRecordEppCommand_noActivityReportField_notCounted() {
+    counter.recordEppCommand("TheRegistrar", "", true, ImmutableSet.of("tld"));
+    counter.recordEppCommand("TheRegistrar", "", false, ImmutableSet.of());
+    assertThat(counter.drain()).isEmpty();
+  }
+
+  @Test
+  void testRecordQueries() {
+    counter.recordWhois43Query();
+    counter.recordWhois43Query();
+    counter.recordWebWhoisQuery();
+    counter.recordRdapQuery();
+    assertThat(counter.drain())
+        .containsExactly(
+            IcannActivityCount.create("2023-06", ALL_TLDS, NO_REGISTRAR, "whois-43-queries", 2),
+            IcannActivityCount.create("2023-06", ALL_TLDS, NO_REGISTRAR, "web-whois-queries", 1),
+            IcannActivityCount.create("2023-06", ALL_TLDS, NO_REGISTRAR, "rdap-queries", 1));
+  }
+
+  @Test
+  void testDisabled_notCounted() {
+    IcannActivityCounter disabledCounter = new IcannActivityCounter(clock, false, FLUSH_INTERVAL);
+    disabledCounter.recordRdapQuery();
+    disabledCounter.recordEppCommand(
+        "TheRegistrar", "srs-host-create", false, ImmutableSet.of());
+    assertThat(disabledCounter.isEnabled()).isFalse();
+    assertThat(disabledCounter.drain()).isEmpty();
+  }
+
+  @Test
+  void testDrain_resetsCounts() {
+    counter.recordRdapQuery();
+    assertThat(counter.drain()).hasSize(1);
+    assertThat(counter.drain()).isEmpty();
+    counter.recordRdapQuery();
+    assertThat(counter.drain())
+        .containsExactly(
+            IcannActivityCount.create("2023-06", ALL_TLDS, NO_REGISTRAR, "rdap-queries", 1));
+  }
+
+  @Test
+  void testDrain_countsOfEachMonthKeptApart() {
+    counter.recordRdapQuery();
+    clock.setTo(DateTime.parse("2023-07-01T00:00:01Z"));
+    counter.recordRdapQuery();
+    counter.recordRdapQuery();
+    assertThat(counter.drain())
+        .containsExactly(
+            IcannActivityCount.create("2023-06", ALL_TLDS, NO_REGISTRAR, "rdap-queries", 1),
+            IcannActivityCount.create("2023-07", ALL_TLDS, NO_REGISTRAR, "rdap-queries", 2));
+  }
+
+  @Test
+  void testDrain_concurrentWithMonthRollover_noCountsLost() throws Exception {
+    DateTime june = DateTime.parse("2023-06-30T23:59:59Z");
+    DateTime july = DateTime.parse("2023-07-01T00:00:00Z");
+    int threads = 4;
+    int queriesPerThread = 10000;
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int i = 0; i < threads; i++) {
+        futures.add(
+            executor.submit(
+                () -> {
+                  for (int j = 0; j < queriesPerThread; j++) {
+                    counter.recordRdapQuery();
+                  }
+                }));
+      }
+      long drained = 0;
+      boolean isJune = true;
+      while (!futures.stream().allMatch(Future::isDone)) {
+        // Entries of the month that just ended are removed by the drain, while being added to.
+        clock.setTo(isJune ? july : june);
+        isJune = !isJune;
+        drained += counter.drain().stream().mapToLong(IcannActivityCount::getCount).sum();
+      }
+      for (Future<?> future : futures) {
+        future.get();
+      }
+      drained += counter.drain().stream().mapToLong(IcannActivityCount::getCount).sum();
+      assertThat(drained).isEqualTo((long) threads * queriesPerThread);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  void testFlush_addsToDatabase() {
+    counter.recordEppCommand("TheRegistrar", "srs-dom-create", true, ImmutableSet.of("tld"));
+    counter.recordRdapQuery();
+    counter.flush();
+    counter.recordEppCommand("TheRegistrar", "srs-dom-create", true, ImmutableSet.of("tld"));
+    counter.recordEppCommand("TheRegistrar", "srs-dom-create", true, ImmutableSet.of("tld"));
+    counter.flush();
+    assertThat(loadAllOf(IcannActivityCount.class))
+        .containsExactly(
+            IcannActivityCount.create("2023-06", "tld", "TheRegistrar", "srs-dom-create", 3),
+            IcannActivityCount.create("2023-06", ALL_TLDS, NO_REGISTRAR, "rdap-queries", 1));
+  }
+
+  @Test
+  void testFlush_nothingCounted_doesNothing() {
+    counter.flush();
+    assertThat(loadAllOf(IcannActivityCount.class)).isEmpty();
+  }
+}
@@ -15,11 +15,21 @@
 package google.registry.reporting.icann;
 
 import static com.google.common.truth.Truth.assertThat;
+import static google.registry.model.reporting.IcannActivityCount.ALL_TLDS;
+import static google.registry.model.reporting.IcannActivityCount.NO_REGISTRAR;
+import static google.registry.testing.DatabaseHelper.createTld;
+import static google.registry.testing.DatabaseHelper.createTlds;
+import static google.registry.testing.DatabaseHelper.insertInDb;
+import static google.registry.testing.DatabaseHelper.persistNewRegistrar;
+import static google.registry.testing.DatabaseHelper.persistResource;
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import com.google.api.client.util.Data;
 import com.google.api.services.bigquery.model.TableFieldSchema;
 import com.google.cloud.storage.BlobId;
 import com.google.cloud.storage.contrib.nio.testing.LocalStorageHelper;
@@ -30,16 +40,26 @@ import google.registry.bigquery.BigqueryConnection;
 import google.registry.bigquery.BigqueryConnection.DestinationTable;
 import google.registry.bigquery.BigqueryUtils.TableType;
 import google.registry.gcs.GcsUtils;
+import google.registry.model.registrar.Registrar;
+import google.registry.model.reporting.IcannActivityCount;
+import google.registry.model.tld.Tld.TldType;
+import google.registry.persistence.transaction.JpaTestExtensions;
+import google.registry.persistence.transaction.JpaTestExtensions.JpaIntegrationTestExtension;
 import google.registry.reporting.icann.IcannReportingModule.ReportType;
 import google.registry.testing.FakeResponse;
 import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
 import org.joda.time.YearMonth;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
 
 /** Unit tests for {@link google.registry.reporting.icann.IcannReportingStager}. */
 class IcannReportingStagerTest {
 
+  @RegisterExtension
+  final JpaIntegrationTestExtension jpa =
+      new JpaTestExtensions.Builder().buildIntegrationTestExtension();
+
   private BigqueryConnection bigquery = mock(BigqueryConnection.class);
   FakeResponse response = new FakeResponse();
   private YearMonth yearMonth = new YearMonth(2017, 6);
@@ -100,6 +120,66 @@ class IcannReportingStagerTest {
     assertThat(new String(generatedFile2, UTF_8)).isEqualTo(expectedReport2);
   }
 
+  @Test
+  void testRunSuccess_activityReportFromCounters() throws Exception {
+    createTlds("foo", "bar");
+    persistResource(createTld("test").asBuilder().setTldType(TldType.TEST).build());
+    persistNewRegistrar("reg1");
+    persistNewRegistrar("reg2", "reg2 name", Registrar.Type.OTE, null);
+    insertInDb(
+        IcannActivityCount.create("2017-06", "foo", "reg1", "srs-dom-create", 2),
+        IcannActivityCount.create("2017-06", "foo", "reg2", "srs-dom-create", 1),
+        IcannActivityCount.create("2017-06", "test", "reg1", "srs-dom-create", 7),
+        IcannActivityCount.create("2017-06", ALL_TLDS, "reg1", "srs-host-create", 4),
+        IcannActivityCount.create("2017-06", ALL_TLDS, NO_REGISTRAR, "rdap-queries", 5),
+        IcannActivityCount.create("2017-05", "foo", "reg1", "srs-dom-create", 100));
+    // Only the DNS counts are still queried from BigQuery.
+    ImmutableTable<Integer, TableFieldSchema, Object> dnsCountsTable =
+        new ImmutableTable.Builder<Integer, TableFieldSchema, Object>()
+            .put(1, new TableFieldSchema().setName("tld"), Data.nullOf(String.class))
+            .put(1, new TableFieldSchema().setName("metricName"), "dns-udp-queries")
+            .put(1, new TableFieldSchema().setName("count"), "-1")
+            .put(2, new TableFieldSchema().setName("tld"), Data.nullOf(String.class))
+            .put(2, new TableFieldSchema().setName("metricName"), "dns-tcp-queries")
+            .put(2, new TableFieldSchema().setName("count"), "-1")
+            .build();
+    when(bigquery.queryToLocalTableSync(any(String.class))).thenReturn(dnsCountsTable);
+    IcannReportingStager stager = createStager();
+    stager.activityCountersEnabled = true;
+
+    assertThat(stager.stageReports(yearMonth, subdir, ReportType.ACTIVITY))
+        .containsExactly("bar-activity-201706.csv", "foo-activity-201706.csv")
+        .inOrder();
+    verify(bigquery, never()).startQuery(any(String.class), any(DestinationTable.class));
+    String expectedHeader =
+        "operational-registrars,zfa-passwords,whois-43-queries,web-whois-queries,"
+            + "searchable-whois-queries,dns-udp-queries-received,dns-udp-queries-responded,"
+            + "dns-tcp-queries-received,dns-tcp-queries-responded,srs-dom-check,srs-dom-create,"
+            + "srs-dom-delete,srs-dom-info,srs-dom-renew,srs-dom-rgp-restore-report,"
+            + "srs-dom-rgp-restore-request,srs-dom-transfer-approve,srs-dom-transfer-cancel,"
+            + "srs-dom-transfer-query,srs-dom-transfer-reject,srs-dom-transfer-request,"
+            + "srs-dom-update,srs-host-check,srs-host-create,srs-host-delete,srs-host-info,"
+            + "srs-host-update,srs-cont-check,srs-cont-create,srs-cont-delete,srs-cont-info,"
+            + "srs-cont-transfer-approve,srs-cont-transfer-cancel,srs-cont-transfer-query,"
+            + "srs-cont-transfer-reject,srs-cont-transfer-request,srs-cont-update,rdap-queries";
+    byte[] fooReport =
+        gcsUtils.readBytesFrom(
+            BlobId.of("test-bucket/icann/monthly/2017-06", "foo-activity-201706.csv"));
+    assertThat(new String(fooReport, UTF_8))
+        .isEqualTo(
+            expectedHeader
+                + "\r\n1,CZDS,0,0,0,-1,-1,-1,-1,"
+                + "0,3,0,0,0,0,0,0,0,0,0,0,0,0,4,0,0,0,0,0,0,0,0,0,0,0,0,0,5");
+    byte[] barReport =
+        gcsUtils.readBytesFrom(
+            BlobId.of("test-bucket/icann/monthly/2017-06", "bar-activity-201706.csv"));
+    assertThat(new String(barReport, UTF_8))
+        .isEqualTo(
+            expectedHeader
+                + "\r\n1,CZDS,0,0,0,-1,-1,-1,-1,"
+                + "0,0,0,0,0,0,0,0,0,0,0,0,0,0,4,0,0,0,0,0,0,0,0,0,0,0,0,0,5");
+  }
+
   @Test
   void testRunSuccess_transactionsReport() throws Exception {
     setUpBigquery();
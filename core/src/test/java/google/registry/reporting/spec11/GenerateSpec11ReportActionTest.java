@@ -49,6 +49,7 @@ class GenerateSpec11ReportActionTest extends BeamActionTestBase {
             "gs://staging-project/staging-bucket/",
             "gs://reporting-project/reporting-bucket/",
             "api_key/a",
+            false,
             clock.nowUtc().toLocalDate(),
             true,
             clock,
@@ -72,6 +73,7 @@ class GenerateSpec11ReportActionTest extends BeamActionTestBase {
             "gs://staging-project/staging-bucket/",
             "gs://reporting-project/reporting-bucket/",
             "api_key/a",
+            false,
             clock.nowUtc().toLocalDate(),
             true,
             clock,
@@ -105,6 +107,7 @@ class GenerateSpec11ReportActionTest extends BeamActionTestBase {
             "gs://staging-project/staging-bucket/",
             "gs://reporting-project/reporting-bucket/",
             "api_key/a",
+            false,
             clock.nowUtc().toLocalDate(),
             false,
             clock,
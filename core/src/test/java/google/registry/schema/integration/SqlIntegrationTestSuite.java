@@ -29,7 +29,9 @@ import google.registry.model.history.DomainHistoryTest;
 import google.registry.model.history.HostHistoryTest;
 import google.registry.model.poll.PollMessageTest;
 import google.registry.model.rde.RdeRevisionTest;
+import google.registry.model.reporting.IcannActivityCountTest;
 import google.registry.model.reporting.Spec11ThreatMatchTest;
+import google.registry.model.reporting.Spec11VerdictTest;
 import google.registry.model.server.LockTest;
 import google.registry.model.server.ServerSecretTest;
 import google.registry.model.smd.SignedMarkRevocationListDaoTest;
@@ -91,6 +93,7 @@ import org.junit.runner.RunWith;
   DomainSqlTest.class,
   DomainHistoryTest.class,
   HostHistoryTest.class,
+  IcannActivityCountTest.class,
   LockTest.class,
   PollMessageTest.class,
   PremiumListDaoTest.class,
@@ -102,6 +105,7 @@ import org.junit.runner.RunWith;
   ServerSecretTest.class,
   SignedMarkRevocationListDaoTest.class,
   Spec11ThreatMatchTest.class,
+  Spec11VerdictTest.class,
   TmchCrlTest.class,
   UserTest.class,
   // AfterSuiteTest must be the last entry. See class javadoc for details.
@@ -56,6 +56,8 @@ public final class FakeKeyringModule {
   private static final String MARKSDB_LORDN_PASSWORD = "yolo";
   private static final String MARKSDB_SMDRL_LOGIN_AND_PASSWORD = "smdrl:yolo";
   private static final String JSON_CREDENTIAL = "json123";
+  private static final String EPP_SESSION_TOKEN_KEYS =
+      "fake:AAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAA";
 
   @Provides
   public Keyring get() {
@@ -131,6 +133,11 @@ public final class FakeKeyringModule {
         return JSON_CREDENTIAL;
       }
 
+      @Override
+      public String getEppSessionTokenKeys() {
+        return EPP_SESSION_TOKEN_KEYS;
+      }
+
       @Override
       public String getIcannReportingPassword() {
         return ICANN_REPORTING_PASSWORD;
@@ -21,6 +21,7 @@ import static org.joda.time.Duration.standardDays;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.io.CharSource;
 import google.registry.model.smd.SignedMarkRevocationList;
 import google.registry.testing.FakeClock;
@@ -42,6 +43,28 @@ class SmdrlCsvParserTest {
     assertThat(smdrl.getCreationTime()).isEqualTo(DateTime.parse("2013-11-24T23:30:04.3Z"));
   }
 
+  @Test
+  void testParseRevocations() throws Exception {
+    ImmutableMap.Builder<String, DateTime> revocations = new ImmutableMap.Builder<>();
+    SmdrlCsvParser.parseRevocations(SMDRL_LATEST_CSV, revocations::put);
+    assertThat(SmdrlCsvParser.parseCreationTime(SMDRL_LATEST_CSV))
+        .isEqualTo(DateTime.parse("2013-11-24T23:30:04.3Z"));
+    assertThat(revocations.build()).hasSize(150);
+    assertThat(revocations.build())
+        .containsEntry("0000001681375789102250-65535", DateTime.parse("2013-08-09T12:00:00.0Z"));
+  }
+
+  @Test
+  void testFail_parseCreationTime_badVersion() {
+    IllegalArgumentException thrown =
+        assertThrows(
+            IllegalArgumentException.class,
+            () ->
+                SmdrlCsvParser.parseCreationTime(
+                    CharSource.wrap("666,2013-11-24T23:30:04.3Z\nsmd-id,insertion-datetime\n")));
+    assertThat(thrown).hasMessageThat().contains("version");
+  }
+
   @Test
   void testFirstRow() throws Exception {
     SignedMarkRevocationList smdrl = SmdrlCsvParser.parse(SMDRL_LATEST_CSV.readLines());
@@ -15,18 +15,22 @@
 package google.registry.tools;
 
 import static com.google.common.truth.Truth.assertThat;
+import static google.registry.request.JsonResponse.JSON_SAFETY_PREFIX;
 import static google.registry.testing.DatabaseHelper.createTlds;
 import static google.registry.testing.DatabaseHelper.newTld;
 import static google.registry.testing.DatabaseHelper.persistResource;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 import com.google.common.base.Strings;
+import com.google.common.base.VerifyException;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.net.MediaType;
 import google.registry.model.tld.Tld.TldType;
 import google.registry.tools.server.ListDomainsAction;
+import google.registry.tools.server.ListDomainsPageAction;
 import org.junit.jupiter.api.Test;
 import org.mockito.junit.jupiter.MockitoSettings;
 import org.mockito.quality.Strictness;
@@ -82,4 +86,98 @@ public class ListDomainsCommandTest extends ListObjectsCommandTestCase<ListDomai
             eq(MediaType.PLAIN_TEXT_UTF_8),
             eq(new byte[0]));
   }
+
+  @Test
+  @MockitoSettings(strictness = Strictness.LENIENT)
+  void test_pageSize_listsPagesFromPagedTask() throws Exception {
+    String pagePath = ListDomainsPageAction.PATH;
+    when(connection.sendPostRequest(
+            eq(pagePath),
+            eq(ImmutableMap.of("fields", "creationTime", "tlds", "foo", "pageSize", 2)),
+            eq(MediaType.PLAIN_TEXT_UTF_8),
+            eq(new byte[0])))
+        .thenReturn(
+            JSON_SAFETY_PREFIX
+                + "{\"fields\":[\"domainName\",\"creationTime\"]}\n"
+                + "[\"a.foo\",\"2015-01-01T00:00:00.000Z\"]\n"
+                + "[\"b.foo\",\"2015-02-01T00:00:00.000Z\"]\n"
+                + "{\"status\":\"success\",\"nextPageToken\":\"Yi5mb28\"}\n");
+    when(connection.sendPostRequest(
+            eq(pagePath),
+            eq(
+                ImmutableMap.of(
+                    "fields",
+                    "creationTime",
+                    "tlds",
+                    "foo",
+                    "pageSize",
+                    2,
+                    "pageToken",
+                    "Yi5mb28")),
+            eq(MediaType.PLAIN_TEXT_UTF_8),
+            eq(new byte[0])))
+        .thenReturn(
+            JSON_SAFETY_PREFIX
+                + "{\"fields\":[\"domainName\",\"creationTime\"]}\n"
+                + "[\"c.foo\",\"2015-03-01T00:00:00.000Z\"]\n"
+                + "{\"status\":\"success\"}\n");
+    runCommand("--tlds=foo", "--page_size=2", "--fields=creationTime");
+    assertStdoutIs(
+        "domainName\tcreationTime\n"
+            + "a.foo\t2015-01-01T00:00:00.000Z\n"
+            + "b.foo\t2015-02-01T00:00:00.000Z\n"
+            + "c.foo\t2015-03-01T00:00:00.000Z\n");
+  }
+
+  @Test
+  @MockitoSettings(strictness = Strictness.LENIENT)
+  void test_pageSize_withRegistrar() throws Exception {
+    when(connection.sendPostRequest(
+            eq(ListDomainsPageAction.PATH),
+            eq(ImmutableMap.of("tlds", "foo", "pageSize", 100, "registrar", "TheRegistrar")),
+            eq(MediaType.PLAIN_TEXT_UTF_8),
+            eq(new byte[0])))
+        .thenReturn(
+            JSON_SAFETY_PREFIX
+                + "{\"fields\":[\"domainName\"]}\n"
+                + "[\"a.foo\"]\n"
+                + "{\"status\":\"success\"}\n");
+    runCommand("--tlds=foo", "--page_size=100", "--registrar=TheRegistrar");
+    assertStdoutIs("a.foo\n");
+  }
+
+  @Test
+  @MockitoSettings(strictness = Strictness.LENIENT)
+  void test_pageSize_error() throws Exception {
+    when(connection.sendPostRequest(
+            eq(ListDomainsPageAction.PATH),
+            eq(ImmutableMap.of("tlds", "foo", "pageSize", 100)),
+            eq(MediaType.PLAIN_TEXT_UTF_8),
+            eq(new byte[0])))
+        .thenReturn(JSON_SAFETY_PREFIX + "{\"status\":\"error\",\"error\":\"Bad field\"}\n");
+    VerifyException thrown =
+        assertThrows(
+            VerifyException.class, () -> runCommand("--tlds=foo", "--page_size=100"));
+    assertThat(thrown).hasMessageThat().contains("Bad field");
+  }
+
+  @Test
+  @MockitoSettings(strictness = Strictness.LENIENT)
+  void test_registrarWithoutPageSize() {
+    IllegalArgumentException thrown =
+        assertThrows(
+            IllegalArgumentException.class,
+            () -> runCommand("--tlds=foo", "--registrar=TheRegistrar"));
+    assertThat(thrown).hasMessageThat().contains("--registrar requires --page_size");
+  }
+
+  @Test
+  @MockitoSettings(strictness = Strictness.LENIENT)
+  void test_limitWithPageSize() {
+    IllegalArgumentException thrown =
+        assertThrows(
+            IllegalArgumentException.class,
+            () -> runCommand("--tlds=foo", "--page_size=100", "--limit=5"));
+    assertThat(thrown).hasMessageThat().contains("--limit can't be used with --page_size");
+  }
 }
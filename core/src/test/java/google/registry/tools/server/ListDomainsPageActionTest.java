@@ -0,0 +1,161 @@
+// Copyright 2023 The Nomulus Authors. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package google.registry.tools.server;
+
+import static com.google.common.truth.Truth.assertThat;
+import static google.registry.request.JsonResponse.JSON_SAFETY_PREFIX;
+import static google.registry.testing.DatabaseHelper.createTlds;
+import static google.registry.testing.DatabaseHelper.persistActiveDomain;
+import static google.registry.testing.DatabaseHelper.persistDeletedDomain;
+import static google.registry.testing.DatabaseHelper.persistResource;
+import static google.registry.tools.server.ListDomainsPageAction.NDJSON_UTF_8;
+
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableSet;
+import google.registry.persistence.transaction.JpaTestExtensions;
+import google.registry.persistence.transaction.JpaTestExtensions.JpaIntegrationTestExtension;
+import google.registry.testing.FakeResponse;
+import java.util.List;
+import java.util.Optional;
+import org.joda.time.DateTime;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+/** Unit tests for {@link ListDomainsPageAction}. */
+class ListDomainsPageActionTest {
+
+  @RegisterExtension
+  final JpaIntegrationTestExtension jpa =
+      new JpaTestExtensions.Builder().buildIntegrationTestExtension();
+
+  private final FakeResponse response = new FakeResponse();
+  private final ListDomainsPageAction action = new ListDomainsPageAction();
+
+  @BeforeEach
+  void beforeEach() {
+    createTlds("foo", "bar", "sim");
+    action.response = response;
+    action.tlds = ImmutableSet.of("foo", "bar");
+    action.fields = Optional.empty();
+    action.registrarId = Optional.empty();
+    action.pageSize = 100;
+    action.pageToken = Optional.empty();
+  }
+
+  private List<String> runAction() {
+    action.run();
+    assertThat(response.getContentType()).isEqualTo(NDJSON_UTF_8);
+    assertThat(response.getPayload()).startsWith(JSON_SAFETY_PREFIX);
+    return Splitter.on('\n')
+        .omitEmptyStrings()
+        .splitToList(response.getPayload().substring(JSON_SAFETY_PREFIX.length()));
+  }
+
+  @Test
+  void testRun_listsActiveDomainsOnTldsInOrder() {
+    persistActiveDomain("zzz.foo");
+    persistActiveDomain("aaa.bar");
+    persistActiveDomain("mmm.foo");
+    persistActiveDomain("notlisted.sim");
+    persistDeletedDomain("deleted.foo", DateTime.parse("2001-03-14T10:11:12Z"));
+    assertThat(runAction())
+        .containsExactly(
+            "{\"fields\":[\"domainName\"]}",
+            "[\"aaa.bar\"]",
+            "[\"mmm.foo\"]",
+            "[\"zzz.foo\"]",
+            "{\"status\":\"success\"}")
+        .inOrder();
+  }
+
+  @Test
+  void testRun_selectsRequestedFields() {
+    persistActiveDomain("example.foo", DateTime.parse("2015-02-15T15:15:15Z"));
+    action.fields = Optional.of("currentSponsorRegistrarId,creationTime,domainName");
+    assertThat(runAction())
+        .containsExactly(
+            "{\"fields\":[\"domainName\",\"currentSponsorRegistrarId\",\"creationTime\"]}",
+            "[\"example.foo\",\"TheRegistrar\",\"2015-02-15T15:15:15.000Z\"]",
+            "{\"status\":\"success\"}")
+        .inOrder();
+  }
+
+  @Test
+  void testRun_pagesThroughDomains() {
+    persistActiveDomain("a.foo");
+    persistActiveDomain("b.foo");
+    persistActiveDomain("c.foo");
+    action.pageSize = 2;
+    List<String> firstPage = runAction();
+    assertThat(firstPage.subList(0, 3))
+        .containsExactly("{\"fields\":[\"domainName\"]}", "[\"a.foo\"]", "[\"b.foo\"]")
+        .inOrder();
+    assertThat(firstPage.get(3)).contains("\"nextPageToken\"");
+    String token =
+        firstPage.get(3).replaceAll(".*\"nextPageToken\":\"([^\"]*)\".*", "$1");
+
+    FakeResponse secondResponse = new FakeResponse();
+    action.response = secondResponse;
+    action.pageToken = Optional.of(token);
+    action.run();
+    assertThat(secondResponse.getPayload())
+        .isEqualTo(
+            JSON_SAFETY_PREFIX
+                + "{\"fields\":[\"domainName\"]}\n"
+                + "[\"c.foo\"]\n"
+                + "{\"status\":\"success\"}\n");
+  }
+
+  @Test
+  void testRun_filtersByRegistrar() {
+    persistActiveDomain("mine.foo");
+    persistResource(
+        persistActiveDomain("theirs.foo")
+            .asBuilder()
+            .setPersistedCurrentSponsorRegistrarId("NewRegistrar")
+            .build());
+    action.registrarId = Optional.of("NewRegistrar");
+    assertThat(runAction())
+        .containsExactly(
+            "{\"fields\":[\"domainName\"]}", "[\"theirs.foo\"]", "{\"status\":\"success\"}")
+        .inOrder();
+  }
+
+  @Test
+  void testRun_unknownField() {
+    action.fields = Optional.of("nsHosts");
+    List<String> lines = runAction();
+    assertThat(lines).hasSize(1);
+    assertThat(lines.get(0)).contains("\"status\":\"error\"");
+    assertThat(lines.get(0)).contains("Field 'nsHosts' can't be listed a page at a time");
+  }
+
+  @Test
+  void testRun_invalidPageSize() {
+    action.pageSize = 0;
+    List<String> lines = runAction();
+    assertThat(lines).hasSize(1);
+    assertThat(lines.get(0)).contains("Page size must be between 1 and 10000");
+  }
+
+  @Test
+  void testRun_invalidTld() {
+    action.tlds = ImmutableSet.of("%%%badtld%%%");
+    List<String> lines = runAction();
+    assertThat(lines).hasSize(1);
+    assertThat(lines.get(0)).contains("TLDs do not exist: %%%badtld%%%");
+  }
+}
@@ -0,0 +1,157 @@
+// Copyright 2023 The Nomulus Authors. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package google.registry.ui.server.console;
+
+import static com.google.common.net.HttpHeaders.ETAG;
+import static com.google.common.net.HttpHeaders.IF_NONE_MATCH;
+import static com.google.common.truth.Truth.assertThat;
+import static google.registry.persistence.transaction.TransactionManagerFactory.tm;
+import static google.registry.testing.DatabaseHelper.createTld;
+import static google.registry.testing.DatabaseHelper.persistActiveDomain;
+import static google.registry.testing.DatabaseHelper.persistDeletedDomain;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.when;
+
+import com.google.api.client.http.HttpStatusCodes;
+import com.google.common.collect.ImmutableMap;
+import com.google.gson.Gson;
+import google.registry.model.console.RegistrarRole;
+import google.registry.model.console.User;
+import google.registry.model.console.UserRoles;
+import google.registry.persistence.transaction.JpaTestExtensions;
+import google.registry.persistence.transaction.JpaTransactionManager;
+import google.registry.persistence.transaction.TransactionManagerFactory;
+import google.registry.request.RequestModule;
+import google.registry.request.auth.AuthResult;
+import google.registry.request.auth.AuthSettings.AuthLevel;
+import google.registry.request.auth.UserAuthInfo;
+import google.registry.testing.FakeResponse;
+import java.util.function.Supplier;
+import javax.servlet.http.HttpServletRequest;
+import org.joda.time.DateTime;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+/** Tests for {@link ConsoleRegistrarSummaryAction}. */
+class ConsoleRegistrarSummaryActionTest {
+
+  private static final Gson GSON = RequestModule.provideGson();
+
+  private final HttpServletRequest request = mock(HttpServletRequest.class);
+  private FakeResponse response;
+
+  @RegisterExtension
+  final JpaTestExtensions.JpaIntegrationTestExtension jpa =
+      new JpaTestExtensions.Builder().buildIntegrationTestExtension();
+
+  @BeforeEach
+  void beforeEach() {
+    createTld("tld");
+    persistActiveDomain("active1.tld");
+    persistActiveDomain("active2.tld");
+    persistDeletedDomain("deleted.tld", DateTime.parse("2000-01-01T00:00:00Z"));
+  }
+
+  @Test
+  void testSuccess_summary() {
+    createAction(RegistrarRole.ACCOUNT_MANAGER, "TheRegistrar").run();
+    assertThat(response.getStatus()).isEqualTo(HttpStatusCodes.STATUS_CODE_OK);
+    RegistrarSummary summary = RegistrarSummary.get("TheRegistrar").get();
+    assertThat(summary.getActiveDomainCount()).isEqualTo(2);
+    assertThat(summary.getDomainCountsByStatus()).containsExactly("INACTIVE", 2L);
+    assertThat(summary.getContacts()).isNotEmpty();
+    assertThat(response.getPayload()).contains("\"registrarId\":\"TheRegistrar\"");
+    assertThat(response.getPayload()).contains("\"activeDomainCount\":2");
+    assertThat(response.getHeaders()).containsKey(ETAG);
+  }
+
+  @Test
+  void testSuccess_notModified() {
+    createAction(RegistrarRole.ACCOUNT_MANAGER, "TheRegistrar").run();
+    String etag = (String) response.getHeaders().get(ETAG);
+    when(request.getHeader(IF_NONE_MATCH)).thenReturn(etag);
+    createAction(RegistrarRole.ACCOUNT_MANAGER, "TheRegistrar").run();
+    assertThat(response.getStatus()).isEqualTo(304);
+    assertThat(response.getPayload()).isEmpty();
+  }
+
+  @Test
+  void testSuccess_modified() {
+    createAction(RegistrarRole.ACCOUNT_MANAGER, "TheRegistrar").run();
+    String etag = (String) response.getHeaders().get(ETAG);
+    persistActiveDomain("active3.tld");
+    RegistrarSummary.refresh("TheRegistrar");
+    when(request.getHeader(IF_NONE_MATCH)).thenReturn(etag);
+    createAction(RegistrarRole.ACCOUNT_MANAGER, "TheRegistrar").run();
+    assertThat(response.getStatus()).isEqualTo(HttpStatusCodes.STATUS_CODE_OK);
+    assertThat(response.getPayload()).contains("\"activeDomainCount\":3");
+  }
+
+  @Test
+  void testSuccess_refreshFails_summaryInvalidated() {
+    createAction(RegistrarRole.ACCOUNT_MANAGER, "TheRegistrar").run();
+    persistActiveDomain("active3.tld");
+    JpaTransactionManager failingTm = spy(tm());
+    doThrow(new IllegalStateException("Database unavailable"))
+        .when(failingTm)
+        .transact(any(Supplier.class));
+    TransactionManagerFactory.setJpaTm(() -> failingTm);
+    // The change was committed, so a failure to load the new summary doesn't fail the request.
+    RegistrarSummary.refresh("TheRegistrar");
+    createAction(RegistrarRole.ACCOUNT_MANAGER, "TheRegistrar").run();
+    assertThat(response.getStatus()).isEqualTo(HttpStatusCodes.STATUS_CODE_OK);
+    assertThat(response.getPayload()).contains("\"activeDomainCount\":3");
+  }
+
+  @Test
+  void testFailure_noAccessToRegistrar() {
+    createAction(RegistrarRole.ACCOUNT_MANAGER, "NewRegistrar").run();
+    assertThat(response.getStatus()).isEqualTo(HttpStatusCodes.STATUS_CODE_FORBIDDEN);
+  }
+
+  @Test
+  void testFailure_nonexistentRegistrar() {
+    createAction(RegistrarRole.ACCOUNT_MANAGER, "nonexistent", "nonexistent").run();
+    assertThat(response.getStatus()).isEqualTo(HttpStatusCodes.STATUS_CODE_NOT_FOUND);
+  }
+
+  private ConsoleRegistrarSummaryAction createAction(RegistrarRole role, String registrarId) {
+    return createAction(role, "TheRegistrar", registrarId);
+  }
+
+  private ConsoleRegistrarSummaryAction createAction(
+      RegistrarRole role, String userRegistrarId, String registrarId) {
+    response = new FakeResponse();
+    User user =
+        new User.Builder()
+            .setEmailAddress("email@email.com")
+            .setGaiaId("gaiaId")
+            .setUserRoles(
+                new UserRoles.Builder()
+                    .setRegistrarRoles(ImmutableMap.of(userRegistrarId, role))
+                    .build())
+            .build();
+    return new ConsoleRegistrarSummaryAction(
+        request,
+        AuthResult.create(AuthLevel.USER, UserAuthInfo.create(user)),
+        response,
+        GSON,
+        registrarId);
+  }
+}
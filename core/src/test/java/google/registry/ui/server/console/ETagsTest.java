@@ -0,0 +1,81 @@
+// Copyright 2023 The Nomulus Authors. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package google.registry.ui.server.console;
+
+import static com.google.common.net.HttpHeaders.CACHE_CONTROL;
+import static com.google.common.net.HttpHeaders.ETAG;
+import static com.google.common.net.HttpHeaders.IF_NONE_MATCH;
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import google.registry.testing.FakeResponse;
+import javax.servlet.http.HttpServletRequest;
+import org.junit.jupiter.api.Test;
+
+/** Unit tests for {@link ETags}. */
+class ETagsTest {
+
+  private static final String PAYLOAD = "{\"registrarId\":\"TheRegistrar\"}";
+  private static final String ETAG_VALUE = ETags.computeETag(PAYLOAD);
+
+  private final HttpServletRequest request = mock(HttpServletRequest.class);
+  private final FakeResponse response = new FakeResponse();
+
+  @Test
+  void testComputeETag() {
+    assertThat(ETAG_VALUE).startsWith("\"");
+    assertThat(ETAG_VALUE).endsWith("\"");
+    assertThat(ETAG_VALUE).isEqualTo(ETags.computeETag(PAYLOAD));
+    assertThat(ETAG_VALUE).isNotEqualTo(ETags.computeETag("{}"));
+  }
+
+  @Test
+  void testSetPayloadIfModified_noConditionalHeader() {
+    ETags.setPayloadIfModified(request, response, PAYLOAD);
+    assertThat(response.getStatus()).isEqualTo(200);
+    assertThat(response.getPayload()).isEqualTo(PAYLOAD);
+    assertThat(response.getHeaders()).containsEntry(ETAG, ETAG_VALUE);
+    assertThat(response.getHeaders()).containsEntry(CACHE_CONTROL, "private, no-cache");
+  }
+
+  @Test
+  void testSetPayloadIfModified_notModified() {
+    when(request.getHeader(IF_NONE_MATCH)).thenReturn(ETAG_VALUE);
+    ETags.setPayloadIfModified(request, response, PAYLOAD);
+    assertThat(response.getStatus()).isEqualTo(304);
+    assertThat(response.getPayload()).isEmpty();
+    assertThat(response.getHeaders()).containsEntry(ETAG, ETAG_VALUE);
+  }
+
+  @Test
+  void testSetPayloadIfModified_modified() {
+    when(request.getHeader(IF_NONE_MATCH)).thenReturn(ETags.computeETag("{}"));
+    ETags.setPayloadIfModified(request, response, PAYLOAD);
+    assertThat(response.getStatus()).isEqualTo(200);
+    assertThat(response.getPayload()).isEqualTo(PAYLOAD);
+  }
+
+  @Test
+  void testMatches() {
+    assertThat(ETags.matches(null, ETAG_VALUE)).isFalse();
+    assertThat(ETags.matches("", ETAG_VALUE)).isFalse();
+    assertThat(ETags.matches("\"other\"", ETAG_VALUE)).isFalse();
+    assertThat(ETags.matches(ETAG_VALUE, ETAG_VALUE)).isTrue();
+    assertThat(ETags.matches("W/" + ETAG_VALUE, ETAG_VALUE)).isTrue();
+    assertThat(ETags.matches("\"other\", " + ETAG_VALUE, ETAG_VALUE)).isTrue();
+    assertThat(ETags.matches("*", ETAG_VALUE)).isTrue();
+  }
+}
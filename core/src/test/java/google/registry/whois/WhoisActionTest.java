@@ -50,6 +50,7 @@ import google.registry.model.transfer.DomainTransferData;
 import google.registry.model.transfer.TransferStatus;
 import google.registry.persistence.transaction.JpaTestExtensions;
 import google.registry.persistence.transaction.JpaTestExtensions.JpaIntegrationTestExtension;
+import google.registry.reporting.icann.IcannActivityCounter;
 import google.registry.testing.FakeClock;
 import google.registry.testing.FakeResponse;
 import google.registry.testing.FakeSleeper;
@@ -97,6 +98,7 @@ public class WhoisActionTest {
     whoisAction.disclaimer =
         "Doodle Disclaimer\nI exist so that carriage return\nin disclaimer can be tested.";
     whoisAction.retrier = new Retrier(new FakeSleeper(clock), 3);
+    whoisAction.icannActivityCounter = new IcannActivityCounter(clock, false, Duration.ZERO);
     return whoisAction;
   }
 
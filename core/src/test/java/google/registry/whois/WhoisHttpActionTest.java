@@ -39,6 +39,7 @@ import google.registry.model.registrar.Registrar;
 import google.registry.model.tld.Tld;
 import google.registry.persistence.transaction.JpaTestExtensions;
 import google.registry.persistence.transaction.JpaTestExtensions.JpaIntegrationTestExtension;
+import google.registry.reporting.icann.IcannActivityCounter;
 import google.registry.testing.FakeClock;
 import google.registry.testing.FakeResponse;
 import google.registry.testing.FullFieldsTestEntityHelper;
@@ -77,6 +78,8 @@ class WhoisHttpActionTest {
         new WhoisReader(WhoisCommandFactory.createCached(), "Please contact registrar");
     whoisAction.whoisMetrics = new WhoisMetrics();
     whoisAction.metricBuilder = WhoisMetric.builderForRequest(clock);
+    whoisAction.icannActivityCounter =
+        new IcannActivityCounter(clock, false, java.time.Duration.ZERO);
     whoisAction.disclaimer =
         "Doodle Disclaimer\nI exist so that carriage return\nin disclaimer can be tested.";
     return whoisAction;
@@ -0,0 +1,24 @@
+-- Copyright 2023 The Nomulus Authors. All Rights Reserved.
+--
+-- Licensed under the Apache License, Version 2.0 (the "License");
+-- you may not use this file except in compliance with the License.
+-- You may obtain a copy of the License at
+--
+--     http://www.apache.org/licenses/LICENSE-2.0
+--
+-- Unless required by applicable law or agreed to in writing, software
+-- distributed under the License is distributed on an "AS IS" BASIS,
+-- WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+-- See the License for the specific language governing permissions and
+-- limitations under the License.
+
+
+CREATE TABLE "Spec11Verdict" (
+  domain_repo_id text NOT NULL,
+  check_date date NOT NULL,
+  domain_name text NOT NULL,
+  threat_types text[] NOT NULL,
+  PRIMARY KEY (domain_repo_id)
+);
+
+CREATE INDEX spec11verdict_check_date_idx ON "Spec11Verdict" USING btree (check_date);
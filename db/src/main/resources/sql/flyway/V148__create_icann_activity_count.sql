@@ -0,0 +1,26 @@
+-- Copyright 2023 The Nomulus Authors. All Rights Reserved.
+--
+-- Licensed under the Apache License, Version 2.0 (the "License");
+-- you may not use this file except in compliance with the License.
+-- You may obtain a copy of the License at
+--
+--     http://www.apache.org/licenses/LICENSE-2.0
+--
+-- Unless required by applicable law or agreed to in writing, software
+-- distributed under the License is distributed on an "AS IS" BASIS,
+-- WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+-- See the License for the specific language governing permissions and
+-- limitations under the License.
+
+
+CREATE TABLE "IcannActivityCount" (
+  reporting_month text NOT NULL,
+  tld text NOT NULL,
+  registrar_id text NOT NULL,
+  field text NOT NULL,
+  count int8 NOT NULL,
+  PRIMARY KEY (reporting_month, tld, registrar_id, field)
+);
+
+CREATE INDEX icannactivitycount_reporting_month_idx
+  ON "IcannActivityCount" USING btree (reporting_month);
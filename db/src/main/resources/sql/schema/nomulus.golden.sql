@@ -662,6 +662,19 @@ CREATE TABLE public."HostHistory" (
 );
 
 
+--
+-- Name: IcannActivityCount; Type: TABLE; Schema: public; Owner: -
+--
+
+CREATE TABLE public."IcannActivityCount" (
+    reporting_month text NOT NULL,
+    tld text NOT NULL,
+    registrar_id text NOT NULL,
+    field text NOT NULL,
+    count bigint NOT NULL
+);
+
+
 --
 -- Name: Lock; Type: TABLE; Schema: public; Owner: -
 --
@@ -1044,6 +1057,18 @@ CREATE SEQUENCE public."SignedMarkRevocationList_revision_id_seq"
 ALTER SEQUENCE public."SignedMarkRevocationList_revision_id_seq" OWNED BY public."SignedMarkRevocationList".revision_id;
 
 
+--
+-- Name: Spec11Verdict; Type: TABLE; Schema: public; Owner: -
+--
+
+CREATE TABLE public."Spec11Verdict" (
+    domain_repo_id text NOT NULL,
+    check_date date NOT NULL,
+    domain_name text NOT NULL,
+    threat_types text[] NOT NULL
+);
+
+
 --
 -- Name: Tld; Type: TABLE; Schema: public; Owner: -
 --
@@ -1378,6 +1403,14 @@ ALTER TABLE ONLY public."Host"
     ADD CONSTRAINT "Host_pkey" PRIMARY KEY (repo_id);
 
 
+--
+-- Name: IcannActivityCount IcannActivityCount_pkey; Type: CONSTRAINT; Schema: public; Owner: -
+--
+
+ALTER TABLE ONLY public."IcannActivityCount"
+    ADD CONSTRAINT "IcannActivityCount_pkey" PRIMARY KEY (reporting_month, tld, registrar_id, field);
+
+
 --
 -- Name: Lock Lock_pkey; Type: CONSTRAINT; Schema: public; Owner: -
 --
@@ -1498,6 +1531,14 @@ ALTER TABLE ONLY public."SignedMarkRevocationList"
     ADD CONSTRAINT "SignedMarkRevocationList_pkey" PRIMARY KEY (revision_id);
 
 
+--
+-- Name: Spec11Verdict Spec11Verdict_pkey; Type: CONSTRAINT; Schema: public; Owner: -
+--
+
+ALTER TABLE ONLY public."Spec11Verdict"
+    ADD CONSTRAINT "Spec11Verdict_pkey" PRIMARY KEY (domain_repo_id);
+
+
 --
 -- Name: Tld Tld_pkey; Type: CONSTRAINT; Schema: public; Owner: -
 --
@@ -1561,6 +1602,13 @@ ALTER TABLE ONLY public."User"
 CREATE INDEX allocation_token_domain_name_idx ON public."AllocationToken" USING btree (domain_name);
 
 
+--
+-- Name: dnsrefreshrequest_name_idx; Type: INDEX; Schema: public; Owner: -
+--
+
+CREATE INDEX dnsrefreshrequest_name_idx ON public."DnsRefreshRequest" USING btree (name);
+
+
 --
 -- Name: domain_history_to_ds_data_history_idx; Type: INDEX; Schema: public; Owner: -
 --
@@ -1575,6 +1623,13 @@ CREATE INDEX domain_history_to_ds_data_history_idx ON public."DomainDsDataHistor
 CREATE INDEX domain_history_to_transaction_record_idx ON public."DomainTransactionRecord" USING btree (domain_repo_id, history_revision_id);
 
 
+--
+-- Name: icannactivitycount_reporting_month_idx; Type: INDEX; Schema: public; Owner: -
+--
+
+CREATE INDEX icannactivitycount_reporting_month_idx ON public."IcannActivityCount" USING btree (reporting_month);
+
+
 --
 -- Name: idx1iy7njgb7wjmj9piml4l2g0qi; Type: INDEX; Schema: public; Owner: -
 --
@@ -2128,6 +2183,13 @@ CREATE INDEX spec11threatmatch_registrar_id_idx ON public."Spec11ThreatMatch" US
 CREATE INDEX spec11threatmatch_tld_idx ON public."Spec11ThreatMatch" USING btree (tld);
 
 
+--
+-- Name: spec11verdict_check_date_idx; Type: INDEX; Schema: public; Owner: -
+--
+
+CREATE INDEX spec11verdict_check_date_idx ON public."Spec11Verdict" USING btree (check_date);
+
+
 --
 -- Name: user_email_address_idx; Type: INDEX; Schema: public; Owner: -
 --
@@ -149,45 +149,15 @@ public abstract class ProbingAction implements Callable<ChannelFuture> {
                 }
                 ChannelFuture channelFuture = actionHandler.getFinishedFuture();
 
-                timer.newTimeout(
-                    timeout -> {
-                      // Write appropriate outboundMessage to pipeline
-                      ChannelFuture unusedFutureWriteAndFlush =
-                          channel().writeAndFlush(outboundMessage());
-                      channelFuture
-                          .addListener(
-                              future -> {
-                                if (future.isSuccess()) {
-                                  ChannelFuture unusedFuture = finished.setSuccess();
-                                } else {
-                                  ChannelFuture unusedFuture = finished.setFailure(future.cause());
-                                }
-                              })
-                          .addListener(
-                              // If we don't have a persistent connection, close the connection to
-                              // this
-                              // channel
-                              future -> {
-                                if (!protocol().persistentConnection()) {
-
-                                  ChannelFuture closedFuture = channel().close();
-                                  closedFuture.addListener(
-                                      f -> {
-                                        if (f.isSuccess()) {
-                                          logger.atInfo().log(
-                                              "Closed stale channel. Moving on to next"
-                                                  + " ProbingStep");
-                                        } else {
-                                          logger.atWarning().log(
-                                              "Issue closing stale channel. Most likely already "
-                                                  + "closed.");
-                                        }
-                                      });
-                                }
-                              });
-                    },
-                    delay().getStandardSeconds(),
-                    TimeUnit.SECONDS);
+                if (delay().equals(Duration.ZERO)) {
+                  // Skip the timer, whose tick would otherwise hold the message for up to 100ms.
+                  sendOutboundMessage(finished, channelFuture);
+                } else {
+                  timer.newTimeout(
+                      timeout -> sendOutboundMessage(finished, channelFuture),
+                      delay().getStandardSeconds(),
+                      TimeUnit.SECONDS);
+                }
               } else {
                 // if we receive a failure, log the failure, and close the channel
                 logger.atSevere().withCause(connectionFuture.cause()).log(
@@ -199,6 +169,42 @@ public abstract class ProbingAction implements Callable<ChannelFuture> {
     return finished;
   }
 
+  /**
+   * Writes the {@code outboundMessage} down the pipeline and informs {@code finished} of the
+   * result once {@code channelFuture} (the {@link ActionHandler}'s future) completes.
+   */
+  private void sendOutboundMessage(ChannelPromise finished, ChannelFuture channelFuture) {
+    // Write appropriate outboundMessage to pipeline
+    ChannelFuture unusedFutureWriteAndFlush = channel().writeAndFlush(outboundMessage());
+    channelFuture
+        .addListener(
+            future -> {
+              if (future.isSuccess()) {
+                ChannelFuture unusedFuture = finished.setSuccess();
+              } else {
+                ChannelFuture unusedFuture = finished.setFailure(future.cause());
+              }
+            })
+        .addListener(
+            // If we don't have a persistent connection, close the connection to this channel
+            future -> {
+              if (!protocol().persistentConnection()) {
+
+                ChannelFuture closedFuture = channel().close();
+                closedFuture.addListener(
+                    f -> {
+                      if (f.isSuccess()) {
+                        logger.atInfo().log(
+                            "Closed stale channel. Moving on to next ProbingStep");
+                      } else {
+                        logger.atWarning().log(
+                            "Issue closing stale channel. Most likely already closed.");
+                      }
+                    });
+              }
+            });
+  }
+
   @Override
   public final String toString() {
     return String.format(
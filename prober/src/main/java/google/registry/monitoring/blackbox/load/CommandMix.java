@@ -0,0 +1,97 @@
+// Copyright 2023 The Nomulus Authors. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package google.registry.monitoring.blackbox.load;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.google.common.base.Ascii;
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableMap;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * A weighted mix of {@link LoadCommand}s, e.g. {@code check=60,info=20,create=10,renew=5,
+ * transfer=5}.
+ *
+ * <p>Weights are relative, so they need not add up to 100.
+ */
+final class CommandMix {
+
+  private final ImmutableMap<LoadCommand, Integer> weights;
+  private final LoadCommand[] commands;
+  private final int[] cumulativeWeights;
+  private final int totalWeight;
+
+  private CommandMix(ImmutableMap<LoadCommand, Integer> weights) {
+    this.weights = weights;
+    this.commands = new LoadCommand[weights.size()];
+    this.cumulativeWeights = new int[weights.size()];
+    int total = 0;
+    int i = 0;
+    for (Map.Entry<LoadCommand, Integer> entry : weights.entrySet()) {
+      total += entry.getValue();
+      commands[i] = entry.getKey();
+      cumulativeWeights[i] = total;
+      i++;
+    }
+    this.totalWeight = total;
+  }
+
+  /** Parses a mix from a comma-separated list of {@code command=weight} pairs. */
+  static CommandMix parse(String mix) {
+    Map<LoadCommand, Integer> weights = new EnumMap<>(LoadCommand.class);
+    for (Map.Entry<String, String> entry :
+        Splitter.on(',').trimResults().omitEmptyStrings().withKeyValueSeparator('=').split(mix)
+            .entrySet()) {
+      LoadCommand command;
+      try {
+        command = LoadCommand.valueOf(Ascii.toUpperCase(entry.getKey().trim()));
+      } catch (IllegalArgumentException e) {
+        throw new IllegalArgumentException(
+            String.format("Unknown command '%s' in mix '%s'", entry.getKey(), mix), e);
+      }
+      int weight = Integer.parseInt(entry.getValue().trim());
+      checkArgument(weight >= 0, "Negative weight for %s in mix '%s'", command, mix);
+      if (weight > 0) {
+        weights.put(command, weight);
+      }
+    }
+    checkArgument(!weights.isEmpty(), "Mix '%s' does not contain any command", mix);
+    return new CommandMix(ImmutableMap.copyOf(weights));
+  }
+
+  /** Returns the relative weight of each command with a non-zero weight. */
+  ImmutableMap<LoadCommand, Integer> weights() {
+    return weights;
+  }
+
+  /** Picks the next command at random according to the weights. */
+  LoadCommand next(Random random) {
+    int value = random.nextInt(totalWeight);
+    for (int i = 0; i < cumulativeWeights.length; i++) {
+      if (value < cumulativeWeights[i]) {
+        return commands[i];
+      }
+    }
+    throw new AssertionError("Random value out of range: " + value);
+  }
+
+  @Override
+  public String toString() {
+    return weights.toString();
+  }
+}
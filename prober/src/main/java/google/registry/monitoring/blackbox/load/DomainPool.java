@@ -0,0 +1,75 @@
+// Copyright 2023 The Nomulus Authors. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package google.registry.monitoring.blackbox.load;
+
+import com.google.auto.value.AutoValue;
+import java.util.ArrayDeque;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Names of the domains that a load run uses.
+ *
+ * <p>Domains created during the run are kept, along with their current expiration date, so that
+ * info, renew and transfer commands can be sent for domains that actually exist. A domain is
+ * checked out while a command is outstanding for it, so that two renews of the same domain never
+ * race each other, and is then returned to the back of the pool.
+ */
+final class DomainPool {
+
+  private final String tld;
+  private final String prefix;
+  private final AtomicLong counter = new AtomicLong();
+  private final ArrayDeque<PooledDomain> domains = new ArrayDeque<>();
+
+  DomainPool(String tld, String runId) {
+    this.tld = tld;
+    this.prefix = "load-" + runId + "-";
+  }
+
+  /** Returns a domain name that has not been used in this run. */
+  String newDomainName() {
+    return prefix + counter.incrementAndGet() + "." + tld;
+  }
+
+  /** Checks out the least recently used domain in the pool, if any. */
+  synchronized Optional<PooledDomain> checkOut() {
+    return Optional.ofNullable(domains.pollFirst());
+  }
+
+  /** Adds a newly created domain, or returns a checked out one, to the back of the pool. */
+  synchronized void checkIn(PooledDomain domain) {
+    domains.addLast(domain);
+  }
+
+  /** Returns the number of domains that are currently available. */
+  synchronized int size() {
+    return domains.size();
+  }
+
+  /** A domain created during the run. */
+  @AutoValue
+  abstract static class PooledDomain {
+
+    abstract String name();
+
+    /** The current expiration date, in the {@code YYYY-MM-DD} format used by EPP renews. */
+    abstract String expirationDate();
+
+    static PooledDomain create(String name, String expirationDate) {
+      return new AutoValue_DomainPool_PooledDomain(name, expirationDate);
+    }
+  }
+}
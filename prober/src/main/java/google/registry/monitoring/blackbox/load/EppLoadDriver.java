@@ -0,0 +1,360 @@
+// Copyright 2023 The Nomulus Authors. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package google.registry.monitoring.blackbox.load;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+
+import com.beust.jcommander.JCommander;
+import com.beust.jcommander.ParameterException;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Ticker;
+import com.google.common.collect.ImmutableList;
+import com.google.common.flogger.FluentLogger;
+import dagger.Component;
+import google.registry.monitoring.blackbox.ProberModule;
+import google.registry.monitoring.blackbox.connection.Protocol;
+import google.registry.monitoring.blackbox.load.LoadSession.ScheduledCommand;
+import google.registry.monitoring.blackbox.module.CertificateModule;
+import google.registry.monitoring.blackbox.module.EppModule;
+import google.registry.monitoring.blackbox.module.EppModule.EppProtocol;
+import google.registry.util.Sleeper;
+import google.registry.util.SystemSleeper;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.EventLoopGroup;
+import java.io.PrintStream;
+import java.util.ArrayDeque;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.inject.Named;
+import javax.inject.Provider;
+import javax.inject.Singleton;
+import org.joda.time.Duration;
+
+/**
+ * Standalone open-loop EPP load generator built on the prober's Netty stack.
+ *
+ * <p>The driver logs in a fixed number of EPP sessions over real TLS connections, through the same
+ * client pipeline as the EPP {@link google.registry.monitoring.blackbox.ProbingSequence}s, and then
+ * schedules commands from a weighted {@link CommandMix} at a fixed rate. Scheduling is open-loop:
+ * the n-th command is due at {@code start + n / rate} no matter how long earlier commands took.
+ * Commands that are due while every session is busy wait in a bounded backlog, and the time they
+ * spend there counts towards their response time, so a server that falls behind shows up in the
+ * latency percentiles instead of silently lowering the offered load.
+ *
+ * <p>TLS client certificates come from the prober's secrets, as do the registrar credentials and
+ * TLD unless they are overridden on the command line. Domains are created with the prober's create
+ * template, so the contacts and host it references must exist on the target environment.
+ *
+ * <p>Usage: {@code java -jar epp_load_driver.jar --host=epp.example.test --sessions=20
+ * --rate=200 --duration_seconds=300}
+ */
+public class EppLoadDriver implements LoadSession.Listener {
+
+  private static final FluentLogger logger = FluentLogger.forEnclosingClass();
+
+  /**
+   * Logger of the prober classes, which log every EPP response at INFO.
+   *
+   * <p>A strong reference is kept so that the level set in {@link #main} is not lost when the
+   * logger is garbage collected.
+   */
+  private static final Logger proberLogger =
+      Logger.getLogger("google.registry.monitoring.blackbox");
+
+  private final EppLoadOptions options;
+  private final CommandMix mix;
+  private final Protocol protocol;
+  private final Provider<Bootstrap> bootstrapProvider;
+  private final String clientId;
+  private final String password;
+  private final String tld;
+  private final PrintStream out;
+  private final Ticker ticker;
+  private final Sleeper sleeper;
+  private final LoadStatistics statistics = new LoadStatistics();
+  private final Random random = new Random();
+
+  /** Logged-in sessions that are not executing a command. Guarded by {@code this}. */
+  private final ArrayDeque<LoadSession> idleSessions = new ArrayDeque<>();
+
+  /** Commands that are due but have not been sent yet. Guarded by {@code this}. */
+  private final ArrayDeque<ScheduledCommand> backlog = new ArrayDeque<>();
+
+  @VisibleForTesting
+  EppLoadDriver(
+      EppLoadOptions options,
+      ImmutableList<Provider<? extends ChannelHandler>> handlerProviders,
+      Provider<Bootstrap> bootstrapProvider,
+      String clientId,
+      String password,
+      String tld,
+      PrintStream out,
+      Ticker ticker,
+      Sleeper sleeper) {
+    checkArgument(options.sessions > 0, "--sessions must be positive");
+    checkArgument(options.rate > 0, "--rate must be positive");
+    checkArgument(options.durationSeconds > 0, "--duration_seconds must be positive");
+    this.options = options;
+    this.mix = CommandMix.parse(options.mix);
+    this.protocol =
+        Protocol.builder()
+            .setName("epp")
+            .setPort(options.port)
+            .setHandlerProviders(handlerProviders)
+            .setPersistentConnection(true)
+            .build();
+    this.bootstrapProvider = bootstrapProvider;
+    this.clientId = clientId;
+    this.password = password;
+    this.tld = tld;
+    this.out = out;
+    this.ticker = ticker;
+    this.sleeper = sleeper;
+  }
+
+  /**
+   * Runs the load test and returns its statistics.
+   *
+   * @throws IllegalStateException if none of the sessions could log in
+   */
+  LoadStatistics run() throws InterruptedException {
+    DomainPool domainPool = new DomainPool(tld, Long.toString(System.currentTimeMillis()));
+    Duration commandTimeout = Duration.standardSeconds(options.commandTimeoutSeconds);
+    ImmutableList.Builder<LoadSession> sessionsBuilder = new ImmutableList.Builder<>();
+    for (int i = 0; i < options.sessions; i++) {
+      sessionsBuilder.add(
+          new LoadSession(
+              String.format("load-%d", i),
+              options.host,
+              protocol,
+              bootstrapProvider,
+              clientId,
+              password,
+              commandTimeout,
+              domainPool,
+              statistics,
+              this,
+              ticker));
+    }
+    ImmutableList<LoadSession> sessions = sessionsBuilder.build();
+    int loggedInSessions = connectAll(sessions);
+
+    out.printf(
+        "%d of %d sessions logged in to %s:%d as %s. Sending %s at %.1f commands/s for %ds.%n",
+        loggedInSessions,
+        sessions.size(),
+        options.host,
+        options.port,
+        clientId,
+        mix,
+        options.rate,
+        options.durationSeconds);
+    long startNanos = ticker.read();
+    long endNanos = startNanos + TimeUnit.SECONDS.toNanos(options.durationSeconds);
+    long reportIntervalNanos = TimeUnit.SECONDS.toNanos(options.reportIntervalSeconds);
+    long nextReportNanos = startNanos + reportIntervalNanos;
+    long scheduledCount = 0;
+    while (true) {
+      // Computed from the start time rather than by adding up intervals so that errors don't
+      // accumulate over long runs.
+      long scheduledNanos = startNanos + (long) (scheduledCount * 1e9 / options.rate);
+      if (scheduledNanos >= endNanos) {
+        break;
+      }
+      parkUntil(scheduledNanos);
+      dispatch(ScheduledCommand.create(mix.next(random), scheduledNanos));
+      scheduledCount++;
+      if (ticker.read() >= nextReportNanos) {
+        out.println(statistics.getProgress(elapsedSince(startNanos)));
+        nextReportNanos += reportIntervalNanos;
+      }
+    }
+
+    long drainDeadlineNanos =
+        ticker.read() + TimeUnit.SECONDS.toNanos(options.drainTimeoutSeconds);
+    while (statistics.getTotalCount() < scheduledCount && ticker.read() < drainDeadlineNanos) {
+      sleeper.sleep(Duration.millis(100));
+    }
+    Duration elapsed = elapsedSince(startNanos);
+    long outstanding = scheduledCount - statistics.getTotalCount();
+    closeAll(sessions);
+
+    out.println();
+    out.print(statistics.getReport(elapsed));
+    if (outstanding > 0) {
+      out.printf(
+          "%d commands were still outstanding after the %ds drain timeout.%n",
+          outstanding, options.drainTimeoutSeconds);
+    }
+    return statistics;
+  }
+
+  @Override
+  public void sessionAvailable(LoadSession session) {
+    ScheduledCommand next;
+    synchronized (this) {
+      next = backlog.pollFirst();
+      if (next == null) {
+        idleSessions.addLast(session);
+        return;
+      }
+    }
+    session.execute(next);
+  }
+
+  @Override
+  public synchronized void sessionLost(LoadSession session) {
+    idleSessions.remove(session);
+  }
+
+  /** Sends the command on an idle session, or queues it if there is none. */
+  private void dispatch(ScheduledCommand command) {
+    LoadSession session;
+    synchronized (this) {
+      session = idleSessions.pollFirst();
+      if (session == null) {
+        if (backlog.size() < options.maxBacklog) {
+          backlog.addLast(command);
+        } else {
+          statistics.recordDropped(command.command());
+        }
+        return;
+      }
+    }
+    session.execute(command);
+  }
+
+  /** Logs in all sessions and returns how many of them succeeded. */
+  private int connectAll(ImmutableList<LoadSession> sessions) throws InterruptedException {
+    ImmutableList<CompletableFuture<Void>> logins =
+        sessions.stream().map(LoadSession::connect).collect(ImmutableList.toImmutableList());
+    for (int i = 0; i < sessions.size(); i++) {
+      try {
+        logins.get(i).get(options.commandTimeoutSeconds, TimeUnit.SECONDS);
+        synchronized (this) {
+          // The session may have lost its connection and logged in again in the meantime.
+          if (!idleSessions.contains(sessions.get(i))) {
+            idleSessions.addLast(sessions.get(i));
+          }
+        }
+      } catch (ExecutionException | TimeoutException e) {
+        logger.atWarning().withCause(e).log("%s could not log in.", sessions.get(i));
+        CompletableFuture<Void> unusedFuture = sessions.get(i).close();
+      }
+    }
+    synchronized (this) {
+      checkState(!idleSessions.isEmpty(), "None of the %s sessions could log in", sessions.size());
+      return idleSessions.size();
+    }
+  }
+
+  private void closeAll(ImmutableList<LoadSession> sessions) throws InterruptedException {
+    ImmutableList<CompletableFuture<Void>> logouts =
+        sessions.stream().map(LoadSession::close).collect(ImmutableList.toImmutableList());
+    try {
+      CompletableFuture.allOf(logouts.toArray(new CompletableFuture<?>[0]))
+          .get(options.commandTimeoutSeconds, TimeUnit.SECONDS);
+    } catch (ExecutionException | TimeoutException e) {
+      logger.atWarning().withCause(e).log("Not all sessions logged out cleanly.");
+    }
+  }
+
+  /**
+   * Sleeps until the given time of the {@link Ticker}.
+   *
+   * <p>The {@link Sleeper} only sleeps for whole milliseconds, so this rounds up, and commands are
+   * sent up to a millisecond after they are due. That time counts towards their response time.
+   */
+  private void parkUntil(long deadlineNanos) {
+    long remainingNanos;
+    while ((remainingNanos = deadlineNanos - ticker.read()) > 0) {
+      sleeper.sleepUninterruptibly(
+          Duration.millis(TimeUnit.NANOSECONDS.toMillis(remainingNanos + 999_999)));
+    }
+  }
+
+  private Duration elapsedSince(long startNanos) {
+    return Duration.millis(TimeUnit.NANOSECONDS.toMillis(ticker.read() - startNanos));
+  }
+
+  public static void main(String[] args) throws InterruptedException {
+    EppLoadOptions options = new EppLoadOptions();
+    JCommander jcommander = new JCommander(options);
+    jcommander.setProgramName("epp_load_driver");
+    try {
+      jcommander.parse(args);
+    } catch (ParameterException e) {
+      System.err.println(e.getMessage());
+      jcommander.usage();
+      System.exit(1);
+    }
+    if (options.help) {
+      jcommander.usage();
+      return;
+    }
+    proberLogger.setLevel(Level.WARNING);
+
+    EppLoadComponent component = DaggerEppLoadDriver_EppLoadComponent.create();
+    try {
+      new EppLoadDriver(
+              options,
+              component.eppHandlerProviders(),
+              component.bootstrapProvider(),
+              options.clientId != null ? options.clientId : component.eppUserId().get(),
+              options.password != null ? options.password : component.eppPassword().get(),
+              options.tld != null ? options.tld : component.eppTld(),
+              System.out,
+              Ticker.systemTicker(),
+              new SystemSleeper())
+          .run();
+    } finally {
+      component.eventLoopGroup().shutdownGracefully();
+    }
+  }
+
+  /**
+   * Dagger {@link Component} that reuses the prober's EPP client pipeline and secrets.
+   *
+   * <p>Credentials are exposed as {@link Provider}s so that the prober's secrets are only read if
+   * they are not overridden on the command line.
+   */
+  @Singleton
+  @Component(modules = {ProberModule.class, EppModule.class, CertificateModule.class})
+  interface EppLoadComponent {
+
+    @EppProtocol
+    ImmutableList<Provider<? extends ChannelHandler>> eppHandlerProviders();
+
+    Provider<Bootstrap> bootstrapProvider();
+
+    EventLoopGroup eventLoopGroup();
+
+    @Named("eppUserId")
+    Provider<String> eppUserId();
+
+    @Named("eppPassword")
+    Provider<String> eppPassword();
+
+    @Named("eppTld")
+    String eppTld();
+  }
+}
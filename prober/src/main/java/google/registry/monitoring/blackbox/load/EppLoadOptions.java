@@ -0,0 +1,102 @@
+// Copyright 2023 The Nomulus Authors. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package google.registry.monitoring.blackbox.load;
+
+import com.beust.jcommander.Parameter;
+import com.beust.jcommander.Parameters;
+
+/** Command line options of the {@link EppLoadDriver}. */
+@Parameters(separators = " =")
+final class EppLoadOptions {
+
+  @Parameter(
+      names = {"--host"},
+      description = "Host name of the EPP endpoint (normally the proxy) to send load to.",
+      required = true)
+  String host;
+
+  @Parameter(
+      names = {"--port"},
+      description = "Port of the EPP endpoint.")
+  int port = 700;
+
+  @Parameter(
+      names = {"--sessions"},
+      description = "Number of concurrent logged-in EPP sessions.")
+  int sessions = 10;
+
+  @Parameter(
+      names = {"--rate"},
+      description =
+          "Target number of commands per second across all sessions. Commands are scheduled at "
+              + "this rate regardless of how fast the server responds.")
+  double rate = 50;
+
+  @Parameter(
+      names = {"--duration_seconds"},
+      description = "How long to send commands for, in seconds.")
+  int durationSeconds = 60;
+
+  @Parameter(
+      names = {"--mix"},
+      description =
+          "Relative weights of the commands to send, out of check, info, create, renew and "
+              + "transfer (a transfer query). Info, renew and transfer are sent for domains "
+              + "created earlier in the run.")
+  String mix = "check=60,info=20,create=10,renew=5,transfer=5";
+
+  @Parameter(
+      names = {"--tld"},
+      description = "TLD to create domains under. Defaults to the TLD used by the prober.")
+  String tld;
+
+  @Parameter(
+      names = {"--client_id"},
+      description = "Registrar to log in as. Defaults to the prober's registrar.")
+  String clientId;
+
+  @Parameter(
+      names = {"--password"},
+      description = "EPP password of the registrar. Defaults to the prober's password.")
+  String password;
+
+  @Parameter(
+      names = {"--max_backlog"},
+      description =
+          "Maximum number of commands waiting for a free session. Commands scheduled beyond this "
+              + "are dropped, and reported as such.")
+  int maxBacklog = 10000;
+
+  @Parameter(
+      names = {"--command_timeout_seconds"},
+      description = "How long to wait for a response before the session is reconnected.")
+  int commandTimeoutSeconds = 30;
+
+  @Parameter(
+      names = {"--drain_timeout_seconds"},
+      description = "How long to wait for outstanding commands once the run is over.")
+  int drainTimeoutSeconds = 30;
+
+  @Parameter(
+      names = {"--report_interval_seconds"},
+      description = "Interval between progress lines.")
+  int reportIntervalSeconds = 10;
+
+  @Parameter(
+      names = {"-h", "--help"},
+      description = "Print this help message.",
+      help = true)
+  boolean help;
+}
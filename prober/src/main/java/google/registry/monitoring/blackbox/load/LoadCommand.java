@@ -0,0 +1,125 @@
+// Copyright 2023 The Nomulus Authors. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package google.registry.monitoring.blackbox.load;
+
+import static google.registry.monitoring.blackbox.message.EppMessage.CLIENT_ID_KEY;
+import static google.registry.monitoring.blackbox.message.EppMessage.CLIENT_PASSWORD_KEY;
+import static google.registry.monitoring.blackbox.message.EppMessage.CLIENT_TRID_KEY;
+import static google.registry.monitoring.blackbox.message.EppMessage.DOMAIN_KEY;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import google.registry.monitoring.blackbox.message.EppRequestMessage;
+import google.registry.monitoring.blackbox.message.EppResponseMessage;
+import javax.annotation.Nullable;
+
+/**
+ * The EPP commands that the {@link EppLoadDriver} can replay, along with the templates used to
+ * build them.
+ *
+ * <p>Unlike the prober sequences, the expected response of a load command only checks that the
+ * clTRID matches, so that a well-formed error response (e.g. a create of a domain that already
+ * exists) is recorded as a {@link LoadStatistics.Outcome#FAILED} command instead of tearing down
+ * the session.
+ */
+enum LoadCommand {
+  CHECK("check.xml", false),
+  INFO("info.xml", true),
+  CREATE("create.xml", false),
+  RENEW("renew.xml", true),
+  TRANSFER("transfer_query.xml", true);
+
+  /** XPath of the current expiration date in a domain renew command. */
+  static final String CURRENT_EXPIRATION_DATE_KEY = "//domainns:curExpDate";
+
+  /** XPath of the expiration date in a domain create or renew response. */
+  static final String EXPIRATION_DATE_KEY = "//domainns:exDate";
+
+  /** XPath of the result code in any EPP response. */
+  static final String RESULT_CODE_KEY = "//eppns:result/@code";
+
+  private final String template;
+  private final boolean targetsExistingDomain;
+
+  LoadCommand(String template, boolean targetsExistingDomain) {
+    this.template = template;
+    this.targetsExistingDomain = targetsExistingDomain;
+  }
+
+  /** Whether the command should be sent for a domain created earlier in the run. */
+  boolean targetsExistingDomain() {
+    return targetsExistingDomain;
+  }
+
+  /**
+   * Returns a new, unmodified {@link EppRequestMessage} for this command.
+   *
+   * @param currentExpirationDate the {@code curExpDate} to send with a renew, ignored otherwise
+   */
+  EppRequestMessage createRequest(@Nullable String currentExpirationDate) {
+    return new EppRequestMessage(
+        name().toLowerCase(),
+        createClTridResponse(),
+        template,
+        (clTrid, domain) -> {
+          ImmutableMap.Builder<String, String> replacements =
+              ImmutableMap.<String, String>builder()
+                  .put(CLIENT_TRID_KEY, clTrid)
+                  .put(DOMAIN_KEY, domain);
+          if (this == RENEW) {
+            replacements.put(CURRENT_EXPIRATION_DATE_KEY, currentExpirationDate);
+          }
+          return replacements.build();
+        });
+  }
+
+  /** Returns a new {@link EppRequestMessage} that waits for the server greeting. */
+  static EppRequestMessage createHelloRequest() {
+    return new EppRequestMessage(
+        "hello",
+        new EppResponseMessage(
+            "greeting", (clTrid, domain) -> ImmutableList.of("//eppns:greeting")),
+        null,
+        (clTrid, domain) -> ImmutableMap.of());
+  }
+
+  /** Returns a new login {@link EppRequestMessage} for the given registrar credentials. */
+  static EppRequestMessage createLoginRequest(String clientId, String password) {
+    return new EppRequestMessage(
+        "login",
+        createClTridResponse(),
+        "login.xml",
+        (clTrid, domain) ->
+            ImmutableMap.of(
+                CLIENT_TRID_KEY, clTrid,
+                CLIENT_ID_KEY, clientId,
+                CLIENT_PASSWORD_KEY, password));
+  }
+
+  /** Returns a new logout {@link EppRequestMessage}. */
+  static EppRequestMessage createLogoutRequest() {
+    return new EppRequestMessage(
+        "logout",
+        createClTridResponse(),
+        "logout.xml",
+        (clTrid, domain) -> ImmutableMap.<String, String>of(CLIENT_TRID_KEY, clTrid));
+  }
+
+  private static EppResponseMessage createClTridResponse() {
+    return new EppResponseMessage(
+        "clTrid",
+        (clTrid, domain) -> ImmutableList.of(String.format("//eppns:clTRID[.='%s']", clTrid)));
+  }
+}
@@ -0,0 +1,448 @@
+// Copyright 2023 The Nomulus Authors. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package google.registry.monitoring.blackbox.load;
+
+import static google.registry.monitoring.blackbox.load.LoadCommand.EXPIRATION_DATE_KEY;
+import static google.registry.monitoring.blackbox.load.LoadCommand.RESULT_CODE_KEY;
+
+import com.google.auto.value.AutoValue;
+import com.google.common.base.Strings;
+import com.google.common.base.Ticker;
+import com.google.common.flogger.FluentLogger;
+import google.registry.monitoring.blackbox.connection.ProbingAction;
+import google.registry.monitoring.blackbox.connection.Protocol;
+import google.registry.monitoring.blackbox.exception.UndeterminedStateException;
+import google.registry.monitoring.blackbox.load.DomainPool.PooledDomain;
+import google.registry.monitoring.blackbox.load.LoadStatistics.Outcome;
+import google.registry.monitoring.blackbox.message.EppRequestMessage;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.EventLoop;
+import io.netty.util.concurrent.ScheduledFuture;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import javax.annotation.Nullable;
+import javax.inject.Provider;
+import org.joda.time.DateTimeZone;
+import org.joda.time.Duration;
+import org.joda.time.LocalDate;
+
+/**
+ * A single logged-in EPP session of the {@link EppLoadDriver}.
+ *
+ * <p>Each command is sent as a {@link ProbingAction} without delay on the session's persistent
+ * channel, so the full client pipeline of the prober (TLS, EPP framing, {@link
+ * google.registry.monitoring.blackbox.handler.EppMessageHandler} and {@link
+ * google.registry.monitoring.blackbox.handler.EppActionHandler}) is exercised. A session executes
+ * one command at a time, as EPP requires, and tells its {@link Listener} whenever it is ready for
+ * the next one.
+ *
+ * <p>If a command does not get a valid response within the timeout, or the connection is lost, the
+ * command is recorded as an {@link Outcome#ERROR} and the session logs in again on a new
+ * connection before it becomes available. A session whose connection is lost while it is idle
+ * tells its {@link Listener} that it is no longer available, and logs in again as well.
+ */
+final class LoadSession {
+
+  private static final FluentLogger logger = FluentLogger.forEnclosingClass();
+
+  /** Delay before trying to log in again after a failed attempt. */
+  private static final long RECONNECT_DELAY_SECONDS = 1;
+
+  /** Notified when a session is ready to execute a command, or no longer is. */
+  interface Listener {
+    void sessionAvailable(LoadSession session);
+
+    /**
+     * Called when the session lost its connection, and must not be given any command until it is
+     * available again.
+     */
+    void sessionLost(LoadSession session);
+  }
+
+  /** A command scheduled by the driver, along with the time at which it was meant to be sent. */
+  @AutoValue
+  abstract static class ScheduledCommand {
+
+    abstract LoadCommand command();
+
+    /** The intended send time of the command, as read from the driver's {@link Ticker}. */
+    abstract long scheduledNanos();
+
+    static ScheduledCommand create(LoadCommand command, long scheduledNanos) {
+      return new AutoValue_LoadSession_ScheduledCommand(command, scheduledNanos);
+    }
+  }
+
+  /** The state of the command that the session is currently waiting on. */
+  private static final class InFlightCommand {
+    final ScheduledCommand scheduled;
+    final long sentNanos;
+    @Nullable final PooledDomain domain;
+
+    InFlightCommand(ScheduledCommand scheduled, long sentNanos, @Nullable PooledDomain domain) {
+      this.scheduled = scheduled;
+      this.sentNanos = sentNanos;
+      this.domain = domain;
+    }
+  }
+
+  private final String id;
+  private final String host;
+  private final Protocol protocol;
+  private final Provider<Bootstrap> bootstrapProvider;
+  private final String clientId;
+  private final String password;
+  private final Duration commandTimeout;
+  private final DomainPool domainPool;
+  private final LoadStatistics statistics;
+  private final Listener listener;
+  private final Ticker ticker;
+
+  private final AtomicLong clTridCounter = new AtomicLong();
+  private final AtomicReference<InFlightCommand> inFlight = new AtomicReference<>();
+
+  private volatile Channel channel;
+  private volatile boolean closed;
+
+  LoadSession(
+      String id,
+      String host,
+      Protocol protocol,
+      Provider<Bootstrap> bootstrapProvider,
+      String clientId,
+      String password,
+      Duration commandTimeout,
+      DomainPool domainPool,
+      LoadStatistics statistics,
+      Listener listener,
+      Ticker ticker) {
+    this.id = id;
+    this.host = host;
+    this.protocol = protocol;
+    this.bootstrapProvider = bootstrapProvider;
+    this.clientId = clientId;
+    this.password = password;
+    this.commandTimeout = commandTimeout;
+    this.domainPool = domainPool;
+    this.statistics = statistics;
+    this.listener = listener;
+    this.ticker = ticker;
+  }
+
+  /**
+   * Opens a new connection, waits for the greeting and logs in.
+   *
+   * <p>The returned future fails if the connection cannot be established or the login is not
+   * successful. The {@link Listener} is not notified; it is up to the caller to start using the
+   * session.
+   */
+  CompletableFuture<Void> connect() {
+    CompletableFuture<Void> loggedIn = new CompletableFuture<>();
+    ProbingAction hello;
+    EppRequestMessage login;
+    try {
+      login = LoadCommand.createLoginRequest(clientId, password).modifyMessage(newClTrid(), "");
+      hello =
+          ProbingAction.builder()
+              .setBootstrap(bootstrapProvider.get())
+              .setHost(host)
+              .setProtocol(protocol)
+              .setDelay(Duration.ZERO)
+              .setOutboundMessage(LoadCommand.createHelloRequest().modifyMessage(newClTrid(), ""))
+              .build();
+    } catch (UndeterminedStateException e) {
+      loggedIn.completeExceptionally(e);
+      return loggedIn;
+    }
+    Channel newChannel = hello.channel();
+    // Neither ProbingAction nor ActionHandler complete their futures when the connection is
+    // refused or dropped, so we need to watch for that ourselves.
+    newChannel
+        .closeFuture()
+        .addListener(
+            f -> {
+              loggedIn.completeExceptionally(
+                  new IllegalStateException(String.format("Session %s lost its connection", id)));
+              // Connections that are lost before the login completes are retried by whoever called
+              // connect().
+              if (channel == newChannel) {
+                connectionLost(newChannel.eventLoop());
+              }
+            });
+    hello
+        .call()
+        .addListener(
+            (ChannelFuture greeting) -> {
+              if (!greeting.isSuccess()) {
+                loggedIn.completeExceptionally(greeting.cause());
+                ChannelFuture unusedFuture = newChannel.close();
+                return;
+              }
+              runAfterResponse(newChannel, () -> logIn(newChannel, login, loggedIn));
+            });
+    return loggedIn;
+  }
+
+  /** Sends the login command on a new connection, once the greeting has been received. */
+  private void logIn(
+      Channel newChannel, EppRequestMessage login, CompletableFuture<Void> loggedIn) {
+    send(newChannel, login)
+        .addListener(
+            (ChannelFuture response) -> {
+              if (!response.isSuccess()) {
+                loggedIn.completeExceptionally(response.cause());
+                ChannelFuture unusedFuture = newChannel.close();
+              } else if (!isSuccessfulResponse(login)) {
+                loggedIn.completeExceptionally(
+                    new IllegalStateException(
+                        String.format(
+                            "Login of session %s as %s failed with result code %s",
+                            id,
+                            clientId,
+                            login.getExpectedResponse().getElementValue(RESULT_CODE_KEY))));
+                ChannelFuture unusedFuture = newChannel.close();
+              } else {
+                runAfterResponse(
+                    newChannel,
+                    () -> {
+                      // This runs on the event loop of the channel, like the listener of its close
+                      // future, so the session only takes the channel over if it is still open.
+                      if (!loggedIn.isDone()) {
+                        channel = newChannel;
+                        loggedIn.complete(null);
+                      }
+                    });
+              }
+            });
+  }
+
+  /**
+   * Sends the given command on this session.
+   *
+   * <p>Must only be called when the session is available, i.e. after a successful {@link
+   * #connect} or once the {@link Listener} has been told about it.
+   */
+  void execute(ScheduledCommand scheduled) {
+    LoadCommand command = scheduled.command();
+    Optional<PooledDomain> domain =
+        command.targetsExistingDomain() ? domainPool.checkOut() : Optional.empty();
+    String domainName = domain.map(PooledDomain::name).orElseGet(domainPool::newDomainName);
+    // Without a domain from the pool, the renew is bound to fail anyway, but it still needs a date
+    // that is valid according to the schema.
+    String expirationDate =
+        domain
+            .map(PooledDomain::expirationDate)
+            .orElseGet(() -> LocalDate.now(DateTimeZone.UTC).plusYears(1).toString());
+    InFlightCommand current = new InFlightCommand(scheduled, ticker.read(), domain.orElse(null));
+    inFlight.set(current);
+    Channel currentChannel = channel;
+    if (currentChannel == null) {
+      // The connection was lost just before the command was handed to the session. The session
+      // becomes available again once it has logged in on a new connection.
+      if (complete(current, Outcome.ERROR)) {
+        domain.ifPresent(domainPool::checkIn);
+      }
+      return;
+    }
+
+    EppRequestMessage request;
+    try {
+      request = command.createRequest(expirationDate).modifyMessage(newClTrid(), domainName);
+    } catch (UndeterminedStateException e) {
+      logger.atWarning().withCause(e).log("Cannot build %s command.", command);
+      complete(current, Outcome.ERROR);
+      becomeAvailable(currentChannel);
+      return;
+    }
+    ScheduledFuture<?> unusedTimeout =
+        currentChannel
+            .eventLoop()
+            .schedule(
+                () -> {
+                  if (inFlight.get() == current) {
+                    logger.atWarning().log(
+                        "Session %s timed out waiting for a %s response.", id, command);
+                    ChannelFuture unusedFuture = currentChannel.close();
+                  }
+                },
+                commandTimeout.getMillis(),
+                TimeUnit.MILLISECONDS);
+    send(currentChannel, request)
+        .addListener(
+            (ChannelFuture response) -> {
+              if (!response.isSuccess()) {
+                // The ActionHandler does not recover from a failed response, so start afresh.
+                logger.atWarning().withCause(response.cause()).log(
+                    "Session %s did not get a valid %s response.", id, command);
+                ChannelFuture unusedFuture = currentChannel.close();
+                return;
+              }
+              boolean successful = isSuccessfulResponse(request);
+              if (!complete(current, successful ? Outcome.OK : Outcome.FAILED)) {
+                return;
+              }
+              if (successful
+                  && (command == LoadCommand.CREATE || command == LoadCommand.RENEW)) {
+                String newExpirationDate =
+                    Strings.nullToEmpty(
+                        request.getExpectedResponse().getElementValue(EXPIRATION_DATE_KEY));
+                if (newExpirationDate.length() >= 10) {
+                  domainPool.checkIn(
+                      PooledDomain.create(domainName, newExpirationDate.substring(0, 10)));
+                }
+              } else {
+                domain.ifPresent(domainPool::checkIn);
+              }
+              becomeAvailable(currentChannel);
+            });
+  }
+
+  /**
+   * Logs out and closes the connection.
+   *
+   * <p>The session does not reconnect after this, even if a command is still in flight.
+   */
+  CompletableFuture<Void> close() {
+    closed = true;
+    CompletableFuture<Void> done = new CompletableFuture<>();
+    Channel currentChannel = channel;
+    if (currentChannel == null || !currentChannel.isActive()) {
+      done.complete(null);
+      return done;
+    }
+    currentChannel.closeFuture().addListener(f -> done.complete(null));
+    EppRequestMessage logout;
+    try {
+      logout = LoadCommand.createLogoutRequest().modifyMessage(newClTrid(), "");
+    } catch (UndeterminedStateException e) {
+      ChannelFuture unusedFuture = currentChannel.close();
+      return done;
+    }
+    send(currentChannel, logout).addListener(f -> currentChannel.close());
+    return done;
+  }
+
+  @Override
+  public String toString() {
+    return "LoadSession " + id;
+  }
+
+  /**
+   * Runs the given task once the response currently being read has been fully handled.
+   *
+   * <p>{@link google.registry.monitoring.blackbox.handler.EppActionHandler} only resets its future
+   * after the listeners of the previous one have run, so the next {@link ProbingAction} on the same
+   * channel must not be started from one of those listeners, or it would wait on the stale future.
+   */
+  private static void runAfterResponse(Channel sessionChannel, Runnable task) {
+    sessionChannel.eventLoop().execute(task);
+  }
+
+  /**
+   * Tells the {@link Listener} that the session is available, unless the given connection has been
+   * lost in the meantime, in which case the session becomes available once it has logged in again.
+   *
+   * <p>This runs on the event loop of the channel, like {@link #connectionLost}, so the listener
+   * never hears of the session being available after it has been told that it was lost.
+   */
+  private void becomeAvailable(Channel sessionChannel) {
+    runAfterResponse(
+        sessionChannel,
+        () -> {
+          if (channel == sessionChannel) {
+            listener.sessionAvailable(this);
+          }
+        });
+  }
+
+  private ChannelFuture send(Channel sessionChannel, EppRequestMessage request) {
+    return ProbingAction.builder()
+        .setChannel(sessionChannel)
+        .setHost(host)
+        .setProtocol(protocol)
+        .setDelay(Duration.ZERO)
+        .setOutboundMessage(request)
+        .build()
+        .call();
+  }
+
+  /**
+   * Records the outcome of the given command, unless it has already been recorded.
+   *
+   * @return whether the outcome was recorded, i.e. this is the first time the command completed
+   */
+  private boolean complete(InFlightCommand command, Outcome outcome) {
+    if (!inFlight.compareAndSet(command, null)) {
+      return false;
+    }
+    statistics.recordSent(
+        command.scheduled.command(),
+        outcome,
+        command.scheduled.scheduledNanos(),
+        command.sentNanos,
+        ticker.read());
+    return true;
+  }
+
+  /**
+   * Takes the session out of use after its connection was lost, records the in-flight command, if
+   * any, as an error and logs in again on a new connection.
+   *
+   * <p>This happens whether or not a command was in flight, since an idle connection can be closed
+   * by the server or the network just as well.
+   */
+  private void connectionLost(EventLoop eventLoop) {
+    channel = null;
+    listener.sessionLost(this);
+    InFlightCommand current = inFlight.get();
+    if (current != null && complete(current, Outcome.ERROR) && current.domain != null) {
+      domainPool.checkIn(current.domain);
+    }
+    reconnect(eventLoop);
+  }
+
+  private void reconnect(EventLoop eventLoop) {
+    if (closed) {
+      return;
+    }
+    connect()
+        .whenComplete(
+            (unused, e) -> {
+              if (e == null) {
+                logger.atInfo().log("Session %s reconnected.", id);
+                listener.sessionAvailable(this);
+              } else if (!closed) {
+                logger.atWarning().withCause(e).log("Session %s failed to reconnect.", id);
+                ScheduledFuture<?> unusedFuture =
+                    eventLoop.schedule(
+                        () -> reconnect(eventLoop), RECONNECT_DELAY_SECONDS, TimeUnit.SECONDS);
+              }
+            });
+  }
+
+  private static boolean isSuccessfulResponse(EppRequestMessage request) {
+    return Strings.nullToEmpty(request.getExpectedResponse().getElementValue(RESULT_CODE_KEY))
+        .startsWith("1");
+  }
+
+  private String newClTrid() {
+    return String.format("%s-%d", id, clTridCounter.incrementAndGet());
+  }
+}
@@ -0,0 +1,198 @@
+// Copyright 2023 The Nomulus Authors. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package google.registry.monitoring.blackbox.load;
+
+import com.google.common.collect.ImmutableMap;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.joda.time.Duration;
+
+/**
+ * Latency histograms and outcome counters of a load run, broken down by {@link LoadCommand}.
+ *
+ * <p>Two latencies are recorded for every command that receives a response. The response time is
+ * measured from the time at which the command was <i>scheduled</i> to be sent, so that time spent
+ * waiting for a free session while the server is falling behind is included (i.e. the results are
+ * corrected for coordinated omission). The service time is measured from the time at which the
+ * command was actually written to the session, and is what a closed-loop client would report.
+ *
+ * <p>All latencies are recorded in microseconds and reported in milliseconds.
+ */
+final class LoadStatistics {
+
+  /** The outcome of a single scheduled command. */
+  enum Outcome {
+    /** The server responded with a 1xxx result code. */
+    OK,
+    /** The server responded with a 2xxx result code. */
+    FAILED,
+    /** The command did not receive a valid response, e.g. because the connection was lost. */
+    ERROR,
+    /** The command was never sent because too many commands were already waiting. */
+    DROPPED
+  }
+
+  /** Latencies above an hour are clamped, since they are meaningless for a load test anyway. */
+  private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.HOURS.toMicros(1);
+
+  private static final int SIGNIFICANT_DIGITS = 3;
+
+  private static final double[] REPORTED_PERCENTILES = {50, 90, 99, 99.9};
+
+  private final ImmutableMap<LoadCommand, Histogram> responseTimes;
+  private final ImmutableMap<LoadCommand, Histogram> serviceTimes;
+  private final ImmutableMap<LoadCommand, AtomicLongArray> outcomeCounts;
+
+  LoadStatistics() {
+    ImmutableMap.Builder<LoadCommand, Histogram> responseTimes = new ImmutableMap.Builder<>();
+    ImmutableMap.Builder<LoadCommand, Histogram> serviceTimes = new ImmutableMap.Builder<>();
+    ImmutableMap.Builder<LoadCommand, AtomicLongArray> outcomeCounts = new ImmutableMap.Builder<>();
+    for (LoadCommand command : LoadCommand.values()) {
+      responseTimes.put(command, newHistogram());
+      serviceTimes.put(command, newHistogram());
+      outcomeCounts.put(command, new AtomicLongArray(Outcome.values().length));
+    }
+    this.responseTimes = responseTimes.build();
+    this.serviceTimes = serviceTimes.build();
+    this.outcomeCounts = outcomeCounts.build();
+  }
+
+  private static Histogram newHistogram() {
+    return new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, SIGNIFICANT_DIGITS);
+  }
+
+  /**
+   * Records a command that was sent, along with its timestamps in nanoseconds, as read from the
+   * driver's {@link com.google.common.base.Ticker}.
+   */
+  void recordSent(
+      LoadCommand command,
+      Outcome outcome,
+      long scheduledNanos,
+      long sentNanos,
+      long completedNanos) {
+    outcomeCounts.get(command).incrementAndGet(outcome.ordinal());
+    // Errors have no server response, so their latency would only describe how long it took to
+    // notice that the connection is gone.
+    if (outcome != Outcome.ERROR) {
+      responseTimes.get(command).recordValue(toMicros(completedNanos - scheduledNanos));
+      serviceTimes.get(command).recordValue(toMicros(completedNanos - sentNanos));
+    }
+  }
+
+  /** Records a command that was dropped without being sent. */
+  void recordDropped(LoadCommand command) {
+    outcomeCounts.get(command).incrementAndGet(Outcome.DROPPED.ordinal());
+  }
+
+  /** Returns the number of commands of the given type with the given outcome. */
+  long getCount(LoadCommand command, Outcome outcome) {
+    return outcomeCounts.get(command).get(outcome.ordinal());
+  }
+
+  /** Returns the number of commands with the given outcome, across all commands. */
+  long getCount(Outcome outcome) {
+    return Arrays.stream(LoadCommand.values())
+        .mapToLong(command -> getCount(command, outcome))
+        .sum();
+  }
+
+  /** Returns the number of scheduled commands whose outcome is known. */
+  long getTotalCount() {
+    return Arrays.stream(Outcome.values()).mapToLong(this::getCount).sum();
+  }
+
+  /** Returns the response time percentile of the given command, in milliseconds. */
+  double getResponseTimeMillis(LoadCommand command, double percentile) {
+    return toMillis(responseTimes.get(command).getValueAtPercentile(percentile));
+  }
+
+  /** Returns a one-line summary of the run so far, for periodic progress output. */
+  String getProgress(Duration elapsed) {
+    long responses = getCount(Outcome.OK) + getCount(Outcome.FAILED);
+    return String.format(
+        "%5ds: %d responses (%.1f/s), %d ok, %d failed, %d errors, %d dropped",
+        elapsed.getStandardSeconds(),
+        responses,
+        responses / Math.max(elapsed.getMillis() / 1000.0, 0.001),
+        getCount(Outcome.OK),
+        getCount(Outcome.FAILED),
+        getCount(Outcome.ERROR),
+        getCount(Outcome.DROPPED));
+  }
+
+  /** Returns the final report of the run, with one row per command that was scheduled. */
+  String getReport(Duration elapsed) {
+    StringBuilder report = new StringBuilder();
+    String rowFormat = "%-9s %8s %8s %8s %8s %9s %9s %9s %9s %9s %9s %9s%n";
+    report.append(
+        String.format(
+            rowFormat,
+            "command",
+            "ok",
+            "failed",
+            "error",
+            "dropped",
+            "p50",
+            "p90",
+            "p99",
+            "p99.9",
+            "max",
+            "svc_p50",
+            "svc_p99"));
+    for (LoadCommand command : LoadCommand.values()) {
+      long scheduled =
+          Arrays.stream(Outcome.values()).mapToLong(outcome -> getCount(command, outcome)).sum();
+      if (scheduled == 0) {
+        continue;
+      }
+      Histogram responseTime = responseTimes.get(command);
+      Histogram serviceTime = serviceTimes.get(command);
+      Object[] row = new Object[12];
+      row[0] = command.name().toLowerCase();
+      for (Outcome outcome : Outcome.values()) {
+        row[1 + outcome.ordinal()] = getCount(command, outcome);
+      }
+      for (int i = 0; i < REPORTED_PERCENTILES.length; i++) {
+        row[5 + i] = formatMillis(responseTime.getValueAtPercentile(REPORTED_PERCENTILES[i]));
+      }
+      row[9] = formatMillis(responseTime.getMaxValue());
+      row[10] = formatMillis(serviceTime.getValueAtPercentile(50));
+      row[11] = formatMillis(serviceTime.getValueAtPercentile(99));
+      report.append(String.format(rowFormat, row));
+    }
+    report.append(
+        String.format(
+            "Latencies in milliseconds; p* from scheduled send time, svc_* from actual send time."
+                + "%n%s%n",
+            getProgress(elapsed)));
+    return report.toString();
+  }
+
+  private static long toMicros(long nanos) {
+    return Math.min(Math.max(TimeUnit.NANOSECONDS.toMicros(nanos), 0), HIGHEST_TRACKABLE_MICROS);
+  }
+
+  private static double toMillis(long micros) {
+    return micros / 1000.0;
+  }
+
+  private static String formatMillis(long micros) {
+    return String.format("%.2f", toMillis(micros));
+  }
+}
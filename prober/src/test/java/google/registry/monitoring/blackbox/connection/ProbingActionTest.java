@@ -114,6 +114,46 @@ class ProbingActionTest {
     assertThat(testHandler.toString()).isEqualTo(SECONDARY_TEST_MESSAGE);
   }
 
+  private ProbingAction createActionOnEmbeddedChannel(EmbeddedChannel channel, Duration delay) {
+    channel.attr(CONNECTION_FUTURE_KEY).set(channel.newSucceededFuture());
+    Protocol protocol =
+        Protocol.builder()
+            .setHandlerProviders(ImmutableList.of(() -> conversionHandler, () -> testHandler))
+            .setName(PROTOCOL_NAME)
+            .setPort(TEST_PORT)
+            .setPersistentConnection(true)
+            .build();
+    return ProbingAction.builder()
+        .setChannel(channel)
+        .setProtocol(protocol)
+        .setDelay(delay)
+        .setOutboundMessage(new TestMessage(TEST_MESSAGE))
+        .setHost("")
+        .build();
+  }
+
+  @Test
+  void testSuccess_noDelay_sendsWithoutWaitingForTimer() {
+    EmbeddedChannel channel = new EmbeddedChannel(conversionHandler, testHandler);
+    ChannelFuture future = createActionOnEmbeddedChannel(channel, Duration.ZERO).call();
+
+    // The message is written before call() returns, rather than on a tick of the timer.
+    Object msg = channel.readOutbound();
+    assertThat(msg).isInstanceOf(ByteBuf.class);
+    assertThat(((ByteBuf) msg).toString(UTF_8)).isEqualTo(TEST_MESSAGE);
+    assertThat(future.isDone()).isFalse();
+  }
+
+  @Test
+  void testSuccess_delay_waitsForTimer() {
+    EmbeddedChannel channel = new EmbeddedChannel(conversionHandler, testHandler);
+    ChannelFuture future =
+        createActionOnEmbeddedChannel(channel, Duration.standardSeconds(60)).call();
+
+    assertThat((Object) channel.readOutbound()).isNull();
+    assertThat(future.isDone()).isFalse();
+  }
+
   @Test
   void testSuccess_newChannel() throws Exception {
     // setup
@@ -0,0 +1,84 @@
+// Copyright 2023 The Nomulus Authors. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package google.registry.monitoring.blackbox.load;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.google.common.collect.Range;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/** Unit tests for {@link CommandMix}. */
+class CommandMixTest {
+
+  @Test
+  void testParse() {
+    assertThat(CommandMix.parse("check=60, info=20,CREATE=10,renew=5,transfer=5").weights())
+        .containsExactly(
+            LoadCommand.CHECK, 60,
+            LoadCommand.INFO, 20,
+            LoadCommand.CREATE, 10,
+            LoadCommand.RENEW, 5,
+            LoadCommand.TRANSFER, 5);
+  }
+
+  @Test
+  void testParse_zeroWeightsAreOmitted() {
+    assertThat(CommandMix.parse("check=1,info=0").weights())
+        .containsExactly(LoadCommand.CHECK, 1);
+  }
+
+  @Test
+  void testFailure_unknownCommand() {
+    IllegalArgumentException thrown =
+        assertThrows(IllegalArgumentException.class, () -> CommandMix.parse("check=1,delete=1"));
+    assertThat(thrown).hasMessageThat().contains("Unknown command 'delete'");
+  }
+
+  @Test
+  void testFailure_negativeWeight() {
+    assertThrows(IllegalArgumentException.class, () -> CommandMix.parse("check=-1,info=2"));
+  }
+
+  @Test
+  void testFailure_noCommands() {
+    assertThrows(IllegalArgumentException.class, () -> CommandMix.parse("check=0"));
+  }
+
+  @Test
+  void testNext_singleCommand() {
+    CommandMix mix = CommandMix.parse("renew=3");
+    Random random = new Random(1);
+    for (int i = 0; i < 100; i++) {
+      assertThat(mix.next(random)).isEqualTo(LoadCommand.RENEW);
+    }
+  }
+
+  @Test
+  void testNext_followsWeights() {
+    CommandMix mix = CommandMix.parse("check=3,create=1");
+    Random random = new Random(1);
+    Map<LoadCommand, Integer> counts = new EnumMap<>(LoadCommand.class);
+    for (int i = 0; i < 40000; i++) {
+      counts.merge(mix.next(random), 1, Integer::sum);
+    }
+    assertThat(counts.keySet()).containsExactly(LoadCommand.CHECK, LoadCommand.CREATE);
+    assertThat(counts.get(LoadCommand.CHECK)).isIn(Range.closed(29000, 31000));
+    assertThat(counts.get(LoadCommand.CREATE)).isIn(Range.closed(9000, 11000));
+  }
+}
@@ -0,0 +1,344 @@
+// Copyright 2023 The Nomulus Authors. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package google.registry.monitoring.blackbox.load;
+
+import static com.google.common.truth.Truth.assertThat;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.google.common.base.Ticker;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.Uninterruptibles;
+import google.registry.monitoring.blackbox.handler.EppActionHandler;
+import google.registry.monitoring.blackbox.handler.EppMessageHandler;
+import google.registry.monitoring.blackbox.load.LoadStatistics.Outcome;
+import google.registry.monitoring.blackbox.message.EppMessage;
+import google.registry.monitoring.blackbox.util.EppUtils;
+import google.registry.testing.FakeClock;
+import google.registry.util.Sleeper;
+import google.registry.util.SystemSleeper;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandler.Sharable;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.local.LocalAddress;
+import io.netty.channel.local.LocalChannel;
+import io.netty.channel.local.LocalServerChannel;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.util.ReferenceCountUtil;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.joda.time.DateTime;
+import org.joda.time.LocalDate;
+import org.joda.time.ReadableDuration;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.w3c.dom.Document;
+
+/** End-to-end tests for {@link EppLoadDriver} against a fake EPP server on a local channel. */
+class EppLoadDriverTest {
+
+  private static final String RESPONSE_TEMPLATE =
+      "<?xml version='1.0' encoding='UTF-8'?>"
+          + "<epp xmlns='urn:ietf:params:xml:ns:epp-1.0'"
+          + " xmlns:domain='urn:ietf:params:xml:ns:domain-1.0'>"
+          + "<response><result code='%s'><msg>Fake</msg></result>%s"
+          + "<trID><clTRID>%s</clTRID><svTRID>fake</svTRID></trID></response></epp>";
+
+  private final EventLoopGroup eventLoopGroup = new NioEventLoopGroup(2);
+  private final ByteArrayOutputStream output = new ByteArrayOutputStream();
+  private final FakeEppServer server = new FakeEppServer();
+  private final EppLoadOptions options = new EppLoadOptions();
+
+  @AfterEach
+  void afterEach() {
+    eventLoopGroup.shutdownGracefully();
+  }
+
+  private EppLoadDriver createDriver(String address) {
+    return createDriver(address, Ticker.systemTicker(), new SystemSleeper());
+  }
+
+  private EppLoadDriver createDriver(String address, Ticker ticker, Sleeper sleeper) {
+    ChannelFuture unusedFuture =
+        new ServerBootstrap()
+            .group(eventLoopGroup)
+            .channel(LocalServerChannel.class)
+            .childHandler(
+                new ChannelInitializer<LocalChannel>() {
+                  @Override
+                  protected void initChannel(LocalChannel ch) {
+                    ch.pipeline().addLast(server);
+                  }
+                })
+            .bind(new LocalAddress(address))
+            .syncUninterruptibly();
+    options.host = address;
+    options.durationSeconds = 1;
+    options.commandTimeoutSeconds = 5;
+    options.drainTimeoutSeconds = 5;
+    return new EppLoadDriver(
+        options,
+        ImmutableList.of(
+            () -> new EppMessageHandler(EppUtils.getGreetingResponse()), EppActionHandler::new),
+        () -> new Bootstrap().group(eventLoopGroup).channel(LocalChannel.class),
+        "registrar",
+        "password",
+        "tld",
+        new PrintStream(output, true),
+        ticker,
+        sleeper);
+  }
+
+  @Test
+  void testRun() throws Exception {
+    options.sessions = 3;
+    options.rate = 200;
+    options.mix = "check=2,create=2,info=1,renew=2,transfer=1";
+    LoadStatistics statistics = createDriver("load-driver-test").run();
+
+    // 200 commands are scheduled over the second, i.e. one every 5ms.
+    assertThat(statistics.getTotalCount()).isEqualTo(200);
+    assertThat(statistics.getCount(Outcome.ERROR)).isEqualTo(0);
+    assertThat(statistics.getCount(Outcome.DROPPED)).isEqualTo(0);
+    assertThat(statistics.getCount(LoadCommand.CREATE, Outcome.FAILED)).isEqualTo(0);
+    assertThat(statistics.getCount(LoadCommand.TRANSFER, Outcome.OK)).isEqualTo(0);
+    // Renews of domains created in the run always send the right current expiration date.
+    assertThat(statistics.getCount(LoadCommand.RENEW, Outcome.OK)).isGreaterThan(0);
+    assertThat(server.wrongExpirationDates.get()).isEqualTo(0);
+    assertThat(server.logins.get()).isEqualTo(3);
+    assertThat(server.logouts.get()).isEqualTo(3);
+    String report = output.toString(UTF_8.name());
+    assertThat(report).contains("3 of 3 sessions logged in");
+    assertThat(report).containsMatch("(?m)^create +\\d+ +0 +0 +0 ");
+  }
+
+  @Test
+  void testRun_backlogIsBounded() throws Exception {
+    server.holdResponses = true;
+    options.sessions = 1;
+    options.rate = 100;
+    options.maxBacklog = 5;
+    options.mix = "check=1";
+    FakeClock clock = new FakeClock();
+    EppLoadDriver driver =
+        createDriver(
+            "load-driver-backlog-test",
+            new Ticker() {
+              @Override
+              public long read() {
+                return TimeUnit.MILLISECONDS.toNanos(clock.nowUtc().getMillis());
+              }
+            },
+            new ScheduleSleeper(clock));
+    LoadStatistics statistics = driver.run();
+
+    // No response comes back while the 100 commands are scheduled, so only the first one is sent,
+    // the next five wait in the backlog and all others are dropped.
+    assertThat(statistics.getTotalCount()).isEqualTo(100);
+    assertThat(statistics.getCount(Outcome.DROPPED)).isEqualTo(94);
+    assertThat(statistics.getCount(Outcome.OK)).isEqualTo(6);
+    // The response time includes the time spent in the backlog, which lasts until the end of the
+    // second over which the commands are scheduled.
+    assertThat(statistics.getResponseTimeMillis(LoadCommand.CHECK, 100)).isAtLeast(1000.0);
+  }
+
+  @Test
+  void testRun_reconnectsSessionThatLostItsConnectionWhileIdle() throws Exception {
+    server.dropConnectionAfterFirstCheck.set(true);
+    options.sessions = 1;
+    options.rate = 10;
+    options.mix = "check=1";
+    LoadStatistics statistics = createDriver("load-driver-reconnect-test").run();
+
+    // The connection is closed right after the response to the first check, while the session
+    // waits for the next command 100ms later. The session logs in again in the meantime.
+    assertThat(statistics.getTotalCount()).isEqualTo(10);
+    assertThat(statistics.getCount(Outcome.OK)).isEqualTo(10);
+    assertThat(server.logins.get()).isEqualTo(2);
+    assertThat(server.logouts.get()).isEqualTo(1);
+    assertThat(output.toString(UTF_8.name())).doesNotContain("outstanding");
+  }
+
+  @Test
+  void testFailure_loginFails() {
+    server.loginCode = "2200";
+    options.sessions = 2;
+    EppLoadDriver driver = createDriver("load-driver-login-test");
+
+    IllegalStateException thrown = assertThrows(IllegalStateException.class, driver::run);
+    assertThat(thrown).hasMessageThat().isEqualTo("None of the 2 sessions could log in");
+  }
+
+  /**
+   * A {@link Sleeper} that advances a fake clock instead of sleeping while the commands are
+   * scheduled, so that the driver schedules all of them at once.
+   *
+   * <p>Once the schedule is over, the server answers the commands it held back, and the sleeper
+   * waits for real, so that the responses can arrive while the driver waits for them.
+   */
+  private class ScheduleSleeper implements Sleeper {
+
+    private final FakeClock clock;
+    private final DateTime startOfSchedule;
+
+    ScheduleSleeper(FakeClock clock) {
+      this.clock = clock;
+      this.startOfSchedule = clock.nowUtc();
+    }
+
+    @Override
+    public void sleep(ReadableDuration duration) {
+      sleepUninterruptibly(duration);
+    }
+
+    @Override
+    public void sleepUninterruptibly(ReadableDuration duration) {
+      clock.advanceBy(duration);
+      if (!clock.nowUtc().isBefore(startOfSchedule.plusSeconds(options.durationSeconds))) {
+        server.releaseResponses();
+        Uninterruptibles.sleepUninterruptibly(duration.getMillis(), TimeUnit.MILLISECONDS);
+      }
+    }
+  }
+
+  /** A minimal in-memory EPP server that answers every command with a well-formed response. */
+  @Sharable
+  private static class FakeEppServer extends ChannelInboundHandlerAdapter {
+
+    final Map<String, String> expirationDates = new ConcurrentHashMap<>();
+    final AtomicInteger wrongExpirationDates = new AtomicInteger();
+    final AtomicInteger logins = new AtomicInteger();
+    final AtomicInteger logouts = new AtomicInteger();
+    final AtomicBoolean dropConnectionAfterFirstCheck = new AtomicBoolean();
+    volatile String loginCode = "1000";
+
+    /** Whether responses to commands other than login and logout are held back. */
+    private boolean holdResponses;
+
+    /** Responses that are held back, along with the connection to send them on. */
+    private final List<Runnable> heldResponses = new ArrayList<>();
+
+    /** Sends the responses that were held back, and answers later commands right away. */
+    synchronized void releaseResponses() {
+      holdResponses = false;
+      heldResponses.forEach(Runnable::run);
+      heldResponses.clear();
+    }
+
+    private synchronized boolean holdResponse(ChannelHandlerContext ctx, ByteBuf response) {
+      if (holdResponses) {
+        heldResponses.add(() -> ctx.writeAndFlush(response));
+      }
+      return holdResponses;
+    }
+
+    @Override
+    public void channelActive(ChannelHandlerContext ctx) throws Exception {
+      ChannelFuture unusedFuture = ctx.writeAndFlush(EppUtils.docToByteBuf(EppUtils.getGreeting()));
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+      ByteBuf buf = (ByteBuf) msg;
+      byte[] bytes = new byte[buf.readableBytes()];
+      buf.readBytes(bytes);
+      ReferenceCountUtil.release(msg);
+      Document request = EppMessage.byteArrayToXmlDoc(bytes);
+      String clTrid = EppMessage.getElementValue(request, "//eppns:clTRID");
+      String domain = EppMessage.getElementValue(request, "//domainns:name");
+      String response;
+      boolean isSessionCommand = false;
+      boolean isCheck = false;
+      if (EppMessage.getElementValue(request, "count(//eppns:login)").equals("1")) {
+        logins.incrementAndGet();
+        isSessionCommand = true;
+        response = createResponse(loginCode, "", clTrid);
+      } else if (EppMessage.getElementValue(request, "count(//eppns:logout)").equals("1")) {
+        logouts.incrementAndGet();
+        isSessionCommand = true;
+        response = createResponse("1500", "", clTrid);
+      } else if (EppMessage.getElementValue(request, "count(//domainns:check)").equals("1")) {
+        isCheck = true;
+        response =
+            createResponse(
+                "1000",
+                String.format(
+                    "<resData><domain:chkData><domain:cd><domain:name avail='1'>%s</domain:name>"
+                        + "</domain:cd></domain:chkData></resData>",
+                    domain),
+                clTrid);
+      } else if (EppMessage.getElementValue(request, "count(//domainns:create)").equals("1")) {
+        String expirationDate = new LocalDate(2030, 1, 1).toString();
+        expirationDates.put(domain, expirationDate);
+        response = createResponse("1000", createData("creData", domain, expirationDate), clTrid);
+      } else if (EppMessage.getElementValue(request, "count(//domainns:renew)").equals("1")) {
+        String currentExpirationDate = expirationDates.get(domain);
+        String sentExpirationDate = EppMessage.getElementValue(request, "//domainns:curExpDate");
+        if (currentExpirationDate == null) {
+          response = createResponse("2303", "", clTrid);
+        } else if (!currentExpirationDate.equals(sentExpirationDate)) {
+          wrongExpirationDates.incrementAndGet();
+          response = createResponse("2306", "", clTrid);
+        } else {
+          String expirationDate = LocalDate.parse(currentExpirationDate).plusYears(1).toString();
+          expirationDates.put(domain, expirationDate);
+          response = createResponse("1000", createData("renData", domain, expirationDate), clTrid);
+        }
+      } else if (EppMessage.getElementValue(request, "count(//domainns:info)").equals("1")) {
+        response =
+            createResponse(expirationDates.containsKey(domain) ? "1000" : "2303", "", clTrid);
+      } else {
+        // Transfer queries of domains without a pending transfer fail on a real server too.
+        response = createResponse("2002", "", clTrid);
+      }
+      ByteBuf responseBuf = Unpooled.wrappedBuffer(response.getBytes(UTF_8));
+      if (!isSessionCommand && holdResponse(ctx, responseBuf)) {
+        return;
+      }
+      ChannelFuture written = ctx.writeAndFlush(responseBuf);
+      if (isCheck && dropConnectionAfterFirstCheck.compareAndSet(true, false)) {
+        written.addListener(ChannelFutureListener.CLOSE);
+      }
+    }
+
+    private static String createResponse(String code, String resData, String clTrid) {
+      return String.format(RESPONSE_TEMPLATE, code, resData, clTrid);
+    }
+
+    private static String createData(String type, String domain, String expirationDate) {
+      String crDate =
+          type.equals("creData") ? "<domain:crDate>2029-01-01T00:00:00Z</domain:crDate>" : "";
+      return String.format(
+          "<resData><domain:%1$s><domain:name>%2$s</domain:name>%3$s"
+              + "<domain:exDate>%4$sT00:00:00.000Z</domain:exDate></domain:%1$s></resData>",
+          type, domain, crDate, expirationDate);
+    }
+  }
+}
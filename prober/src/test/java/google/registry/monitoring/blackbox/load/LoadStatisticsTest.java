@@ -0,0 +1,78 @@
+// Copyright 2023 The Nomulus Authors. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package google.registry.monitoring.blackbox.load;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import google.registry.monitoring.blackbox.load.LoadStatistics.Outcome;
+import java.util.concurrent.TimeUnit;
+import org.joda.time.Duration;
+import org.junit.jupiter.api.Test;
+
+/** Unit tests for {@link LoadStatistics}. */
+class LoadStatisticsTest {
+
+  private final LoadStatistics statistics = new LoadStatistics();
+
+  private static long millis(long millis) {
+    return TimeUnit.MILLISECONDS.toNanos(millis);
+  }
+
+  @Test
+  void testCounts() {
+    statistics.recordSent(LoadCommand.CHECK, Outcome.OK, 0, 0, millis(1));
+    statistics.recordSent(LoadCommand.CHECK, Outcome.FAILED, 0, 0, millis(1));
+    statistics.recordSent(LoadCommand.CREATE, Outcome.OK, 0, 0, millis(1));
+    statistics.recordSent(LoadCommand.CREATE, Outcome.ERROR, 0, 0, millis(1));
+    statistics.recordDropped(LoadCommand.CREATE);
+
+    assertThat(statistics.getCount(LoadCommand.CHECK, Outcome.OK)).isEqualTo(1);
+    assertThat(statistics.getCount(LoadCommand.CHECK, Outcome.FAILED)).isEqualTo(1);
+    assertThat(statistics.getCount(LoadCommand.CREATE, Outcome.DROPPED)).isEqualTo(1);
+    assertThat(statistics.getCount(Outcome.OK)).isEqualTo(2);
+    assertThat(statistics.getTotalCount()).isEqualTo(5);
+  }
+
+  @Test
+  void testResponseTime_measuredFromScheduledTime() {
+    // Sent 90ms late because no session was free, then answered 10ms later.
+    statistics.recordSent(LoadCommand.INFO, Outcome.OK, 0, millis(90), millis(100));
+
+    assertThat(statistics.getResponseTimeMillis(LoadCommand.INFO, 50)).isWithin(0.1).of(100);
+    assertThat(statistics.getReport(Duration.standardSeconds(1)))
+        .containsMatch("info +1 +0 +0 +0 +100\\.\\d+ .* 10\\.\\d+ +10\\.\\d+");
+  }
+
+  @Test
+  void testResponseTime_errorsAreNotRecorded() {
+    statistics.recordSent(LoadCommand.RENEW, Outcome.OK, 0, 0, millis(5));
+    statistics.recordSent(LoadCommand.RENEW, Outcome.ERROR, 0, 0, millis(30000));
+
+    assertThat(statistics.getResponseTimeMillis(LoadCommand.RENEW, 100)).isWithin(0.1).of(5);
+  }
+
+  @Test
+  void testReport_onlyIncludesScheduledCommands() {
+    statistics.recordSent(LoadCommand.CHECK, Outcome.OK, 0, 0, millis(1));
+    statistics.recordDropped(LoadCommand.TRANSFER);
+
+    String report = statistics.getReport(Duration.standardSeconds(2));
+
+    assertThat(report).contains("check");
+    assertThat(report).contains("transfer");
+    assertThat(report).doesNotContain("create");
+    assertThat(report).contains("1 responses (0.5/s), 1 ok, 0 failed, 0 errors, 1 dropped");
+  }
+}
@@ -0,0 +1,188 @@
+// Copyright 2023 The Nomulus Authors. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package google.registry.processors;
+
+import static com.google.common.collect.ImmutableList.toImmutableList;
+
+import com.google.common.base.Joiner;
+import com.google.common.collect.ImmutableList;
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.FieldSpec;
+import com.squareup.javapoet.JavaFile;
+import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.ParameterizedTypeName;
+import com.squareup.javapoet.TypeName;
+import com.squareup.javapoet.TypeSpec;
+import com.squareup.javapoet.WildcardTypeName;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Set;
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.annotation.processing.SupportedSourceVersion;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Types;
+
+/**
+ * Processor to generate a {@code FieldAccessor} for every {@code ImmutableObject} subclass.
+ *
+ * <p>The generated accessor reads the non-private instance fields that the class itself declares,
+ * so that {@code ModelUtils} can read the fields of model objects without reflection. Fields
+ * inherited from a superclass are read by the accessor of that superclass, which is generated in
+ * the same package as the superclass and can therefore also read its package-private fields.
+ * Private fields, and classes that cannot be referenced from their own package, are left to
+ * reflection.
+ */
+@SupportedAnnotationTypes("*")
+@SupportedSourceVersion(SourceVersion.RELEASE_8)
+public class FieldAccessorProcessor extends AbstractProcessor {
+
+  private static final String IMMUTABLE_OBJECT_CLASS_NAME = "google.registry.model.ImmutableObject";
+
+  private static final ClassName FIELD_ACCESSOR =
+      ClassName.get("google.registry.model", "FieldAccessor");
+
+  private static final String ACCESSOR_CLASS_NAME_TEMP = "FieldAccessor_%s";
+
+  @Override
+  public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+    TypeElement immutableObject =
+        processingEnv.getElementUtils().getTypeElement(IMMUTABLE_OBJECT_CLASS_NAME);
+    if (immutableObject == null) {
+      // Not compiling against the model, so there is nothing to generate.
+      return false;
+    }
+    Deque<TypeElement> typeElements =
+        new ArrayDeque<>(ElementFilter.typesIn(roundEnv.getRootElements()));
+    while (!typeElements.isEmpty()) {
+      TypeElement typeElement = typeElements.removeFirst();
+      // Nested classes of private classes can't be referenced either, so don't look into those.
+      if (typeElement.getModifiers().contains(Modifier.PRIVATE)) {
+        continue;
+      }
+      typeElements.addAll(ElementFilter.typesIn(typeElement.getEnclosedElements()));
+      if (typeElement.getKind() == ElementKind.CLASS
+          && !typeElement.equals(immutableObject)
+          && isSubclass(typeElement, immutableObject)) {
+        ImmutableList<VariableElement> fields = getAccessibleInstanceFields(typeElement);
+        if (!fields.isEmpty()) {
+          try {
+            createJavaFile(typeElement, fields).writeTo(processingEnv.getFiler());
+          } catch (IOException e) {
+            throw new UncheckedIOException(e);
+          }
+        }
+      }
+    }
+    return false;
+  }
+
+  private boolean isSubclass(TypeElement typeElement, TypeElement superclass) {
+    Types types = processingEnv.getTypeUtils();
+    return types.isSubtype(types.erasure(typeElement.asType()), types.erasure(superclass.asType()));
+  }
+
+  private static ImmutableList<VariableElement> getAccessibleInstanceFields(
+      TypeElement typeElement) {
+    return ElementFilter.fieldsIn(typeElement.getEnclosedElements()).stream()
+        .filter(field -> !field.getModifiers().contains(Modifier.STATIC))
+        .filter(field -> !field.getModifiers().contains(Modifier.PRIVATE))
+        .collect(toImmutableList());
+  }
+
+  private static JavaFile createJavaFile(
+      TypeElement typeElement, ImmutableList<VariableElement> fields) {
+    ClassName className = ClassName.get(typeElement);
+    TypeName instanceType = className;
+    int typeParameterCount = typeElement.getTypeParameters().size();
+    if (typeParameterCount > 0) {
+      TypeName[] wildcards = new TypeName[typeParameterCount];
+      for (int i = 0; i < typeParameterCount; i++) {
+        wildcards[i] = WildcardTypeName.subtypeOf(Object.class);
+      }
+      instanceType = ParameterizedTypeName.get(className, wildcards);
+    }
+    TypeName fieldNamesType =
+        ParameterizedTypeName.get(ClassName.get(ImmutableList.class), ClassName.get(String.class));
+
+    CodeBlock.Builder fieldNames = CodeBlock.builder().add("$T.of(", ImmutableList.class);
+    CodeBlock.Builder fieldSwitch =
+        CodeBlock.builder()
+            .addStatement("$T typedInstance = ($T) instance", instanceType, instanceType)
+            .beginControlFlow("switch (index)");
+    for (int i = 0; i < fields.size(); i++) {
+      String fieldName = fields.get(i).getSimpleName().toString();
+      fieldNames.add(i == 0 ? "$S" : ", $S", fieldName);
+      fieldSwitch.add("case $L:\n", i).indent();
+      fieldSwitch.addStatement("return typedInstance.$N", fieldName).unindent();
+    }
+    fieldSwitch
+        .add("default:\n")
+        .indent()
+        .addStatement(
+            "throw new $T(\"No field \" + index + \" in $L\")",
+            IndexOutOfBoundsException.class,
+            className.simpleName())
+        .unindent()
+        .endControlFlow();
+
+    TypeSpec accessor =
+        TypeSpec.classBuilder(String.format(ACCESSOR_CLASS_NAME_TEMP, getFlatName(className)))
+            .addModifiers(Modifier.PUBLIC, Modifier.FINAL)
+            .addSuperinterface(FIELD_ACCESSOR)
+            .addField(
+                FieldSpec.builder(
+                        fieldNamesType,
+                        "FIELD_NAMES",
+                        Modifier.PRIVATE,
+                        Modifier.STATIC,
+                        Modifier.FINAL)
+                    .initializer(fieldNames.add(")").build())
+                    .build())
+            .addMethod(MethodSpec.constructorBuilder().addModifiers(Modifier.PUBLIC).build())
+            .addMethod(
+                MethodSpec.methodBuilder("getFieldNames")
+                    .addAnnotation(Override.class)
+                    .addModifiers(Modifier.PUBLIC)
+                    .returns(fieldNamesType)
+                    .addStatement("return FIELD_NAMES")
+                    .build())
+            .addMethod(
+                MethodSpec.methodBuilder("get")
+                    .addAnnotation(Override.class)
+                    .addModifiers(Modifier.PUBLIC)
+                    .returns(Object.class)
+                    .addParameter(Object.class, "instance")
+                    .addParameter(int.class, "index")
+                    .addCode(fieldSwitch.build())
+                    .build())
+            .build();
+    return JavaFile.builder(className.packageName(), accessor).build();
+  }
+
+  /** Returns the simple names of a class and its enclosing classes, joined by underscores. */
+  private static String getFlatName(ClassName className) {
+    return Joiner.on('_').join(className.simpleNames());
+  }
+}